@@ -0,0 +1,175 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralabbench;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import de.uni_koblenz.jgralab.Graph;
+import de.uni_koblenz.jgralab.GraphIO;
+import de.uni_koblenz.jgralab.ImplementationType;
+import de.uni_koblenz.jgralab.Vertex;
+import de.uni_koblenz.jgralab.exception.GraphIOException;
+import de.uni_koblenz.jgralab.schema.EdgeClass;
+import de.uni_koblenz.jgralab.schema.Schema;
+import de.uni_koblenz.jgralab.schema.VertexClass;
+import de.uni_koblenz.jgralab.schema.codegenerator.CodeGeneratorConfiguration;
+import de.uni_koblenz.jgralab.schema.impl.compilation.SchemaClassManager;
+
+/**
+ * Provides the schema and the synthetic graphs used by the benchmarks.
+ *
+ * The schema is embedded as TG text and compiled in memory once per
+ * implementation type, so the benchmarks don't depend on generated sources.
+ * Graphs are created from a fixed random seed, so that two runs with the same
+ * size produce identical graphs.
+ *
+ * A graph of size <code>n</code> contains <code>n</code> vertices. Every
+ * tenth vertex is a <code>Hub</code>, all others are <code>Leaf</code>s which
+ * are contained in a randomly chosen hub. Additionally, every vertex has
+ * {@link #LINKS_PER_VERTEX} outgoing <code>Link</code> edges to randomly
+ * chosen vertices.
+ */
+public final class BenchmarkGraphs {
+	public static final int LINKS_PER_VERTEX = 3;
+	public static final long SEED = 4711L;
+
+	private static final String SCHEMA_TEMPLATE = "TGraph 2;\n"
+			+ "Schema de.uni_koblenz.jgralabbench.schemas.%s.BenchmarkSchema;\n"
+			+ "GraphClass BenchmarkGraph { name: String };\n"
+			+ "abstract VertexClass Node { name: String, weight: Integer };\n"
+			+ "VertexClass Hub: Node { capacity: Integer };\n"
+			+ "VertexClass Leaf: Node;\n"
+			+ "EdgeClass Link from Node (0,*) role source to Node (0,*) role target { cost: Double };\n"
+			+ "EdgeClass Contains from Hub (0,1) role hub to Leaf (0,*) role leaves aggregation composite;\n";
+
+	private static final Map<ImplementationType, Schema> schemas = new EnumMap<>(
+			ImplementationType.class);
+
+	private BenchmarkGraphs() {
+	}
+
+	/**
+	 * @param implementationType
+	 *            the implementation type the schema has to support
+	 * @return the benchmark schema for <code>implementationType</code>; for
+	 *         STANDARD and COMPACT the schema is compiled on first access
+	 */
+	public static synchronized Schema getSchema(
+			ImplementationType implementationType) {
+		Schema schema = schemas.get(implementationType);
+		if (schema != null) {
+			return schema;
+		}
+		String text = String.format(SCHEMA_TEMPLATE, implementationType
+				.name().toLowerCase());
+		try {
+			schema = GraphIO.loadSchemaFromStream(new ByteArrayInputStream(
+					text.getBytes()));
+			if (implementationType != ImplementationType.GENERIC) {
+				CodeGeneratorConfiguration config = new CodeGeneratorConfiguration(
+						CodeGeneratorConfiguration.MINIMAL);
+				if (implementationType == ImplementationType.COMPACT) {
+					config.setCompactImplementation(true);
+				}
+				schema.compile(config);
+				String qn = schema.getQualifiedName();
+				Class<?> schemaClass = Class.forName(qn, true,
+						SchemaClassManager.instance(qn));
+				schema = (Schema) schemaClass.getMethod("instance").invoke(
+						null);
+			}
+		} catch (GraphIOException e) {
+			throw new RuntimeException("Can't load benchmark schema", e);
+		} catch (ReflectiveOperationException e) {
+			throw new RuntimeException("Can't compile benchmark schema", e);
+		}
+		schemas.put(implementationType, schema);
+		return schema;
+	}
+
+	/**
+	 * Creates a synthetic graph with <code>size</code> vertices.
+	 *
+	 * @param implementationType
+	 *            the implementation type of the graph
+	 * @param size
+	 *            number of vertices
+	 * @return the new graph
+	 */
+	public static Graph createGraph(ImplementationType implementationType,
+			int size) {
+		Schema schema = getSchema(implementationType);
+		VertexClass hubClass = schema.getGraphClass().getVertexClass("Hub");
+		VertexClass leafClass = schema.getGraphClass().getVertexClass("Leaf");
+		EdgeClass linkClass = schema.getGraphClass().getEdgeClass("Link");
+		EdgeClass containsClass = schema.getGraphClass().getEdgeClass(
+				"Contains");
+
+		Graph g = schema.createGraph(implementationType, "BenchmarkGraph"
+				+ size, size, size * (LINKS_PER_VERTEX + 1));
+		g.setAttribute("name", "BenchmarkGraph" + size);
+
+		Random rnd = new Random(SEED);
+		List<Vertex> hubs = new ArrayList<>(size / 10 + 1);
+		Vertex[] vertices = new Vertex[size];
+		for (int i = 0; i < size; ++i) {
+			Vertex v;
+			if (i % 10 == 0) {
+				v = g.createVertex(hubClass);
+				v.setAttribute("capacity", rnd.nextInt(1000));
+				hubs.add(v);
+			} else {
+				v = g.createVertex(leafClass);
+				g.createEdge(containsClass, hubs.get(rnd.nextInt(hubs.size())),
+						v);
+			}
+			v.setAttribute("name", "n" + i);
+			v.setAttribute("weight", rnd.nextInt(100));
+			vertices[i] = v;
+		}
+		for (Vertex v : vertices) {
+			for (int j = 0; j < LINKS_PER_VERTEX; ++j) {
+				g.createEdge(linkClass, v, vertices[rnd.nextInt(size)])
+						.setAttribute("cost", rnd.nextDouble());
+			}
+		}
+		return g;
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralabbench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.uni_koblenz.jgralab.Graph;
+import de.uni_koblenz.jgralab.GraphIO;
+import de.uni_koblenz.jgralab.ImplementationType;
+import de.uni_koblenz.jgralab.exception.GraphIOException;
+
+/**
+ * Measures saving and loading of graphs in the textual TG format and in the
+ * binary TGB format.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GraphIOBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class IOState {
+		@Param({ "100000" })
+		public int size;
+
+		@Param({ "STANDARD", "COMPACT", "GENERIC" })
+		public ImplementationType implementation;
+
+		@Param({ ".tg", ".tg.gz", ".tgb" })
+		public String format;
+
+		public Graph graph;
+		public File directory;
+		public String loadFile;
+		public String saveFile;
+
+		@Setup(Level.Trial)
+		public void setUp() throws IOException, GraphIOException {
+			graph = BenchmarkGraphs.createGraph(implementation, size);
+			directory = Files.createTempDirectory("jgralabbench").toFile();
+			loadFile = new File(directory, "load" + format).getPath();
+			saveFile = new File(directory, "save" + format).getPath();
+			GraphIO.saveGraphToFile(graph, loadFile, null);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			for (File f : directory.listFiles()) {
+				f.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	@Benchmark
+	public void save(IOState state) throws GraphIOException {
+		GraphIO.saveGraphToFile(state.graph, state.saveFile, null);
+	}
+
+	@Benchmark
+	public Graph load(IOState state) throws GraphIOException {
+		return GraphIO.loadGraphFromFile(state.loadFile,
+				BenchmarkGraphs.getSchema(state.implementation),
+				state.implementation, null);
+	}
+}
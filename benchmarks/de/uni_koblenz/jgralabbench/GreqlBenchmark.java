@@ -0,0 +1,128 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralabbench;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.uni_koblenz.jgralab.greql.GreqlQuery;
+import de.uni_koblenz.jgralab.greql.optimizer.DefaultOptimizer;
+import de.uni_koblenz.jgralab.greql.optimizer.DefaultOptimizerInfo;
+import de.uni_koblenz.jgralab.greql.parser.GreqlParser;
+import de.uni_koblenz.jgralab.greql.schema.GreqlGraph;
+
+/**
+ * Measures the three phases of GReQL query processing separately: parsing
+ * into a query graph, parsing plus optimization, and evaluation of an already
+ * optimized query.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GreqlBenchmark {
+
+	/**
+	 * The benchmark queries by name. The names are used as JMH parameter
+	 * values, since query texts contain commas.
+	 */
+	public static final Map<String, String> QUERIES = new HashMap<>();
+
+	static {
+		QUERIES.put("count", "count(V{Hub})");
+		QUERIES.put("filter",
+				"from v: V{Node} with v.weight > 50 reportSet v.name end");
+		QUERIES.put("join", "from h: V{Hub}, l: h -->{Contains}"
+				+ " with l.weight > h.weight reportSet h, l end");
+		QUERIES.put("aggregate", "from h: V{Hub} reportMap h -> "
+				+ "sum(from l: h -->{Contains} reportList l.weight end) end");
+		QUERIES.put("reachability", "let start := firstVertex() in "
+				+ "count(start -->{Link}*)");
+	}
+
+	@State(Scope.Benchmark)
+	public static class QueryState {
+		@Param({ "count", "filter", "join", "aggregate", "reachability" })
+		public String query;
+
+		public String queryText;
+		public GreqlQuery optimizedQuery;
+		public DefaultOptimizerInfo optimizerInfo;
+
+		@Setup(Level.Trial)
+		public void setUp(GraphState graphState) {
+			queryText = QUERIES.get(query);
+			if (queryText == null) {
+				throw new IllegalArgumentException("Unknown query '" + query
+						+ "'");
+			}
+			optimizerInfo = new DefaultOptimizerInfo(graphState.graph
+					.getSchema());
+			optimizedQuery = GreqlQuery.createQuery(queryText,
+					new DefaultOptimizer(optimizerInfo));
+		}
+	}
+
+	@Benchmark
+	public GreqlGraph parse(QueryState state) {
+		return GreqlParser.parse(state.queryText);
+	}
+
+	@Benchmark
+	public GreqlQuery parseAndOptimize(QueryState state) {
+		return GreqlQuery.createQuery(state.queryText, new DefaultOptimizer(
+				state.optimizerInfo));
+	}
+
+	@Benchmark
+	public Object evaluate(GraphState graphState, QueryState state) {
+		return state.optimizedQuery.evaluate(graphState.graph);
+	}
+}
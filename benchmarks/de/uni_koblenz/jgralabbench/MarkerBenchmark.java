@@ -0,0 +1,128 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralabbench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.uni_koblenz.jgralab.Edge;
+import de.uni_koblenz.jgralab.Vertex;
+import de.uni_koblenz.jgralab.graphmarker.ArrayVertexMarker;
+import de.uni_koblenz.jgralab.graphmarker.BitSetEdgeMarker;
+import de.uni_koblenz.jgralab.graphmarker.BitSetVertexMarker;
+import de.uni_koblenz.jgralab.graphmarker.IntegerVertexMarker;
+
+/**
+ * Measures marking and mark lookup for the array and bitset based graph
+ * markers. Each invocation creates a fresh marker, marks every element and
+ * reads all marks back.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarkerBenchmark {
+
+	@Benchmark
+	public int bitSetVertexMarker(GraphState state) {
+		BitSetVertexMarker marker = new BitSetVertexMarker(state.graph);
+		for (Vertex v : state.graph.vertices()) {
+			if ((v.getId() & 1) == 0) {
+				marker.mark(v);
+			}
+		}
+		int count = 0;
+		for (Vertex v : state.graph.vertices()) {
+			if (marker.isMarked(v)) {
+				++count;
+			}
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int bitSetEdgeMarker(GraphState state) {
+		BitSetEdgeMarker marker = new BitSetEdgeMarker(state.graph);
+		for (Edge e : state.graph.edges()) {
+			if ((e.getId() & 1) == 0) {
+				marker.mark(e);
+			}
+		}
+		int count = 0;
+		for (Edge e : state.graph.edges()) {
+			if (marker.isMarked(e)) {
+				++count;
+			}
+		}
+		return count;
+	}
+
+	@Benchmark
+	public long integerVertexMarker(GraphState state) {
+		IntegerVertexMarker marker = new IntegerVertexMarker(state.graph);
+		for (Vertex v : state.graph.vertices()) {
+			marker.mark(v, v.getDegree());
+		}
+		long sum = 0;
+		for (Vertex v : state.graph.vertices()) {
+			sum += marker.getMark(v);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public int arrayVertexMarker(GraphState state) {
+		ArrayVertexMarker<Vertex> marker = new ArrayVertexMarker<>(
+				state.graph);
+		for (Vertex v : state.graph.vertices()) {
+			Vertex first = v.getFirstIncidence() == null ? v : v
+					.getFirstIncidence().getThat();
+			marker.mark(v, first);
+		}
+		int sum = 0;
+		for (Vertex v : state.graph.vertices()) {
+			sum += marker.getMark(v).getId();
+		}
+		return sum;
+	}
+}
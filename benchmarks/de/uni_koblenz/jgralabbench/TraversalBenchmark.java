@@ -0,0 +1,156 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralabbench;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.uni_koblenz.jgralab.Edge;
+import de.uni_koblenz.jgralab.EdgeDirection;
+import de.uni_koblenz.jgralab.Vertex;
+import de.uni_koblenz.jgralab.schema.EdgeClass;
+import de.uni_koblenz.jgralab.schema.VertexClass;
+
+/**
+ * Measures the basic traversal operations: iteration over the vertex, edge
+ * and incidence sequences (with and without type filters), attribute access
+ * and a breadth first search over all edges.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraversalBenchmark {
+
+	@Benchmark
+	public int iterateVertices(GraphState state) {
+		int sum = 0;
+		for (Vertex v : state.graph.vertices()) {
+			sum += v.getId();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public int iterateVerticesOfClass(GraphState state) {
+		VertexClass hub = state.graph.getGraphClass().getVertexClass("Hub");
+		int sum = 0;
+		for (Vertex v : state.graph.vertices(hub)) {
+			sum += v.getId();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public int iterateEdges(GraphState state) {
+		int sum = 0;
+		for (Edge e : state.graph.edges()) {
+			sum += e.getId();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public int iterateEdgesOfClass(GraphState state) {
+		EdgeClass contains = state.graph.getGraphClass().getEdgeClass(
+				"Contains");
+		int sum = 0;
+		for (Edge e : state.graph.edges(contains)) {
+			sum += e.getId();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public void iterateIncidences(GraphState state, Blackhole bh) {
+		for (Vertex v : state.graph.vertices()) {
+			for (Edge e : v.incidences()) {
+				bh.consume(e.getThat());
+			}
+		}
+	}
+
+	@Benchmark
+	public void iterateOutgoingLinks(GraphState state, Blackhole bh) {
+		EdgeClass link = state.graph.getGraphClass().getEdgeClass("Link");
+		for (Vertex v : state.graph.vertices()) {
+			for (Edge e : v.incidences(link, EdgeDirection.OUT)) {
+				bh.consume(e.getOmega());
+			}
+		}
+	}
+
+	@Benchmark
+	public long readAttributes(GraphState state) {
+		long sum = 0;
+		for (Vertex v : state.graph.vertices()) {
+			sum += v.<Integer> getAttribute("weight");
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public int breadthFirstSearch(GraphState state) {
+		BitSet visited = new BitSet();
+		ArrayDeque<Vertex> queue = new ArrayDeque<>();
+		Vertex start = state.graph.getFirstVertex();
+		visited.set(start.getId());
+		queue.add(start);
+		int count = 0;
+		while (!queue.isEmpty()) {
+			Vertex v = queue.poll();
+			++count;
+			for (Edge e : v.incidences()) {
+				Vertex w = e.getThat();
+				if (!visited.get(w.getId())) {
+					visited.set(w.getId());
+					queue.add(w);
+				}
+			}
+		}
+		return count;
+	}
+}
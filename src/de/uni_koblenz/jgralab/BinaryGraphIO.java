@@ -0,0 +1,840 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.uni_koblenz.jgralab.exception.GraphIOException;
+import de.uni_koblenz.jgralab.impl.GraphBaseImpl;
+import de.uni_koblenz.jgralab.impl.InternalAttributedElement;
+import de.uni_koblenz.jgralab.impl.InternalGraph;
+import de.uni_koblenz.jgralab.schema.Attribute;
+import de.uni_koblenz.jgralab.schema.AttributedElementClass;
+import de.uni_koblenz.jgralab.schema.BooleanDomain;
+import de.uni_koblenz.jgralab.schema.Domain;
+import de.uni_koblenz.jgralab.schema.DoubleDomain;
+import de.uni_koblenz.jgralab.schema.EdgeClass;
+import de.uni_koblenz.jgralab.schema.IntegerDomain;
+import de.uni_koblenz.jgralab.schema.LongDomain;
+import de.uni_koblenz.jgralab.schema.Schema;
+import de.uni_koblenz.jgralab.schema.StringDomain;
+import de.uni_koblenz.jgralab.schema.VertexClass;
+
+/**
+ * Reads and writes graphs in the binary TG format. Files with the extension
+ * {@link GraphIO#TGRAPH_BINARY_FILE_EXTENSION} are routed here by
+ * {@link GraphIO#saveGraphToFile(Graph, String, ProgressFunction)} and the
+ * <code>loadGraphFromFile</code> methods of {@link GraphIO}.
+ * 
+ * A binary TG file consists of
+ * <ol>
+ * <li>a header: magic number, format version, the offset of the string table,
+ * the SHA-1 hash and the TG text of the schema,</li>
+ * <li>the graph header: graph id, graph version, maxV, maxE, vCount, eCount,
+ * and a table of the qualified names of all used classes,</li>
+ * <li>fixed-width int arrays of vertex ids, vertex class indexes, incidence
+ * counts and incidences followed by the edge ids and edge class indexes,</li>
+ * <li>one block per class which holds one column per attribute, the values of
+ * all elements of that class in sequence order,</li>
+ * <li>the string table, i.e., all distinct strings in UTF-8.</li>
+ * </ol>
+ * Boolean, Integer, Long and Double attributes are stored in their binary
+ * representation, String attributes as references into the string table. All
+ * other attributes are stored as references to their TG text.
+ * 
+ * Files are read through a sliding {@link MappedByteBuffer} window, the id
+ * and incidence arrays are read in bulk.
+ */
+final class BinaryGraphIO {
+	/**
+	 * "TGB" followed by a zero byte
+	 */
+	private static final int MAGIC = 0x54474200;
+	private static final int FORMAT_VERSION = 1;
+
+	/**
+	 * position of the string table offset in the file header
+	 */
+	private static final int STRING_TABLE_OFFSET_POSITION = 8;
+	private static final int SCHEMA_HASH_LENGTH = 20;
+
+	private static final int WRITE_BUFFER_SIZE = 65536;
+	private static final long MAP_WINDOW_SIZE = 64 * 1024 * 1024;
+
+	private static final byte KIND_BOOLEAN = 0;
+	private static final byte KIND_INTEGER = 1;
+	private static final byte KIND_LONG = 2;
+	private static final byte KIND_DOUBLE = 3;
+	private static final byte KIND_STRING = 4;
+	private static final byte KIND_TEXT = 5;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private BinaryGraphIO() {
+	}
+
+	static void saveGraphToFile(Graph graph, String filename,
+			ProgressFunction pf) throws GraphIOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(filename),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			new Writer(channel).saveGraph(graph, pf);
+		} catch (IOException ex) {
+			throw new GraphIOException("Exception while saving graph to "
+					+ filename, ex);
+		}
+	}
+
+	static <G extends Graph> G loadGraphFromFile(String filename,
+			GraphFactory graphFactory, ImplementationType implementationType,
+			ProgressFunction pf, ClassLoader schemaClassLoader)
+			throws GraphIOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(filename),
+				StandardOpenOption.READ)) {
+			Reader reader = new Reader(channel, filename);
+			@SuppressWarnings("unchecked")
+			G graph = (G) reader.loadGraph(graphFactory, implementationType,
+					pf, schemaClassLoader);
+			return graph;
+		} catch (GraphIOException ex) {
+			throw ex;
+		} catch (BufferUnderflowException ex) {
+			throw new GraphIOException("Unexpected end of file " + filename,
+					ex);
+		} catch (Exception ex) {
+			throw new GraphIOException(
+					"Exception while loading graph from file " + filename, ex);
+		}
+	}
+
+	private static byte[] schemaHash(byte[] schemaText) {
+		try {
+			return MessageDigest.getInstance("SHA-1").digest(schemaText);
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static byte kindOf(Domain domain) {
+		if (domain instanceof BooleanDomain) {
+			return KIND_BOOLEAN;
+		} else if (domain instanceof IntegerDomain) {
+			return KIND_INTEGER;
+		} else if (domain instanceof LongDomain) {
+			return KIND_LONG;
+		} else if (domain instanceof DoubleDomain) {
+			return KIND_DOUBLE;
+		} else if (domain instanceof StringDomain) {
+			return KIND_STRING;
+		}
+		return KIND_TEXT;
+	}
+
+	private static final class Writer {
+		private final FileChannel channel;
+		private final ByteBuffer buffer;
+		private final Map<String, Integer> stringIds;
+		private final List<String> strings;
+		private final Map<AttributedElementClass<?, ?>, Integer> classIds;
+		private final List<AttributedElementClass<?, ?>> classes;
+
+		Writer(FileChannel channel) {
+			this.channel = channel;
+			buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+			stringIds = new HashMap<>();
+			strings = new ArrayList<>();
+			classIds = new HashMap<>();
+			classes = new ArrayList<>();
+		}
+
+		void saveGraph(Graph graph, ProgressFunction pf) throws IOException,
+				GraphIOException {
+			long graphElements = 0, currentCount = 0, interval = 1;
+			if (pf != null) {
+				pf.init(graph.getVCount() + graph.getECount());
+				interval = pf.getUpdateInterval();
+			}
+
+			byte[] schemaText = GraphIO.saveSchemaToByteArray(graph
+					.getSchema());
+			putInt(MAGIC);
+			putInt(FORMAT_VERSION);
+			putLong(0); // string table offset, patched when finished
+			putBytes(schemaHash(schemaText));
+			putInt(schemaText.length);
+			putBytes(schemaText);
+
+			int vCount = graph.getVCount();
+			int eCount = graph.getECount();
+			putInt(stringId(graph.getId()));
+			putLong(graph.getGraphVersion());
+			putInt(((InternalGraph) graph).getMaxVCount());
+			putInt(((InternalGraph) graph).getMaxECount());
+			putInt(vCount);
+			putInt(eCount);
+
+			// assign class indexes and group elements by class, index 0 is
+			// the graph class
+			List<List<AttributedElement<?, ?>>> members = new ArrayList<>();
+			classId(graph.getAttributedElementClass(), members).add(graph);
+			int[] vIds = new int[vCount];
+			int[] vClasses = new int[vCount];
+			int[] incidenceCounts = new int[vCount];
+			int[] incidences = new int[2 * eCount];
+			int i = 0;
+			int incidenceCount = 0;
+			for (Vertex v : graph.vertices()) {
+				vIds[i] = v.getId();
+				classId(v.getAttributedElementClass(), members).add(v);
+				vClasses[i] = classIds.get(v.getAttributedElementClass());
+				for (Edge e = v.getFirstIncidence(); e != null; e = e
+						.getNextIncidence()) {
+					incidences[incidenceCount++] = e.getId();
+					++incidenceCounts[i];
+				}
+				++i;
+			}
+			int[] eIds = new int[eCount];
+			int[] eClasses = new int[eCount];
+			i = 0;
+			for (Edge e : graph.edges()) {
+				eIds[i] = e.getId();
+				classId(e.getAttributedElementClass(), members).add(e);
+				eClasses[i] = classIds.get(e.getAttributedElementClass());
+				++i;
+			}
+
+			putInt(classes.size());
+			for (AttributedElementClass<?, ?> aec : classes) {
+				putInt(stringId(aec.getQualifiedName()));
+			}
+			putInts(vIds, vCount);
+			putInts(vClasses, vCount);
+			putInts(incidenceCounts, vCount);
+			putInts(incidences, incidenceCount);
+			putInts(eIds, eCount);
+			putInts(eClasses, eCount);
+
+			// attribute blocks, one column per attribute
+			for (int c = 0; c < classes.size(); ++c) {
+				AttributedElementClass<?, ?> aec = classes.get(c);
+				List<AttributedElement<?, ?>> elements = members.get(c);
+				for (Attribute attr : aec.getAttributeList()) {
+					putColumn(attr, elements);
+				}
+				if (pf != null && c > 0) {
+					graphElements += elements.size();
+					currentCount += elements.size();
+					if (currentCount >= interval) {
+						pf.progress(graphElements);
+						currentCount = 0;
+					}
+				}
+			}
+
+			// string table
+			long stringTableOffset = position();
+			putInt(strings.size());
+			for (String s : strings) {
+				byte[] b = s.getBytes(UTF8);
+				putInt(b.length);
+				putBytes(b);
+			}
+			flush();
+			ByteBuffer offset = ByteBuffer.allocate(8);
+			offset.putLong(stringTableOffset).flip();
+			long pos = STRING_TABLE_OFFSET_POSITION;
+			while (offset.hasRemaining()) {
+				pos += channel.write(offset, pos);
+			}
+			if (pf != null) {
+				pf.finished();
+			}
+		}
+
+		private List<AttributedElement<?, ?>> classId(
+				AttributedElementClass<?, ?> aec,
+				List<List<AttributedElement<?, ?>>> members) {
+			Integer id = classIds.get(aec);
+			if (id == null) {
+				id = classes.size();
+				classIds.put(aec, id);
+				classes.add(aec);
+				members.add(new ArrayList<AttributedElement<?, ?>>());
+			}
+			return members.get(id);
+		}
+
+		private int stringId(String s) {
+			if (s == null) {
+				return -1;
+			}
+			Integer id = stringIds.get(s);
+			if (id == null) {
+				id = strings.size();
+				stringIds.put(s, id);
+				strings.add(s);
+			}
+			return id;
+		}
+
+		private void putColumn(Attribute attr,
+				List<AttributedElement<?, ?>> elements) throws IOException,
+				GraphIOException {
+			String name = attr.getName();
+			byte kind = kindOf(attr.getDomain());
+			int n = elements.size();
+			long[] unset = null;
+			for (int i = 0; i < n; ++i) {
+				if (elements.get(i).isUnsetAttribute(name)) {
+					if (unset == null) {
+						unset = new long[(n + 63) >>> 6];
+					}
+					unset[i >>> 6] |= 1L << i;
+				}
+			}
+			putByte(kind);
+			if (unset == null) {
+				putByte((byte) 0);
+			} else {
+				putByte((byte) 1);
+				for (long word : unset) {
+					putLong(word);
+				}
+			}
+			for (int i = 0; i < n; ++i) {
+				AttributedElement<?, ?> el = elements.get(i);
+				boolean isUnset = unset != null
+						&& (unset[i >>> 6] & (1L << i)) != 0;
+				switch (kind) {
+				case KIND_BOOLEAN:
+					putByte(!isUnset && (Boolean) el.getAttribute(name) ? (byte) 1
+							: (byte) 0);
+					break;
+				case KIND_INTEGER:
+					putInt(isUnset ? 0 : (Integer) el.getAttribute(name));
+					break;
+				case KIND_LONG:
+					putLong(isUnset ? 0 : (Long) el.getAttribute(name));
+					break;
+				case KIND_DOUBLE:
+					putDouble(isUnset ? 0 : (Double) el.getAttribute(name));
+					break;
+				case KIND_STRING:
+					putInt(isUnset ? -1 : stringId(el
+							.<String> getAttribute(name)));
+					break;
+				default:
+					putInt(isUnset ? -1 : stringId(((InternalAttributedElement) el)
+							.writeAttributeValueToString(name)));
+				}
+			}
+		}
+
+		private long position() throws IOException {
+			return channel.position() + buffer.position();
+		}
+
+		private void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+
+		private void ensure(int n) throws IOException {
+			if (buffer.remaining() < n) {
+				flush();
+			}
+		}
+
+		private void putByte(byte b) throws IOException {
+			ensure(1);
+			buffer.put(b);
+		}
+
+		private void putInt(int i) throws IOException {
+			ensure(4);
+			buffer.putInt(i);
+		}
+
+		private void putLong(long l) throws IOException {
+			ensure(8);
+			buffer.putLong(l);
+		}
+
+		private void putDouble(double d) throws IOException {
+			ensure(8);
+			buffer.putDouble(d);
+		}
+
+		private void putInts(int[] a, int length) throws IOException {
+			int off = 0;
+			while (off < length) {
+				ensure(4);
+				int n = Math.min(length - off, buffer.remaining() >>> 2);
+				buffer.asIntBuffer().put(a, off, n);
+				buffer.position(buffer.position() + (n << 2));
+				off += n;
+			}
+		}
+
+		private void putBytes(byte[] a) throws IOException {
+			int off = 0;
+			while (off < a.length) {
+				ensure(1);
+				int n = Math.min(a.length - off, buffer.remaining());
+				buffer.put(a, off, n);
+				off += n;
+			}
+		}
+	}
+
+	private static final class Reader {
+		private final FileChannel channel;
+		private final String filename;
+		private final long size;
+		private MappedByteBuffer window;
+		private long windowStart;
+		private String[] strings;
+
+		Reader(FileChannel channel, String filename) throws IOException {
+			this.channel = channel;
+			this.filename = filename;
+			size = channel.size();
+			map(0);
+		}
+
+		GraphBaseImpl loadGraph(GraphFactory graphFactory,
+				ImplementationType implementationType, ProgressFunction pf,
+				ClassLoader schemaClassLoader) throws Exception {
+			if (size < STRING_TABLE_OFFSET_POSITION + 8
+					|| getInt() != MAGIC) {
+				throw new GraphIOException(filename
+						+ " is not a binary TG file");
+			}
+			int version = getInt();
+			if (version != FORMAT_VERSION) {
+				throw new GraphIOException("Can't read binary TG file version "
+						+ version + ". Expected version " + FORMAT_VERSION);
+			}
+			long stringTableOffset = getLong();
+			byte[] hash = getBytes(new byte[SCHEMA_HASH_LENGTH]);
+			byte[] schemaText = getBytes(new byte[getInt()]);
+			long graphOffset = position();
+			readStringTable(stringTableOffset);
+			map(graphOffset);
+
+			Schema schema;
+			if (graphFactory != null) {
+				schema = graphFactory.getSchema();
+				if (!Arrays.equals(hash,
+						schemaHash(GraphIO.saveSchemaToByteArray(schema)))) {
+					throw new GraphIOException("The schema of " + filename
+							+ " doesn't match the schema "
+							+ schema.getQualifiedName());
+				}
+			} else {
+				schema = GraphIO.loadSchemaFromStream(new ByteArrayInputStream(
+						schemaText), filename, schemaClassLoader);
+				schema = GraphIO.instantiateSchema(schema, implementationType,
+						schemaClassLoader);
+			}
+			graphFactory = GraphIO.checkGraphFactory(schema, graphFactory,
+					implementationType);
+
+			String graphId = string(getInt());
+			long graphVersion = getLong();
+			int maxV = getInt();
+			int maxE = getInt();
+			int vCount = getInt();
+			int eCount = getInt();
+			if (vCount > maxV) {
+				throw new GraphIOException("Number of vertices in graph ("
+						+ vCount + ") exceeds maximum number of vertices ("
+						+ maxV + ")");
+			}
+			if (eCount > maxE) {
+				throw new GraphIOException("Number of edges in graph ("
+						+ eCount + ") exceeds maximum number of edges ("
+						+ maxE + ")");
+			}
+
+			AttributedElementClass<?, ?>[] classes = new AttributedElementClass<?, ?>[getInt()];
+			for (int c = 0; c < classes.length; ++c) {
+				String qn = string(getInt());
+				classes[c] = c == 0 ? schema.getGraphClass() : schema
+						.getAttributedElementClass(qn);
+				if (classes[c] == null
+						|| !classes[c].getQualifiedName().equals(qn)) {
+					throw new GraphIOException("Class " + qn
+							+ " does not exist in " + schema.getQualifiedName());
+				}
+			}
+
+			int[] vIds = getInts(vCount);
+			int[] vClasses = getInts(vCount);
+			int[] incidenceCounts = getInts(vCount);
+			int incidenceCount = 0;
+			for (int i = 0; i < vCount; ++i) {
+				incidenceCount += incidenceCounts[i];
+			}
+			int[] incidences = getInts(incidenceCount);
+			int[] eIds = getInts(eCount);
+			int[] eClasses = getInts(eCount);
+
+			long graphElements = 0, currentCount = 0, interval = 1;
+			if (pf != null) {
+				pf.init(vCount + eCount);
+				interval = pf.getUpdateInterval();
+			}
+
+			GraphBaseImpl graph = graphFactory.createGraph(
+					schema.getGraphClass(), graphId, maxV, maxE);
+			graph.setLoading(true);
+
+			Vertex[] edgeIn = new Vertex[maxE + 1];
+			Vertex[] edgeOut = new Vertex[maxE + 1];
+			int[] firstIncidence = new int[maxV + 1];
+			int[] nextIncidence = new int[(2 * maxE) + 1];
+			int edgeOffset = maxE;
+
+			Vertex[] vertices = new Vertex[vCount];
+			int inc = 0;
+			for (int i = 0; i < vCount; ++i) {
+				int vId = vIds[i];
+				if (vId <= 0 || vId > maxV) {
+					throw new GraphIOException("Invalid vertex id " + vId
+							+ ".");
+				}
+				Vertex v = graphFactory.createVertex(
+						(VertexClass) elementClass(classes, vClasses[i]), vId,
+						graph);
+				vertices[i] = v;
+				int prevId = 0;
+				for (int end = inc + incidenceCounts[i]; inc < end; ++inc) {
+					int eId = incidences[inc];
+					if (eId == 0 || eId > maxE || -eId > maxE) {
+						throw new GraphIOException("Invalid edge id " + eId
+								+ ".");
+					}
+					if (prevId == 0) {
+						firstIncidence[vId] = eId;
+					} else {
+						nextIncidence[edgeOffset + prevId] = eId;
+					}
+					if (eId < 0) {
+						edgeIn[-eId] = v;
+					} else {
+						edgeOut[eId] = v;
+					}
+					prevId = eId;
+				}
+				if (pf != null) {
+					graphElements++;
+					currentCount++;
+					if (currentCount == interval) {
+						pf.progress(graphElements);
+						currentCount = 0;
+					}
+				}
+			}
+
+			Edge[] edges = new Edge[eCount];
+			for (int i = 0; i < eCount; ++i) {
+				int eId = eIds[i];
+				if (eId <= 0 || eId > maxE) {
+					throw new GraphIOException("Invalid edge id " + eId + ".");
+				}
+				if (edgeOut[eId] == null || edgeIn[eId] == null) {
+					throw new GraphIOException("Edge " + eId + " has no "
+							+ (edgeOut[eId] == null ? "alpha" : "omega")
+							+ " vertex.");
+				}
+				edges[i] = graphFactory.createEdge(
+						(EdgeClass) elementClass(classes, eClasses[i]), eId,
+						graph, edgeOut[eId], edgeIn[eId]);
+				if (pf != null) {
+					graphElements++;
+					currentCount++;
+					if (currentCount == interval) {
+						pf.progress(graphElements);
+						currentCount = 0;
+					}
+				}
+			}
+
+			// group the elements by class index (counting sort), the
+			// attribute blocks list them in sequence order
+			int[] classStart = new int[classes.length + 1];
+			for (int c : vClasses) {
+				++classStart[c + 1];
+			}
+			for (int c : eClasses) {
+				++classStart[c + 1];
+			}
+			for (int c = 1; c <= classes.length; ++c) {
+				classStart[c] += classStart[c - 1];
+			}
+			AttributedElement<?, ?>[] byClass = new AttributedElement<?, ?>[vCount
+					+ eCount];
+			int[] fill = Arrays.copyOf(classStart, classes.length);
+			for (int i = 0; i < vCount; ++i) {
+				byClass[fill[vClasses[i]]++] = vertices[i];
+			}
+			for (int i = 0; i < eCount; ++i) {
+				byClass[fill[eClasses[i]]++] = edges[i];
+			}
+			readColumns(classes[0], new AttributedElement<?, ?>[] { graph },
+					0, 1);
+			for (int c = 1; c < classes.length; ++c) {
+				readColumns(classes[c], byClass, classStart[c],
+						classStart[c + 1]);
+			}
+
+			graph.setGraphVersion(graphVersion);
+			graph.internalLoadingCompleted(firstIncidence, nextIncidence);
+			graph.setLoading(false);
+			if (pf != null) {
+				pf.finished();
+			}
+			graph.loadingCompleted();
+			return graph;
+		}
+
+		private AttributedElementClass<?, ?> elementClass(
+				AttributedElementClass<?, ?>[] classes, int c)
+				throws GraphIOException {
+			if (c <= 0 || c >= classes.length) {
+				throw new GraphIOException("Invalid class index " + c + ".");
+			}
+			return classes[c];
+		}
+
+		private void readColumns(AttributedElementClass<?, ?> aec,
+				AttributedElement<?, ?>[] elements, int from, int to)
+				throws GraphIOException {
+			int n = to - from;
+			for (Attribute attr : aec.getAttributeList()) {
+				String name = attr.getName();
+				byte kind = getByte();
+				if (kind != kindOf(attr.getDomain())) {
+					throw new GraphIOException("Attribute " + name + " of "
+							+ aec.getQualifiedName()
+							+ " has an unexpected encoding");
+				}
+				long[] unset = null;
+				if (getByte() != 0) {
+					unset = new long[(n + 63) >>> 6];
+					for (int w = 0; w < unset.length; ++w) {
+						unset[w] = getLong();
+					}
+				}
+				for (int i = 0; i < n; ++i) {
+					AttributedElement<?, ?> el = elements[from + i];
+					if (unset != null && (unset[i >>> 6] & (1L << i)) != 0) {
+						skip(kind);
+						((InternalAttributedElement) el)
+								.readAttributeValueFromString(name,
+										GraphIO.UNSET_LITERAL);
+						continue;
+					}
+					switch (kind) {
+					case KIND_BOOLEAN:
+						el.setAttribute(name, getByte() != 0);
+						break;
+					case KIND_INTEGER:
+						el.setAttribute(name, getInt());
+						break;
+					case KIND_LONG:
+						el.setAttribute(name, getLong());
+						break;
+					case KIND_DOUBLE:
+						el.setAttribute(name, getDouble());
+						break;
+					case KIND_STRING:
+						el.setAttribute(name, string(getInt()));
+						break;
+					default:
+						((InternalAttributedElement) el)
+								.readAttributeValueFromString(name,
+										string(getInt()));
+					}
+				}
+			}
+		}
+
+		private void skip(byte kind) {
+			switch (kind) {
+			case KIND_BOOLEAN:
+				getByte();
+				break;
+			case KIND_LONG:
+				getLong();
+				break;
+			case KIND_DOUBLE:
+				getDouble();
+				break;
+			default:
+				getInt();
+			}
+		}
+
+		private void readStringTable(long offset) throws IOException,
+				GraphIOException {
+			if (offset <= 0 || offset >= size) {
+				throw new GraphIOException("Invalid string table offset "
+						+ offset + " in " + filename);
+			}
+			map(offset);
+			strings = new String[getInt()];
+			byte[] b = new byte[256];
+			for (int i = 0; i < strings.length; ++i) {
+				int length = getInt();
+				if (length > b.length) {
+					b = new byte[Math.max(length, b.length * 2)];
+				}
+				getBytes(b, length);
+				strings[i] = new String(b, 0, length, UTF8);
+			}
+		}
+
+		private String string(int id) throws GraphIOException {
+			if (id == -1) {
+				return null;
+			}
+			if (id < 0 || id >= strings.length) {
+				throw new GraphIOException("Invalid string reference " + id
+						+ ".");
+			}
+			return strings[id];
+		}
+
+		private long position() {
+			return windowStart + window.position();
+		}
+
+		private void map(long position) throws IOException {
+			windowStart = position;
+			window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+					Math.min(MAP_WINDOW_SIZE, size - position));
+		}
+
+		/**
+		 * Makes sure that the next <code>n</code> bytes are accessible in the
+		 * current window, remaps the window if necessary. Otherwise, the next
+		 * get throws a {@link BufferUnderflowException}.
+		 */
+		private void require(int n) {
+			if (window.remaining() < n && position() < size) {
+				try {
+					map(position());
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		}
+
+		private byte getByte() {
+			require(1);
+			return window.get();
+		}
+
+		private int getInt() {
+			require(4);
+			return window.getInt();
+		}
+
+		private long getLong() {
+			require(8);
+			return window.getLong();
+		}
+
+		private double getDouble() {
+			require(8);
+			return window.getDouble();
+		}
+
+		private int[] getInts(int length) {
+			int[] a = new int[length];
+			int off = 0;
+			while (off < length) {
+				require(4);
+				int n = Math.min(length - off, window.remaining() >>> 2);
+				if (n == 0) {
+					throw new BufferUnderflowException();
+				}
+				window.asIntBuffer().get(a, off, n);
+				window.position(window.position() + (n << 2));
+				off += n;
+			}
+			return a;
+		}
+
+		private byte[] getBytes(byte[] a) {
+			return getBytes(a, a.length);
+		}
+
+		private byte[] getBytes(byte[] a, int length) {
+			int off = 0;
+			while (off < length) {
+				require(1);
+				int n = Math.min(length - off, window.remaining());
+				if (n == 0) {
+					throw new BufferUnderflowException();
+				}
+				window.get(a, off, n);
+				off += n;
+			}
+			return a;
+		}
+	}
+}
@@ -430,6 +430,53 @@ public interface Graph extends AttributedElement<GraphClass, Graph> {
 
 	public TraversalContext getTraversalContext();
 
+	/**
+	 * Enables or disables the incidence index of this graph. If enabled, the
+	 * incidences of vertices with at least <code>minDegree</code> incidences
+	 * are grouped by direction and edge class, so that iterating the
+	 * incidences of a given direction or edge class (e.g.
+	 * {@link Vertex#incidences(EdgeClass, EdgeDirection)} or
+	 * {@link Vertex#getFirstIncidence(EdgeClass, EdgeDirection)}) does not
+	 * need to skip over the other incidences. The order of the incidences is
+	 * not affected. The index is built lazily and costs additional memory per
+	 * indexed incidence.
+	 * 
+	 * @param minDegree
+	 *            the minimal degree of indexed vertices, or a value less than
+	 *            1 to disable the index
+	 */
+	public void setIncidenceIndexThreshold(int minDegree);
+
+	/**
+	 * @return the minimal degree of vertices whose incidences are indexed, or 0
+	 *         if the incidence index is disabled
+	 * @see #setIncidenceIndexThreshold(int)
+	 */
+	public int getIncidenceIndexThreshold();
+
+	/**
+	 * Enables or disables the typed sequence indexes of this graph. If
+	 * enabled, the vertex and edge sequences are partitioned by class, so that
+	 * typed lookups (e.g. {@link #vertices(VertexClass)} or
+	 * {@link #getFirstEdge(EdgeClass)}) don't need to skip the elements of
+	 * other classes. The order of the elements is not affected. The indexes
+	 * are built on the first typed lookup, kept up to date when elements are
+	 * created and deleted, and rebuilt after the sequences have been
+	 * rearranged (e.g. by {@link Vertex#putBefore(Vertex)}). So they pay off
+	 * for graphs with many classes which are mostly read. By default, the
+	 * indexes are disabled.
+	 * 
+	 * @param enabled
+	 *            true to enable the indexes, false to disable them
+	 */
+	public void setTypedSequenceIndexEnabled(boolean enabled);
+
+	/**
+	 * @return true iff the typed sequence indexes are enabled
+	 * @see #setTypedSequenceIndexEnabled(boolean)
+	 */
+	public boolean isTypedSequenceIndexEnabled();
+
 	/**
 	 * Returns the {@link GraphFactory} this {@link Graph} uses to create
 	 * {@link Vertex} and {@link Edge} instances
@@ -48,6 +48,7 @@ import java.io.OutputStream;
 import java.lang.reflect.Method;
 import java.nio.CharBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -59,6 +60,11 @@ import java.util.Queue;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
@@ -123,8 +129,21 @@ public final class GraphIO {
 			.toString();
 	public static final String TGRAPH_FILE_EXTENSION = ".tg";
 	public static final String TGRAPH_COMPRESSED_FILE_EXTENSION = ".tg.gz";
+	/**
+	 * Files with this extension are saved and loaded in the binary TG format,
+	 * see {@link BinaryGraphIO}.
+	 */
+	public static final String TGRAPH_BINARY_FILE_EXTENSION = ".tgb";
 	private static final int WRITE_BUFFER_SIZE = 65536;
 
+	/**
+	 * Number of element descriptions whose attribute values are parsed as one
+	 * task when loading in parallel.
+	 */
+	private static final int LOADING_CHUNK_SIZE = 4096;
+
+	private static volatile int loadingThreads = 1;
+
 	/**
 	 * A {@link FilenameFilter} that accepts TG files.
 	 * 
@@ -191,6 +210,7 @@ public final class GraphIO {
 
 	private TgLexer lexer;
 	private Token lookAhead; // parser lookAhead token
+	private int rawChar; // current character when reading raw input
 
 	// arrays to keep incidence information
 	private Vertex[] edgeIn; // omega vertices, index = edge id
@@ -360,6 +380,23 @@ public final class GraphIO {
 		}
 	}
 
+	/**
+	 * Returns the TG representation of <code>schema</code> without the
+	 * version comment, i.e., a text which only depends on the schema itself.
+	 */
+	static byte[] saveSchemaToByteArray(Schema schema) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		GraphIO io = new GraphIO(schema.getClass().getClassLoader());
+		io.TGOut = out;
+		io.compact = true;
+		io.write("TGraph");
+		io.writeInteger(TGFILE_VERSION);
+		io.write(";\n");
+		io.saveSchema(schema);
+		io.TGOut.flush();
+		return out.toByteArray();
+	}
+
 	private void saveSchema(Schema s) throws IOException {
 		schema = s;
 		write("Schema");
@@ -570,6 +607,15 @@ public final class GraphIO {
 	 */
 	public static void saveGraphToFile(Graph graph, String filename,
 			ProgressFunction pf) throws GraphIOException {
+		if (isBinaryFilename(filename)) {
+			if (hasTemporaryElements(graph)) {
+				throw new GraphIOException("Saving graph " + graph
+						+ " is not possible. "
+						+ "It contains temporary graph elements.");
+			}
+			BinaryGraphIO.saveGraphToFile(graph, filename, pf);
+			return;
+		}
 		OutputStream out = null;
 		try {
 			out = outputStreamForFilename(filename);
@@ -996,6 +1042,32 @@ public final class GraphIO {
 		}
 	}
 
+	/**
+	 * Sets the number of threads used to load graphs from TG files. With more
+	 * than one thread, the calling thread splits the vertex and edge sections
+	 * into chunks, creates the elements and records their incidences, while
+	 * worker threads parse the attribute values of the chunks. The incidence
+	 * lists are wired up in a final pass. Parallel loading applies to TG files
+	 * of version 3, older files are always loaded sequentially.
+	 * 
+	 * @param threads
+	 *            number of threads, 1 (the default) loads sequentially
+	 */
+	public static void setLoadingThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException(
+					"Number of loading threads must be >= 1");
+		}
+		loadingThreads = threads;
+	}
+
+	/**
+	 * @return the number of threads used to load graphs from TG files
+	 */
+	public static int getLoadingThreads() {
+		return loadingThreads;
+	}
+
 	public static Graph loadGraphFromFile(String filename, ProgressFunction pf)
 			throws GraphIOException {
 		return loadGraphFromFile(filename, ImplementationType.STANDARD, pf);
@@ -1014,6 +1086,10 @@ public final class GraphIO {
 			throw new IllegalArgumentException(
 					"ImplementationType must be != null");
 		}
+		if (isBinaryFilename(filename)) {
+			return BinaryGraphIO.loadGraphFromFile(filename, null,
+					implementationType, pf, cl);
+		}
 		InputStream in = null;
 		try {
 			in = inputStreamForFilename(filename);
@@ -1047,6 +1123,10 @@ public final class GraphIO {
 		if (factory == null) {
 			throw new IllegalArgumentException("GraphFactory must be != null");
 		}
+		if (isBinaryFilename(filename)) {
+			return BinaryGraphIO.<G> loadGraphFromFile(filename, factory,
+					factory.getImplementationType(), pf, null);
+		}
 		InputStream in = null;
 		try {
 			in = inputStreamForFilename(filename);
@@ -1061,6 +1141,10 @@ public final class GraphIO {
 		}
 	}
 
+	private static boolean isBinaryFilename(String filename) {
+		return filename.toLowerCase().endsWith(TGRAPH_BINARY_FILE_EXTENSION);
+	}
+
 	private static InputStream inputStreamForFilename(String filename)
 			throws IOException {
 		InputStream in = new FileInputStream(filename);
@@ -1109,54 +1193,10 @@ public final class GraphIO {
 			io.lexer = new TgLexer(in, filename);
 			io.schema = schema;
 			io.tgfile();
-			if (implementationType != ImplementationType.GENERIC) {
-				// we have replace the schema by an instance of the compiled
-				// schema, try to load the schema class
-				String schemaQName = io.schema.getQualifiedName();
-				Class<?> schemaClass = null;
-				try {
-					schemaClass = Class.forName(schemaQName, true,
-							SchemaClassManager.instance(schemaClassLoader,
-									schemaQName));
-				} catch (ClassNotFoundException e) {
-					// schema class not found, try compile schema in-memory
-					io.schema.finish();
-					io.schema.compile(CodeGeneratorConfiguration.MINIMAL);
-					try {
-						schemaClass = Class.forName(schemaQName, true,
-								SchemaClassManager.instance(schemaClassLoader,
-										schemaQName));
-					} catch (ClassNotFoundException e1) {
-						throw new GraphIOException(
-								"Unable to load a graph which belongs to the schema because the Java-classes for this schema can not be created.",
-								e1);
-					}
-				}
-				// create an instance of the compiled schema class
-				Method instanceMethod = schemaClass.getMethod("instance",
-						(Class<?>[]) null);
-				io.schema = (Schema) instanceMethod.invoke(null, new Object[0]);
-			}
-			io.schema.finish();
-			if (graphFactory == null) {
-				graphFactory = io.schema
-						.createDefaultGraphFactory(implementationType);
-			}
-			if (graphFactory.getSchema() != io.schema) {
-				throw new GraphIOException(
-						"Incompatible in graph factory: Expected '"
-								+ io.schema.getQualifiedName() + "', found '"
-								+ graphFactory.getSchema().getQualifiedName()
-								+ "'.");
-			}
-			if ((implementationType != null)
-					&& (graphFactory.getImplementationType() != implementationType)) {
-				throw new GraphIOException(
-						"Graph factory has wrong implementation type: Expected '"
-								+ implementationType + "', found '"
-								+ graphFactory.getImplementationType() + "'.");
-			}
-			io.graphFactory = graphFactory;
+			io.schema = instantiateSchema(io.schema, implementationType,
+					schemaClassLoader);
+			io.graphFactory = checkGraphFactory(io.schema, graphFactory,
+					implementationType);
 
 			@SuppressWarnings("unchecked")
 			G loadedGraph = (G) io.graph(pf);
@@ -1168,6 +1208,81 @@ public final class GraphIO {
 		}
 	}
 
+	/**
+	 * Replaces the generic <code>schema</code> by the instance of its compiled
+	 * schema class unless <code>implementationType</code> is
+	 * {@link ImplementationType#GENERIC}. If the schema classes can't be found,
+	 * the schema is compiled in-memory.
+	 */
+	static Schema instantiateSchema(Schema schema,
+			ImplementationType implementationType,
+			ClassLoader schemaClassLoader) throws Exception {
+		if (implementationType != ImplementationType.GENERIC) {
+			// we have replace the schema by an instance of the compiled
+			// schema, try to load the schema class
+			String schemaQName = schema.getQualifiedName();
+			Class<?> schemaClass = null;
+			try {
+				schemaClass = Class.forName(schemaQName, true,
+						SchemaClassManager.instance(schemaClassLoader,
+								schemaQName));
+			} catch (ClassNotFoundException e) {
+				// schema class not found, try compile schema in-memory
+				schema.finish();
+				CodeGeneratorConfiguration config = CodeGeneratorConfiguration.MINIMAL;
+				if (implementationType == ImplementationType.COMPACT) {
+					config = new CodeGeneratorConfiguration(config)
+							.withCompactImplementation();
+				}
+				schema.compile(config);
+				try {
+					schemaClass = Class.forName(schemaQName, true,
+							SchemaClassManager.instance(schemaClassLoader,
+									schemaQName));
+				} catch (ClassNotFoundException e1) {
+					throw new GraphIOException(
+							"Unable to load a graph which belongs to the schema because the Java-classes for this schema can not be created.",
+							e1);
+				}
+			}
+			// create an instance of the compiled schema class
+			Method instanceMethod = schemaClass.getMethod("instance",
+					(Class<?>[]) null);
+			schema = (Schema) instanceMethod.invoke(null, new Object[0]);
+		}
+		schema.finish();
+		return schema;
+	}
+
+	/**
+	 * Returns <code>graphFactory</code> or the default factory of
+	 * <code>schema</code> if <code>graphFactory</code> is null, and checks
+	 * that it matches <code>schema</code> and
+	 * <code>implementationType</code>.
+	 */
+	static GraphFactory checkGraphFactory(Schema schema,
+			GraphFactory graphFactory, ImplementationType implementationType)
+			throws GraphIOException {
+		if (graphFactory == null) {
+			graphFactory = schema.createDefaultGraphFactory(implementationType);
+		}
+		if (graphFactory.getSchema() != schema) {
+			throw new GraphIOException(
+					"Incompatible in graph factory: Expected '"
+							+ schema.getQualifiedName() + "', found '"
+							+ graphFactory.getSchema().getQualifiedName()
+							+ "'.");
+		}
+		if ((implementationType != null)
+				&& (graphFactory.getImplementationType() != implementationType)) {
+			throw new GraphIOException(
+					"Graph factory has wrong implementation type: Expected '"
+							+ implementationType + "', found '"
+							+ graphFactory.getImplementationType() + "'.");
+		}
+		return graphFactory;
+	}
+
 	private void tgfile() throws GraphIOException {
 		match();
 		header();
@@ -2306,17 +2421,42 @@ public final class GraphIO {
 		nextIncidence = new int[(2 * maxE) + 1];
 		edgeOffset = maxE;
 
-		long graphElements = 0, currentCount = 0, interval = 1;
 		if (pf != null) {
 			pf.init(vCount + eCount);
-			interval = pf.getUpdateInterval();
 		}
 		GraphBaseImpl graph = graphFactory.createGraph(schema.getGraphClass(),
 				graphId, maxV, maxE);
 		graph.setLoading(true);
 		graph.readAttributeValues(this);
-		match(Token.SEMICOLON);
 
+		int threads = loadingThreads;
+		if (threads > 1 && fileVersion == 3 && lookAhead == Token.SEMICOLON) {
+			// the semicolon is already consumed by the lexer, so the element
+			// descriptions can be split from the raw input
+			loadElementsInParallel(graph, vCount, eCount, threads, pf);
+		} else {
+			match(Token.SEMICOLON);
+			loadElements(graph, vCount, eCount, pf);
+		}
+
+		graph.setGraphVersion(graphVersion);
+		graph.internalLoadingCompleted(firstIncidence, nextIncidence);
+		firstIncidence = null;
+		nextIncidence = null;
+		graph.setLoading(false);
+		if (pf != null) {
+			pf.finished();
+		}
+		graph.loadingCompleted();
+		return graph;
+	}
+
+	private void loadElements(Graph graph, int vCount, int eCount,
+			ProgressFunction pf) throws GraphIOException {
+		long graphElements = 0, currentCount = 0, interval = 1;
+		if (pf != null) {
+			interval = pf.getUpdateInterval();
+		}
 		int vNo = 1;
 		while (vNo <= vCount) {
 			if (fileVersion == 2 && lookAhead == Token.PACKAGE) {
@@ -2354,17 +2494,262 @@ public final class GraphIO {
 				++eNo;
 			}
 		}
+	}
 
-		graph.setGraphVersion(graphVersion);
-		graph.internalLoadingCompleted(firstIncidence, nextIncidence);
-		firstIncidence = null;
-		nextIncidence = null;
-		graph.setLoading(false);
+	/**
+	 * Loads the vertex and edge descriptions of a TG file with version 3.
+	 * Ids, classes and incidences are read directly from the raw input and
+	 * the elements are created in this thread, the remaining text of each
+	 * description is collected into {@link AttributeChunk}s whose attribute
+	 * values are parsed by <code>threads</code> worker threads.
+	 */
+	private void loadElementsInParallel(Graph graph, int vCount, int eCount,
+			int threads, ProgressFunction pf) throws GraphIOException {
+		long graphElements = 0, currentCount = 0, interval = 1;
 		if (pf != null) {
-			pf.finished();
+			interval = pf.getUpdateInterval();
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		Queue<Future<?>> pending = new LinkedList<>();
+		try {
+			rawChar = lexer.nextChar();
+			AttributeChunk chunk = new AttributeChunk();
+			for (int i = 0; i < vCount + eCount; ++i) {
+				chunk.elements[chunk.count++] = i < vCount ? rawVertexDesc(graph)
+						: rawEdgeDesc(graph);
+				copyRawAttributeValues(chunk);
+				if (chunk.count == LOADING_CHUNK_SIZE) {
+					pending.add(executor.submit(attributeParser(chunk)));
+					chunk = new AttributeChunk();
+					// limit the number of chunks held in memory
+					if (pending.size() > 2 * threads) {
+						awaitChunk(pending.poll());
+					}
+				}
+				// update progress bar
+				if (pf != null) {
+					graphElements++;
+					currentCount++;
+					if (currentCount == interval) {
+						pf.progress(graphElements);
+						currentCount = 0;
+					}
+				}
+			}
+			if (chunk.count > 0) {
+				pending.add(executor.submit(attributeParser(chunk)));
+			}
+			while (!pending.isEmpty()) {
+				awaitChunk(pending.poll());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Attribute value texts of a sequence of element descriptions, each
+	 * terminated by a semicolon.
+	 */
+	private static final class AttributeChunk {
+		final AttributedElement<?, ?>[] elements = new AttributedElement<?, ?>[LOADING_CHUNK_SIZE];
+		int count;
+		byte[] text = new byte[16 * LOADING_CHUNK_SIZE];
+		int length;
+
+		void append(int c) {
+			if (length == text.length) {
+				text = Arrays.copyOf(text, 2 * length);
+			}
+			text[length++] = (byte) c;
+		}
+	}
+
+	private Callable<Void> attributeParser(final AttributeChunk chunk) {
+		final Schema schema = this.schema;
+		final int fileVersion = this.fileVersion;
+		final ClassLoader schemaClassLoader = this.schemaClassLoader;
+		final String filename = lexer.getFilename();
+		return new Callable<Void>() {
+			@Override
+			public Void call() throws GraphIOException {
+				GraphIO io = new GraphIO(schemaClassLoader);
+				io.schema = schema;
+				io.fileVersion = fileVersion;
+				io.lexer = new TgLexer(chunk.text, chunk.length);
+				io.match();
+				for (int i = 0; i < chunk.count; ++i) {
+					try {
+						((InternalAttributedElement) chunk.elements[i])
+								.readAttributeValues(io);
+						io.match(Token.SEMICOLON);
+					} catch (GraphIOException e) {
+						throw new GraphIOException((filename == null ? ""
+								: filename + ": ")
+								+ "Invalid attribute values of "
+								+ chunk.elements[i], e);
+					}
+				}
+				return null;
+			}
+		};
+	}
+
+	private static void awaitChunk(Future<?> f) throws GraphIOException {
+		try {
+			f.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new GraphIOException("Interrupted while loading graph.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof GraphIOException) {
+				throw (GraphIOException) e.getCause();
+			}
+			throw new GraphIOException("Exception while loading graph.",
+					e.getCause());
+		}
+	}
+
+	private Vertex rawVertexDesc(Graph graph) throws GraphIOException {
+		int vId = rawInt();
+		if (vId <= 0) {
+			throw new GraphIOException(lexer.getLocation()
+					+ "Invalid vertex id " + vId + ".");
+		}
+		AttributedElementClass<?, ?> vc = idToAecMap.get(rawInt());
+		if (!(vc instanceof VertexClass)) {
+			throw new GraphIOException(lexer.getLocation()
+					+ "Expected vertex class id for vertex " + vId + ".");
+		}
+		Vertex vertex = graphFactory.createVertex((VertexClass) vc, vId,
+				graph);
+		if (skipRawWhitespace() != '<') {
+			throw new GraphIOException(lexer.getLocation()
+					+ "Expected < but found '" + (char) rawChar + "'");
+		}
+		rawChar = lexer.nextChar();
+		int prevId = 0;
+		while (skipRawWhitespace() != '>') {
+			int eId = rawInt();
+			if (eId == 0) {
+				throw new GraphIOException(lexer.getLocation()
+						+ "Invalid edge id " + eId + ".");
+			}
+			if (prevId == 0) {
+				firstIncidence[vId] = eId;
+			} else {
+				nextIncidence[edgeOffset + prevId] = eId;
+			}
+			if (eId < 0) {
+				edgeIn[-eId] = vertex;
+			} else {
+				edgeOut[eId] = vertex;
+			}
+			prevId = eId;
+		}
+		rawChar = lexer.nextChar();
+		return vertex;
+	}
+
+	private Edge rawEdgeDesc(Graph graph) throws GraphIOException {
+		int eId = rawInt();
+		if (eId <= 0) {
+			throw new GraphIOException(lexer.getLocation() + "Invalid edge id "
+					+ eId + ".");
+		}
+		AttributedElementClass<?, ?> ec = idToAecMap.get(rawInt());
+		if (!(ec instanceof EdgeClass)) {
+			throw new GraphIOException(lexer.getLocation()
+					+ "Expected edge class id for edge " + eId + ".");
+		}
+		return graphFactory.createEdge((EdgeClass) ec, eId, graph,
+				edgeOut[eId], edgeIn[eId]);
+	}
+
+	/**
+	 * Skips whitespace and single line comments in the raw input.
+	 * 
+	 * @return the current raw character
+	 */
+	private int skipRawWhitespace() throws GraphIOException {
+		while (true) {
+			while (TgLexer.isWs(rawChar)) {
+				rawChar = lexer.nextChar();
+			}
+			if (rawChar != '/') {
+				return rawChar;
+			}
+			rawChar = lexer.nextChar();
+			if (rawChar != '/') {
+				throw new GraphIOException(lexer.getLocation()
+						+ "Unexpected character '/'");
+			}
+			while (rawChar >= 0 && rawChar != '\n') {
+				rawChar = lexer.nextChar();
+			}
+		}
+	}
+
+	private int rawInt() throws GraphIOException {
+		boolean neg = skipRawWhitespace() == '-';
+		if (neg) {
+			rawChar = lexer.nextChar();
+		}
+		if (rawChar < '0' || rawChar > '9') {
+			throw new GraphIOException(lexer.getLocation()
+					+ "Expected integer value but found '"
+					+ (rawChar < 0 ? "EOF" : String.valueOf((char) rawChar))
+					+ "'");
+		}
+		int result = 0;
+		while (rawChar >= '0' && rawChar <= '9') {
+			result = 10 * result + (rawChar - '0');
+			rawChar = lexer.nextChar();
+		}
+		return neg ? -result : result;
+	}
+
+	/**
+	 * Copies the raw input up to and including the semicolon which terminates
+	 * the current element description into <code>chunk</code>. Semicolons in
+	 * string literals and comments are skipped.
+	 */
+	private void copyRawAttributeValues(AttributeChunk chunk)
+			throws GraphIOException {
+		boolean inString = false;
+		boolean inComment = false;
+		int prev = -1;
+		while (true) {
+			int c = rawChar;
+			if (c < 0) {
+				throw new GraphIOException(lexer.getLocation()
+						+ "Unexpected end of file");
+			}
+			chunk.append(c);
+			rawChar = lexer.nextChar();
+			if (inComment) {
+				inComment = c != '\n';
+			} else if (inString) {
+				if (c == '\\') {
+					// escaped character
+					c = rawChar;
+					if (c >= 0) {
+						chunk.append(c);
+						rawChar = lexer.nextChar();
+					}
+					c = -1;
+				} else if (c == '"') {
+					inString = false;
+				}
+			} else if (c == '"') {
+				inString = true;
+			} else if (c == '/' && prev == '/') {
+				inComment = true;
+			} else if (c == ';') {
+				return;
+			}
+			prev = c;
 		}
-		graph.loadingCompleted();
-		return graph;
 	}
 
 	public final double matchDouble() throws GraphIOException {
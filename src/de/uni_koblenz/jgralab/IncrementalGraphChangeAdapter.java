@@ -0,0 +1,232 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab;
+
+import de.uni_koblenz.jgralab.schema.AttributedElementClass;
+import de.uni_koblenz.jgralab.schema.EdgeClass;
+import de.uni_koblenz.jgralab.schema.VertexClass;
+
+/**
+ * Convenience base class for {@link GraphChangeListener}s which maintain data
+ * derived from a graph incrementally. Every reported change is passed to one
+ * of the hook methods, which are empty by default.
+ * 
+ * Changes may be nested (e.g. deleting a vertex deletes its edges). When the
+ * outermost change is finished, {@link #changeFinished(long)} is called with
+ * the graph version before that change. Data which has been valid for that
+ * version is valid for the current graph version as well. Changes that are
+ * not reported to listeners, e.g. while the graph is loading, change the graph
+ * version without calling {@link #changeFinished(long)}.
+ * 
+ * @author ist@uni-koblenz.de
+ */
+public abstract class IncrementalGraphChangeAdapter extends GraphChangeAdapter {
+	private int depth;
+	private long versionBeforeChange;
+
+	public IncrementalGraphChangeAdapter(Graph graph) {
+		super(graph);
+	}
+
+	/**
+	 * Called when the outermost change is finished and all nested changes
+	 * have been passed to the hook methods.
+	 * 
+	 * @param versionBeforeChange
+	 *            the graph version before the outermost change
+	 */
+	protected abstract void changeFinished(long versionBeforeChange);
+
+	/**
+	 * Called after <code>v</code> has been created.
+	 */
+	protected void vertexCreated(Vertex v) {
+	}
+
+	/**
+	 * Called before <code>v</code> is deleted.
+	 */
+	protected void vertexDeleted(Vertex v) {
+	}
+
+	/**
+	 * Called after <code>e</code> has been created.
+	 */
+	protected void edgeCreated(Edge e) {
+	}
+
+	/**
+	 * Called before <code>e</code> is deleted.
+	 */
+	protected void edgeDeleted(Edge e) {
+	}
+
+	/**
+	 * Called after alpha or omega of <code>e</code> has been changed from
+	 * <code>oldVertex</code> to <code>newVertex</code>.
+	 */
+	protected void edgeReconnected(Edge e, Vertex oldVertex, Vertex newVertex) {
+	}
+
+	/**
+	 * Called after the incidence <code>inc</code> has been moved in the
+	 * incidence sequence of its vertex.
+	 */
+	protected void incidenceMoved(Edge inc) {
+	}
+
+	/**
+	 * Called after the value of the attribute <code>attributeName</code> of
+	 * <code>element</code> has been changed.
+	 */
+	protected void attributeChanged(AttributedElement<?, ?> element,
+			String attributeName) {
+	}
+
+	private void changeStarted() {
+		if (depth++ == 0) {
+			versionBeforeChange = graph.getGraphVersion();
+		}
+	}
+
+	private void changeHandled() {
+		if (--depth == 0) {
+			changeFinished(versionBeforeChange);
+		}
+	}
+
+	@Override
+	public void beforeCreateVertex(VertexClass vc) {
+		changeStarted();
+	}
+
+	@Override
+	public void afterCreateVertex(Vertex v) {
+		vertexCreated(v);
+		changeHandled();
+	}
+
+	@Override
+	public void beforeDeleteVertex(Vertex v) {
+		changeStarted();
+		vertexDeleted(v);
+	}
+
+	@Override
+	public void afterDeleteVertex(VertexClass vc, boolean finalDelete) {
+		changeHandled();
+	}
+
+	@Override
+	public void beforeCreateEdge(EdgeClass ec, Vertex alpha, Vertex omega) {
+		changeStarted();
+	}
+
+	@Override
+	public void afterCreateEdge(Edge e) {
+		edgeCreated(e);
+		changeHandled();
+	}
+
+	@Override
+	public void beforeDeleteEdge(Edge e) {
+		changeStarted();
+		edgeDeleted(e);
+	}
+
+	@Override
+	public void afterDeleteEdge(EdgeClass ec, Vertex oldAlpha, Vertex oldOmega) {
+		changeHandled();
+	}
+
+	@Override
+	public void beforePutIncidenceBefore(Edge inc, Edge other) {
+		changeStarted();
+	}
+
+	@Override
+	public void afterPutIncidenceBefore(Edge inc, Edge other) {
+		incidenceMoved(inc);
+		changeHandled();
+	}
+
+	@Override
+	public void beforePutIncidenceAfter(Edge inc, Edge other) {
+		changeStarted();
+	}
+
+	@Override
+	public void afterPutIncidenceAfter(Edge inc, Edge other) {
+		incidenceMoved(inc);
+		changeHandled();
+	}
+
+	@Override
+	public void beforeChangeAlpha(Edge e, Vertex oldVertex, Vertex newVertex) {
+		changeStarted();
+	}
+
+	@Override
+	public void afterChangeAlpha(Edge e, Vertex oldVertex, Vertex newVertex) {
+		edgeReconnected(e, oldVertex, newVertex);
+		changeHandled();
+	}
+
+	@Override
+	public void beforeChangeOmega(Edge e, Vertex oldVertex, Vertex newVertex) {
+		changeStarted();
+	}
+
+	@Override
+	public void afterChangeOmega(Edge e, Vertex oldVertex, Vertex newVertex) {
+		edgeReconnected(e, oldVertex, newVertex);
+		changeHandled();
+	}
+
+	@Override
+	public <AEC extends AttributedElementClass<AEC, ?>> void beforeChangeAttribute(
+			AttributedElement<AEC, ?> element, String attributeName,
+			Object oldValue, Object newValue) {
+		changeStarted();
+	}
+
+	@Override
+	public <AEC extends AttributedElementClass<AEC, ?>> void afterChangeAttribute(
+			AttributedElement<AEC, ?> element, String attributeName,
+			Object oldValue, Object newValue) {
+		attributeChanged(element, attributeName);
+		changeHandled();
+	}
+}
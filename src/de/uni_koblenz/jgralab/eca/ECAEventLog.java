@@ -0,0 +1,221 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab.eca;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.uni_koblenz.jgralab.AttributedElement;
+import de.uni_koblenz.jgralab.Edge;
+import de.uni_koblenz.jgralab.GraphElement;
+import de.uni_koblenz.jgralab.Vertex;
+import de.uni_koblenz.jgralab.schema.EdgeClass;
+import de.uni_koblenz.jgralab.schema.VertexClass;
+
+/**
+ * Buffers the AFTER events of a batch of graph modifications until the batch
+ * is committed, see {@link ECARuleManager#beginBatch()}.
+ * 
+ * Events are coalesced while they are logged: repeated changes of the same
+ * attribute of an element collapse into one change from the first old value
+ * to the last new value, and repeated changes of the alpha or omega vertex of
+ * an edge collapse likewise. When an element is deleted, all pending events
+ * concerning it are discarded, only the deletion itself is kept.
+ */
+final class ECAEventLog {
+
+	enum Kind {
+		CREATE_VERTEX, DELETE_VERTEX, CREATE_EDGE, DELETE_EDGE, CHANGE_ALPHA,
+		CHANGE_OMEGA, CHANGE_ATTRIBUTE
+	}
+
+	/**
+	 * One logged event. Only the fields needed for its {@link Kind} are set,
+	 * old and new value hold the old and new vertex for incidence changes and
+	 * the old alpha and omega vertex for edge deletions.
+	 */
+	static final class Entry {
+		final Kind kind;
+		final AttributedElement<?, ?> element;
+		final VertexClass vertexClass;
+		final EdgeClass edgeClass;
+		final String attributeName;
+		final Object oldValue;
+		Object newValue;
+		boolean discarded;
+
+		private Entry(Kind kind, AttributedElement<?, ?> element,
+				VertexClass vertexClass, EdgeClass edgeClass,
+				String attributeName, Object oldValue, Object newValue) {
+			this.kind = kind;
+			this.element = element;
+			this.vertexClass = vertexClass;
+			this.edgeClass = edgeClass;
+			this.attributeName = attributeName;
+			this.oldValue = oldValue;
+			this.newValue = newValue;
+		}
+	}
+
+	/**
+	 * The pending entries of one element, used for coalescing and discarding
+	 */
+	private static final class PendingEntries {
+		List<Entry> all = new ArrayList<>(2);
+		Entry alphaChange;
+		Entry omegaChange;
+		Map<String, Entry> attributeChanges;
+	}
+
+	private List<Entry> entries;
+	private int pendingCount;
+	private final Map<AttributedElement<?, ?>, PendingEntries> pending;
+
+	ECAEventLog() {
+		entries = new ArrayList<>();
+		pending = new HashMap<>();
+	}
+
+	/**
+	 * @return the number of logged events which have not been discarded,
+	 *         counting coalesced events once
+	 */
+	int size() {
+		return pendingCount;
+	}
+
+	void logCreateVertex(Vertex v) {
+		add(v, new Entry(Kind.CREATE_VERTEX, v, null, null, null, null, null));
+	}
+
+	void logCreateEdge(Edge e) {
+		add(e.getNormalEdge(), new Entry(Kind.CREATE_EDGE, e, null, null,
+				null, null, null));
+	}
+
+	void logDeleteVertex(VertexClass vc) {
+		entries.add(new Entry(Kind.DELETE_VERTEX, null, vc, null, null, null,
+				null));
+		++pendingCount;
+	}
+
+	void logDeleteEdge(EdgeClass ec, Vertex oldAlpha, Vertex oldOmega) {
+		entries.add(new Entry(Kind.DELETE_EDGE, null, null, ec, null,
+				oldAlpha, oldOmega));
+		++pendingCount;
+	}
+
+	void logChangeIncidence(Edge e, boolean alpha, Vertex oldVertex,
+			Vertex newVertex) {
+		Edge key = e.getNormalEdge();
+		PendingEntries p = pending.get(key);
+		Entry previous = p == null ? null : alpha ? p.alphaChange
+				: p.omegaChange;
+		if (previous != null) {
+			previous.newValue = newVertex;
+			return;
+		}
+		Entry entry = new Entry(alpha ? Kind.CHANGE_ALPHA : Kind.CHANGE_OMEGA,
+				key, null, null, null, oldVertex, newVertex);
+		p = add(key, entry);
+		if (alpha) {
+			p.alphaChange = entry;
+		} else {
+			p.omegaChange = entry;
+		}
+	}
+
+	void logChangeAttribute(AttributedElement<?, ?> element,
+			String attributeName, Object oldValue, Object newValue) {
+		PendingEntries p = pending.get(element);
+		Entry previous = p == null || p.attributeChanges == null ? null
+				: p.attributeChanges.get(attributeName);
+		if (previous != null) {
+			previous.newValue = newValue;
+			return;
+		}
+		Entry entry = new Entry(Kind.CHANGE_ATTRIBUTE, element, null, null,
+				attributeName, oldValue, newValue);
+		p = add(element, entry);
+		if (p.attributeChanges == null) {
+			p.attributeChanges = new HashMap<>();
+		}
+		p.attributeChanges.put(attributeName, entry);
+	}
+
+	/**
+	 * Discards all pending events concerning <code>element</code>, which is
+	 * about to be deleted.
+	 */
+	void discard(GraphElement<?, ?> element) {
+		AttributedElement<?, ?> key = element instanceof Edge ? ((Edge) element)
+				.getNormalEdge() : element;
+		PendingEntries p = pending.remove(key);
+		if (p != null) {
+			for (Entry e : p.all) {
+				e.discarded = true;
+			}
+			pendingCount -= p.all.size();
+		}
+	}
+
+	/**
+	 * Empties this log.
+	 * 
+	 * @return the logged entries in the order they have been logged, including
+	 *         discarded ones
+	 */
+	List<Entry> drain() {
+		List<Entry> result = entries;
+		entries = new ArrayList<>();
+		pending.clear();
+		pendingCount = 0;
+		return result;
+	}
+
+	private PendingEntries add(AttributedElement<?, ?> key, Entry entry) {
+		entries.add(entry);
+		++pendingCount;
+		PendingEntries p = pending.get(key);
+		if (p == null) {
+			p = new PendingEntries();
+			pending.put(key, p);
+		}
+		p.all.add(entry);
+		return p;
+	}
+}
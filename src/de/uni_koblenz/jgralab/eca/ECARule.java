@@ -60,6 +60,19 @@ public class ECARule<AEC extends AttributedElementClass<AEC, ?>> {
 	 */
 	private Action<AEC> action;
 
+	/**
+	 * Number of condition evaluations and the time spent in them (in
+	 * nanoseconds)
+	 */
+	private long conditionEvaluationCount;
+	private long conditionEvaluationTime;
+
+	/**
+	 * Whether the condition and action of this rule don't modify the graph,
+	 * so that the rule may be triggered concurrently to other rules
+	 */
+	private boolean sideEffectFree;
+
 	// +++++ Constructor Summary +++++++++++++++++++++++++++
 
 	/**
@@ -103,13 +116,78 @@ public class ECARule<AEC extends AttributedElementClass<AEC, ?>> {
 	 *            an Event containing the concerned element
 	 */
 	public void trigger(Event<AEC> event) {
-		if (this.condition == null || this.condition.evaluate(event)) {
-			this.action.doAction(event);
+		if (sideEffectFree && manager != null
+				&& manager.deferTrigger(this, event)) {
+			return;
+		}
+		triggerNow(event);
+	}
+
+	/**
+	 * Evaluates the condition and executes the action without deferring side
+	 * effect free rules.
+	 */
+	@SuppressWarnings("unchecked")
+	void triggerNow(Event<?> e) {
+		Event<AEC> event = (Event<AEC>) e;
+		if (this.condition != null) {
+			long start = System.nanoTime();
+			boolean result = this.condition.evaluate(event);
+			conditionEvaluationTime += System.nanoTime() - start;
+			++conditionEvaluationCount;
+			if (!result) {
+				return;
+			}
 		}
+		this.action.doAction(event);
+	}
+
+	/**
+	 * @return how often the condition of this rule has been evaluated
+	 */
+	public long getConditionEvaluationCount() {
+		return conditionEvaluationCount;
+	}
+
+	/**
+	 * @return the total time spent evaluating the condition of this rule in
+	 *         nanoseconds
+	 */
+	public long getConditionEvaluationTime() {
+		return conditionEvaluationTime;
+	}
+
+	/**
+	 * Resets the condition evaluation count and time.
+	 */
+	public void resetConditionStatistics() {
+		conditionEvaluationCount = 0;
+		conditionEvaluationTime = 0;
 	}
 
 	// +++++ Getter and Setter +++++++++++++++++++++++++++++
 
+	/**
+	 * @return whether this rule is marked as side effect free
+	 */
+	public boolean isSideEffectFree() {
+		return sideEffectFree;
+	}
+
+	/**
+	 * Marks this rule as side effect free, i.e. neither its condition nor its
+	 * action modifies the graph or any state shared with other rules. When a
+	 * batch is committed and the {@link ECARuleManager} has an executor, such
+	 * rules are triggered on the executor.
+	 * 
+	 * @param sideEffectFree
+	 *            whether this rule is side effect free
+	 * @see ECARuleManager#beginBatch()
+	 */
+	public void setSideEffectFree(boolean sideEffectFree) {
+		this.sideEffectFree = sideEffectFree;
+	}
+
 	/**
 	 * @return the Event
 	 */
@@ -36,7 +36,14 @@ package de.uni_koblenz.jgralab.eca;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import de.uni_koblenz.jgralab.AttributedElement;
 import de.uni_koblenz.jgralab.Edge;
@@ -50,6 +57,7 @@ import de.uni_koblenz.jgralab.eca.events.CreateEdgeEventDescription;
 import de.uni_koblenz.jgralab.eca.events.CreateVertexEventDescription;
 import de.uni_koblenz.jgralab.eca.events.DeleteEdgeEventDescription;
 import de.uni_koblenz.jgralab.eca.events.DeleteVertexEventDescription;
+import de.uni_koblenz.jgralab.eca.events.Event;
 import de.uni_koblenz.jgralab.eca.events.EventDescription;
 import de.uni_koblenz.jgralab.schema.AttributedElementClass;
 import de.uni_koblenz.jgralab.schema.EdgeClass;
@@ -73,40 +81,50 @@ public class ECARuleManager implements GraphChangeListener {
 	/*
 	 * CreateVertexEvents
 	 */
-	private List<CreateVertexEventDescription> beforeCreateVertexEvents;
-	private List<CreateVertexEventDescription> afterCreateVertexEvents;
+	private final EventDispatchTable<CreateVertexEventDescription> beforeCreateVertexEvents;
+	private final EventDispatchTable<CreateVertexEventDescription> afterCreateVertexEvents;
 
 	/*
 	 * DeleteVertexEvents
 	 */
-	private List<DeleteVertexEventDescription> beforeDeleteVertexEvents;
-	private List<DeleteVertexEventDescription> afterDeleteVertexEvents;
+	private final EventDispatchTable<DeleteVertexEventDescription> beforeDeleteVertexEvents;
+	private final EventDispatchTable<DeleteVertexEventDescription> afterDeleteVertexEvents;
 
 	/*
 	 * CreateEdgeEvents
 	 */
-	private List<CreateEdgeEventDescription> beforeCreateEdgeEvents;
-	private List<CreateEdgeEventDescription> afterCreateEdgeEvents;
+	private final EventDispatchTable<CreateEdgeEventDescription> beforeCreateEdgeEvents;
+	private final EventDispatchTable<CreateEdgeEventDescription> afterCreateEdgeEvents;
 
 	/*
 	 * DeleteEdgeEvents
 	 */
-	private List<DeleteEdgeEventDescription> beforeDeleteEdgeEvents;
-	private List<DeleteEdgeEventDescription> afterDeleteEdgeEvents;
+	private final EventDispatchTable<DeleteEdgeEventDescription> beforeDeleteEdgeEvents;
+	private final EventDispatchTable<DeleteEdgeEventDescription> afterDeleteEdgeEvents;
 
 	/*
 	 * ChangeEdgeEvents
 	 */
-	private List<ChangeEdgeEventDescription> beforeChangeAlphaOfEdgeEvents;
-	private List<ChangeEdgeEventDescription> afterChangeAlphaOfEdgeEvents;
-	private List<ChangeEdgeEventDescription> beforeChangeOmegaOfEdgeEvents;
-	private List<ChangeEdgeEventDescription> afterChangeOmegaOfEdgeEvents;
+	private final EventDispatchTable<ChangeEdgeEventDescription> beforeChangeAlphaOfEdgeEvents;
+	private final EventDispatchTable<ChangeEdgeEventDescription> afterChangeAlphaOfEdgeEvents;
+	private final EventDispatchTable<ChangeEdgeEventDescription> beforeChangeOmegaOfEdgeEvents;
+	private final EventDispatchTable<ChangeEdgeEventDescription> afterChangeOmegaOfEdgeEvents;
 
 	/*
-	 * ChangeAttributeEvents
+	 * ChangeAttributeEvents, indexed by the name of the concerned attribute
 	 */
-	private List<ChangeAttributeEventDescription<?>> beforeChangeAttributeEvents;
-	private List<ChangeAttributeEventDescription<?>> afterChangeAttributeEvents;
+	private final Map<String, EventDispatchTable<ChangeAttributeEventDescription<?>>> beforeChangeAttributeEvents;
+	private final Map<String, EventDispatchTable<ChangeAttributeEventDescription<?>>> afterChangeAttributeEvents;
+
+	/*
+	 * Batch mode: the nesting depth of open batches, the log of the deferred
+	 * AFTER events and the triggers of side effect free rules, which are
+	 * collected while a batch is committed if an executor is set
+	 */
+	private int batchDepth = 0;
+	private final ECAEventLog eventLog;
+	private ExecutorService executor;
+	private Map<ECARule<?>, List<Event<?>>> deferredTriggers;
 
 	// +++++ Constructor ++++++++++++++++++++++++++++++++++++++++++++++
 
@@ -121,338 +139,299 @@ public class ECARuleManager implements GraphChangeListener {
 		this.graph = graph;
 
 		rules = new ArrayList<>();
-	}
-
-	private void createBeforeCreateVertexEventsLazily() {
-		if (beforeCreateVertexEvents == null) {
-			beforeCreateVertexEvents = new ArrayList<>();
-		}
-	}
-
-	private void createAfterCreateVertexEventsLazily() {
-		if (afterCreateVertexEvents == null) {
-			afterCreateVertexEvents = new ArrayList<>();
-		}
-	}
-
-	private void createBeforeDeleteVertexEventsLazily() {
-		if (beforeDeleteVertexEvents == null) {
-			beforeDeleteVertexEvents = new ArrayList<>();
-		}
-	}
 
-	private void createAfterDeleteVertexEventsLazily() {
-		if (afterDeleteVertexEvents == null) {
-			afterDeleteVertexEvents = new ArrayList<>();
-		}
-	}
-
-	private void createBeforeCreateEdgeEventsLazily() {
-		if (beforeCreateEdgeEvents == null) {
-			beforeCreateEdgeEvents = new ArrayList<>();
-		}
-	}
-
-	private void createAfterCreateEdgeEventsLazily() {
-		if (afterCreateEdgeEvents == null) {
-			afterCreateEdgeEvents = new ArrayList<>();
-		}
-	}
-
-	private void createBeforeDeleteEdgeEventsLazily() {
-		if (beforeDeleteEdgeEvents == null) {
-			beforeDeleteEdgeEvents = new ArrayList<>();
-		}
-	}
-
-	private void createAfterDeleteEdgeEventsLazily() {
-		if (afterDeleteEdgeEvents == null) {
-			afterDeleteEdgeEvents = new ArrayList<>();
-		}
-	}
-
-	private void createBeforeChangeAlphaOfEdgeEventsLazily() {
-		if (beforeChangeAlphaOfEdgeEvents == null) {
-			beforeChangeAlphaOfEdgeEvents = new ArrayList<>();
-		}
-	}
-
-	private void createAfterChangeAlphaOfEdgeEventsLazily() {
-		if (afterChangeAlphaOfEdgeEvents == null) {
-			afterChangeAlphaOfEdgeEvents = new ArrayList<>();
-		}
-	}
-
-	private void createBeforeChangeOmegaOfEdgeEventsLazily() {
-		if (beforeChangeOmegaOfEdgeEvents == null) {
-			beforeChangeOmegaOfEdgeEvents = new ArrayList<>();
-		}
-	}
-
-	private void createAfterChangeOmegaOfEdgeEventsLazily() {
-		if (afterChangeOmegaOfEdgeEvents == null) {
-			afterChangeOmegaOfEdgeEvents = new ArrayList<>();
-		}
-	}
-
-	private void createBeforeChangeAttributeEventsLazily() {
-		if (beforeChangeAttributeEvents == null) {
-			beforeChangeAttributeEvents = new ArrayList<>();
-		}
-	}
-
-	private void createAfterChangeAttributeEventsLazily() {
-		if (afterChangeAttributeEvents == null) {
-			afterChangeAttributeEvents = new ArrayList<>();
-		}
+		beforeCreateVertexEvents = new EventDispatchTable<>();
+		afterCreateVertexEvents = new EventDispatchTable<>();
+		beforeDeleteVertexEvents = new EventDispatchTable<>();
+		afterDeleteVertexEvents = new EventDispatchTable<>();
+		beforeCreateEdgeEvents = new EventDispatchTable<>();
+		afterCreateEdgeEvents = new EventDispatchTable<>();
+		beforeDeleteEdgeEvents = new EventDispatchTable<>();
+		afterDeleteEdgeEvents = new EventDispatchTable<>();
+		beforeChangeAlphaOfEdgeEvents = new EventDispatchTable<>();
+		afterChangeAlphaOfEdgeEvents = new EventDispatchTable<>();
+		beforeChangeOmegaOfEdgeEvents = new EventDispatchTable<>();
+		afterChangeOmegaOfEdgeEvents = new EventDispatchTable<>();
+		beforeChangeAttributeEvents = new HashMap<>();
+		afterChangeAttributeEvents = new HashMap<>();
+		eventLog = new ECAEventLog();
 	}
 
 	// +++++ Fire Events ++++++++++++++++++++++++++++++++++++++++++++++
 
 	@Override
 	public void beforeCreateVertex(VertexClass vc) {
-		if (beforeCreateVertexEvents == null) {
+		List<CreateVertexEventDescription> events = beforeCreateVertexEvents
+				.get(vc);
+		if (events.isEmpty()) {
 			return;
 		}
 		if (increaseAndTestOnMaximumNestedCalls()) {
 			return;
 		}
-		int max = beforeCreateVertexEvents.size();
-		for (int i = 0; i < max; i++) {
-			beforeCreateVertexEvents.get(i).fire(vc);
+		for (CreateVertexEventDescription ed : events) {
+			ed.fire(vc);
 		}
 		nestedTriggerCalls--;
-
 	}
 
 	@Override
 	public void afterCreateVertex(Vertex element) {
-		if (afterCreateVertexEvents == null) {
+		List<CreateVertexEventDescription> events = afterCreateVertexEvents
+				.get(element.getAttributedElementClass());
+		if (events.isEmpty()) {
+			return;
+		}
+		if (batchDepth > 0) {
+			eventLog.logCreateVertex(element);
 			return;
 		}
 		if (increaseAndTestOnMaximumNestedCalls()) {
 			return;
 		}
-		int max = afterCreateVertexEvents.size();
-		for (int i = 0; i < max; i++) {
-			afterCreateVertexEvents.get(i).fire(element);
+		for (CreateVertexEventDescription ed : events) {
+			ed.fire(element);
 		}
 		nestedTriggerCalls--;
-
 	}
 
 	@Override
 	public void beforeDeleteVertex(Vertex element) {
-		if (beforeDeleteVertexEvents == null) {
+		if (batchDepth > 0) {
+			eventLog.discard(element);
+		}
+		List<DeleteVertexEventDescription> events = beforeDeleteVertexEvents
+				.get(element.getAttributedElementClass());
+		if (events.isEmpty()) {
 			return;
 		}
 		if (increaseAndTestOnMaximumNestedCalls()) {
 			return;
 		}
-		int max = beforeDeleteVertexEvents.size();
-		for (int i = 0; i < max; i++) {
-			beforeDeleteVertexEvents.get(i).fire(element);
+		for (DeleteVertexEventDescription ed : events) {
+			ed.fire(element);
 		}
 		nestedTriggerCalls--;
-
 	}
 
 	@Override
 	public void afterDeleteVertex(VertexClass vc, boolean finalDelete) {
-		if (afterDeleteVertexEvents == null) {
+		List<DeleteVertexEventDescription> events = afterDeleteVertexEvents
+				.get(vc);
+		if (events.isEmpty()) {
+			return;
+		}
+		if (batchDepth > 0) {
+			eventLog.logDeleteVertex(vc);
 			return;
 		}
 		if (increaseAndTestOnMaximumNestedCalls()) {
 			return;
 		}
-		int max = afterDeleteVertexEvents.size();
-		for (int i = 0; i < max; i++) {
-			afterDeleteVertexEvents.get(i).fire(vc);
+		for (DeleteVertexEventDescription ed : events) {
+			ed.fire(vc);
 		}
 		nestedTriggerCalls--;
-
 	}
 
 	@Override
 	public void beforeCreateEdge(EdgeClass elementClass, Vertex alpha,
 			Vertex omega) {
-		if (beforeCreateEdgeEvents == null) {
+		List<CreateEdgeEventDescription> events = beforeCreateEdgeEvents
+				.get(elementClass);
+		if (events.isEmpty()) {
 			return;
 		}
 		if (increaseAndTestOnMaximumNestedCalls()) {
 			return;
 		}
-		int max = beforeCreateEdgeEvents.size();
-		for (int i = 0; i < max; i++) {
-			beforeCreateEdgeEvents.get(i).fire(elementClass);
+		for (CreateEdgeEventDescription ed : events) {
+			ed.fire(elementClass);
 		}
 		nestedTriggerCalls--;
-
 	}
 
 	@Override
 	public void afterCreateEdge(Edge element) {
-		if (afterCreateEdgeEvents == null) {
+		List<CreateEdgeEventDescription> events = afterCreateEdgeEvents
+				.get(element.getAttributedElementClass());
+		if (events.isEmpty()) {
+			return;
+		}
+		if (batchDepth > 0) {
+			eventLog.logCreateEdge(element);
 			return;
 		}
 		if (increaseAndTestOnMaximumNestedCalls()) {
 			return;
 		}
-		int max = afterCreateEdgeEvents.size();
-		for (int i = 0; i < max; i++) {
-			afterCreateEdgeEvents.get(i).fire(element);
+		for (CreateEdgeEventDescription ed : events) {
+			ed.fire(element);
 		}
 		nestedTriggerCalls--;
-
 	}
 
 	@Override
 	public void beforeDeleteEdge(Edge element) {
-		if (beforeDeleteEdgeEvents == null) {
+		if (batchDepth > 0) {
+			eventLog.discard(element);
+		}
+		List<DeleteEdgeEventDescription> events = beforeDeleteEdgeEvents
+				.get(element.getAttributedElementClass());
+		if (events.isEmpty()) {
 			return;
 		}
 		if (increaseAndTestOnMaximumNestedCalls()) {
 			return;
 		}
-		int max = beforeDeleteEdgeEvents.size();
-		for (int i = 0; i < max; i++) {
-			beforeDeleteEdgeEvents.get(i).fire(element);
+		for (DeleteEdgeEventDescription ed : events) {
+			ed.fire(element);
 		}
 		nestedTriggerCalls--;
-
 	}
 
 	@Override
 	public void afterDeleteEdge(EdgeClass ec, Vertex oldAlpha, Vertex oldOmega) {
-		if (afterDeleteEdgeEvents == null) {
+		List<DeleteEdgeEventDescription> events = afterDeleteEdgeEvents.get(ec);
+		if (events.isEmpty()) {
+			return;
+		}
+		if (batchDepth > 0) {
+			eventLog.logDeleteEdge(ec, oldAlpha, oldOmega);
 			return;
 		}
 		if (increaseAndTestOnMaximumNestedCalls()) {
 			return;
 		}
-		int max = afterDeleteEdgeEvents.size();
-		for (int i = 0; i < max; i++) {
-			afterDeleteEdgeEvents.get(i).fire(ec, oldAlpha, oldOmega);
+		for (DeleteEdgeEventDescription ed : events) {
+			ed.fire(ec, oldAlpha, oldOmega);
 		}
 		nestedTriggerCalls--;
-
 	}
 
 	@Override
 	public void beforeChangeAlpha(Edge element, Vertex oldVertex,
 			Vertex newVertex) {
-		if (beforeChangeAlphaOfEdgeEvents == null) {
+		List<ChangeEdgeEventDescription> events = beforeChangeAlphaOfEdgeEvents
+				.get(element.getAttributedElementClass());
+		if (events.isEmpty()) {
 			return;
 		}
 		if (increaseAndTestOnMaximumNestedCalls()) {
 			return;
 		}
-		int max = beforeChangeAlphaOfEdgeEvents.size();
-		for (int i = 0; i < max; i++) {
-			beforeChangeAlphaOfEdgeEvents.get(i).fire(element, oldVertex,
-					newVertex, EdgeEnd.ALPHA);
+		for (ChangeEdgeEventDescription ed : events) {
+			ed.fire(element, oldVertex, newVertex, EdgeEnd.ALPHA);
 		}
 		nestedTriggerCalls--;
-
 	}
 
 	@Override
-	public void afterChangeAlpha(Edge element, Vertex oldVertex,
+	public void beforeChangeOmega(Edge element, Vertex oldVertex,
 			Vertex newVertex) {
-		if (afterChangeAlphaOfEdgeEvents == null) {
+		List<ChangeEdgeEventDescription> events = beforeChangeOmegaOfEdgeEvents
+				.get(element.getAttributedElementClass());
+		if (events.isEmpty()) {
 			return;
 		}
 		if (increaseAndTestOnMaximumNestedCalls()) {
 			return;
 		}
-		int max = afterChangeAlphaOfEdgeEvents.size();
-		for (int i = 0; i < max; i++) {
-			afterChangeAlphaOfEdgeEvents.get(i).fire(element, oldVertex,
-					newVertex, EdgeEnd.ALPHA);
+		for (ChangeEdgeEventDescription ed : events) {
+			ed.fire(element, oldVertex, newVertex, EdgeEnd.OMEGA);
 		}
 		nestedTriggerCalls--;
-
 	}
 
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see de.uni_koblenz.jgralab.eca.ECARuleManagerInterface#
-	 * fireBeforeChangeOmegaOfEdgeEvents(de.uni_koblenz.jgralab.GraphElement,
-	 * de.uni_koblenz.jgralab.Vertex, de.uni_koblenz.jgralab.Vertex)
-	 */
 	@Override
-	public void beforeChangeOmega(Edge element, Vertex oldVertex,
+	public void afterChangeAlpha(Edge element, Vertex oldVertex,
 			Vertex newVertex) {
-		if (beforeChangeOmegaOfEdgeEvents == null) {
+		List<ChangeEdgeEventDescription> events = afterChangeAlphaOfEdgeEvents
+				.get(element.getAttributedElementClass());
+		if (events.isEmpty()) {
+			return;
+		}
+		if (batchDepth > 0) {
+			eventLog.logChangeIncidence(element, true, oldVertex, newVertex);
 			return;
 		}
 		if (increaseAndTestOnMaximumNestedCalls()) {
 			return;
 		}
-		int max = beforeChangeOmegaOfEdgeEvents.size();
-		for (int i = 0; i < max; i++) {
-			beforeChangeOmegaOfEdgeEvents.get(i).fire(element, oldVertex,
-					newVertex, EdgeEnd.OMEGA);
+		for (ChangeEdgeEventDescription ed : events) {
+			ed.fire(element, oldVertex, newVertex, EdgeEnd.ALPHA);
 		}
 		nestedTriggerCalls--;
-
 	}
 
 	@Override
 	public void afterChangeOmega(Edge element, Vertex oldVertex,
 			Vertex newVertex) {
-		if (afterChangeOmegaOfEdgeEvents == null) {
+		List<ChangeEdgeEventDescription> events = afterChangeOmegaOfEdgeEvents
+				.get(element.getAttributedElementClass());
+		if (events.isEmpty()) {
+			return;
+		}
+		if (batchDepth > 0) {
+			eventLog.logChangeIncidence(element, false, oldVertex, newVertex);
 			return;
 		}
 		if (increaseAndTestOnMaximumNestedCalls()) {
 			return;
 		}
-		int max = afterChangeOmegaOfEdgeEvents.size();
-		for (int i = 0; i < max; i++) {
-			afterChangeOmegaOfEdgeEvents.get(i).fire(element, oldVertex,
-					newVertex, EdgeEnd.OMEGA);
+		for (ChangeEdgeEventDescription ed : events) {
+			ed.fire(element, oldVertex, newVertex, EdgeEnd.OMEGA);
 		}
 		nestedTriggerCalls--;
-
 	}
 
 	@Override
 	public <AEC extends AttributedElementClass<AEC, ?>> void beforeChangeAttribute(
 			AttributedElement<AEC, ?> element, String attributeName,
 			Object oldValue, Object newValue) {
-		if (beforeChangeAttributeEvents == null) {
-			return;
-		}
-		if (increaseAndTestOnMaximumNestedCalls()) {
-			return;
-		}
-		int max = beforeChangeAttributeEvents.size();
-		for (int i = 0; i < max; i++) {
-			@SuppressWarnings("unchecked")
-			ChangeAttributeEventDescription<AEC> ed = (ChangeAttributeEventDescription<AEC>) beforeChangeAttributeEvents
-					.get(i);
-			ed.fire(element, attributeName, oldValue, newValue);
-		}
-		nestedTriggerCalls--;
-
+		fireChangeAttributeEvents(beforeChangeAttributeEvents, element,
+				attributeName, oldValue, newValue);
 	}
 
 	@Override
 	public <AEC extends AttributedElementClass<AEC, ?>> void afterChangeAttribute(
 			AttributedElement<AEC, ?> element, String attributeName,
 			Object oldValue, Object newValue) {
-		if (afterChangeAttributeEvents == null) {
+		if (batchDepth > 0) {
+			EventDispatchTable<ChangeAttributeEventDescription<?>> table = afterChangeAttributeEvents
+					.get(attributeName);
+			if (table != null
+					&& !table.get(element.getAttributedElementClass())
+							.isEmpty()) {
+				eventLog.logChangeAttribute(element, attributeName, oldValue,
+						newValue);
+			}
+			return;
+		}
+		fireChangeAttributeEvents(afterChangeAttributeEvents, element,
+				attributeName, oldValue, newValue);
+	}
+
+	private <AEC extends AttributedElementClass<AEC, ?>> void fireChangeAttributeEvents(
+			Map<String, EventDispatchTable<ChangeAttributeEventDescription<?>>> index,
+			AttributedElement<AEC, ?> element, String attributeName,
+			Object oldValue, Object newValue) {
+		EventDispatchTable<ChangeAttributeEventDescription<?>> table = index
+				.get(attributeName);
+		if (table == null) {
+			return;
+		}
+		List<ChangeAttributeEventDescription<?>> events = table.get(element
+				.getAttributedElementClass());
+		if (events.isEmpty()) {
 			return;
 		}
 		if (increaseAndTestOnMaximumNestedCalls()) {
 			return;
 		}
-		int max = afterChangeAttributeEvents.size();
-		for (int i = 0; i < max; i++) {
+		for (ChangeAttributeEventDescription<?> e : events) {
 			@SuppressWarnings("unchecked")
-			ChangeAttributeEventDescription<AEC> ed = (ChangeAttributeEventDescription<AEC>) afterChangeAttributeEvents
-					.get(i);
+			ChangeAttributeEventDescription<AEC> ed = (ChangeAttributeEventDescription<AEC>) e;
 			ed.fire(element, attributeName, oldValue, newValue);
 		}
 		nestedTriggerCalls--;
@@ -476,6 +455,200 @@ public class ECARuleManager implements GraphChangeListener {
 		return false;
 	}
 
+	// +++++ Batch Execution ++++++++++++++++++++++++++++++++++++++++++
+
+	/**
+	 * Starts a batch of graph modifications. Until the batch is committed,
+	 * rules with an AFTER event are not triggered immediately. Instead, their
+	 * events are logged and coalesced: repeated changes of the same attribute
+	 * or the same edge end of an element collapse into one change, and the
+	 * pending events of an element are discarded when it gets deleted. Rules
+	 * with a BEFORE event still fire immediately, because they have to see
+	 * the graph before the modification.
+	 * 
+	 * Batches may be nested, only the commit of the outermost batch triggers
+	 * the rules.
+	 */
+	public void beginBatch() {
+		++batchDepth;
+	}
+
+	/**
+	 * Commits the current batch. If it is the outermost one, the rules are
+	 * triggered for all logged events in the order they occurred. Graph
+	 * modifications done by the actions fire their rules immediately.
+	 * 
+	 * If an executor has been set, the triggers of side effect free rules
+	 * (see {@link ECARule#setSideEffectFree(boolean)}) are collected and run
+	 * on the executor after all other rules of the batch have been executed.
+	 * The events of one rule are processed in order by a single task, and
+	 * this method waits until all tasks are done.
+	 * 
+	 * @throws ECAException
+	 *             if there is no open batch, or if the action or condition of
+	 *             a side effect free rule threw a checked exception
+	 */
+	public void commitBatch() {
+		if (batchDepth == 0) {
+			throw new ECAException("ERROR: There is no batch to commit.");
+		}
+		if (--batchDepth > 0) {
+			return;
+		}
+		List<ECAEventLog.Entry> entries = eventLog.drain();
+		if (executor != null) {
+			deferredTriggers = new LinkedHashMap<>();
+		}
+		try {
+			for (ECAEventLog.Entry entry : entries) {
+				if (!entry.discarded) {
+					fireLogged(entry);
+				}
+			}
+			if (deferredTriggers != null) {
+				runDeferredTriggers();
+			}
+		} finally {
+			deferredTriggers = null;
+		}
+	}
+
+	/**
+	 * Ends the current batch and drops all events logged so far without
+	 * triggering any rule. The graph modifications are not undone.
+	 * 
+	 * @throws ECAException
+	 *             if there is no open batch
+	 */
+	public void discardBatch() {
+		if (batchDepth == 0) {
+			throw new ECAException("ERROR: There is no batch to discard.");
+		}
+		if (--batchDepth == 0) {
+			eventLog.drain();
+		}
+	}
+
+	/**
+	 * @return whether a batch is open
+	 */
+	public boolean isInBatch() {
+		return batchDepth > 0;
+	}
+
+	/**
+	 * @return the number of events logged in the current batch, counting
+	 *         coalesced events once and ignoring discarded ones
+	 */
+	public int getPendingEventCount() {
+		return eventLog.size();
+	}
+
+	/**
+	 * @return the executor for side effect free rules, null by default
+	 */
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Sets the executor on which side effect free rules are triggered when a
+	 * batch is committed. If null (the default), all rules are triggered in
+	 * the committing thread.
+	 * 
+	 * @param executor
+	 *            the executor to use
+	 */
+	public void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Called by {@link ECARule#trigger(Event)} for side effect free rules.
+	 * 
+	 * @return true if the trigger has been deferred to be run on the executor
+	 */
+	boolean deferTrigger(ECARule<?> rule, Event<?> event) {
+		if (deferredTriggers == null) {
+			return false;
+		}
+		List<Event<?>> events = deferredTriggers.get(rule);
+		if (events == null) {
+			events = new ArrayList<>();
+			deferredTriggers.put(rule, events);
+		}
+		events.add(event);
+		return true;
+	}
+
+	private void runDeferredTriggers() {
+		Map<ECARule<?>, List<Event<?>>> triggers = deferredTriggers;
+		deferredTriggers = null;
+		List<Future<?>> futures = new ArrayList<>(triggers.size());
+		for (final Entry<ECARule<?>, List<Event<?>>> e : triggers.entrySet()) {
+			futures.add(executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					for (Event<?> event : e.getValue()) {
+						e.getKey().triggerNow(event);
+					}
+				}
+			}));
+		}
+		RuntimeException failure = null;
+		for (Future<?> f : futures) {
+			try {
+				f.get();
+			} catch (ExecutionException e) {
+				if (failure == null) {
+					failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e
+							.getCause() : new ECAException(e.getCause());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				if (failure == null) {
+					failure = new ECAException(
+							"ERROR: Interrupted while waiting for side effect free rules.",
+							e);
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void fireLogged(ECAEventLog.Entry entry) {
+		switch (entry.kind) {
+		case CREATE_VERTEX:
+			afterCreateVertex((Vertex) entry.element);
+			break;
+		case DELETE_VERTEX:
+			afterDeleteVertex(entry.vertexClass, true);
+			break;
+		case CREATE_EDGE:
+			afterCreateEdge((Edge) entry.element);
+			break;
+		case DELETE_EDGE:
+			afterDeleteEdge(entry.edgeClass, (Vertex) entry.oldValue,
+					(Vertex) entry.newValue);
+			break;
+		case CHANGE_ALPHA:
+			afterChangeAlpha((Edge) entry.element, (Vertex) entry.oldValue,
+					(Vertex) entry.newValue);
+			break;
+		case CHANGE_OMEGA:
+			afterChangeOmega((Edge) entry.element, (Vertex) entry.oldValue,
+					(Vertex) entry.newValue);
+			break;
+		case CHANGE_ATTRIBUTE:
+			afterChangeAttribute((AttributedElement) entry.element,
+					entry.attributeName, entry.oldValue, entry.newValue);
+			break;
+		}
+	}
+
 	// +++++ Getter and Setter ++++++++++++++++++++++++++++++++++++++
 
 	@Override
@@ -492,6 +665,31 @@ public class ECARuleManager implements GraphChangeListener {
 		return Collections.unmodifiableList(rules);
 	}
 
+	/**
+	 * Returns the time spent evaluating the condition of each managed rule
+	 * since it was added or its statistics have been reset.
+	 * 
+	 * @return a map from each ECARule to its total condition evaluation time
+	 *         in nanoseconds, in the order the rules have been added
+	 * @see ECARule#getConditionEvaluationCount()
+	 */
+	public Map<ECARule<?>, Long> getConditionEvaluationTimes() {
+		Map<ECARule<?>, Long> times = new LinkedHashMap<>();
+		for (ECARule<?> rule : rules) {
+			times.put(rule, rule.getConditionEvaluationTime());
+		}
+		return times;
+	}
+
+	/**
+	 * Resets the condition evaluation statistics of all managed rules.
+	 */
+	public void resetConditionStatistics() {
+		for (ECARule<?> rule : rules) {
+			rule.resetConditionStatistics();
+		}
+	}
+
 	public int getMaxNestedTriggerCalls() {
 		return maxNestedTriggerCalls;
 	}
@@ -622,51 +820,39 @@ public class ECARuleManager implements GraphChangeListener {
 
 	/**
 	 * Adds an CreateVertexEvent to the {@link beforeCreateVertexEvents} or
-	 * {@link afterCreateVertexEvents} list depending on its EventTime property,
-	 * if it is not already contained
+	 * {@link afterCreateVertexEvents} table depending on its EventTime
+	 * property, if it is not already contained
 	 * 
 	 * @param e
 	 *            the CreateVertexEvent to add
 	 */
 	private void addEventToList(CreateVertexEventDescription e) {
 		if (e.getTime().equals(EventDescription.EventTime.BEFORE)) {
-			createBeforeCreateVertexEventsLazily();
-			if (!beforeCreateVertexEvents.contains(e)) {
-				beforeCreateVertexEvents.add(e);
-			}
+			beforeCreateVertexEvents.add(e);
 		} else {
-			createAfterCreateVertexEventsLazily();
-			if (!afterCreateVertexEvents.contains(e)) {
-				afterCreateVertexEvents.add(e);
-			}
+			afterCreateVertexEvents.add(e);
 		}
 	}
 
 	/**
 	 * Adds an DeleteVertexEvent to the {@link beforeDeleteVertexEvents} or
-	 * {@link afterDeleteVertexEvents} list depending on its EventTime property,
-	 * if it is not already contained
+	 * {@link afterDeleteVertexEvents} table depending on its EventTime
+	 * property, if it is not already contained
 	 * 
 	 * @param e
 	 *            the DeleteVertexEvent to add
 	 */
 	private void addEventToList(DeleteVertexEventDescription e) {
 		if (e.getTime().equals(EventDescription.EventTime.BEFORE)) {
-			createBeforeDeleteVertexEventsLazily();
-			if (!beforeDeleteVertexEvents.contains(e)) {
-				beforeDeleteVertexEvents.add(e);
-			}
+			beforeDeleteVertexEvents.add(e);
 		} else {
-			createAfterDeleteVertexEventsLazily();
-			if (!afterDeleteVertexEvents.contains(e)) {
-				afterDeleteVertexEvents.add(e);
-			}
+			afterDeleteVertexEvents.add(e);
 		}
 	}
 
 	/**
 	 * Adds an CreateEdgeEvent to the {@link beforeCreateEdgeEvents} or
-	 * {@link afterCreateEdgeEvents} list depending on its EventTime property,
+	 * {@link afterCreateEdgeEvents} table depending on its EventTime property,
 	 * if it is not already contained
 	 * 
 	 * @param e
@@ -674,21 +860,15 @@ public class ECARuleManager implements GraphChangeListener {
 	 */
 	private void addEventToList(CreateEdgeEventDescription e) {
 		if (e.getTime().equals(EventDescription.EventTime.BEFORE)) {
-			createBeforeCreateEdgeEventsLazily();
-			if (!beforeCreateEdgeEvents.contains(e)) {
-				beforeCreateEdgeEvents.add(e);
-			}
+			beforeCreateEdgeEvents.add(e);
 		} else {
-			createAfterCreateEdgeEventsLazily();
-			if (!afterCreateEdgeEvents.contains(e)) {
-				afterCreateEdgeEvents.add(e);
-			}
+			afterCreateEdgeEvents.add(e);
 		}
 	}
 
 	/**
 	 * Adds an DeleteEdgeEvent to the {@link beforeDeleteEdgeEvents} or
-	 * {@link afterDeleteEdgeEvents} list depending on its EventTime property,
+	 * {@link afterDeleteEdgeEvents} table depending on its EventTime property,
 	 * if it is not already contained
 	 * 
 	 * @param e
@@ -696,98 +876,56 @@ public class ECARuleManager implements GraphChangeListener {
 	 */
 	private void addEventToList(DeleteEdgeEventDescription e) {
 		if (e.getTime().equals(EventDescription.EventTime.BEFORE)) {
-			createBeforeDeleteEdgeEventsLazily();
-			if (!beforeDeleteEdgeEvents.contains(e)) {
-				beforeDeleteEdgeEvents.add(e);
-			}
+			beforeDeleteEdgeEvents.add(e);
 		} else {
-			createAfterDeleteEdgeEventsLazily();
-			if (!afterDeleteEdgeEvents.contains(e)) {
-				afterDeleteEdgeEvents.add(e);
-			}
+			afterDeleteEdgeEvents.add(e);
 		}
 	}
 
 	/**
-	 * Adds an ChangeEdgeEvent to the {@link beforeChangeEdgeEvents} or
-	 * {@link afterChangeEdgeEvents} list depending on its EventTime property,
-	 * if it is not already contained
+	 * Adds an ChangeEdgeEvent to the alpha and/or omega tables for its
+	 * EventTime depending on its EdgeEnd property, if it is not already
+	 * contained
 	 * 
 	 * @param e
 	 *            the ChangeEdgeEvent to add
 	 */
 	private void addEventToList(ChangeEdgeEventDescription e) {
-		if (e.getTime().equals(EventDescription.EventTime.BEFORE)) {
-			if (e.getEdgeEnd().equals(EdgeEnd.ALPHA)) {
-				createBeforeChangeAlphaOfEdgeEventsLazily();
-				if (!beforeChangeAlphaOfEdgeEvents.contains(e)) {
-					beforeChangeAlphaOfEdgeEvents.add(e);
-				}
-			} else if (e.getEdgeEnd().equals(EdgeEnd.OMEGA)) {
-				createBeforeChangeOmegaOfEdgeEventsLazily();
-				if (!beforeChangeOmegaOfEdgeEvents.contains(e)) {
-					beforeChangeOmegaOfEdgeEvents.add(e);
-				}
-			} else /* BOTH */{
-				createBeforeChangeAlphaOfEdgeEventsLazily();
-				createBeforeChangeOmegaOfEdgeEventsLazily();
-				if (!beforeChangeAlphaOfEdgeEvents.contains(e)) {
-					beforeChangeAlphaOfEdgeEvents.add(e);
-				}
-				if (!beforeChangeOmegaOfEdgeEvents.contains(e)) {
-					beforeChangeOmegaOfEdgeEvents.add(e);
-				}
-			}
-		} else {
-			if (e.getEdgeEnd().equals(EdgeEnd.ALPHA)) {
-				createAfterChangeAlphaOfEdgeEventsLazily();
-				if (!afterChangeAlphaOfEdgeEvents.contains(e)) {
-					afterChangeAlphaOfEdgeEvents.add(e);
-				}
-			} else if (e.getEdgeEnd().equals(EdgeEnd.OMEGA)) {
-				createAfterChangeOmegaOfEdgeEventsLazily();
-				if (!afterChangeOmegaOfEdgeEvents.contains(e)) {
-					afterChangeOmegaOfEdgeEvents.add(e);
-				}
-			} else /* BOTH */{
-				createAfterChangeAlphaOfEdgeEventsLazily();
-				createAfterChangeOmegaOfEdgeEventsLazily();
-				if (!afterChangeAlphaOfEdgeEvents.contains(e)) {
-					afterChangeAlphaOfEdgeEvents.add(e);
-				}
-				if (!afterChangeOmegaOfEdgeEvents.contains(e)) {
-					afterChangeOmegaOfEdgeEvents.add(e);
-				}
-			}
+		boolean before = e.getTime().equals(EventDescription.EventTime.BEFORE);
+		if (!e.getEdgeEnd().equals(EdgeEnd.OMEGA)) {
+			(before ? beforeChangeAlphaOfEdgeEvents
+					: afterChangeAlphaOfEdgeEvents).add(e);
+		}
+		if (!e.getEdgeEnd().equals(EdgeEnd.ALPHA)) {
+			(before ? beforeChangeOmegaOfEdgeEvents
+					: afterChangeOmegaOfEdgeEvents).add(e);
 		}
 	}
 
 	/**
 	 * Adds an ChangeAttributeEvent to the {@link beforeChangeAttributeEvents}
-	 * or {@link afterChangeAttributeEvents} list depending on its EventTime
+	 * or {@link afterChangeAttributeEvents} index depending on its EventTime
 	 * property, if it is not already contained
 	 * 
 	 * @param e
 	 *            the ChangeAttributeEvent to add
 	 */
-	private <AEC extends AttributedElementClass<AEC, ?>> void addEventToList(
-			ChangeAttributeEventDescription<AEC> e) {
-		if (e.getTime().equals(EventDescription.EventTime.BEFORE)) {
-			createBeforeChangeAttributeEventsLazily();
-			if (!beforeChangeAttributeEvents.contains(e)) {
-				beforeChangeAttributeEvents.add(e);
-			}
-		} else {
-			createAfterChangeAttributeEventsLazily();
-			if (!afterChangeAttributeEvents.contains(e)) {
-				afterChangeAttributeEvents.add(e);
-			}
-		}
+	private void addEventToList(ChangeAttributeEventDescription<?> e) {
+		Map<String, EventDispatchTable<ChangeAttributeEventDescription<?>>> index = e
+				.getTime().equals(EventDescription.EventTime.BEFORE) ? beforeChangeAttributeEvents
+				: afterChangeAttributeEvents;
+		EventDispatchTable<ChangeAttributeEventDescription<?>> table = index
+				.get(e.getConcernedAttribute());
+		if (table == null) {
+			table = new EventDispatchTable<>();
+			index.put(e.getConcernedAttribute(), table);
+		}
+		table.add(e);
 	}
 
 	/**
 	 * Removes an CreateVertexEvent from the {@link beforeCreateVertexEvents} or
-	 * {@link afterCreateVertexEvents} list depending on its EventTime property
+	 * {@link afterCreateVertexEvents} table depending on its EventTime property
 	 * 
 	 * @param e
 	 *            the CreateVertexEvent to delete
@@ -802,7 +940,7 @@ public class ECARuleManager implements GraphChangeListener {
 
 	/**
 	 * Removes an DeleteVertexEvent from the {@link beforeDeleteVertexEvents} or
-	 * {@link afterDeleteVertexEvents} list depending on its EventTime property
+	 * {@link afterDeleteVertexEvents} table depending on its EventTime property
 	 * 
 	 * @param e
 	 *            the DeleteVertexEvent to delete
@@ -817,7 +955,7 @@ public class ECARuleManager implements GraphChangeListener {
 
 	/**
 	 * Removes an CreateEdgeEvent from the {@link beforeCreateEdgeEvents} or
-	 * {@link afterCreateEdgeEvents} list depending on its EventTime property
+	 * {@link afterCreateEdgeEvents} table depending on its EventTime property
 	 * 
 	 * @param e
 	 *            the CreateEdgeEvent to delete
@@ -832,7 +970,7 @@ public class ECARuleManager implements GraphChangeListener {
 
 	/**
 	 * Removes an DeleteEdgeEvent from the {@link beforeDeleteEdgeEvents} or
-	 * {@link afterDeleteEdgeEvents} list depending on its EventTime property
+	 * {@link afterDeleteEdgeEvents} table depending on its EventTime property
 	 * 
 	 * @param e
 	 *            the DeleteEdgeEvent to delete
@@ -846,8 +984,8 @@ public class ECARuleManager implements GraphChangeListener {
 	}
 
 	/**
-	 * Removes an ChangeEdgeEvent from the {@link beforeChangeEdgeEvents} or
-	 * {@link afterChangeEdgeEvents} list depending on its EventTime property
+	 * Removes an ChangeEdgeEvent from the alpha and omega tables for its
+	 * EventTime
 	 * 
 	 * @param e
 	 *            the ChangeEdgeEvent to delete
@@ -865,17 +1003,22 @@ public class ECARuleManager implements GraphChangeListener {
 	/**
 	 * Removes an ChangeAttributeEvent from the
 	 * {@link beforeChangeAttributeEvents} or {@link afterChangeAttributeEvents}
-	 * list depending on its EventTime property
+	 * index depending on its EventTime property
 	 * 
 	 * @param e
 	 *            the ChangeAttributeEvent to delete
 	 */
-	private <AEC extends AttributedElementClass<AEC, ?>> void removeEventFromList(
-			ChangeAttributeEventDescription<AEC> ev) {
-		if (ev.getTime().equals(EventDescription.EventTime.BEFORE)) {
-			beforeChangeAttributeEvents.remove(ev);
-		} else {
-			afterChangeAttributeEvents.remove(ev);
+	private void removeEventFromList(ChangeAttributeEventDescription<?> ev) {
+		Map<String, EventDispatchTable<ChangeAttributeEventDescription<?>>> index = ev
+				.getTime().equals(EventDescription.EventTime.BEFORE) ? beforeChangeAttributeEvents
+				: afterChangeAttributeEvents;
+		EventDispatchTable<ChangeAttributeEventDescription<?>> table = index
+				.get(ev.getConcernedAttribute());
+		if (table != null) {
+			table.remove(ev);
+			if (table.isEmpty()) {
+				index.remove(ev.getConcernedAttribute());
+			}
 		}
 	}
 
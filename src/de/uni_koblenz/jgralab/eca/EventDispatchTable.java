@@ -0,0 +1,112 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab.eca;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.uni_koblenz.jgralab.eca.events.EventDescription;
+import de.uni_koblenz.jgralab.eca.events.EventDescription.Context;
+import de.uni_koblenz.jgralab.schema.AttributedElementClass;
+
+/**
+ * Holds the {@link EventDescription}s of one kind of event (e.g. "after create
+ * vertex") and dispatches by the type of the concerned element, so that only
+ * the descriptions which can match an event have to be fired.
+ * 
+ * For each element class, the matching descriptions (those monitoring exactly
+ * this class plus all descriptions with a context expression) are computed
+ * on first use and cached until a description is added or removed. The
+ * cached lists are never modified, so they may be iterated while rules are
+ * added or removed by nested triggers.
+ * 
+ * @param <ED>
+ *            the type of the event descriptions
+ */
+final class EventDispatchTable<ED extends EventDescription<?>> {
+	private final List<ED> descriptions;
+	private final Map<AttributedElementClass<?, ?>, List<ED>> dispatchCache;
+
+	EventDispatchTable() {
+		descriptions = new ArrayList<>();
+		dispatchCache = new HashMap<>();
+	}
+
+	/**
+	 * Adds <code>ed</code> if it isn't already contained.
+	 */
+	void add(ED ed) {
+		if (!descriptions.contains(ed)) {
+			descriptions.add(ed);
+			dispatchCache.clear();
+		}
+	}
+
+	void remove(ED ed) {
+		if (descriptions.remove(ed)) {
+			dispatchCache.clear();
+		}
+	}
+
+	boolean isEmpty() {
+		return descriptions.isEmpty();
+	}
+
+	/**
+	 * @param type
+	 *            the class of the concerned element
+	 * @return all descriptions which may match an event for an element of
+	 *         <code>type</code>, in the order they have been added
+	 */
+	List<ED> get(AttributedElementClass<?, ?> type) {
+		List<ED> result = dispatchCache.get(type);
+		if (result == null) {
+			result = new ArrayList<>();
+			for (ED ed : descriptions) {
+				if (ed.getContext() == Context.EXPRESSION
+						|| type.equals(ed.getType())) {
+					result.add(ed);
+				}
+			}
+			result = result.isEmpty() ? Collections.<ED> emptyList()
+					: Collections.unmodifiableList(result);
+			dispatchCache.put(type, result);
+		}
+		return result;
+	}
+}
@@ -34,21 +34,70 @@
  */
 package de.uni_koblenz.jgralab.eca;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import de.uni_koblenz.jgralab.AttributedElement;
 import de.uni_koblenz.jgralab.Graph;
 import de.uni_koblenz.jgralab.eca.events.Event;
 import de.uni_koblenz.jgralab.greql.GreqlEnvironment;
 import de.uni_koblenz.jgralab.greql.GreqlQuery;
 import de.uni_koblenz.jgralab.greql.evaluator.GreqlEnvironmentAdapter;
+import de.uni_koblenz.jgralab.greql.executable.ExecutableQuery;
+import de.uni_koblenz.jgralab.greql.executable.GreqlCodeGenerator;
 import de.uni_koblenz.jgralab.schema.AttributedElementClass;
 
+/**
+ * A {@link Condition} given as GReQL query. The query is parsed and optimized
+ * only once, on the first evaluation, and reused for all following events.
+ * If the query contains the variable <code>context</code>, it is bound to the
+ * element of the event.
+ *
+ * A GreqlCondition may be evaluated by several threads at once, e.g. when it
+ * is shared by side effect free rules triggered in parallel by a batch
+ * commit. Each thread binds <code>context</code> in its own environment.
+ *
+ * Optionally, the query can be compiled to an {@link ExecutableQuery} with
+ * the {@link GreqlCodeGenerator} on the first evaluation, using the schema of
+ * the graph the condition is evaluated on.
+ */
 public class GreqlCondition<AEC extends AttributedElementClass<AEC, ?>>
 		implements Condition<AEC> {
+	private static final String CONTEXT_VARIABLE = "context";
+	private static final String GENERATED_PACKAGE = "de.uni_koblenz.jgralab.eca.generated";
+	private static final AtomicInteger generatedClassCounter = new AtomicInteger();
+
 	/**
 	 * Condition as GReQuL Query
 	 */
 	private final String conditionExpression;
 
+	/**
+	 * Whether the condition should be compiled to an {@link ExecutableQuery}
+	 */
+	private final boolean generateCode;
+
+	/**
+	 * Whether the condition uses the <code>context</code> variable
+	 */
+	private final boolean usesContext;
+
+	/**
+	 * The compiled condition, created on first evaluation
+	 */
+	private volatile GreqlQuery query;
+
+	/**
+	 * The generated condition, if {@link #generateCode} is set
+	 */
+	private volatile ExecutableQuery executableQuery;
+
+	/**
+	 * Environment of the current thread which binds the <code>context</code>
+	 * variable; it's reused unless the condition is evaluated recursively, in
+	 * which case it is taken out while in use
+	 */
+	private final ThreadLocal<GreqlEnvironment> idleEnvironment = new ThreadLocal<>();
+
 	// +++++++++++++++++++++++++++++++++++++++++++++++++
 
 	/**
@@ -58,7 +107,22 @@ public class GreqlCondition<AEC extends AttributedElementClass<AEC, ?>>
 	 *            condition as GReQuL Query
 	 */
 	public GreqlCondition(String conditionExpression) {
+		this(conditionExpression, false);
+	}
+
+	/**
+	 * Creates a Condition with the given GReQuL Query as condition Expression
+	 * 
+	 * @param conditionExpression
+	 *            condition as GReQuL Query
+	 * @param generateCode
+	 *            if true, the condition is compiled to Java code with the
+	 *            {@link GreqlCodeGenerator} on the first evaluation
+	 */
+	public GreqlCondition(String conditionExpression, boolean generateCode) {
 		this.conditionExpression = conditionExpression;
+		this.generateCode = generateCode;
+		usesContext = conditionExpression.contains(CONTEXT_VARIABLE);
 	}
 
 	// +++++++++++++++++++++++++++++++++++++++++++++++++
@@ -74,16 +138,59 @@ public class GreqlCondition<AEC extends AttributedElementClass<AEC, ?>>
 	public boolean evaluate(Event<AEC> event) {
 		AttributedElement<AEC, ?> element = event.getElement();
 		Graph datagraph = element.getGraph();
-		GreqlQuery query = null;
-		GreqlEnvironment environment = new GreqlEnvironmentAdapter();
-		if (conditionExpression.contains("context")) {
-			query = GreqlQuery.createQuery("using context: "
-					+ conditionExpression);
-			environment.setVariable("context", element);
+		if (query == null && executableQuery == null) {
+			compile(datagraph);
+		}
+		if (!usesContext) {
+			return (Boolean) evaluate(datagraph, null);
+		}
+		GreqlEnvironment env = idleEnvironment.get();
+		if (env == null) {
+			// first or recursive evaluation in this thread, don't overwrite
+			// the outer binding
+			env = new GreqlEnvironmentAdapter();
 		} else {
-			query = GreqlQuery.createQuery(conditionExpression);
+			idleEnvironment.set(null);
+		}
+		try {
+			env.setVariable(CONTEXT_VARIABLE, element);
+			return (Boolean) evaluate(datagraph, env);
+		} finally {
+			env.removeVariable(CONTEXT_VARIABLE);
+			idleEnvironment.set(env);
+		}
+	}
+
+	private Object evaluate(Graph datagraph, GreqlEnvironment env) {
+		ExecutableQuery eq = executableQuery;
+		if (eq != null) {
+			return eq.execute(datagraph, env);
+		}
+		return env == null ? query.evaluate(datagraph) : query.evaluate(
+				datagraph, env);
+	}
+
+	private synchronized void compile(Graph datagraph) {
+		if (query != null || executableQuery != null) {
+			// compiled by another thread in the meantime
+			return;
+		}
+		String text = usesContext ? "using " + CONTEXT_VARIABLE + ": "
+				+ conditionExpression : conditionExpression;
+		if (generateCode) {
+			String classname = GENERATED_PACKAGE + ".Condition"
+					+ generatedClassCounter.incrementAndGet();
+			Class<ExecutableQuery> cls = GreqlCodeGenerator.generateCode(text,
+					datagraph.getSchema(), classname);
+			try {
+				executableQuery = cls.newInstance();
+			} catch (InstantiationException | IllegalAccessException e) {
+				throw new ECAException("Can't instantiate generated condition "
+						+ classname + " for '" + conditionExpression + "'", e);
+			}
+		} else {
+			query = GreqlQuery.createQuery(text);
 		}
-		return (Boolean) query.evaluate(datagraph, environment);
 	}
 
 	// +++++++++++++++++++++++++++++++++++++++++++++++++
@@ -95,6 +202,13 @@ public class GreqlCondition<AEC extends AttributedElementClass<AEC, ?>>
 		return conditionExpression;
 	}
 
+	/**
+	 * @return true if the condition is compiled to an {@link ExecutableQuery}
+	 */
+	public boolean isGenerateCode() {
+		return generateCode;
+	}
+
 	@Override
 	public String toString() {
 		return "Condition: " + conditionExpression;
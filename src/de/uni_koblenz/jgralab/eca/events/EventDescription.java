@@ -77,6 +77,11 @@ public abstract class EventDescription<AEC extends AttributedElementClass<AEC, ?
 	 */
 	private String contextExpression;
 
+	/**
+	 * The compiled {@link contextExpression}, created on first use
+	 */
+	private GreqlQuery contextQuery;
+
 	/**
 	 * Class of the elements, this Event monitors if the {@link context} is set
 	 * to TYPE, null otherwise
@@ -150,8 +155,10 @@ public abstract class EventDescription<AEC extends AttributedElementClass<AEC, ?
 			}
 		} else {
 			Graph graph = activeRules.get(0).getECARuleManager().getGraph();
-			Object resultingContext = GreqlQuery.createQuery(contextExpression)
-					.evaluate(graph);
+			if (contextQuery == null) {
+				contextQuery = GreqlQuery.createQuery(contextExpression);
+			}
+			Object resultingContext = contextQuery.evaluate(graph);
 			if (resultingContext instanceof PCollection) {
 				PCollection<?> col = (PCollection<?>) resultingContext;
 				for (Object val : col) {
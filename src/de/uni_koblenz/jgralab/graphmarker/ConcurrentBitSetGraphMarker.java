@@ -0,0 +1,322 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab.graphmarker;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import de.uni_koblenz.jgralab.Graph;
+import de.uni_koblenz.jgralab.GraphElement;
+import de.uni_koblenz.jgralab.algolib.functions.BooleanFunction;
+import de.uni_koblenz.jgralab.algolib.functions.entries.BooleanFunctionEntry;
+
+/**
+ * A thread-safe variant of {@link BitSetGraphMarker} which can be shared by
+ * several threads traversing the same graph, e.g. as the visited set of a
+ * parallel search.
+ *
+ * The bits are stored in fixed size stripes of {@link AtomicLongArray}s.
+ * Marking and unmarking is lock-free (compare and set on a single word).
+ * Growing the marker only replaces the stripe directory and never copies the
+ * stripes themselves, so concurrent marks can't get lost while the marker is
+ * resized because of {@link #maxVertexCountIncreased(int)} or
+ * {@link #maxEdgeCountIncreased(int)}.
+ *
+ * {@link #clear()} is not atomic and should not be called while other threads
+ * are marking.
+ *
+ * @param <T>
+ *            the type of the marked graph elements
+ */
+public abstract class ConcurrentBitSetGraphMarker<T extends GraphElement<?, ?>>
+		extends AbstractGraphMarker<T> implements BooleanFunction<T> {
+	private static final int STRIPE_SHIFT = 16;
+	private static final int STRIPE_MASK = (1 << STRIPE_SHIFT) - 1;
+	private static final int WORDS_PER_STRIPE = 1 << (STRIPE_SHIFT - 6);
+
+	private volatile AtomicLongArray[] stripes;
+	private final LongAdder marked;
+
+	/**
+	 * Initializes a new ConcurrentBitSetGraphMarker with the given graph.
+	 *
+	 * @param graph
+	 * @param size
+	 *            the initial capacity (maximum id + 1)
+	 */
+	protected ConcurrentBitSetGraphMarker(Graph graph, int size) {
+		super(graph);
+		stripes = new AtomicLongArray[0];
+		marked = new LongAdder();
+		ensureCapacity(size);
+	}
+
+	/**
+	 * Makes sure that ids up to <code>size - 1</code> can be marked.
+	 *
+	 * @param size
+	 *            the required capacity
+	 */
+	protected final void ensureCapacity(int size) {
+		int required = ((Math.max(size, 1) - 1) >>> STRIPE_SHIFT) + 1;
+		if (stripes.length < required) {
+			grow(required);
+		}
+	}
+
+	private synchronized void grow(int required) {
+		AtomicLongArray[] old = stripes;
+		if (old.length >= required) {
+			return;
+		}
+		AtomicLongArray[] s = Arrays.copyOf(old, required);
+		for (int i = old.length; i < required; ++i) {
+			s[i] = new AtomicLongArray(WORDS_PER_STRIPE);
+		}
+		stripes = s;
+	}
+
+	/**
+	 * @param graphElement
+	 *            a graph element
+	 * @return the index of <code>graphElement</code> in this marker
+	 */
+	protected int getIndex(T graphElement) {
+		return graphElement.getId();
+	}
+
+	/**
+	 * @param index
+	 *            an index of this marker
+	 * @return the graph element for <code>index</code>, may be
+	 *         <code>null</code> if it doesn't exist (anymore)
+	 */
+	protected abstract T getElement(int index);
+
+	private AtomicLongArray stripeForUpdate(int index) {
+		AtomicLongArray[] s = stripes;
+		int i = index >>> STRIPE_SHIFT;
+		if (i >= s.length) {
+			ensureCapacity(index + 1);
+			s = stripes;
+		}
+		return s[i];
+	}
+
+	/**
+	 * Atomically marks the given <code>graphElement</code> if it isn't marked
+	 * yet. If several threads try to mark the same element, exactly one of
+	 * them succeeds.
+	 *
+	 * @param graphElement
+	 *            the graph element to mark
+	 * @return true if this call has marked <code>graphElement</code>, false if
+	 *         it has already been marked.
+	 */
+	public boolean markIfUnmarked(T graphElement) {
+		assert (graphElement.getGraph() == graph);
+		int index = getIndex(graphElement);
+		AtomicLongArray stripe = stripeForUpdate(index);
+		int word = (index & STRIPE_MASK) >>> 6;
+		long bit = 1L << index;
+		long old;
+		do {
+			old = stripe.get(word);
+			if ((old & bit) != 0) {
+				return false;
+			}
+		} while (!stripe.compareAndSet(word, old, old | bit));
+		marked.increment();
+		return true;
+	}
+
+	/**
+	 * Marks the given <code>graphElement</code>.
+	 *
+	 * @param graphElement
+	 *            the graph element to mark
+	 * @return false if the given <code>graphElement</code> has already been
+	 *         marked.
+	 * @see #markIfUnmarked(GraphElement)
+	 */
+	public boolean mark(T graphElement) {
+		return markIfUnmarked(graphElement);
+	}
+
+	@Override
+	public boolean removeMark(T graphElement) {
+		assert (graphElement.getGraph() == graph);
+		int index = getIndex(graphElement);
+		AtomicLongArray[] s = stripes;
+		int i = index >>> STRIPE_SHIFT;
+		if (i >= s.length) {
+			return false;
+		}
+		AtomicLongArray stripe = s[i];
+		int word = (index & STRIPE_MASK) >>> 6;
+		long bit = 1L << index;
+		long old;
+		do {
+			old = stripe.get(word);
+			if ((old & bit) == 0) {
+				return false;
+			}
+		} while (!stripe.compareAndSet(word, old, old & ~bit));
+		marked.decrement();
+		return true;
+	}
+
+	@Override
+	public boolean isMarked(T graphElement) {
+		assert (graphElement.getGraph() == graph);
+		int index = getIndex(graphElement);
+		AtomicLongArray[] s = stripes;
+		int i = index >>> STRIPE_SHIFT;
+		return i < s.length
+				&& (s[i].get((index & STRIPE_MASK) >>> 6) & (1L << index)) != 0;
+	}
+
+	@Override
+	public int size() {
+		return marked.intValue();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public void clear() {
+		for (AtomicLongArray stripe : stripes) {
+			for (int w = 0; w < WORDS_PER_STRIPE; ++w) {
+				stripe.set(w, 0);
+			}
+		}
+		marked.reset();
+	}
+
+	private int nextMarkedIndex(int fromIndex) {
+		AtomicLongArray[] s = stripes;
+		int i = fromIndex >>> STRIPE_SHIFT;
+		if (i >= s.length) {
+			return -1;
+		}
+		int word = (fromIndex & STRIPE_MASK) >>> 6;
+		long bits = s[i].get(word) & (-1L << fromIndex);
+		while (true) {
+			if (bits != 0) {
+				return (i << STRIPE_SHIFT) + (word << 6)
+						+ Long.numberOfTrailingZeros(bits);
+			}
+			if (++word == WORDS_PER_STRIPE) {
+				word = 0;
+				if (++i == s.length) {
+					return -1;
+				}
+			}
+			bits = s[i].get(word);
+		}
+	}
+
+	@Override
+	public Iterable<T> getMarkedElements() {
+		return new Iterable<T>() {
+			@Override
+			public Iterator<T> iterator() {
+				return new ConcurrentGraphMarkerIterator<T>() {
+					@Override
+					protected int nextMarkedIndex(int fromIndex) {
+						return ConcurrentBitSetGraphMarker.this
+								.nextMarkedIndex(fromIndex);
+					}
+
+					@Override
+					protected T getElement(int index) {
+						return ConcurrentBitSetGraphMarker.this
+								.getElement(index);
+					}
+				};
+			}
+		};
+	}
+
+	@Override
+	public boolean get(T parameter) {
+		return isMarked(parameter);
+	}
+
+	@Override
+	public boolean isDefined(T parameter) {
+		return true;
+	}
+
+	@Override
+	public void set(T parameter, boolean value) {
+		if (value) {
+			mark(parameter);
+		} else {
+			removeMark(parameter);
+		}
+	}
+
+	@Override
+	public Iterator<BooleanFunctionEntry<T>> iterator() {
+		final Iterator<T> domainElements = getDomainElements().iterator();
+		return new Iterator<BooleanFunctionEntry<T>>() {
+
+			@Override
+			public boolean hasNext() {
+				return domainElements.hasNext();
+			}
+
+			@Override
+			public BooleanFunctionEntry<T> next() {
+				T currentElement = domainElements.next();
+				return new BooleanFunctionEntry<>(currentElement,
+						get(currentElement));
+			}
+
+			@Override
+			public void remove() {
+				domainElements.remove();
+			}
+
+		};
+	}
+
+}
@@ -0,0 +1,102 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab.graphmarker;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import de.uni_koblenz.jgralab.GraphElement;
+
+/**
+ * Weakly consistent iterator over the marked elements of a concurrent graph
+ * marker. It never throws a {@link java.util.ConcurrentModificationException}
+ * but may or may not reflect marks set or removed during the iteration.
+ *
+ * @param <T>
+ *            the type of the marked graph elements
+ */
+abstract class ConcurrentGraphMarkerIterator<T extends GraphElement<?, ?>>
+		implements Iterator<T> {
+	private int index;
+	private T next;
+
+	protected ConcurrentGraphMarkerIterator() {
+		index = 0;
+		advance();
+	}
+
+	/**
+	 * @param fromIndex
+	 *            the first index to check
+	 * @return the smallest marked index &gt;= <code>fromIndex</code>, or -1 if
+	 *         there is none
+	 */
+	protected abstract int nextMarkedIndex(int fromIndex);
+
+	protected abstract T getElement(int index);
+
+	private void advance() {
+		next = null;
+		while (next == null) {
+			index = nextMarkedIndex(index + 1);
+			if (index < 0) {
+				return;
+			}
+			// the element may have been deleted in the meantime
+			next = getElement(index);
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		return next != null;
+	}
+
+	@Override
+	public T next() {
+		if (next == null) {
+			throw new NoSuchElementException(
+					ArrayGraphMarkerIterator.NO_MORE_ELEMENTS_ERROR_MESSAGE);
+		}
+		T result = next;
+		advance();
+		return result;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("remove is not supported.");
+	}
+}
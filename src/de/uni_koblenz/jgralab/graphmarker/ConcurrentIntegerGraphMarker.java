@@ -0,0 +1,372 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab.graphmarker;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import de.uni_koblenz.jgralab.Graph;
+import de.uni_koblenz.jgralab.GraphElement;
+import de.uni_koblenz.jgralab.algolib.functions.IntFunction;
+import de.uni_koblenz.jgralab.algolib.functions.entries.IntFunctionEntry;
+
+/**
+ * A thread-safe variant of {@link IntegerGraphMarker}. The marks are stored in
+ * fixed size stripes of {@link AtomicIntegerArray}s, so all operations on
+ * single elements are lock-free, and resizing the marker never loses marks
+ * set concurrently (see {@link ConcurrentBitSetGraphMarker}).
+ *
+ * In contrast to {@link IntegerGraphMarker}, the unmarked value can only be
+ * set on construction.
+ *
+ * @param <T>
+ *            the type of the marked graph elements
+ */
+public abstract class ConcurrentIntegerGraphMarker<T extends GraphElement<?, ?>>
+		extends AbstractGraphMarker<T> implements IntFunction<T> {
+	private static final int STRIPE_SHIFT = 12;
+	private static final int STRIPE_SIZE = 1 << STRIPE_SHIFT;
+	private static final int STRIPE_MASK = STRIPE_SIZE - 1;
+
+	public static final int DEFAULT_UNMARKED_VALUE = Integer.MIN_VALUE;
+
+	private volatile AtomicIntegerArray[] stripes;
+	private final LongAdder marked;
+	protected final int unmarkedValue;
+
+	protected ConcurrentIntegerGraphMarker(Graph graph, int size,
+			int unmarkedValue) {
+		super(graph);
+		this.unmarkedValue = unmarkedValue;
+		stripes = new AtomicIntegerArray[0];
+		marked = new LongAdder();
+		ensureCapacity(size);
+	}
+
+	/**
+	 * Makes sure that ids up to <code>size - 1</code> can be marked.
+	 *
+	 * @param size
+	 *            the required capacity
+	 */
+	protected final void ensureCapacity(int size) {
+		int required = ((Math.max(size, 1) - 1) >>> STRIPE_SHIFT) + 1;
+		if (stripes.length < required) {
+			grow(required);
+		}
+	}
+
+	private synchronized void grow(int required) {
+		AtomicIntegerArray[] old = stripes;
+		if (old.length >= required) {
+			return;
+		}
+		AtomicIntegerArray[] s = Arrays.copyOf(old, required);
+		for (int i = old.length; i < required; ++i) {
+			s[i] = newStripe();
+		}
+		stripes = s;
+	}
+
+	private AtomicIntegerArray newStripe() {
+		AtomicIntegerArray stripe = new AtomicIntegerArray(STRIPE_SIZE);
+		if (unmarkedValue != 0) {
+			for (int j = 0; j < STRIPE_SIZE; ++j) {
+				stripe.set(j, unmarkedValue);
+			}
+		}
+		return stripe;
+	}
+
+	/**
+	 * @param graphElement
+	 *            a graph element
+	 * @return the index of <code>graphElement</code> in this marker
+	 */
+	protected int getIndex(T graphElement) {
+		return graphElement.getId();
+	}
+
+	/**
+	 * @param index
+	 *            an index of this marker
+	 * @return the graph element for <code>index</code>, may be
+	 *         <code>null</code> if it doesn't exist (anymore)
+	 */
+	protected abstract T getElement(int index);
+
+	private AtomicIntegerArray stripeForUpdate(int index) {
+		AtomicIntegerArray[] s = stripes;
+		int i = index >>> STRIPE_SHIFT;
+		if (i >= s.length) {
+			ensureCapacity(index + 1);
+			s = stripes;
+		}
+		return s[i];
+	}
+
+	private void count(int oldValue, int newValue) {
+		if (oldValue == unmarkedValue) {
+			if (newValue != unmarkedValue) {
+				marked.increment();
+			}
+		} else if (newValue == unmarkedValue) {
+			marked.decrement();
+		}
+	}
+
+	@Override
+	public boolean isMarked(T graphElement) {
+		return getMark(graphElement) != unmarkedValue;
+	}
+
+	/**
+	 * @param graphElement
+	 *            a graph element
+	 * @return the mark of <code>graphElement</code>, or the unmarked value
+	 */
+	public int getMark(T graphElement) {
+		assert (graphElement.getGraph() == graph);
+		int index = getIndex(graphElement);
+		AtomicIntegerArray[] s = stripes;
+		int i = index >>> STRIPE_SHIFT;
+		return i < s.length ? s[i].get(index & STRIPE_MASK) : unmarkedValue;
+	}
+
+	/**
+	 * Marks the given element with the given value.
+	 *
+	 * @param graphElement
+	 *            the graph element to mark
+	 * @param value
+	 *            the mark
+	 * @return the previous mark of <code>graphElement</code>, or the unmarked
+	 *         value
+	 */
+	public int mark(T graphElement, int value) {
+		assert (graphElement.getGraph() == graph);
+		int index = getIndex(graphElement);
+		int old = stripeForUpdate(index).getAndSet(index & STRIPE_MASK, value);
+		count(old, value);
+		return old;
+	}
+
+	/**
+	 * Atomically marks the given element with <code>value</code> if it isn't
+	 * marked yet.
+	 *
+	 * @param graphElement
+	 *            the graph element to mark
+	 * @param value
+	 *            the mark
+	 * @return true if this call has marked <code>graphElement</code>
+	 */
+	public boolean markIfUnmarked(T graphElement, int value) {
+		return compareAndMark(graphElement, unmarkedValue, value);
+	}
+
+	/**
+	 * Atomically sets the mark of the given element to <code>update</code>
+	 * if its current mark is <code>expect</code>.
+	 *
+	 * @param graphElement
+	 *            the graph element to mark
+	 * @param expect
+	 *            the expected current mark
+	 * @param update
+	 *            the new mark
+	 * @return true if successful
+	 */
+	public boolean compareAndMark(T graphElement, int expect, int update) {
+		assert (graphElement.getGraph() == graph);
+		int index = getIndex(graphElement);
+		if (stripeForUpdate(index).compareAndSet(index & STRIPE_MASK, expect,
+				update)) {
+			count(expect, update);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Atomically adds <code>delta</code> to the mark of the given element. An
+	 * unmarked element is treated as if it was marked with 0.
+	 *
+	 * @param graphElement
+	 *            the graph element to mark
+	 * @param delta
+	 *            the value to add
+	 * @return the new mark
+	 */
+	public int addToMark(T graphElement, int delta) {
+		assert (graphElement.getGraph() == graph);
+		int index = getIndex(graphElement);
+		AtomicIntegerArray stripe = stripeForUpdate(index);
+		int i = index & STRIPE_MASK;
+		int old;
+		int value;
+		do {
+			old = stripe.get(i);
+			value = (old == unmarkedValue ? 0 : old) + delta;
+		} while (!stripe.compareAndSet(i, old, value));
+		count(old, value);
+		return value;
+	}
+
+	@Override
+	public boolean removeMark(T graphElement) {
+		assert (graphElement.getGraph() == graph);
+		int index = getIndex(graphElement);
+		AtomicIntegerArray[] s = stripes;
+		int i = index >>> STRIPE_SHIFT;
+		if (i >= s.length) {
+			return false;
+		}
+		int old = s[i].getAndSet(index & STRIPE_MASK, unmarkedValue);
+		count(old, unmarkedValue);
+		return old != unmarkedValue;
+	}
+
+	@Override
+	public int size() {
+		return marked.intValue();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Unmarks all elements. This is not atomic and should not be called while
+	 * other threads are marking.
+	 */
+	@Override
+	public void clear() {
+		for (AtomicIntegerArray stripe : stripes) {
+			for (int j = 0; j < STRIPE_SIZE; ++j) {
+				stripe.set(j, unmarkedValue);
+			}
+		}
+		marked.reset();
+	}
+
+	public int getUnmarkedValue() {
+		return unmarkedValue;
+	}
+
+	private int nextMarkedIndex(int fromIndex) {
+		AtomicIntegerArray[] s = stripes;
+		int j = fromIndex & STRIPE_MASK;
+		for (int i = fromIndex >>> STRIPE_SHIFT; i < s.length; ++i, j = 0) {
+			AtomicIntegerArray stripe = s[i];
+			for (; j < STRIPE_SIZE; ++j) {
+				if (stripe.get(j) != unmarkedValue) {
+					return (i << STRIPE_SHIFT) + j;
+				}
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public Iterable<T> getMarkedElements() {
+		return new Iterable<T>() {
+			@Override
+			public Iterator<T> iterator() {
+				return new ConcurrentGraphMarkerIterator<T>() {
+					@Override
+					protected int nextMarkedIndex(int fromIndex) {
+						return ConcurrentIntegerGraphMarker.this
+								.nextMarkedIndex(fromIndex);
+					}
+
+					@Override
+					protected T getElement(int index) {
+						return ConcurrentIntegerGraphMarker.this
+								.getElement(index);
+					}
+				};
+			}
+		};
+	}
+
+	@Override
+	public int get(T parameter) {
+		return getMark(parameter);
+	}
+
+	@Override
+	public boolean isDefined(T parameter) {
+		return isMarked(parameter);
+	}
+
+	@Override
+	public void set(T parameter, int value) {
+		mark(parameter, value);
+	}
+
+	@Override
+	public Iterator<IntFunctionEntry<T>> iterator() {
+		final Iterator<T> markedElements = getMarkedElements().iterator();
+		return new Iterator<IntFunctionEntry<T>>() {
+
+			@Override
+			public boolean hasNext() {
+				return markedElements.hasNext();
+			}
+
+			@Override
+			public IntFunctionEntry<T> next() {
+				T currentElement = markedElements.next();
+				return new IntFunctionEntry<>(currentElement,
+						get(currentElement));
+			}
+
+			@Override
+			public void remove() {
+				markedElements.remove();
+			}
+		};
+	}
+
+	@Override
+	public Iterable<T> getDomainElements() {
+		return getMarkedElements();
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab.graphmarker;
+
+import de.uni_koblenz.jgralab.Edge;
+import de.uni_koblenz.jgralab.Graph;
+import de.uni_koblenz.jgralab.Vertex;
+import de.uni_koblenz.jgralab.impl.InternalGraph;
+
+public class ConcurrentLongEdgeMarker extends ConcurrentLongGraphMarker<Edge> {
+
+	public ConcurrentLongEdgeMarker(Graph graph) {
+		this(graph, DEFAULT_UNMARKED_VALUE);
+	}
+
+	public ConcurrentLongEdgeMarker(Graph graph, long unmarkedValue) {
+		super(graph, ((InternalGraph) graph).getMaxECount() + 1,
+				unmarkedValue);
+	}
+
+	@Override
+	public void vertexDeleted(Vertex v) {
+		// do nothing
+	}
+
+	@Override
+	public void edgeDeleted(Edge e) {
+		removeMark(e);
+	}
+
+	@Override
+	public void maxVertexCountIncreased(int newValue) {
+		// do nothing
+	}
+
+	@Override
+	public void maxEdgeCountIncreased(int newValue) {
+		ensureCapacity(newValue + 1);
+	}
+
+	@Override
+	protected int getIndex(Edge edge) {
+		return edge.getNormalEdge().getId();
+	}
+
+	@Override
+	protected Edge getElement(int index) {
+		return graph.getEdge(index);
+	}
+
+}
@@ -0,0 +1,372 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab.graphmarker;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import de.uni_koblenz.jgralab.Graph;
+import de.uni_koblenz.jgralab.GraphElement;
+import de.uni_koblenz.jgralab.algolib.functions.LongFunction;
+import de.uni_koblenz.jgralab.algolib.functions.entries.LongFunctionEntry;
+
+/**
+ * A thread-safe variant of {@link LongGraphMarker}. The marks are stored in
+ * fixed size stripes of {@link AtomicLongArray}s, so all operations on
+ * single elements are lock-free, and resizing the marker never loses marks
+ * set concurrently (see {@link ConcurrentBitSetGraphMarker}).
+ *
+ * In contrast to {@link LongGraphMarker}, the unmarked value can only be
+ * set on construction.
+ *
+ * @param <T>
+ *            the type of the marked graph elements
+ */
+public abstract class ConcurrentLongGraphMarker<T extends GraphElement<?, ?>>
+		extends AbstractGraphMarker<T> implements LongFunction<T> {
+	private static final int STRIPE_SHIFT = 12;
+	private static final int STRIPE_SIZE = 1 << STRIPE_SHIFT;
+	private static final int STRIPE_MASK = STRIPE_SIZE - 1;
+
+	public static final long DEFAULT_UNMARKED_VALUE = Long.MIN_VALUE;
+
+	private volatile AtomicLongArray[] stripes;
+	private final LongAdder marked;
+	protected final long unmarkedValue;
+
+	protected ConcurrentLongGraphMarker(Graph graph, int size,
+			long unmarkedValue) {
+		super(graph);
+		this.unmarkedValue = unmarkedValue;
+		stripes = new AtomicLongArray[0];
+		marked = new LongAdder();
+		ensureCapacity(size);
+	}
+
+	/**
+	 * Makes sure that ids up to <code>size - 1</code> can be marked.
+	 *
+	 * @param size
+	 *            the required capacity
+	 */
+	protected final void ensureCapacity(int size) {
+		int required = ((Math.max(size, 1) - 1) >>> STRIPE_SHIFT) + 1;
+		if (stripes.length < required) {
+			grow(required);
+		}
+	}
+
+	private synchronized void grow(int required) {
+		AtomicLongArray[] old = stripes;
+		if (old.length >= required) {
+			return;
+		}
+		AtomicLongArray[] s = Arrays.copyOf(old, required);
+		for (int i = old.length; i < required; ++i) {
+			s[i] = newStripe();
+		}
+		stripes = s;
+	}
+
+	private AtomicLongArray newStripe() {
+		AtomicLongArray stripe = new AtomicLongArray(STRIPE_SIZE);
+		if (unmarkedValue != 0) {
+			for (int j = 0; j < STRIPE_SIZE; ++j) {
+				stripe.set(j, unmarkedValue);
+			}
+		}
+		return stripe;
+	}
+
+	/**
+	 * @param graphElement
+	 *            a graph element
+	 * @return the index of <code>graphElement</code> in this marker
+	 */
+	protected int getIndex(T graphElement) {
+		return graphElement.getId();
+	}
+
+	/**
+	 * @param index
+	 *            an index of this marker
+	 * @return the graph element for <code>index</code>, may be
+	 *         <code>null</code> if it doesn't exist (anymore)
+	 */
+	protected abstract T getElement(int index);
+
+	private AtomicLongArray stripeForUpdate(int index) {
+		AtomicLongArray[] s = stripes;
+		int i = index >>> STRIPE_SHIFT;
+		if (i >= s.length) {
+			ensureCapacity(index + 1);
+			s = stripes;
+		}
+		return s[i];
+	}
+
+	private void count(long oldValue, long newValue) {
+		if (oldValue == unmarkedValue) {
+			if (newValue != unmarkedValue) {
+				marked.increment();
+			}
+		} else if (newValue == unmarkedValue) {
+			marked.decrement();
+		}
+	}
+
+	@Override
+	public boolean isMarked(T graphElement) {
+		return getMark(graphElement) != unmarkedValue;
+	}
+
+	/**
+	 * @param graphElement
+	 *            a graph element
+	 * @return the mark of <code>graphElement</code>, or the unmarked value
+	 */
+	public long getMark(T graphElement) {
+		assert (graphElement.getGraph() == graph);
+		int index = getIndex(graphElement);
+		AtomicLongArray[] s = stripes;
+		int i = index >>> STRIPE_SHIFT;
+		return i < s.length ? s[i].get(index & STRIPE_MASK) : unmarkedValue;
+	}
+
+	/**
+	 * Marks the given element with the given value.
+	 *
+	 * @param graphElement
+	 *            the graph element to mark
+	 * @param value
+	 *            the mark
+	 * @return the previous mark of <code>graphElement</code>, or the unmarked
+	 *         value
+	 */
+	public long mark(T graphElement, long value) {
+		assert (graphElement.getGraph() == graph);
+		int index = getIndex(graphElement);
+		long old = stripeForUpdate(index).getAndSet(index & STRIPE_MASK, value);
+		count(old, value);
+		return old;
+	}
+
+	/**
+	 * Atomically marks the given element with <code>value</code> if it isn't
+	 * marked yet.
+	 *
+	 * @param graphElement
+	 *            the graph element to mark
+	 * @param value
+	 *            the mark
+	 * @return true if this call has marked <code>graphElement</code>
+	 */
+	public boolean markIfUnmarked(T graphElement, long value) {
+		return compareAndMark(graphElement, unmarkedValue, value);
+	}
+
+	/**
+	 * Atomically sets the mark of the given element to <code>update</code>
+	 * if its current mark is <code>expect</code>.
+	 *
+	 * @param graphElement
+	 *            the graph element to mark
+	 * @param expect
+	 *            the expected current mark
+	 * @param update
+	 *            the new mark
+	 * @return true if successful
+	 */
+	public boolean compareAndMark(T graphElement, long expect, long update) {
+		assert (graphElement.getGraph() == graph);
+		int index = getIndex(graphElement);
+		if (stripeForUpdate(index).compareAndSet(index & STRIPE_MASK, expect,
+				update)) {
+			count(expect, update);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Atomically adds <code>delta</code> to the mark of the given element. An
+	 * unmarked element is treated as if it was marked with 0.
+	 *
+	 * @param graphElement
+	 *            the graph element to mark
+	 * @param delta
+	 *            the value to add
+	 * @return the new mark
+	 */
+	public long addToMark(T graphElement, long delta) {
+		assert (graphElement.getGraph() == graph);
+		int index = getIndex(graphElement);
+		AtomicLongArray stripe = stripeForUpdate(index);
+		int i = index & STRIPE_MASK;
+		long old;
+		long value;
+		do {
+			old = stripe.get(i);
+			value = (old == unmarkedValue ? 0 : old) + delta;
+		} while (!stripe.compareAndSet(i, old, value));
+		count(old, value);
+		return value;
+	}
+
+	@Override
+	public boolean removeMark(T graphElement) {
+		assert (graphElement.getGraph() == graph);
+		int index = getIndex(graphElement);
+		AtomicLongArray[] s = stripes;
+		int i = index >>> STRIPE_SHIFT;
+		if (i >= s.length) {
+			return false;
+		}
+		long old = s[i].getAndSet(index & STRIPE_MASK, unmarkedValue);
+		count(old, unmarkedValue);
+		return old != unmarkedValue;
+	}
+
+	@Override
+	public int size() {
+		return marked.intValue();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Unmarks all elements. This is not atomic and should not be called while
+	 * other threads are marking.
+	 */
+	@Override
+	public void clear() {
+		for (AtomicLongArray stripe : stripes) {
+			for (int j = 0; j < STRIPE_SIZE; ++j) {
+				stripe.set(j, unmarkedValue);
+			}
+		}
+		marked.reset();
+	}
+
+	public long getUnmarkedValue() {
+		return unmarkedValue;
+	}
+
+	private int nextMarkedIndex(int fromIndex) {
+		AtomicLongArray[] s = stripes;
+		int j = fromIndex & STRIPE_MASK;
+		for (int i = fromIndex >>> STRIPE_SHIFT; i < s.length; ++i, j = 0) {
+			AtomicLongArray stripe = s[i];
+			for (; j < STRIPE_SIZE; ++j) {
+				if (stripe.get(j) != unmarkedValue) {
+					return (i << STRIPE_SHIFT) + j;
+				}
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public Iterable<T> getMarkedElements() {
+		return new Iterable<T>() {
+			@Override
+			public Iterator<T> iterator() {
+				return new ConcurrentGraphMarkerIterator<T>() {
+					@Override
+					protected int nextMarkedIndex(int fromIndex) {
+						return ConcurrentLongGraphMarker.this
+								.nextMarkedIndex(fromIndex);
+					}
+
+					@Override
+					protected T getElement(int index) {
+						return ConcurrentLongGraphMarker.this
+								.getElement(index);
+					}
+				};
+			}
+		};
+	}
+
+	@Override
+	public long get(T parameter) {
+		return getMark(parameter);
+	}
+
+	@Override
+	public boolean isDefined(T parameter) {
+		return isMarked(parameter);
+	}
+
+	@Override
+	public void set(T parameter, long value) {
+		mark(parameter, value);
+	}
+
+	@Override
+	public Iterator<LongFunctionEntry<T>> iterator() {
+		final Iterator<T> markedElements = getMarkedElements().iterator();
+		return new Iterator<LongFunctionEntry<T>>() {
+
+			@Override
+			public boolean hasNext() {
+				return markedElements.hasNext();
+			}
+
+			@Override
+			public LongFunctionEntry<T> next() {
+				T currentElement = markedElements.next();
+				return new LongFunctionEntry<>(currentElement,
+						get(currentElement));
+			}
+
+			@Override
+			public void remove() {
+				markedElements.remove();
+			}
+		};
+	}
+
+	@Override
+	public Iterable<T> getDomainElements() {
+		return getMarkedElements();
+	}
+
+}
@@ -39,25 +39,55 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import de.uni_koblenz.jgralab.AttributedElement;
+import de.uni_koblenz.jgralab.Edge;
 import de.uni_koblenz.jgralab.EdgeDirection;
 import de.uni_koblenz.jgralab.Graph;
+import de.uni_koblenz.jgralab.GraphChangeListener;
 import de.uni_koblenz.jgralab.GraphIO;
+import de.uni_koblenz.jgralab.IncrementalGraphChangeAdapter;
 import de.uni_koblenz.jgralab.Vertex;
 import de.uni_koblenz.jgralab.exception.GraphIOException;
 import de.uni_koblenz.jgralab.greql.GreqlQuery;
 import de.uni_koblenz.jgralab.greql.exception.GreqlException;
+import de.uni_koblenz.jgralab.greql.funlib.FunLib;
+import de.uni_koblenz.jgralab.greql.funlib.FunLib.FunctionInfo;
+import de.uni_koblenz.jgralab.greql.funlib.graph.Degree;
+import de.uni_koblenz.jgralab.greql.funlib.graph.GetValue;
+import de.uni_koblenz.jgralab.greql.funlib.graph.Id;
+import de.uni_koblenz.jgralab.greql.funlib.graph.InDegree;
+import de.uni_koblenz.jgralab.greql.funlib.graph.IsLoop;
+import de.uni_koblenz.jgralab.greql.funlib.graph.OutDegree;
+import de.uni_koblenz.jgralab.greql.funlib.misc.GreqlQueryFunction;
+import de.uni_koblenz.jgralab.greql.schema.ElementSetExpression;
+import de.uni_koblenz.jgralab.greql.schema.FunctionId;
+import de.uni_koblenz.jgralab.greql.schema.PathDescription;
+import de.uni_koblenz.jgralab.greql.schema.PathExpression;
+import de.uni_koblenz.jgralab.greql.schema.SubgraphDefinition;
+import de.uni_koblenz.jgralab.greql.schema.SubgraphRestrictedExpression;
+import de.uni_koblenz.jgralab.greql.schema.ThisLiteral;
+import de.uni_koblenz.jgralab.greql.schema.TypeId;
 import de.uni_koblenz.jgralab.impl.ConsoleProgressFunction;
 import de.uni_koblenz.jgralab.schema.AttributedElementClass;
 import de.uni_koblenz.jgralab.schema.Constraint;
 import de.uni_koblenz.jgralab.schema.EdgeClass;
+import de.uni_koblenz.jgralab.schema.GraphElementClass;
 import de.uni_koblenz.jgralab.schema.Schema;
 
 /**
@@ -65,18 +95,106 @@ import de.uni_koblenz.jgralab.schema.Schema;
  * {@link Constraint}s specified in the {@link Schema} of a given {@link Graph}
  * are fulfilled.
  * 
+ * The GReQL queries of all constraints are compiled once per validator, and
+ * the multiplicity checks of the edge classes and the constraints are
+ * evaluated concurrently (see {@link #setThreadCount(int)}).
+ * 
+ * An incremental validator (see {@link #GraphValidator(Graph, boolean)})
+ * listens to the changes of its graph. {@link #validate()} then re-validates
+ * only the multiplicities of edge classes whose edges or end vertices have
+ * been created, deleted or reconnected, and only the constraints which may
+ * read the changed elements, and reuses the violations found by the previous
+ * run for everything else. Changes that are not reported to
+ * {@link GraphChangeListener}s, e.g. while the graph is loading, cause a
+ * complete validation.
+ * 
+ * A <code>GraphValidator</code> must not be used by several threads at once.
+ * 
  * @author ist@uni-koblenz.de
  */
 public class GraphValidator {
 
 	private final Graph graph;
 
+	/**
+	 * the number of threads used for validation
+	 */
+	private int threadCount = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * the compiled constraints of all classes of the schema, created on first
+	 * use
+	 */
+	private Map<AttributedElementClass<?, ?>, List<CompiledConstraint>> compiledConstraints;
+
+	/**
+	 * the multiplicity violations of each edge class found by the last
+	 * {@link #validate()}, or null if the graph hasn't been validated yet
+	 */
+	private Map<EdgeClass, SortedSet<MultiplicityConstraintViolation>> multiplicityViolations;
+
+	/**
+	 * records the changes of the graph in incremental mode, null otherwise
+	 */
+	private ChangeTracker tracker;
+
+	/**
+	 * the version of the graph up to which all changes have been recorded by
+	 * the tracker
+	 */
+	private long graphVersion;
+
+	/**
+	 * the classes whose instances have been created, deleted or modified since
+	 * the last {@link #validate()}, including all their superclasses
+	 */
+	private Set<AttributedElementClass<?, ?>> changedClasses;
+
+	/**
+	 * the classes whose instances have been created, deleted or (in case of
+	 * edges) reconnected since the last {@link #validate()}, including all
+	 * their superclasses
+	 */
+	private Set<AttributedElementClass<?, ?>> changedStructure;
+
+	/**
+	 * the edge classes whose multiplicities have been checked by the last
+	 * {@link #validate()}
+	 */
+	private List<EdgeClass> checkedEdgeClasses = Collections.emptyList();
+
+	/**
+	 * the constraints which have been evaluated by the last
+	 * {@link #validate()}
+	 */
+	private Set<Constraint> checkedConstraints = Collections.emptySet();
+
 	/**
 	 * @param graph
 	 *            the {@link Graph} to validate
 	 */
 	public GraphValidator(Graph graph) {
+		this(graph, false);
+	}
+
+	/**
+	 * @param graph
+	 *            the {@link Graph} to validate
+	 * @param incremental
+	 *            if <code>true</code>, the validator tracks the changes of
+	 *            <code>graph</code> and {@link #validate()} re-validates only
+	 *            the constraints affected by changes since its last call. Call
+	 *            {@link #dispose()} to stop tracking.
+	 */
+	public GraphValidator(Graph graph, boolean incremental) {
 		this.graph = graph;
+		if (incremental) {
+			changedClasses = new HashSet<>();
+			changedStructure = new HashSet<>();
+			graphVersion = graph.getGraphVersion();
+			tracker = new ChangeTracker(graph);
+			graph.addGraphChangeListener(tracker);
+		}
 	}
 
 	// TODO: Add proper apache common CLI handling!
@@ -91,6 +209,51 @@ public class GraphValidator {
 		v.createValidationReport("__validation_report.html");
 	}
 
+	/**
+	 * @return <code>true</code> iff this validator tracks the changes of its
+	 *         graph and validates incrementally
+	 */
+	public boolean isIncremental() {
+		return tracker != null;
+	}
+
+	/**
+	 * Unregisters an incremental validator from its graph. Afterwards,
+	 * {@link #validate()} always validates the complete graph.
+	 */
+	public void dispose() {
+		if (tracker != null) {
+			graph.removeGraphChangeListener(tracker);
+			tracker = null;
+			changedClasses = null;
+			changedStructure = null;
+			multiplicityViolations = null;
+		}
+	}
+
+	/**
+	 * @return the number of threads used for validation
+	 */
+	public int getThreadCount() {
+		return threadCount;
+	}
+
+	/**
+	 * Sets the number of threads used for validation. The default is the
+	 * number of available processors.
+	 * 
+	 * @param threadCount
+	 *            the number of threads, 1 validates sequentially
+	 */
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException(
+					"The thread count must be positive, but was "
+							+ threadCount);
+		}
+		this.threadCount = threadCount;
+	}
+
 	/**
 	 * Checks if all multiplicities specified for the {@link EdgeClass}
 	 * <code>ec</code> are fulfilled.
@@ -109,10 +272,12 @@ public class GraphValidator {
 		int toMin = ec.getTo().getMin();
 		int toMax = ec.getTo().getMax();
 		Map<AttributedElement<?, ?>, Integer> badOutgoing = new HashMap<>();
-		for (Vertex v : graph.vertices(ec.getFrom().getVertexClass())) {
-			int degree = v.getDegree(ec, EdgeDirection.OUT);
-			if ((degree < toMin) || (degree > toMax)) {
-				badOutgoing.put(v, degree);
+		if ((toMin > 0) || (toMax < Integer.MAX_VALUE)) {
+			for (Vertex v : graph.vertices(ec.getFrom().getVertexClass())) {
+				int degree = v.getDegree(ec, EdgeDirection.OUT);
+				if ((degree < toMin) || (degree > toMax)) {
+					badOutgoing.put(v, degree);
+				}
 			}
 		}
 		if (!badOutgoing.isEmpty()) {
@@ -125,10 +290,12 @@ public class GraphValidator {
 		int fromMin = ec.getFrom().getMin();
 		int fromMax = ec.getFrom().getMax();
 		Map<AttributedElement<?, ?>, Integer> badIncoming = new HashMap<>();
-		for (Vertex v : graph.vertices(ec.getTo().getVertexClass())) {
-			int degree = v.getDegree(ec, EdgeDirection.IN);
-			if ((degree < fromMin) || (degree > fromMax)) {
-				badIncoming.put(v, degree);
+		if ((fromMin > 0) || (fromMax < Integer.MAX_VALUE)) {
+			for (Vertex v : graph.vertices(ec.getTo().getVertexClass())) {
+				int degree = v.getDegree(ec, EdgeDirection.IN);
+				if ((degree < fromMin) || (degree > fromMax)) {
+					badIncoming.put(v, degree);
+				}
 			}
 		}
 		if (!badIncoming.isEmpty()) {
@@ -145,30 +312,138 @@ public class GraphValidator {
 	/**
 	 * Validates all constraints of the graph.
 	 * 
+	 * In incremental mode, only the multiplicities and constraints affected by
+	 * the changes since the last call are validated again.
+	 * 
 	 * @see GraphValidator#validateMultiplicities(EdgeClass)
 	 * @see GraphValidator#validateConstraints(AttributedElementClass)
 	 * @return a set of {@link ConstraintViolation} objects, one for each
 	 *         violation, sorted by their type
 	 */
 	public SortedSet<ConstraintViolation> validate() {
-		SortedSet<ConstraintViolation> brokenConstraints = new TreeSet<>();
+		List<EdgeClass> edgeClasses = graph.getGraphClass().getEdgeClasses();
+		List<CompiledConstraint> constraints = new ArrayList<>();
+		for (List<CompiledConstraint> l : getCompiledConstraints().values()) {
+			constraints.addAll(l);
+		}
 
-		// Check if all multiplicities are correct
-		for (EdgeClass ec : graph.getGraphClass().getEdgeClasses()) {
-			brokenConstraints.addAll(validateMultiplicities(ec));
+		List<EdgeClass> invalidEdgeClasses = edgeClasses;
+		List<CompiledConstraint> invalidConstraints = constraints;
+		if ((tracker != null) && (multiplicityViolations != null)
+				&& !graph.isGraphModified(graphVersion)) {
+			invalidEdgeClasses = new ArrayList<>();
+			for (EdgeClass ec : edgeClasses) {
+				if (changedStructure.contains(ec)
+						|| changedStructure.contains(ec.getFrom()
+								.getVertexClass())
+						|| changedStructure.contains(ec.getTo()
+								.getVertexClass())) {
+					invalidEdgeClasses.add(ec);
+				}
+			}
+			invalidConstraints = new ArrayList<>();
+			for (CompiledConstraint c : constraints) {
+				if (c.isAffectedBy(changedClasses)) {
+					invalidConstraints.add(c);
+				}
+			}
+		} else {
+			multiplicityViolations = new HashMap<>();
+		}
+		checkedEdgeClasses = Collections.unmodifiableList(invalidEdgeClasses);
+		Set<Constraint> checked = new HashSet<>();
+		for (CompiledConstraint c : invalidConstraints) {
+			checked.add(c.constraint);
+		}
+		checkedConstraints = Collections.unmodifiableSet(checked);
+		if (tracker != null) {
+			// changes reported from now on are validated by the next run
+			changedClasses.clear();
+			changedStructure.clear();
+			graphVersion = graph.getGraphVersion();
 		}
 
-		// check if all greql constraints are met
-		List<AttributedElementClass<?, ?>> aecs = new ArrayList<>();
-		aecs.add(graph.getSchema().getGraphClass());
-		aecs.addAll(graph.getSchema().getGraphClass().getVertexClasses());
-		aecs.addAll(graph.getSchema().getGraphClass().getEdgeClasses());
-		for (AttributedElementClass<?, ?> aec : aecs) {
-			brokenConstraints.addAll(validateConstraints(aec));
+		try {
+			validate(invalidEdgeClasses, invalidConstraints);
+		} catch (RuntimeException | Error e) {
+			// the stored violations are only partially updated
+			multiplicityViolations = null;
+			throw e;
+		}
+
+		SortedSet<ConstraintViolation> brokenConstraints = new TreeSet<>();
+		for (EdgeClass ec : edgeClasses) {
+			brokenConstraints.addAll(multiplicityViolations.get(ec));
+		}
+		for (CompiledConstraint c : constraints) {
+			if (c.violation != null) {
+				brokenConstraints.add(c.violation);
+			}
+		}
+		if (tracker == null) {
+			multiplicityViolations = null;
+			for (CompiledConstraint c : constraints) {
+				c.violation = null;
+			}
 		}
 		return brokenConstraints;
 	}
 
+	/**
+	 * @return the edge classes whose multiplicities have been checked by the
+	 *         last call of {@link #validate()}. In incremental mode, these are
+	 *         only the edge classes affected by the changes before that call.
+	 */
+	public List<EdgeClass> getCheckedEdgeClasses() {
+		return checkedEdgeClasses;
+	}
+
+	/**
+	 * @return the constraints which have been evaluated by the last call of
+	 *         {@link #validate()}. In incremental mode, these are only the
+	 *         constraints affected by the changes before that call.
+	 */
+	public Set<Constraint> getCheckedConstraints() {
+		return checkedConstraints;
+	}
+
+	/**
+	 * Checks the multiplicities of all <code>edgeClasses</code> and all
+	 * <code>constraints</code> concurrently and stores the found violations.
+	 */
+	private void validate(List<EdgeClass> edgeClasses,
+			List<CompiledConstraint> constraints) {
+		ExecutorService executor = createExecutor(edgeClasses.size()
+				+ constraints.size());
+		try {
+			List<Future<SortedSet<MultiplicityConstraintViolation>>> multiplicities = new ArrayList<>(
+					edgeClasses.size());
+			for (final EdgeClass ec : edgeClasses) {
+				multiplicities.add(submit(executor,
+						new Callable<SortedSet<MultiplicityConstraintViolation>>() {
+							@Override
+							public SortedSet<MultiplicityConstraintViolation> call() {
+								return validateMultiplicities(ec);
+							}
+						}));
+			}
+			List<Future<ConstraintViolation>> violations = submitAll(executor,
+					constraints);
+
+			for (int i = 0; i < edgeClasses.size(); i++) {
+				multiplicityViolations.put(edgeClasses.get(i),
+						get(multiplicities.get(i)));
+			}
+			for (int i = 0; i < constraints.size(); i++) {
+				constraints.get(i).violation = get(violations.get(i));
+			}
+		} finally {
+			if (executor != null) {
+				executor.shutdownNow();
+			}
+		}
+	}
+
 	/**
 	 * Checks if all {@link Constraint}s attached to the
 	 * {@link AttributedElementClass} <code>aec</code> are fulfilled.
@@ -179,31 +454,115 @@ public class GraphValidator {
 	 */
 	public SortedSet<ConstraintViolation> validateConstraints(
 			AttributedElementClass<?, ?> aec) {
+		List<CompiledConstraint> constraints = getCompiledConstraints().get(
+				aec);
+		if (constraints == null) {
+			constraints = compile(aec);
+		}
 		SortedSet<ConstraintViolation> brokenConstraints = new TreeSet<>();
-		for (Constraint constraint : aec.getConstraints()) {
-			String query = constraint.getPredicate();
-			try {
-				if (!(Boolean) GreqlQuery.createQuery(query).evaluate(graph)) {
-					if (constraint.getOffendingElementsQuery() != null) {
-						query = constraint.getOffendingElementsQuery();
-						@SuppressWarnings("unchecked")
-						Set<AttributedElement<?, ?>> resultSet = (Set<AttributedElement<?, ?>>) GreqlQuery
-								.createQuery(query).evaluate(graph);
-						brokenConstraints.add(new GReQLConstraintViolation(aec,
-								constraint, resultSet));
-					} else {
-						brokenConstraints.add(new GReQLConstraintViolation(aec,
-								constraint, null));
-					}
+		ExecutorService executor = createExecutor(constraints.size());
+		try {
+			for (Future<ConstraintViolation> violation : submitAll(executor,
+					constraints)) {
+				ConstraintViolation v = get(violation);
+				if (v != null) {
+					brokenConstraints.add(v);
 				}
-			} catch (GreqlException e) {
-				brokenConstraints.add(new BrokenGReQLConstraintViolation(aec,
-						constraint, query));
+			}
+		} finally {
+			if (executor != null) {
+				executor.shutdownNow();
 			}
 		}
 		return brokenConstraints;
 	}
 
+	/**
+	 * @return the compiled constraints of the graph class and all vertex and
+	 *         edge classes of the schema
+	 */
+	private Map<AttributedElementClass<?, ?>, List<CompiledConstraint>> getCompiledConstraints() {
+		if (compiledConstraints == null) {
+			Map<AttributedElementClass<?, ?>, List<CompiledConstraint>> m = new HashMap<>();
+			List<AttributedElementClass<?, ?>> aecs = new ArrayList<>();
+			aecs.add(graph.getSchema().getGraphClass());
+			aecs.addAll(graph.getSchema().getGraphClass().getVertexClasses());
+			aecs.addAll(graph.getSchema().getGraphClass().getEdgeClasses());
+			for (AttributedElementClass<?, ?> aec : aecs) {
+				m.put(aec, compile(aec));
+			}
+			compiledConstraints = m;
+		}
+		return compiledConstraints;
+	}
+
+	private List<CompiledConstraint> compile(AttributedElementClass<?, ?> aec) {
+		List<CompiledConstraint> constraints = new ArrayList<>(aec
+				.getConstraints().size());
+		for (Constraint constraint : aec.getConstraints()) {
+			constraints.add(new CompiledConstraint(aec, constraint));
+		}
+		return constraints;
+	}
+
+	/**
+	 * @return a thread pool for <code>taskCount</code> tasks, or null if the
+	 *         tasks should be executed sequentially
+	 */
+	private ExecutorService createExecutor(int taskCount) {
+		if ((threadCount < 2) || (taskCount < 2)) {
+			return null;
+		}
+		return Executors.newFixedThreadPool(Math.min(threadCount, taskCount));
+	}
+
+	/**
+	 * Submits <code>task</code> to <code>executor</code>, or executes it
+	 * immediately if <code>executor</code> is null.
+	 */
+	private static <T> Future<T> submit(ExecutorService executor,
+			Callable<T> task) {
+		if (executor != null) {
+			return executor.submit(task);
+		}
+		FutureTask<T> result = new FutureTask<>(task);
+		result.run();
+		return result;
+	}
+
+	private List<Future<ConstraintViolation>> submitAll(
+			ExecutorService executor, List<CompiledConstraint> constraints) {
+		List<Future<ConstraintViolation>> violations = new ArrayList<>(
+				constraints.size());
+		for (final CompiledConstraint c : constraints) {
+			violations.add(submit(executor, new Callable<ConstraintViolation>() {
+				@Override
+				public ConstraintViolation call() {
+					return c.validate(graph);
+				}
+			}));
+		}
+		return violations;
+	}
+
+	private static <T> T get(Future<T> result) {
+		try {
+			return result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(
+					"Interrupted while waiting for a constraint check.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new RuntimeException("A constraint check failed.", e);
+		}
+	}
+
 	/**
 	 * Do just like {@link GraphValidator#validate()}, but generate a HTML
 	 * report saved to <code>fileName</code>, too.
@@ -338,4 +697,261 @@ public class GraphValidator {
 
 		return brokenConstraints;
 	}
+
+	/**
+	 * The GReQL queries of a {@link Constraint}, the classes whose instances
+	 * they may read and the violation found by the last validation.
+	 */
+	private static class CompiledConstraint {
+
+		/**
+		 * the graph functions which read only their arguments, i.e., the
+		 * attributes, the incidences or the end vertices of a given element
+		 */
+		private static final Set<Class<?>> ARGUMENT_FUNCTIONS = new HashSet<Class<?>>(
+				Arrays.<Class<?>> asList(GetValue.class, Id.class,
+						Degree.class, InDegree.class, OutDegree.class,
+						IsLoop.class));
+
+		private final AttributedElementClass<?, ?> aec;
+		private final Constraint constraint;
+
+		/**
+		 * the compiled queries, null if they are syntactically broken
+		 */
+		private GreqlQuery predicate;
+		private GreqlQuery offendingElements;
+
+		/**
+		 * the classes whose instances may be read by the queries, null if
+		 * the queries may read any element
+		 */
+		private Set<AttributedElementClass<?, ?>> dependencies;
+
+		ConstraintViolation violation;
+
+		CompiledConstraint(AttributedElementClass<?, ?> aec,
+				Constraint constraint) {
+			this.aec = aec;
+			this.constraint = constraint;
+			Schema schema = aec.getSchema();
+			try {
+				predicate = GreqlQuery.createQuery(constraint.getPredicate());
+				dependencies = getDependencies(predicate, schema);
+			} catch (GreqlException e) {
+				// reported on validation
+			}
+			if (constraint.getOffendingElementsQuery() != null) {
+				try {
+					offendingElements = GreqlQuery.createQuery(constraint
+							.getOffendingElementsQuery());
+					Set<AttributedElementClass<?, ?>> d = getDependencies(
+							offendingElements, schema);
+					if ((d == null) || (dependencies == null)) {
+						dependencies = null;
+					} else {
+						dependencies.addAll(d);
+					}
+				} catch (GreqlException e) {
+					// reported on validation
+				}
+			}
+		}
+
+		/**
+		 * @return true iff the result of this constraint may have changed
+		 *         after instances of the <code>changedClasses</code> have
+		 *         been created, deleted or modified
+		 */
+		boolean isAffectedBy(Set<AttributedElementClass<?, ?>> changedClasses) {
+			if (dependencies == null) {
+				return !changedClasses.isEmpty();
+			}
+			return !Collections.disjoint(dependencies, changedClasses);
+		}
+
+		/**
+		 * @return the violation of this constraint in <code>graph</code>, or
+		 *         null if the constraint is fulfilled
+		 */
+		ConstraintViolation validate(Graph graph) {
+			String query = constraint.getPredicate();
+			try {
+				if (predicate == null) {
+					return new BrokenGReQLConstraintViolation(aec, constraint,
+							query);
+				}
+				if ((Boolean) predicate.evaluate(graph)) {
+					return null;
+				}
+				query = constraint.getOffendingElementsQuery();
+				if (query == null) {
+					return new GReQLConstraintViolation(aec, constraint, null);
+				}
+				if (offendingElements == null) {
+					return new BrokenGReQLConstraintViolation(aec, constraint,
+							query);
+				}
+				@SuppressWarnings("unchecked")
+				Set<AttributedElement<?, ?>> resultSet = (Set<AttributedElement<?, ?>>) offendingElements
+						.evaluate(graph);
+				return new GReQLConstraintViolation(aec, constraint, resultSet);
+			} catch (GreqlException e) {
+				return new BrokenGReQLConstraintViolation(aec, constraint,
+						query);
+			}
+		}
+
+		/**
+		 * Determines which elements <code>query</code> may read. A query
+		 * which accesses the graph only by type restricted vertex and edge
+		 * sets (e.g. "V{Node}") and functions that read only their arguments
+		 * depends on the named classes. Navigation along paths, unrestricted
+		 * vertex or edge sets, subgraphs and graph functions (e.g. alpha())
+		 * may reach elements of any class.
+		 * 
+		 * @return the classes whose instances may be read by
+		 *         <code>query</code>, or null if it may read any element
+		 */
+		private static Set<AttributedElementClass<?, ?>> getDependencies(
+				GreqlQuery query, Schema schema) {
+			Set<AttributedElementClass<?, ?>> dependencies = new HashSet<>();
+			for (Vertex v : query.getQueryGraph().vertices()) {
+				if ((v instanceof PathDescription)
+						|| (v instanceof PathExpression)
+						|| (v instanceof ThisLiteral)
+						|| (v instanceof SubgraphDefinition)
+						|| (v instanceof SubgraphRestrictedExpression)) {
+					return null;
+				}
+				if ((v instanceof ElementSetExpression)
+						&& (((ElementSetExpression) v)
+								.getFirstIsTypeRestrOfExpressionIncidence(EdgeDirection.IN) == null)) {
+					return null;
+				}
+				if (v instanceof TypeId) {
+					TypeId id = (TypeId) v;
+					if (id.is_excluded()) {
+						return null;
+					}
+					AttributedElementClass<?, ?> type = schema
+							.getAttributedElementClass(id.get_name());
+					if (!(type instanceof GraphElementClass)
+							|| ((GraphElementClass<?, ?>) type)
+									.isDefaultGraphElementClass()) {
+						return null;
+					}
+					dependencies.add(type);
+				}
+				if ((v instanceof FunctionId)
+						&& !readsOnlyArguments(((FunctionId) v).get_name())) {
+					return null;
+				}
+			}
+			return dependencies;
+		}
+
+		/**
+		 * @return true iff the GReQL function <code>name</code> doesn't
+		 *         navigate the graph
+		 */
+		private static boolean readsOnlyArguments(String name) {
+			if (!FunLib.contains(name)) {
+				return false;
+			}
+			FunctionInfo fi = FunLib.getFunctionInfo(name);
+			if (fi.needsGraphArgument() || fi.needsEvaluatorArgument()) {
+				return false;
+			}
+			Class<?> cls = fi.getFunction().getClass();
+			if (ARGUMENT_FUNCTIONS.contains(cls)) {
+				return true;
+			}
+			String pkg = cls.getPackage().getName();
+			return pkg.startsWith(FunLib.class.getPackage().getName() + ".")
+					&& !pkg.startsWith(Id.class.getPackage().getName())
+					&& !GreqlQueryFunction.class.isAssignableFrom(cls);
+		}
+	}
+
+	/**
+	 * Records the classes of the elements changed by every reported change.
+	 * The graph version is only accepted if all previous changes have been
+	 * recorded.
+	 */
+	private class ChangeTracker extends IncrementalGraphChangeAdapter {
+
+		ChangeTracker(Graph graph) {
+			super(graph);
+		}
+
+		@Override
+		protected void changeFinished(long versionBeforeChange) {
+			if (versionBeforeChange == graphVersion) {
+				graphVersion = graph.getGraphVersion();
+			}
+		}
+
+		private void changed(AttributedElementClass<?, ?> aec,
+				boolean structure) {
+			add(changedClasses, aec);
+			if (structure) {
+				add(changedStructure, aec);
+			}
+		}
+
+		private void add(Set<AttributedElementClass<?, ?>> classes,
+				AttributedElementClass<?, ?> aec) {
+			if (classes.add(aec) && (aec instanceof GraphElementClass)) {
+				for (GraphElementClass<?, ?> superClass : ((GraphElementClass<?, ?>) aec)
+						.getAllSuperClasses()) {
+					classes.add(superClass);
+				}
+			}
+		}
+
+		private void incidencesChanged(Edge e, boolean structure) {
+			changed(e.getAttributedElementClass(), structure);
+			changed(e.getAlpha().getAttributedElementClass(), false);
+			changed(e.getOmega().getAttributedElementClass(), false);
+		}
+
+		@Override
+		protected void vertexCreated(Vertex v) {
+			changed(v.getAttributedElementClass(), true);
+		}
+
+		@Override
+		protected void vertexDeleted(Vertex v) {
+			changed(v.getAttributedElementClass(), true);
+		}
+
+		@Override
+		protected void edgeCreated(Edge e) {
+			incidencesChanged(e, true);
+		}
+
+		@Override
+		protected void edgeDeleted(Edge e) {
+			incidencesChanged(e, true);
+		}
+
+		@Override
+		protected void edgeReconnected(Edge e, Vertex oldVertex,
+				Vertex newVertex) {
+			changed(oldVertex.getAttributedElementClass(), false);
+			incidencesChanged(e, true);
+		}
+
+		@Override
+		protected void incidenceMoved(Edge inc) {
+			incidencesChanged(inc, false);
+		}
+
+		@Override
+		protected void attributeChanged(AttributedElement<?, ?> element,
+				String attributeName) {
+			changed(element.getAttributedElementClass(), false);
+		}
+	}
 }
@@ -39,10 +39,12 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.logging.Level;
+import java.util.stream.Stream;
 
 import org.pcollections.PCollection;
 import org.pcollections.PMap;
@@ -201,6 +203,40 @@ public abstract class GreqlQuery implements ParallelGreqlEvaluatorCallable {
 		return (POrderedSet<T>) evaluate(datagraph, environment);
 	}
 
+	public <T> Stream<T> stream(Graph datagraph) {
+		return stream(datagraph, new GreqlEnvironmentAdapter());
+	}
+
+	/**
+	 * Evaluates this query lazily. If the query expression is a list or set
+	 * comprehension (e.g., <code>from ... with ... report ... end</code>), its
+	 * declaration is iterated only as far as the returned stream is consumed,
+	 * so huge results don't need to be held in memory and short-circuiting
+	 * operations like {@link Stream#findFirst()} or {@link Stream#limit(long)}
+	 * stop the evaluation early. All other queries are evaluated completely,
+	 * and the stream contains the elements of a collection result, the
+	 * entries of a map result, or any other result as its only element.
+	 * 
+	 * The datagraph must not be modified while the stream is consumed. This
+	 * default implementation evaluates the query completely.
+	 * 
+	 * @param datagraph
+	 *            the graph to evaluate this query on
+	 * @param environment
+	 *            the environment with the bound variables
+	 * @return a sequential, ordered stream over the query result
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> Stream<T> stream(Graph datagraph, GreqlEnvironment environment) {
+		Object result = evaluate(datagraph, environment);
+		if (result instanceof Collection) {
+			return ((Collection<T>) result).stream();
+		} else if (result instanceof Map) {
+			return (Stream<T>) ((Map<?, ?>) result).entrySet().stream();
+		}
+		return Stream.of((T) result);
+	}
+
 	/*
 	 * Simple main function to evaluate GReQL queries from the command line.
 	 */
@@ -34,44 +34,343 @@
  */
 package de.uni_koblenz.jgralab.greql;
 
-import java.lang.ref.SoftReference;
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import de.uni_koblenz.jgralab.greql.optimizer.DefaultOptimizer;
 import de.uni_koblenz.jgralab.greql.optimizer.DefaultOptimizerInfo;
 import de.uni_koblenz.jgralab.greql.optimizer.Optimizer;
+import de.uni_koblenz.jgralab.greql.schema.GreqlGraph;
 
+/**
+ * A thread-safe cache of parsed and optimized {@link GreqlQuery} objects.
+ * 
+ * Entries are keyed by the normalized query text (comments are dropped and
+ * whitespace outside of string literals is collapsed) and the optimizer used
+ * to create the query. The cache is split into independently locked segments,
+ * each of which evicts its least recently used entries as soon as the maximum
+ * number of entries or the maximum weight is exceeded. The weight of an entry
+ * is the size (number of vertices and edges) of the query's syntax graph.
+ * 
+ * @author ist@uni-koblenz.de
+ */
 public class GreqlQueryCache {
 
-	private final HashMap<String, SoftReference<GreqlQuery>> cache = new HashMap<>();
+	public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+	private static final int MAX_SEGMENTS = 16;
+
+	/**
+	 * The limits are divided evenly among the segments, so don't use more
+	 * segments than can hold at least a few typical queries each.
+	 */
+	private static final long MIN_SEGMENT_WEIGHT = 1000;
+
+	private final Segment[] segments;
+
+	private final Optimizer optimizer;
+
+	private final int maximumSize;
+
+	private final long maximumWeight;
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
 
-	private Optimizer optimizer;
+	private final AtomicLong evictionCount = new AtomicLong();
 
 	public GreqlQueryCache() {
 		this(new DefaultOptimizer(new DefaultOptimizerInfo()));
 	}
 
 	public GreqlQueryCache(Optimizer optimizer) {
+		this(optimizer, DEFAULT_MAXIMUM_SIZE, Long.MAX_VALUE);
+	}
+
+	/**
+	 * @param optimizer
+	 *            the {@link Optimizer} used by {@link #getQuery(String)}, may
+	 *            be <code>null</code>
+	 * @param maximumSize
+	 *            the maximum number of cached queries
+	 * @param maximumWeight
+	 *            the maximum sum of syntax graph sizes of all cached queries
+	 */
+	public GreqlQueryCache(Optimizer optimizer, int maximumSize,
+			long maximumWeight) {
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException(
+					"maximumSize must be positive, but was " + maximumSize);
+		}
+		if (maximumWeight < 1) {
+			throw new IllegalArgumentException(
+					"maximumWeight must be positive, but was " + maximumWeight);
+		}
 		this.optimizer = optimizer;
+		this.maximumSize = maximumSize;
+		this.maximumWeight = maximumWeight;
+		int segmentCount = 1;
+		while ((segmentCount < MAX_SEGMENTS)
+				&& ((segmentCount << 1) <= maximumSize)
+				&& ((maximumWeight / (segmentCount << 1)) >= MIN_SEGMENT_WEIGHT)) {
+			segmentCount <<= 1;
+		}
+		segments = new Segment[segmentCount];
+		for (int i = 0; i < segmentCount; i++) {
+			segments[i] = new Segment(
+					((maximumSize - 1) / segmentCount) + 1,
+					maximumWeight == Long.MAX_VALUE ? Long.MAX_VALUE
+							: ((maximumWeight - 1) / segmentCount) + 1);
+		}
 	}
 
-	public synchronized void clear() {
-		cache.clear();
+	public void clear() {
+		for (Segment s : segments) {
+			s.clear();
+		}
 	}
 
-	public synchronized GreqlQuery getQuery(String queryText) {
-		String key = queryText;
-		SoftReference<GreqlQuery> ref = cache.get(key);
-		if (ref != null) {
-			GreqlQuery e = ref.get();
-			if (e != null) {
-				return e;
+	public GreqlQuery getQuery(String queryText) {
+		return getQuery(queryText, optimizer);
+	}
+
+	/**
+	 * Returns the cached query for <code>queryText</code> optimized with
+	 * <code>optimizer</code>, or creates and caches it if there is none.
+	 * 
+	 * @param queryText
+	 *            the GReQL query
+	 * @param optimizer
+	 *            the {@link Optimizer} to use, may be <code>null</code>
+	 */
+	public GreqlQuery getQuery(String queryText, Optimizer optimizer) {
+		Key key = new Key(normalize(queryText), optimizer);
+		Segment segment = segmentFor(key);
+		GreqlQuery query = segment.get(key);
+		if (query != null) {
+			hitCount.incrementAndGet();
+			return query;
+		}
+		missCount.incrementAndGet();
+		// create the query outside of the segment lock, so that parsing and
+		// optimization don't block other threads
+		query = GreqlQuery.createQuery(queryText, optimizer);
+		segment.put(key, query, weigh(query));
+		return query;
+	}
+
+	public int size() {
+		int size = 0;
+		for (Segment s : segments) {
+			size += s.size();
+		}
+		return size;
+	}
+
+	public long getWeight() {
+		long weight = 0;
+		for (Segment s : segments) {
+			weight += s.weight();
+		}
+		return weight;
+	}
+
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	public long getMaximumWeight() {
+		return maximumWeight;
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[size=" + size() + ", weight="
+				+ getWeight() + ", hits=" + getHitCount() + ", misses="
+				+ getMissCount() + ", evictions=" + getEvictionCount() + "]";
+	}
+
+	private Segment segmentFor(Key key) {
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return segments[h & (segments.length - 1)];
+	}
+
+	private static long weigh(GreqlQuery query) {
+		GreqlGraph g = query.getQueryGraph();
+		return g == null ? 1 : g.getVCount() + g.getECount();
+	}
+
+	/**
+	 * Removes comments, collapses all whitespace outside of string literals
+	 * into a single blank and removes leading and trailing whitespace, so that
+	 * queries which only differ in their formatting share one cache entry.
+	 * Comments and string literals are recognized like in
+	 * {@link de.uni_koblenz.jgralab.greql.parser.GreqlLexer}.
+	 */
+	static String normalize(String queryText) {
+		int length = queryText.length();
+		StringBuilder sb = new StringBuilder(length);
+		boolean pendingBlank = false;
+		int i = 0;
+		while (i < length) {
+			char c = queryText.charAt(i);
+			char la = i + 1 < length ? queryText.charAt(i + 1) : 0;
+			if ((c == ' ') || (c == '\n') || (c == '\t') || (c == '\r')) {
+				pendingBlank = sb.length() > 0;
+				++i;
+			} else if ((c == '/') && (la == '/')) {
+				// single line comment, the terminating newline is whitespace
+				i += 2;
+				while ((i < length) && (queryText.charAt(i) != '\n')) {
+					++i;
+				}
+				pendingBlank = sb.length() > 0;
+			} else if ((c == '/') && (la == '*')) {
+				// multi line comment
+				int end = queryText.indexOf("*/", i + 2);
+				i = end < 0 ? length : end + 2;
+				pendingBlank = sb.length() > 0;
 			} else {
-				cache.remove(key);
+				if (pendingBlank) {
+					sb.append(' ');
+					pendingBlank = false;
+				}
+				sb.append(c);
+				++i;
+				if ((c == '"') || (c == '\'')) {
+					// string literal, copied verbatim including escapes
+					while (i < length) {
+						char d = queryText.charAt(i++);
+						sb.append(d);
+						if ((d == '\\') && (i < length)) {
+							sb.append(queryText.charAt(i++));
+						} else if (d == c) {
+							break;
+						}
+					}
+				}
 			}
 		}
-		GreqlQuery query = GreqlQuery.createQuery(queryText, optimizer);
-		cache.put(key, new SoftReference<>(query));
-		return query;
+		return sb.toString();
+	}
+
+	private static final class Key {
+		private final String queryText;
+		private final Optimizer optimizer;
+		private final int hashCode;
+
+		Key(String queryText, Optimizer optimizer) {
+			this.queryText = queryText;
+			this.optimizer = optimizer;
+			hashCode = (31 * queryText.hashCode())
+					+ (optimizer == null ? 0 : optimizer.getClass().hashCode());
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return (hashCode == other.hashCode)
+					&& queryText.equals(other.queryText)
+					&& sameOptimization(optimizer, other.optimizer);
+		}
+
+		private static boolean sameOptimization(Optimizer o1, Optimizer o2) {
+			if ((o1 == null) || (o2 == null)) {
+				return o1 == o2;
+			}
+			return (o1 == o2)
+					|| ((o1.getClass() == o2.getClass()) && o1.isEquivalent(o2) && (o1
+							.getOptimizerInfo() == o2.getOptimizerInfo()));
+		}
+	}
+
+	private static final class Entry {
+		final GreqlQuery query;
+		final long weight;
+
+		Entry(GreqlQuery query, long weight) {
+			this.query = query;
+			this.weight = weight;
+		}
+	}
+
+	private final class Segment {
+		private final LinkedHashMap<Key, Entry> map = new LinkedHashMap<>(16,
+				0.75f, true);
+		private final int maximumSize;
+		private final long maximumWeight;
+		private long weight;
+
+		Segment(int maximumSize, long maximumWeight) {
+			this.maximumSize = maximumSize;
+			this.maximumWeight = maximumWeight;
+		}
+
+		synchronized GreqlQuery get(Key key) {
+			Entry e = map.get(key);
+			return e == null ? null : e.query;
+		}
+
+		synchronized void put(Key key, GreqlQuery query, long w) {
+			if (w > maximumWeight) {
+				// would evict everything else, so don't cache it at all
+				evictionCount.incrementAndGet();
+				return;
+			}
+			Entry old = map.put(key, new Entry(query, w));
+			if (old != null) {
+				weight -= old.weight;
+			}
+			weight += w;
+			// evict least recently used entries
+			Iterator<Map.Entry<Key, Entry>> it = map.entrySet().iterator();
+			while (((map.size() > maximumSize) || (weight > maximumWeight))
+					&& it.hasNext()) {
+				Entry e = it.next().getValue();
+				it.remove();
+				weight -= e.weight;
+				evictionCount.incrementAndGet();
+			}
+		}
+
+		synchronized void clear() {
+			map.clear();
+			weight = 0;
+		}
+
+		synchronized int size() {
+			return map.size();
+		}
+
+		synchronized long weight() {
+			return weight;
+		}
 	}
 }
@@ -35,8 +35,10 @@
 
 package de.uni_koblenz.jgralab.greql;
 
+import de.uni_koblenz.jgralab.EdgeDirection;
 import de.uni_koblenz.jgralab.Graph;
 import de.uni_koblenz.jgralab.greql.types.TypeCollection;
+import de.uni_koblenz.jgralab.schema.AttributedElementClass;
 import de.uni_koblenz.jgralab.schema.EdgeClass;
 import de.uni_koblenz.jgralab.schema.GraphElementClass;
 import de.uni_koblenz.jgralab.schema.Schema;
@@ -110,4 +112,75 @@ public interface OptimizerInfo {
 	 */
 	public double getEdgesPerVertex();
 
+	/**
+	 * Returns the average number of edges of {@link EdgeClass} <code>ec</code>
+	 * (including subclasses) which are incident in direction <code>dir</code>
+	 * to a vertex having at least one such incidence, i.e., the expected
+	 * number of edges a path search can follow from such a vertex. For
+	 * {@link EdgeDirection#INOUT}, incoming and outgoing edges are summed up.
+	 * 
+	 * The default implementation assumes that the edges are distributed
+	 * uniformly over all vertices.
+	 * 
+	 * @param ec
+	 *            an {@link EdgeClass}, or <code>null</code> for all edges
+	 * @param dir
+	 *            the direction of the incidences
+	 * @return the average degree of a vertex with respect to <code>ec</code>
+	 */
+	public default double getAverageDegree(EdgeClass ec, EdgeDirection dir) {
+		double degree = ec == null ? getEdgesPerVertex()
+				: (double) getEstimatedGraphElementCount(ec)
+						/ Math.max(1, getAverageVertexCount());
+		return dir == EdgeDirection.INOUT ? 2 * degree : degree;
+	}
+
+	/**
+	 * Returns the estimated fraction of elements of <code>aec</code> whose
+	 * attribute <code>attributeName</code> is equal to some fixed value. The
+	 * returned value lies in the interval [0,1]. The default implementation
+	 * returns 0.05.
+	 * 
+	 * @param aec
+	 *            an {@link AttributedElementClass}
+	 * @param attributeName
+	 *            the name of an attribute of <code>aec</code>
+	 * @return the estimated selectivity of an equality comparison
+	 */
+	public default double getEqualitySelectivity(
+			AttributedElementClass<?, ?> aec, String attributeName) {
+		return 0.05;
+	}
+
+	/**
+	 * Returns the estimated fraction of elements of <code>aec</code> whose
+	 * numeric attribute <code>attributeName</code> lies in the closed interval
+	 * [<code>low</code>, <code>high</code>]. Use
+	 * {@link Double#NEGATIVE_INFINITY} or {@link Double#POSITIVE_INFINITY} for
+	 * open ranges. The returned value lies in the interval [0,1]. The default
+	 * implementation returns 0.5 for proper ranges.
+	 * 
+	 * @param aec
+	 *            an {@link AttributedElementClass}
+	 * @param attributeName
+	 *            the name of a numeric attribute of <code>aec</code>
+	 * @param low
+	 *            the lower bound of the range
+	 * @param high
+	 *            the upper bound of the range
+	 * @return the estimated selectivity of a range comparison
+	 */
+	public default double getRangeSelectivity(
+			AttributedElementClass<?, ?> aec, String attributeName,
+			double low, double high) {
+		if (low > high) {
+			return 0.0;
+		}
+		if ((low == Double.NEGATIVE_INFINITY)
+				&& (high == Double.POSITIVE_INFINITY)) {
+			return 1.0;
+		}
+		return 0.5;
+	}
+
 }
@@ -43,11 +43,35 @@ import java.util.TreeSet;
 
 import org.pcollections.PSet;
 
+import de.uni_koblenz.jgralab.AttributedElement;
+import de.uni_koblenz.jgralab.Edge;
 import de.uni_koblenz.jgralab.Graph;
+import de.uni_koblenz.jgralab.GraphChangeListener;
+import de.uni_koblenz.jgralab.IncrementalGraphChangeAdapter;
 import de.uni_koblenz.jgralab.Vertex;
+import de.uni_koblenz.jgralab.greql.types.TypeCollection;
 
 /**
- * This class contains the computed index for a graph
+ * This class contains the computed index for a graph.
+ * 
+ * Once the first vertex set has been added, the index listens to the changes
+ * of its graph until it is disposed. Vertex sets which are added together
+ * with the {@link TypeCollection} that defines them (e.g. "V{Identifier}") are
+ * patched when vertices are created or deleted. All other vertex sets may
+ * depend on anything in the graph and are dropped on every change. Changes
+ * that are not reported to {@link GraphChangeListener}s, e.g. while the graph
+ * is loading, invalidate the complete index.
+ * 
+ * <p>
+ * A GraphIndex may be shared by queries evaluated in parallel. The index
+ * entries are patched by the thread which modifies the graph while other
+ * threads look up and add vertex sets, so all accesses to the index are
+ * synchronized on the GraphIndex object. The vertex sets themselves are
+ * persistent and can be used without holding the lock. Adding the first
+ * vertex set and {@link #dispose()} register and unregister a listener of the
+ * graph, so like every change of the graph's listeners they must not happen
+ * while the graph is modified.
+ * </p>
  * 
  * @author ist@uni-koblenz.de
  * 
@@ -60,8 +84,15 @@ public class GraphIndex {
 
 		public PSet<Vertex> vertexSet = null;
 
-		public VertexIndexEntry(PSet<Vertex> v) {
+		/**
+		 * the types that define this vertex set, or <code>null</code> if the
+		 * vertex set is not type-indexed
+		 */
+		public TypeCollection types;
+
+		public VertexIndexEntry(PSet<Vertex> v, TypeCollection types) {
 			vertexSet = v;
+			this.types = types;
 			modificationTime = System.currentTimeMillis();
 		}
 
@@ -99,7 +130,18 @@ public class GraphIndex {
 	private HashMap<String, VertexIndexEntry> vertexIndex;
 
 	/**
-	 * Creates a new GraphIndex for the graph
+	 * Keeps the index up to date with the changes of the graph, registered
+	 * when the first vertex set is added
+	 */
+	private IncrementalGraphChangeAdapter maintainer;
+
+	private boolean disposed;
+
+	/**
+	 * Creates a new GraphIndex for the graph. As soon as a vertex set is
+	 * added, the index registers itself as {@link GraphChangeListener} of
+	 * <code>graph</code>, and the graph keeps it reachable. An index which
+	 * is no longer needed must therefore be released with {@link #dispose()}.
 	 * 
 	 * @param graph
 	 *            the graph to create the Index for
@@ -114,8 +156,23 @@ public class GraphIndex {
 	/**
 	 * @return true iff this index is still valid for the given graph
 	 */
-	public boolean isValid(Graph g) {
-		return ((g == graph) && (!g.isGraphModified(graphVersion)));
+	public synchronized boolean isValid(Graph g) {
+		return ((g == graph) && !disposed && (!g
+				.isGraphModified(graphVersion)));
+	}
+
+	/**
+	 * Unregisters this index from its graph. Afterwards, the index is no
+	 * longer valid.
+	 */
+	public synchronized void dispose() {
+		if (maintainer != null) {
+			graph.removeGraphChangeListener(maintainer);
+			maintainer = null;
+		}
+		disposed = true;
+		vertexIndex.clear();
+		indexSize = 0;
 	}
 
 	/**
@@ -132,7 +189,36 @@ public class GraphIndex {
 	 *            the query which constructs this set, e.g. "V{Identifier}"
 	 */
 	public void addVertexSet(String query, PSet<Vertex> vertexSet) {
-		vertexIndex.put(query, new VertexIndexEntry(vertexSet));
+		addVertexSet(query, null, vertexSet);
+	}
+
+	/**
+	 * adds a indexed vertex set which contains exactly the vertices accepted
+	 * by <code>types</code>. Such a set is kept up to date when vertices are
+	 * created or deleted.
+	 * 
+	 * @param query
+	 *            the query which constructs this set, e.g. "V{Identifier}"
+	 * @param types
+	 *            the types which define this set, must be bound to the schema
+	 *            of the graph
+	 */
+	public synchronized void addVertexSet(String query, TypeCollection types,
+			PSet<Vertex> vertexSet) {
+		if (disposed) {
+			return;
+		}
+		if (maintainer == null) {
+			// the index is still empty, so it is valid for the current graph
+			graphVersion = graph.getGraphVersion();
+			maintainer = new IndexMaintainer(graph);
+			graph.addGraphChangeListener(maintainer);
+		}
+		VertexIndexEntry old = vertexIndex.put(query, new VertexIndexEntry(
+				vertexSet, types));
+		if (old != null) {
+			indexSize -= old.vertexSet.size();
+		}
 		indexSize += vertexSet.size();
 		reduceIndexSize(graphSize);
 	}
@@ -141,7 +227,7 @@ public class GraphIndex {
 	 * returns the indexed vertex set for the given query part or
 	 * <code>null</code> if no indexed vertex set exists
 	 */
-	public PSet<Vertex> getVertexSet(String query) {
+	public synchronized PSet<Vertex> getVertexSet(String query) {
 		VertexIndexEntry entry = vertexIndex.get(query);
 		if (entry != null) {
 			entry.modified();
@@ -159,7 +245,7 @@ public class GraphIndex {
 	 *            the index size lower than maxIndexSize, measured in
 	 *            GraphElements
 	 */
-	public void reduceIndexSize(long maxIndexSize) {
+	public synchronized void reduceIndexSize(long maxIndexSize) {
 		if (indexSize <= maxIndexSize) {
 			return;
 		}
@@ -181,4 +267,94 @@ public class GraphIndex {
 		}
 	}
 
+	/**
+	 * Adds <code>v</code> to (or removes it from) all type-indexed vertex sets
+	 * which accept its type and drops all other vertex sets.
+	 */
+	private synchronized void vertexChanged(Vertex v, boolean added) {
+		Iterator<VertexIndexEntry> iter = vertexIndex.values().iterator();
+		while (iter.hasNext()) {
+			VertexIndexEntry entry = iter.next();
+			if (entry.types == null) {
+				indexSize -= entry.vertexSet.size();
+				iter.remove();
+			} else if (entry.types.acceptsType(v.getAttributedElementClass())) {
+				int size = entry.vertexSet.size();
+				entry.vertexSet = added ? entry.vertexSet.plus(v)
+						: entry.vertexSet.minus(v);
+				indexSize += entry.vertexSet.size() - size;
+			}
+		}
+	}
+
+	/**
+	 * Drops all vertex sets which are not type-indexed.
+	 */
+	private synchronized void structureChanged() {
+		Iterator<VertexIndexEntry> iter = vertexIndex.values().iterator();
+		while (iter.hasNext()) {
+			VertexIndexEntry entry = iter.next();
+			if (entry.types == null) {
+				indexSize -= entry.vertexSet.size();
+				iter.remove();
+			}
+		}
+	}
+
+	/**
+	 * Patches the index on every reported change. The graph version is only
+	 * accepted if the index has been valid before the change.
+	 */
+	private class IndexMaintainer extends IncrementalGraphChangeAdapter {
+
+		IndexMaintainer(Graph graph) {
+			super(graph);
+		}
+
+		@Override
+		protected void changeFinished(long versionBeforeChange) {
+			synchronized (GraphIndex.this) {
+				if (versionBeforeChange == graphVersion) {
+					graphVersion = graph.getGraphVersion();
+				}
+			}
+		}
+
+		@Override
+		protected void vertexCreated(Vertex v) {
+			vertexChanged(v, true);
+		}
+
+		@Override
+		protected void vertexDeleted(Vertex v) {
+			vertexChanged(v, false);
+		}
+
+		@Override
+		protected void edgeCreated(Edge e) {
+			structureChanged();
+		}
+
+		@Override
+		protected void edgeDeleted(Edge e) {
+			structureChanged();
+		}
+
+		@Override
+		protected void edgeReconnected(Edge e, Vertex oldVertex,
+				Vertex newVertex) {
+			structureChanged();
+		}
+
+		@Override
+		protected void incidenceMoved(Edge inc) {
+			structureChanged();
+		}
+
+		@Override
+		protected void attributeChanged(AttributedElement<?, ?> element,
+				String attributeName) {
+			structureChanged();
+		}
+	}
 }
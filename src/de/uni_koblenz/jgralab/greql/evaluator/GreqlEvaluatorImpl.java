@@ -35,18 +35,25 @@
 
 package de.uni_koblenz.jgralab.greql.evaluator;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import de.uni_koblenz.jgralab.Graph;
 import de.uni_koblenz.jgralab.ProgressFunction;
 import de.uni_koblenz.jgralab.greql.GreqlEnvironment;
 import de.uni_koblenz.jgralab.greql.GreqlQuery;
 import de.uni_koblenz.jgralab.greql.evaluator.fa.FiniteAutomaton;
+import de.uni_koblenz.jgralab.greql.evaluator.vertexeval.GreqlExpressionEvaluator;
 import de.uni_koblenz.jgralab.greql.evaluator.vertexeval.VertexEvaluator;
 import de.uni_koblenz.jgralab.greql.exception.EvaluationInterruptedException;
+import de.uni_koblenz.jgralab.greql.schema.Declaration;
 import de.uni_koblenz.jgralab.greql.schema.GreqlExpression;
+import de.uni_koblenz.jgralab.greql.schema.GreqlGraph;
 import de.uni_koblenz.jgralab.greql.schema.GreqlVertex;
+import de.uni_koblenz.jgralab.greql.schema.SimpleDeclaration;
 import de.uni_koblenz.jgralab.greql.types.Undefined;
 import de.uni_koblenz.jgralab.impl.std.GraphImpl;
 import de.uni_koblenz.jgralab.schema.GraphElementClass;
@@ -68,6 +75,21 @@ public class GreqlEvaluatorImpl implements InternalGreqlEvaluator {
 	 */
 	public static boolean DEBUG_DECLARATION_ITERATIONS = false;
 
+	/**
+	 * Evaluate comprehensions and quantified expressions in parallel, if the
+	 * definition set of their outermost variable contains at least
+	 * {@link #PARALLEL_DECLARATION_THRESHOLD} values. The definition set is
+	 * partitioned into chunks which are evaluated by the common
+	 * {@link java.util.concurrent.ForkJoinPool}.
+	 */
+	public static boolean PARALLEL_DECLARATION_EVALUATION = false;
+
+	/**
+	 * The minimal size of the definition set of the outermost variable of a
+	 * declaration that is iterated in parallel.
+	 */
+	public static int PARALLEL_DECLARATION_THRESHOLD = 10000;
+
 	/**
 	 * toggles the maximal size of the vertex index for each graph with respect
 	 * to graph size. For instance, a value of 50 (fifty) here will allow the
@@ -117,6 +139,13 @@ public class GreqlEvaluatorImpl implements InternalGreqlEvaluator {
 	private int cnt = 0;
 	long stepsAtLastProgressReport = 0;
 
+	/**
+	 * Set if this evaluator is a worker evaluating a part of a declaration in
+	 * parallel (see {@link #createWorker(AtomicBoolean)}). The worker stops
+	 * when the flag gets true.
+	 */
+	private AtomicBoolean cancelled;
+
 	/**
 	 * should be called by every vertex evaluator to indicate a progress. The
 	 * given value should be the ownEvaluationCosts of that VertexEvaluator.
@@ -126,7 +155,8 @@ public class GreqlEvaluatorImpl implements InternalGreqlEvaluator {
 	public final void progress(long value) {
 		// check for interruption every now and then...
 		if (++cnt == 4096) {
-			if (Thread.interrupted()) {
+			if (Thread.interrupted()
+					|| ((cancelled != null) && cancelled.get())) {
 				throw new EvaluationInterruptedException();
 			}
 			cnt = 0;
@@ -222,6 +252,60 @@ public class GreqlEvaluatorImpl implements InternalGreqlEvaluator {
 		initialize(query, datagraph, environment, null);
 	}
 
+	/**
+	 * Creates a worker evaluator for the given <code>parent</code>. The worker
+	 * shares graph, schema, query and environment with its parent, but has its
+	 * own copy of the local evaluation results and automatons.
+	 * 
+	 * @param parent
+	 *            the evaluator which creates this worker
+	 * @param cancelled
+	 *            the flag which signals the worker to stop its evaluation
+	 */
+	private GreqlEvaluatorImpl(GreqlEvaluatorImpl parent,
+			AtomicBoolean cancelled) {
+		query = parent.query;
+		graph = parent.graph;
+		schema = parent.schema;
+		environment = parent.environment;
+		localEvaluationResults = parent.localEvaluationResults.clone();
+		localAutomatons = new HashMap<>(parent.localAutomatons);
+		this.cancelled = cancelled;
+
+		// declarations hold the iteration state of their variables, so every
+		// worker needs its own ones
+		GreqlGraph queryGraph = query.getQueryGraph();
+		for (Declaration d = queryGraph.getFirstDeclaration(); d != null; d = d
+				.getNextDeclaration()) {
+			localEvaluationResults[d.getId()] = null;
+		}
+		for (SimpleDeclaration d = queryGraph.getFirstSimpleDeclaration(); d != null; d = d
+				.getNextSimpleDeclaration()) {
+			localEvaluationResults[d.getId()] = null;
+		}
+	}
+
+	/**
+	 * Creates a worker evaluator which evaluates a part of the current query
+	 * in another thread. The local evaluation results computed so far are
+	 * copied to the worker.
+	 * 
+	 * @param cancelled
+	 *            the flag which signals the worker to stop its evaluation
+	 * @return a new worker evaluator
+	 */
+	GreqlEvaluatorImpl createWorker(AtomicBoolean cancelled) {
+		return new GreqlEvaluatorImpl(this, cancelled);
+	}
+
+	/**
+	 * @return true, if this evaluator is a worker created by
+	 *         {@link #createWorker(AtomicBoolean)}
+	 */
+	boolean isWorker() {
+		return cancelled != null;
+	}
+
 	/**
 	 * @param query
 	 * @param datagraph
@@ -278,6 +362,26 @@ public class GreqlEvaluatorImpl implements InternalGreqlEvaluator {
 		return result;
 	}
 
+	/**
+	 * Starts the evaluation of the query, but computes the elements of the
+	 * result only when they are requested from the returned iterator (see
+	 * {@link GreqlExpressionEvaluator#iterator(InternalGreqlEvaluator)}).
+	 * 
+	 * @return an iterator over the query result
+	 */
+	public Iterator<?> iterator() {
+		query.resetVertexEvaluators(this);
+
+		if (query.getQueryGraph().getVCount() <= 1) {
+			// Graph contains only root vertex
+			return Collections.singleton(Undefined.UNDEFINED).iterator();
+		}
+
+		GreqlExpressionEvaluator greql2ExpEval = (GreqlExpressionEvaluator) query
+				.getVertexEvaluator(query.getRootExpression());
+		return greql2ExpEval.iterator(this);
+	}
+
 	@Override
 	public Object setVariable(String varName, Object value) {
 		return environment.setVariable(varName, value);
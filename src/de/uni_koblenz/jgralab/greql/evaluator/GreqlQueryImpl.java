@@ -38,11 +38,17 @@ import java.io.File;
 import java.lang.ref.SoftReference;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.pcollections.PSet;
 
@@ -57,6 +63,7 @@ import de.uni_koblenz.jgralab.graphmarker.BooleanGraphMarker;
 import de.uni_koblenz.jgralab.graphmarker.GraphMarker;
 import de.uni_koblenz.jgralab.greql.GreqlEnvironment;
 import de.uni_koblenz.jgralab.greql.GreqlQuery;
+import de.uni_koblenz.jgralab.greql.evaluator.fa.DFA;
 import de.uni_koblenz.jgralab.greql.evaluator.vertexeval.VertexEvaluator;
 import de.uni_koblenz.jgralab.greql.optimizer.DefaultOptimizer;
 import de.uni_koblenz.jgralab.greql.optimizer.DefaultOptimizerInfo;
@@ -70,6 +77,7 @@ import de.uni_koblenz.jgralab.greql.schema.Identifier;
 import de.uni_koblenz.jgralab.greql.schema.UndefinedLiteral;
 import de.uni_koblenz.jgralab.greql.schema.Variable;
 import de.uni_koblenz.jgralab.impl.std.GraphImpl;
+import de.uni_koblenz.jgralab.schema.Schema;
 
 public class GreqlQueryImpl extends GreqlQuery implements
 		GraphStructureChangedListener {
@@ -96,6 +104,24 @@ public class GreqlQueryImpl extends GreqlQuery implements
 	 */
 	private GraphMarker<VertexEvaluator<? extends GreqlVertex>> vertexEvaluators;
 
+	/**
+	 * The search automatons which are shared by all evaluations of this query,
+	 * indexed by the vertex of the path search
+	 */
+	private final ConcurrentHashMap<GreqlVertex, SharedAutomaton> sharedAutomatons = new ConcurrentHashMap<>();
+
+	private static class SharedAutomaton {
+		final Schema schema;
+		final long schemaVersion;
+		final DFA dfa;
+
+		SharedAutomaton(Schema schema, DFA dfa) {
+			this.schema = schema;
+			schemaVersion = schema == null ? 0 : schema.getVersion();
+			this.dfa = dfa;
+		}
+	}
+
 	public GreqlQueryImpl(String queryText) {
 		this(queryText, new DefaultOptimizer(new DefaultOptimizerInfo()));
 	}
@@ -297,6 +323,32 @@ public class GreqlQueryImpl extends GreqlQuery implements
 		return storedVariables;
 	}
 
+	/**
+	 * Returns the search automaton of path search <code>vertex</code> that
+	 * has been built for graphs of <code>schema</code> by some evaluation of
+	 * this query.
+	 * 
+	 * @return the shared DFA, or <code>null</code> if no such DFA exists
+	 */
+	public DFA getSharedAutomaton(GreqlVertex vertex, Schema schema) {
+		SharedAutomaton a = sharedAutomatons.get(vertex);
+		if (a == null || a.schema != schema
+				|| (schema != null && a.schemaVersion != schema.getVersion())) {
+			return null;
+		}
+		return a.dfa;
+	}
+
+	/**
+	 * Shares the search automaton <code>dfa</code> of path search
+	 * <code>vertex</code> with all evaluations of this query on graphs of
+	 * <code>schema</code>. The DFA must not depend on the evaluation it was
+	 * built by, and it must not be modified afterwards.
+	 */
+	public void setSharedAutomaton(GreqlVertex vertex, Schema schema, DFA dfa) {
+		sharedAutomatons.put(vertex, new SharedAutomaton(schema, dfa));
+	}
+
 	@Override
 	public String getQueryText() {
 		return queryText;
@@ -324,14 +376,17 @@ public class GreqlQueryImpl extends GreqlQuery implements
 	@Override
 	public void vertexDeleted(Vertex v) {
 		vertexEvaluators.removeMark(v);
+		sharedAutomatons.clear();
 	}
 
 	@Override
 	public void edgeAdded(Edge e) {
+		sharedAutomatons.clear();
 	}
 
 	@Override
 	public void edgeDeleted(Edge e) {
+		sharedAutomatons.clear();
 	}
 
 	@Override
@@ -376,6 +431,16 @@ public class GreqlQueryImpl extends GreqlQuery implements
 				progressFunction).getResult();
 	}
 
+	@Override
+	public <T> Stream<T> stream(Graph datagraph, GreqlEnvironment environment) {
+		@SuppressWarnings("unchecked")
+		Iterator<T> it = (Iterator<T>) new GreqlEvaluatorImpl(this,
+				datagraph, environment).iterator();
+		return StreamSupport.stream(
+				Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED),
+				false);
+	}
+
 	@Override
 	public String toString() {
 		return queryText;
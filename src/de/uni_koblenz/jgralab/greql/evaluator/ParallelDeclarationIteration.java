@@ -0,0 +1,223 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab.greql.evaluator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.pcollections.PSet;
+
+import de.uni_koblenz.jgralab.greql.evaluator.vertexeval.DeclarationEvaluator;
+import de.uni_koblenz.jgralab.greql.exception.EvaluationInterruptedException;
+
+/**
+ * Iterates the variable combinations of a {@link VariableDeclarationLayer} in
+ * parallel. The definition set of the outermost variable is partitioned into
+ * chunks, and each chunk is iterated by a task of the common
+ * {@link ForkJoinPool}. Every task uses its own worker evaluator (see
+ * {@link GreqlEvaluatorImpl#createWorker(AtomicBoolean)}), so local
+ * evaluation results, declaration layers and automatons are never shared
+ * between threads.
+ * 
+ * Subclasses implement {@link #iterate(InternalGreqlEvaluator,
+ * VariableDeclarationLayer)} which is called once per chunk. The results of
+ * the chunks are returned in the order of the definition set, so merging them
+ * in list order yields the same result as a sequential iteration. Iterations
+ * whose result is already known may stop all chunks using {@link #cancel()}.
+ * 
+ * @param <R>
+ *            the type of the result of a single chunk
+ * 
+ * @author ist@uni-koblenz.de
+ * 
+ */
+public abstract class ParallelDeclarationIteration<R> {
+
+	/**
+	 * The number of chunks per thread of the pool. More chunks than threads
+	 * keep all threads busy if the costs of the chunks differ.
+	 */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	private final AtomicBoolean cancelled = new AtomicBoolean();
+
+	/**
+	 * Iterates over all variable combinations of one chunk of the definition
+	 * set of the outermost variable.
+	 * 
+	 * @param worker
+	 *            the evaluator of this chunk
+	 * @param layer
+	 *            the reset declaration layer of <code>worker</code>, which is
+	 *            restricted to the chunk
+	 * @return the result of this chunk
+	 */
+	protected abstract R iterate(InternalGreqlEvaluator worker,
+			VariableDeclarationLayer layer);
+
+	/**
+	 * Signals all chunks to stop their iteration.
+	 */
+	protected final void cancel() {
+		cancelled.set(true);
+	}
+
+	/**
+	 * @return true, if {@link #cancel()} was called
+	 */
+	protected final boolean isCancelled() {
+		return cancelled.get();
+	}
+
+	/**
+	 * Iterates over the declaration evaluated by <code>declEval</code> in
+	 * parallel, if parallel evaluation is enabled (see
+	 * {@link GreqlEvaluatorImpl#PARALLEL_DECLARATION_EVALUATION}) and the
+	 * definition set of the outermost variable is large enough. Evaluators
+	 * which are workers themselves never iterate in parallel, so only the
+	 * outermost parallelizable declaration is partitioned.
+	 * 
+	 * If a chunk throws an exception, the exception of the first such chunk
+	 * is rethrown, unless the iteration was cancelled.
+	 * 
+	 * @param evaluator
+	 *            the evaluator of the query
+	 * @param declEval
+	 *            the evaluator of the declaration to iterate
+	 * @return the results of the chunks in the order of the definition set of
+	 *         the outermost variable, or null if the declaration has to be
+	 *         iterated sequentially
+	 */
+	public final List<R> evaluate(InternalGreqlEvaluator evaluator,
+			final DeclarationEvaluator declEval) {
+		if (!GreqlEvaluatorImpl.PARALLEL_DECLARATION_EVALUATION
+				|| !(evaluator instanceof GreqlEvaluatorImpl)
+				|| ((GreqlEvaluatorImpl) evaluator).isWorker()) {
+			return null;
+		}
+		VariableDeclarationLayer declLayer = (VariableDeclarationLayer) declEval
+				.getResult(evaluator);
+		PSet<Object> definitionSet = declLayer
+				.getOuterDefinitionSet(evaluator);
+		int size = definitionSet.size();
+		if ((size < GreqlEvaluatorImpl.PARALLEL_DECLARATION_THRESHOLD)
+				|| (size < 2)) {
+			return null;
+		}
+
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		int chunkCount = Math.min(size, pool.getParallelism()
+				* CHUNKS_PER_THREAD);
+		int chunkSize = (size + chunkCount - 1) / chunkCount;
+		List<Object> values = new ArrayList<>(definitionSet);
+		final List<Chunk> chunks = new ArrayList<>(chunkCount);
+		final GreqlEvaluatorImpl parent = (GreqlEvaluatorImpl) evaluator;
+		for (int from = 0; from < size; from += chunkSize) {
+			chunks.add(new Chunk(parent, declEval, values.subList(from,
+					Math.min(size, from + chunkSize))));
+		}
+
+		ForkJoinTask<Void> task = pool.submit(new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void compute() {
+				invokeAll(chunks);
+			}
+		});
+		try {
+			task.get();
+		} catch (InterruptedException e) {
+			cancel();
+			throw new EvaluationInterruptedException();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new RuntimeException(cause);
+		}
+
+		List<R> results = new ArrayList<>(chunks.size());
+		for (Chunk chunk : chunks) {
+			if ((chunk.exception != null) && !isCancelled()) {
+				throw chunk.exception;
+			}
+			results.add(chunk.result);
+		}
+		return results;
+	}
+
+	/**
+	 * Iterates one chunk of the definition set of the outermost variable.
+	 */
+	private final class Chunk extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final GreqlEvaluatorImpl parent;
+		private final DeclarationEvaluator declEval;
+		private final List<Object> values;
+		private R result;
+		private RuntimeException exception;
+
+		Chunk(GreqlEvaluatorImpl parent, DeclarationEvaluator declEval,
+				List<Object> values) {
+			this.parent = parent;
+			this.declEval = declEval;
+			this.values = values;
+		}
+
+		@Override
+		protected void compute() {
+			if (isCancelled()) {
+				return;
+			}
+			try {
+				GreqlEvaluatorImpl worker = parent.createWorker(cancelled);
+				VariableDeclarationLayer layer = (VariableDeclarationLayer) declEval
+						.getResult(worker);
+				layer.partitionOuterDeclaration(values);
+				result = iterate(worker, layer);
+			} catch (RuntimeException e) {
+				exception = e;
+			}
+		}
+	}
+}
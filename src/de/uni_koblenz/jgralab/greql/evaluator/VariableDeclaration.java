@@ -36,6 +36,7 @@
 package de.uni_koblenz.jgralab.greql.evaluator;
 
 import java.util.Iterator;
+import java.util.List;
 
 import org.pcollections.PSet;
 import org.pcollections.PVector;
@@ -82,6 +83,12 @@ public class VariableDeclaration {
 	 */
 	private Iterator<Object> iter = null;
 
+	/**
+	 * If set, the variable iterates only over these values instead of the
+	 * whole definition set
+	 */
+	private List<Object> partition = null;
+
 	/**
 	 * Creates a new VariableDeclaration for the given Variable and the given
 	 * JValue
@@ -124,7 +131,7 @@ public class VariableDeclaration {
 		sb.append(" [");
 		sb.append(iterationNumber);
 		sb.append('/');
-		sb.append(definitionSet.size());
+		sb.append(partition != null ? partition.size() : definitionSet.size());
 		sb.append("]");
 		return sb.toString();
 	}
@@ -161,6 +168,10 @@ public class VariableDeclaration {
 	protected void reset(InternalGreqlEvaluator evaluator) {
 		iterationNumber = 0;
 		variableEval.setValue(Undefined.UNDEFINED, evaluator);
+		if (partition != null) {
+			iter = partition.iterator();
+			return;
+		}
 		Object tempAttribute = definitionSetEvaluator.getResult(evaluator);
 		if (tempAttribute instanceof PVector) {
 			PVector<?> col = (PVector<?>) tempAttribute;
@@ -180,6 +191,26 @@ public class VariableDeclaration {
 		iter = definitionSet.iterator();
 	}
 
+	/**
+	 * @return the definition set computed by the last call of
+	 *         {@link #reset(InternalGreqlEvaluator)}
+	 */
+	PSet<Object> getDefinitionSet() {
+		return definitionSet;
+	}
+
+	/**
+	 * Restricts the iteration of this variable to the given part of its
+	 * definition set.
+	 * 
+	 * @param values
+	 *            the values to iterate over, or null to iterate over the whole
+	 *            definition set
+	 */
+	void setPartition(List<Object> values) {
+		partition = values;
+	}
+
 	/**
 	 * Returns the cardinality of the collection this variable is bound to
 	 * 
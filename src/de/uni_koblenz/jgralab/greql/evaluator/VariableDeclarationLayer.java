@@ -37,6 +37,8 @@ package de.uni_koblenz.jgralab.greql.evaluator;
 
 import java.util.List;
 
+import org.pcollections.PSet;
+
 import de.uni_koblenz.jgralab.greql.evaluator.vertexeval.VertexEvaluator;
 import de.uni_koblenz.jgralab.greql.exception.WrongResultTypeException;
 import de.uni_koblenz.jgralab.greql.schema.Declaration;
@@ -231,4 +233,28 @@ public class VariableDeclarationLayer {
 	public void reset() {
 		firstIteration = true;
 	}
+
+	/**
+	 * Computes the definition set of the outermost variable of this layer,
+	 * i.e., of the variable whose values are iterated slowest.
+	 * 
+	 * @return the definition set of the outermost variable
+	 */
+	PSet<Object> getOuterDefinitionSet(InternalGreqlEvaluator evaluator) {
+		VariableDeclaration outer = variableDeclarations.get(0);
+		outer.reset(evaluator);
+		return outer.getDefinitionSet();
+	}
+
+	/**
+	 * Restricts the iteration of the outermost variable to the given part of
+	 * its definition set, and resets this layer.
+	 * 
+	 * @param values
+	 *            the values of the outermost variable to iterate over
+	 */
+	void partitionOuterDeclaration(List<Object> values) {
+		variableDeclarations.get(0).setPartition(values);
+		reset();
+	}
 }
@@ -36,8 +36,16 @@
 package de.uni_koblenz.jgralab.greql.evaluator.fa;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Objects;
 
+import de.uni_koblenz.jgralab.Edge;
+import de.uni_koblenz.jgralab.EdgeDirection;
+import de.uni_koblenz.jgralab.Vertex;
+import de.uni_koblenz.jgralab.greql.schema.GReQLDirection;
+import de.uni_koblenz.jgralab.greql.types.TypeCollection;
+import de.uni_koblenz.jgralab.impl.IncidenceIterable;
+
 /**
  * Models a state of the finite automaton. Is baseclass for DFAState, which
  * modells a state in the DFA.
@@ -71,6 +79,26 @@ public class State {
 	 */
 	public ArrayList<Transition> outTransitions;
 
+	/**
+	 * the edge classes and direction of the incidences that may be accepted
+	 * by one of the outTransitions, computed on first use by
+	 * {@link #incidences(Vertex)}
+	 */
+	private IncidenceFilter incidenceFilter;
+
+	private static final class IncidenceFilter {
+		final BitSet edgeClassIds;
+		final EdgeDirection direction;
+		final boolean restricted;
+
+		IncidenceFilter(BitSet edgeClassIds, EdgeDirection direction) {
+			this.edgeClassIds = edgeClassIds;
+			this.direction = direction;
+			restricted = edgeClassIds != null
+					|| direction != EdgeDirection.INOUT;
+		}
+	}
+
 	/**
 	 * constructs a new state without any transitions connected
 	 * 
@@ -114,6 +142,67 @@ public class State {
 		inTransitions.remove(t);
 	}
 
+	/**
+	 * Returns the incidences of <code>v</code> which have to be offered to the
+	 * outTransitions of this state. If all outTransitions are
+	 * {@link SimpleTransition}s without role restrictions, only incidences of
+	 * the accepted edge classes and directions are returned, which lets the
+	 * graph use its incidence index (see
+	 * {@link de.uni_koblenz.jgralab.Graph#setIncidenceIndexThreshold(int)}).
+	 * Otherwise all incidences of <code>v</code> are returned. In both cases,
+	 * the incidences are returned in the order of the incidence list of
+	 * <code>v</code>. Must only be called after the dfa-construction has been
+	 * completed.
+	 * 
+	 * @param v
+	 *            a vertex of the datagraph
+	 * @return the incidences of <code>v</code> that may be accepted by an
+	 *         outTransition of this state
+	 */
+	public Iterable<Edge> incidences(Vertex v) {
+		IncidenceFilter f = incidenceFilter;
+		if (f == null) {
+			f = computeIncidenceFilter();
+			incidenceFilter = f;
+		}
+		if (!f.restricted) {
+			return v.incidences();
+		}
+		return new IncidenceIterable<>(v, f.edgeClassIds, f.direction);
+	}
+
+	private IncidenceFilter computeIncidenceFilter() {
+		if (outTransitions.isEmpty()) {
+			return new IncidenceFilter(null, EdgeDirection.INOUT);
+		}
+		BitSet ids = new BitSet();
+		boolean allTypes = false;
+		boolean in = false;
+		boolean out = false;
+		for (Transition t : outTransitions) {
+			if (t.getClass() != SimpleTransition.class) {
+				return new IncidenceFilter(null, EdgeDirection.INOUT);
+			}
+			SimpleTransition st = (SimpleTransition) t;
+			if (st.getValidToRoles() != null
+					|| st.getValidFromRoles() != null) {
+				return new IncidenceFilter(null, EdgeDirection.INOUT);
+			}
+			TypeCollection tc = st.getTypeCollection();
+			if (tc.isEmpty() || !tc.isBound()) {
+				allTypes = true;
+			} else {
+				ids.or(tc.getTypeIdSet());
+			}
+			GReQLDirection dir = st.getAllowedDirection();
+			in |= dir != GReQLDirection.OUT;
+			out |= dir != GReQLDirection.IN;
+		}
+		return new IncidenceFilter(allTypes ? null : ids,
+				in == out ? EdgeDirection.INOUT : in ? EdgeDirection.IN
+						: EdgeDirection.OUT);
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (obj == null) {
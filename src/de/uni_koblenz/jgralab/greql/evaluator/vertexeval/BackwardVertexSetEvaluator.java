@@ -43,7 +43,6 @@ import de.uni_koblenz.jgralab.greql.evaluator.GreqlQueryImpl;
 import de.uni_koblenz.jgralab.greql.evaluator.InternalGreqlEvaluator;
 import de.uni_koblenz.jgralab.greql.evaluator.VertexCosts;
 import de.uni_koblenz.jgralab.greql.evaluator.fa.DFA;
-import de.uni_koblenz.jgralab.greql.evaluator.fa.NFA;
 import de.uni_koblenz.jgralab.greql.funlib.graph.ReachableVertices;
 import de.uni_koblenz.jgralab.greql.schema.BackwardVertexSet;
 import de.uni_koblenz.jgralab.greql.schema.Expression;
@@ -63,7 +62,7 @@ public class BackwardVertexSetEvaluator extends
 		super(vertex, query);
 	}
 
-	private boolean initialized = false;
+	private volatile boolean initialized = false;
 
 	private VertexEvaluator<? extends Expression> targetEval = null;
 
@@ -81,16 +80,11 @@ public class BackwardVertexSetEvaluator extends
 		if (!initialized) {
 			initialize(evaluator);
 		}
-		DFA searchAutomaton = (DFA) evaluator.getLocalAutomaton(vertex);
-		if (searchAutomaton == null) {
-			PathDescription p = (PathDescription) vertex
-					.getFirstIsPathOfIncidence(EdgeDirection.IN).getAlpha();
-			PathDescriptionEvaluator<?> pathDescEval = (PathDescriptionEvaluator<?>) query
-					.getVertexEvaluator(p);
-			NFA revertedNFA = NFA.revertNFA(pathDescEval.getNFA(evaluator));
-			searchAutomaton = new DFA(revertedNFA);
-			evaluator.setLocalAutomaton(vertex, searchAutomaton);
-		}
+		PathDescription p = (PathDescription) vertex.getFirstIsPathOfIncidence(
+				EdgeDirection.IN).getAlpha();
+		PathDescriptionEvaluator<?> pathDescEval = (PathDescriptionEvaluator<?>) query
+				.getVertexEvaluator(p);
+		DFA searchAutomaton = getSearchAutomaton(evaluator, pathDescEval, true);
 		evaluator.progress(getOwnEvaluationCosts());
 		Vertex targetVertex = null;
 		targetVertex = (Vertex) targetEval.getResult(evaluator);
@@ -124,7 +118,9 @@ public class BackwardVertexSetEvaluator extends
 
 	@Override
 	public long calculateEstimatedCardinality() {
-		return 5;
+		PathDescription p = (PathDescription) vertex.getFirstIsPathOfIncidence(
+				EdgeDirection.IN).getAlpha();
+		return estimateAdjacentVertexCount(p, true);
 	}
 
 }
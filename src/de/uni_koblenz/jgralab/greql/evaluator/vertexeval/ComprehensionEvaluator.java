@@ -34,11 +34,18 @@
  */
 package de.uni_koblenz.jgralab.greql.evaluator.vertexeval;
 
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
 import org.pcollections.PCollection;
 
 import de.uni_koblenz.jgralab.EdgeDirection;
 import de.uni_koblenz.jgralab.greql.evaluator.GreqlQueryImpl;
 import de.uni_koblenz.jgralab.greql.evaluator.InternalGreqlEvaluator;
+import de.uni_koblenz.jgralab.greql.evaluator.ParallelDeclarationIteration;
 import de.uni_koblenz.jgralab.greql.evaluator.VariableDeclarationLayer;
 import de.uni_koblenz.jgralab.greql.schema.Comprehension;
 import de.uni_koblenz.jgralab.greql.schema.Declaration;
@@ -68,13 +75,16 @@ public abstract class ComprehensionEvaluator<V extends Comprehension> extends
 		return resultDefinitionEvaluator;
 	}
 
-	protected final VariableDeclarationLayer getVariableDeclationLayer(
-			InternalGreqlEvaluator evaluator) {
+	protected final DeclarationEvaluator getDeclarationEvaluator() {
 		Declaration d = getVertex().getFirstIsCompDeclOfIncidence(
 				EdgeDirection.IN).getAlpha();
-		DeclarationEvaluator declEval = (DeclarationEvaluator) query
-				.getVertexEvaluator(d);
-		return (VariableDeclarationLayer) declEval.getResult(evaluator);
+		return (DeclarationEvaluator) query.getVertexEvaluator(d);
+	}
+
+	protected final VariableDeclarationLayer getVariableDeclationLayer(
+			InternalGreqlEvaluator evaluator) {
+		return (VariableDeclarationLayer) getDeclarationEvaluator().getResult(
+				evaluator);
 	}
 
 	protected final void initializeMaxCount(InternalGreqlEvaluator evaluator) {
@@ -85,14 +95,104 @@ public abstract class ComprehensionEvaluator<V extends Comprehension> extends
 		}
 	}
 
+	/**
+	 * @return true, if the result of this comprehension contains every value
+	 *         only once
+	 */
+	protected boolean isDuplicateFree() {
+		return false;
+	}
+
+	/**
+	 * Returns an iterator computing the elements of this comprehension
+	 * lazily, i.e., the declaration is iterated only as far as the consumer
+	 * requests elements. In contrast to {@link #evaluate(InternalGreqlEvaluator)}
+	 * no result collection is built. Duplicates are skipped if
+	 * {@link #isDuplicateFree()}, and table headers of list comprehensions are
+	 * not part of the iteration.
+	 * 
+	 * @param evaluator
+	 *            the evaluator whose declaration layers are used, it must not
+	 *            be used for anything else while the iterator is in use
+	 * @return a lazy iterator over the elements of this comprehension
+	 */
+	public Iterator<Object> iterator(final InternalGreqlEvaluator evaluator) {
+		evaluator.progress(getOwnEvaluationCosts());
+		initializeMaxCount(evaluator);
+		final long max = maxCount;
+		final VariableDeclarationLayer declLayer = getVariableDeclationLayer(evaluator);
+		declLayer.reset();
+		final VertexEvaluator<?> resultDefEval = getResultDefinitionEvaluator();
+		final Set<Object> seen = isDuplicateFree() ? new HashSet<>() : null;
+
+		return new Iterator<Object>() {
+			private long count = 0;
+			private Object next;
+			private boolean hasNext;
+
+			@Override
+			public boolean hasNext() {
+				while (!hasNext && (count < max) && declLayer.iterate(evaluator)) {
+					next = resultDefEval.getResult(evaluator);
+					hasNext = (seen == null) || seen.add(next);
+				}
+				return hasNext;
+			}
+
+			@Override
+			public Object next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				hasNext = false;
+				count++;
+				return next;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
 	@Override
 	public Object evaluate(InternalGreqlEvaluator evaluator) {
 		evaluator.progress(getOwnEvaluationCosts());
 		initializeMaxCount(evaluator);
-		VariableDeclarationLayer declLayer = getVariableDeclationLayer(evaluator);
+		final PCollection<Object> emptyCollection = getResultDatastructure(evaluator);
+		List<PCollection<Object>> partialResults = new ParallelDeclarationIteration<PCollection<Object>>() {
+			@Override
+			protected PCollection<Object> iterate(
+					InternalGreqlEvaluator worker,
+					VariableDeclarationLayer layer) {
+				return collectResults(worker, layer, emptyCollection);
+			}
+		}.evaluate(evaluator, getDeclarationEvaluator());
+		if (partialResults == null) {
+			VariableDeclarationLayer declLayer = getVariableDeclationLayer(evaluator);
+			declLayer.reset();
+			return collectResults(evaluator, declLayer, emptyCollection);
+		}
+
+		// merge in the order of the partitions, so that lists have the same
+		// order as if they were computed sequentially
+		PCollection<Object> resultCollection = partialResults.get(0);
+		for (int i = 1; i < partialResults.size(); i++) {
+			for (Object localResult : partialResults.get(i)) {
+				if (resultCollection.size() >= maxCount) {
+					return resultCollection;
+				}
+				resultCollection = resultCollection.plus(localResult);
+			}
+		}
+		return resultCollection;
+	}
+
+	private PCollection<Object> collectResults(
+			InternalGreqlEvaluator evaluator, VariableDeclarationLayer declLayer,
+			PCollection<Object> resultCollection) {
 		VertexEvaluator<?> resultDefEval = getResultDefinitionEvaluator();
-		PCollection<Object> resultCollection = getResultDatastructure(evaluator);
-		declLayer.reset();
 		while (declLayer.iterate(evaluator)
 				&& (resultCollection.size() < maxCount)) {
 			Object localResult = resultDefEval.getResult(evaluator);
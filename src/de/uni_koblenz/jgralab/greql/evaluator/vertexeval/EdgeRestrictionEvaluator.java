@@ -59,7 +59,7 @@ import de.uni_koblenz.jgralab.greql.types.TypeCollection;
  */
 public class EdgeRestrictionEvaluator extends VertexEvaluator<EdgeRestriction> {
 
-	private VertexEvaluator<? extends Expression> predicateEvaluator = null;
+	private volatile VertexEvaluator<? extends Expression> predicateEvaluator = null;
 
 	public VertexEvaluator<? extends Expression> getPredicateEvaluator() {
 		return predicateEvaluator;
@@ -68,7 +68,7 @@ public class EdgeRestrictionEvaluator extends VertexEvaluator<EdgeRestriction> {
 	/**
 	 * The JValueTypeCollection which holds all the allowed and forbidden types
 	 */
-	private TypeCollection typeCollection = null;
+	private volatile TypeCollection typeCollection = null;
 
 	/**
 	 * Returns the typeCollection
@@ -83,7 +83,7 @@ public class EdgeRestrictionEvaluator extends VertexEvaluator<EdgeRestriction> {
 	/**
 	 * the valid role of an edge
 	 */
-	private Set<String> validRoles;
+	private volatile Set<String> validRoles;
 
 	/**
 	 * @return the valid edge role
@@ -102,33 +102,37 @@ public class EdgeRestrictionEvaluator extends VertexEvaluator<EdgeRestriction> {
 	@Override
 	public Object evaluate(InternalGreqlEvaluator evaluator) {
 		evaluator.progress(getOwnEvaluationCosts());
-		if (typeCollection == null) {
-			typeCollection = TypeCollection.empty();
+		// build the collection and the roles locally and publish them when
+		// complete, concurrent evaluations of the query share this evaluator
+		TypeCollection tc = typeCollection;
+		if (tc == null) {
+			tc = TypeCollection.empty();
 			IsTypeIdOf typeInc = vertex
 					.getFirstIsTypeIdOfIncidence(EdgeDirection.IN);
 			while (typeInc != null) {
 				TypeIdEvaluator typeEval = (TypeIdEvaluator) query
 						.getVertexEvaluator(typeInc.getAlpha());
-				typeCollection = typeCollection
-						.combine((TypeCollection) typeEval.getResult(evaluator));
+				tc = tc.combine((TypeCollection) typeEval.getResult(evaluator));
 				typeInc = typeInc.getNextIsTypeIdOfIncidence(EdgeDirection.IN);
 			}
 		}
 
 		try {
-			typeCollection = typeCollection.bindToSchema(evaluator);
+			tc = tc.bindToSchema(evaluator);
 		} catch (UnknownTypeException e) {
 			throw new UnknownTypeException(e.getTypeName(),
 					createPossibleSourcePositions());
 		}
 
 		if (vertex.getFirstIsRoleIdOfIncidence() != null) {
-			validRoles = new HashSet<>();
+			Set<String> roles = new HashSet<>();
 			for (IsRoleIdOf e : vertex.getIsRoleIdOfIncidences()) {
 				RoleId role = e.getAlpha();
-				validRoles.add(role.get_name());
+				roles.add(role.get_name());
 			}
+			validRoles = roles;
 		}
+		typeCollection = tc;
 		IsBooleanPredicateOfEdgeRestriction predInc = vertex
 				.getFirstIsBooleanPredicateOfEdgeRestrictionIncidence(EdgeDirection.IN);
 		if (predInc != null) {
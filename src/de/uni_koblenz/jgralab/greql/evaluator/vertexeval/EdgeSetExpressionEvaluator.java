@@ -35,9 +35,12 @@
 
 package de.uni_koblenz.jgralab.greql.evaluator.vertexeval;
 
+import java.util.BitSet;
+
 import org.pcollections.PSet;
 
 import de.uni_koblenz.jgralab.Edge;
+import de.uni_koblenz.jgralab.Graph;
 import de.uni_koblenz.jgralab.JGraLab;
 import de.uni_koblenz.jgralab.greql.evaluator.GreqlQueryImpl;
 import de.uni_koblenz.jgralab.greql.evaluator.InternalGreqlEvaluator;
@@ -45,6 +48,8 @@ import de.uni_koblenz.jgralab.greql.evaluator.VertexCosts;
 import de.uni_koblenz.jgralab.greql.schema.EdgeSetExpression;
 import de.uni_koblenz.jgralab.greql.schema.IsTypeRestrOfExpression;
 import de.uni_koblenz.jgralab.greql.types.TypeCollection;
+import de.uni_koblenz.jgralab.impl.InternalEdge;
+import de.uni_koblenz.jgralab.impl.InternalGraph;
 import de.uni_koblenz.jgralab.schema.EdgeClass;
 
 /**
@@ -66,13 +71,26 @@ public class EdgeSetExpressionEvaluator extends
 		TypeCollection tc = getTypeCollection(evaluator);
 		// create the resulting set
 		PSet<Edge> resultSet = JGraLab.set();
-		Edge currentEdge = evaluator.getGraph().getFirstEdge();
-		while (currentEdge != null) {
-			EdgeClass edgeClass = currentEdge.getAttributedElementClass();
-			if (tc.acceptsType(edgeClass)) {
+		Graph graph = evaluator.getGraph();
+		if (!tc.isEmpty() && (graph instanceof InternalGraph)) {
+			// only visit the edges of the accepted classes
+			BitSet edgeClassIds = tc.getTypeIdSet();
+			Edge currentEdge = ((InternalGraph) graph)
+					.getFirstEdge(edgeClassIds);
+			while (currentEdge != null) {
 				resultSet = resultSet.plus(currentEdge);
+				currentEdge = ((InternalEdge) currentEdge)
+						.getNextEdge(edgeClassIds);
+			}
+		} else {
+			Edge currentEdge = graph.getFirstEdge();
+			while (currentEdge != null) {
+				EdgeClass edgeClass = currentEdge.getAttributedElementClass();
+				if (tc.acceptsType(edgeClass)) {
+					resultSet = resultSet.plus(currentEdge);
+				}
+				currentEdge = currentEdge.getNextEdge();
 			}
-			currentEdge = currentEdge.getNextEdge();
 		}
 		evaluator.progress(getOwnEvaluationCosts());
 		return resultSet;
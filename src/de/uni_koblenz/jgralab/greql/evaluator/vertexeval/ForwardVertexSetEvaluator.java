@@ -60,7 +60,7 @@ public class ForwardVertexSetEvaluator extends
 		super(vertex, query);
 	}
 
-	private boolean initialized = false;
+	private volatile boolean initialized = false;
 
 	private VertexEvaluator<? extends Expression> startEval = null;
 
@@ -77,15 +77,11 @@ public class ForwardVertexSetEvaluator extends
 		if (!initialized) {
 			initialize(evaluator);
 		}
-		DFA searchAutomaton = (DFA) evaluator.getLocalAutomaton(vertex);
-		if (searchAutomaton == null) {
-			PathDescription p = (PathDescription) vertex
-					.getFirstIsPathOfIncidence(EdgeDirection.IN).getAlpha();
-			PathDescriptionEvaluator<?> pathDescEval = (PathDescriptionEvaluator<?>) query
-					.getVertexEvaluator(p);
-			searchAutomaton = new DFA(pathDescEval.getNFA(evaluator));
-			evaluator.setLocalAutomaton(vertex, searchAutomaton);
-		}
+		PathDescription p = (PathDescription) vertex.getFirstIsPathOfIncidence(
+				EdgeDirection.IN).getAlpha();
+		PathDescriptionEvaluator<?> pathDescEval = (PathDescriptionEvaluator<?>) query
+				.getVertexEvaluator(p);
+		DFA searchAutomaton = getSearchAutomaton(evaluator, pathDescEval, false);
 		evaluator.progress(getOwnEvaluationCosts());
 		Vertex startVertex = null;
 		startVertex = (Vertex) startEval.getResult(evaluator);
@@ -118,7 +114,9 @@ public class ForwardVertexSetEvaluator extends
 
 	@Override
 	public long calculateEstimatedCardinality() {
-		return 5;
+		PathDescription p = (PathDescription) vertex.getFirstIsPathOfIncidence(
+				EdgeDirection.IN).getAlpha();
+		return estimateAdjacentVertexCount(p, false);
 	}
 
 }
@@ -38,6 +38,7 @@ package de.uni_koblenz.jgralab.greql.evaluator.vertexeval;
 import java.util.ArrayList;
 
 import de.uni_koblenz.jgralab.EdgeDirection;
+import de.uni_koblenz.jgralab.greql.OptimizerInfo;
 import de.uni_koblenz.jgralab.greql.evaluator.GreqlQueryImpl;
 import de.uni_koblenz.jgralab.greql.evaluator.InternalGreqlEvaluator;
 import de.uni_koblenz.jgralab.greql.evaluator.VertexCosts;
@@ -47,13 +48,23 @@ import de.uni_koblenz.jgralab.greql.exception.UnknownTypeException;
 import de.uni_koblenz.jgralab.greql.funlib.FunLib;
 import de.uni_koblenz.jgralab.greql.funlib.FunLib.FunctionInfo;
 import de.uni_koblenz.jgralab.greql.funlib.Function;
+import de.uni_koblenz.jgralab.greql.schema.DoubleLiteral;
+import de.uni_koblenz.jgralab.greql.schema.EdgeSetExpression;
 import de.uni_koblenz.jgralab.greql.schema.Expression;
 import de.uni_koblenz.jgralab.greql.schema.FunctionApplication;
 import de.uni_koblenz.jgralab.greql.schema.FunctionId;
+import de.uni_koblenz.jgralab.greql.schema.Identifier;
+import de.uni_koblenz.jgralab.greql.schema.IntLiteral;
 import de.uni_koblenz.jgralab.greql.schema.IsArgumentOf;
+import de.uni_koblenz.jgralab.greql.schema.IsDeclaredVarOf;
 import de.uni_koblenz.jgralab.greql.schema.IsTypeExprOf;
+import de.uni_koblenz.jgralab.greql.schema.Literal;
+import de.uni_koblenz.jgralab.greql.schema.LongLiteral;
 import de.uni_koblenz.jgralab.greql.schema.TypeId;
+import de.uni_koblenz.jgralab.greql.schema.Variable;
+import de.uni_koblenz.jgralab.greql.schema.VertexSetExpression;
 import de.uni_koblenz.jgralab.greql.types.TypeCollection;
+import de.uni_koblenz.jgralab.schema.AttributedElementClass;
 
 /**
  * Evaluates a FunctionApplication vertex in the GReQL-2 Syntaxgraph
@@ -79,6 +90,11 @@ public class FunctionApplicationEvaluator extends
 
 	private FunctionInfo fi = null;
 
+	/**
+	 * The call site this function application is bound to
+	 */
+	private FunLib.CallSite callSite = null;
+
 	/**
 	 * Returns the name of the GreqlFunction
 	 */
@@ -102,6 +118,13 @@ public class FunctionApplicationEvaluator extends
 		return fi;
 	}
 
+	private FunLib.CallSite getCallSite() {
+		if (callSite == null) {
+			callSite = FunLib.bind(getFunctionInfo());
+		}
+		return callSite;
+	}
+
 	public Function getFunction() {
 		return getFunctionInfo().getFunction();
 	}
@@ -168,7 +191,8 @@ public class FunctionApplicationEvaluator extends
 	@Override
 	public Object evaluate(InternalGreqlEvaluator evaluator) {
 		evaluator.progress(getOwnEvaluationCosts());
-		FunctionInfo fi = getFunctionInfo();
+		FunLib.CallSite callSite = getCallSite();
+		FunctionInfo fi = callSite.getFunctionInfo();
 
 		if (!listCreated) {
 			typeArgument = createTypeArgument(evaluator);
@@ -215,7 +239,7 @@ public class FunctionApplicationEvaluator extends
 			parameters[p] = typeArgument;
 		}
 
-		return FunLib.apply(fi, parameters);
+		return callSite.apply(parameters);
 	}
 
 	@Override
@@ -245,12 +269,125 @@ public class FunctionApplicationEvaluator extends
 	public double calculateEstimatedSelectivity() {
 		Function func = getFunction();
 		if (func != null) {
-			return func.getSelectivity();
+			double selectivity = calculateAttributeSelectivity();
+			return Double.isNaN(selectivity) ? func.getSelectivity()
+					: selectivity;
 		} else {
 			return 1;
 		}
 	}
 
+	/**
+	 * Estimates the selectivity of a comparison between an attribute of a
+	 * declared variable and a literal, e.g. <code>v.age &gt; 42</code> where
+	 * <code>v: V{Person}</code>, using the attribute statistics of the
+	 * {@link OptimizerInfo}.
+	 * 
+	 * @return the estimated selectivity, or <code>NaN</code> if this function
+	 *         application is not such a comparison
+	 */
+	private double calculateAttributeSelectivity() {
+		String name = getFunctionName();
+		boolean equality = name.equals("equals") || name.equals("nequals");
+		boolean less = name.equals("leThan") || name.equals("leEqual");
+		boolean greater = name.equals("grThan") || name.equals("grEqual");
+		if (!equality && !less && !greater) {
+			return Double.NaN;
+		}
+		OptimizerInfo info = query.getOptimizer().getOptimizerInfo();
+		IsArgumentOf inc = vertex
+				.getFirstIsArgumentOfIncidence(EdgeDirection.IN);
+		if (info.getSchema() == null || inc == null
+				|| inc.getNextIsArgumentOfIncidence(EdgeDirection.IN) == null) {
+			return Double.NaN;
+		}
+		Expression access = inc.getAlpha();
+		Expression literal = inc.getNextIsArgumentOfIncidence(
+				EdgeDirection.IN).getAlpha();
+		if (access instanceof Literal) {
+			// 42 < v.age is equivalent to v.age > 42
+			Expression tmp = access;
+			access = literal;
+			literal = tmp;
+			boolean tmpLess = less;
+			less = greater;
+			greater = tmpLess;
+		}
+		if (!(literal instanceof Literal)
+				|| !(access instanceof FunctionApplication)) {
+			return Double.NaN;
+		}
+		FunctionApplication getValue = (FunctionApplication) access;
+		if (!getValue.getFirstIsFunctionIdOfIncidence(EdgeDirection.IN)
+				.getAlpha().get_name().equals("getValue")) {
+			return Double.NaN;
+		}
+		IsArgumentOf varInc = getValue
+				.getFirstIsArgumentOfIncidence(EdgeDirection.IN);
+		IsArgumentOf attrInc = varInc == null ? null : varInc
+				.getNextIsArgumentOfIncidence(EdgeDirection.IN);
+		if (attrInc == null || !(varInc.getAlpha() instanceof Variable)
+				|| !(attrInc.getAlpha() instanceof Identifier)) {
+			return Double.NaN;
+		}
+		AttributedElementClass<?, ?> aec = getDeclaredType(
+				(Variable) varInc.getAlpha(), info);
+		String attributeName = ((Identifier) attrInc.getAlpha()).get_name();
+		if (aec == null || !aec.containsAttribute(attributeName)) {
+			return Double.NaN;
+		}
+		if (equality) {
+			double selectivity = info.getEqualitySelectivity(aec,
+					attributeName);
+			return name.equals("equals") ? selectivity : 1 - selectivity;
+		}
+		double value;
+		if (literal instanceof IntLiteral) {
+			value = ((IntLiteral) literal).get_intValue();
+		} else if (literal instanceof LongLiteral) {
+			value = ((LongLiteral) literal).get_longValue();
+		} else if (literal instanceof DoubleLiteral) {
+			value = ((DoubleLiteral) literal).get_doubleValue();
+		} else {
+			return Double.NaN;
+		}
+		return less ? info.getRangeSelectivity(aec, attributeName,
+				Double.NEGATIVE_INFINITY, value) : info.getRangeSelectivity(
+				aec, attributeName, value, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * @return the class of the elements variable <code>var</code> is declared
+	 *         on if it is declared on <code>V{T}</code> or <code>E{T}</code>
+	 *         with a single type <code>T</code>, <code>null</code> otherwise
+	 */
+	private AttributedElementClass<?, ?> getDeclaredType(Variable var,
+			OptimizerInfo info) {
+		IsDeclaredVarOf inc = var
+				.getFirstIsDeclaredVarOfIncidence(EdgeDirection.OUT);
+		if (inc == null) {
+			return null;
+		}
+		Expression typeExpr = inc.getOmega().get_typeExpr();
+		Iterable<TypeId> typeIds;
+		if (typeExpr instanceof VertexSetExpression) {
+			typeIds = ((VertexSetExpression) typeExpr).get_typeRestr();
+		} else if (typeExpr instanceof EdgeSetExpression) {
+			typeIds = ((EdgeSetExpression) typeExpr).get_typeRestr();
+		} else {
+			return null;
+		}
+		TypeId typeId = null;
+		for (TypeId id : typeIds) {
+			if (typeId != null || id.is_excluded()) {
+				return null;
+			}
+			typeId = id;
+		}
+		return typeId == null ? null : info.getSchema().getGraphClass()
+				.getGraphElementClass(typeId.get_name());
+	}
+
 	@Override
 	public long calculateEstimatedCardinality() {
 		FunctionApplication funApp = getVertex();
@@ -35,6 +35,11 @@
 
 package de.uni_koblenz.jgralab.greql.evaluator.vertexeval;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+
 import de.uni_koblenz.jgralab.EdgeDirection;
 import de.uni_koblenz.jgralab.greql.evaluator.EvaluatorUtilities;
 import de.uni_koblenz.jgralab.greql.evaluator.GreqlQueryImpl;
@@ -111,6 +116,37 @@ public class GreqlExpressionEvaluator extends VertexEvaluator<GreqlExpression> {
 		return result;
 	}
 
+	/**
+	 * Sets the values of all bound variables and returns an iterator over the
+	 * result of the query expression. If the query expression is a list or
+	 * set comprehension (e.g., <code>from ... with ... report ... end</code>)
+	 * and the query has no "store as" clause, its elements are computed
+	 * lazily (see {@link ComprehensionEvaluator#iterator(InternalGreqlEvaluator)}).
+	 * Otherwise the result is computed completely. Then the iterator returns
+	 * the elements of a collection result, the entries of a map result, or
+	 * any other result as its only element.
+	 */
+	public Iterator<?> iterator(InternalGreqlEvaluator evaluator) {
+		Expression boundExpression = vertex.getFirstIsQueryExprOfIncidence(
+				EdgeDirection.IN).getAlpha();
+		VertexEvaluator<? extends Expression> eval = query
+				.getVertexEvaluator(boundExpression);
+		if (((eval instanceof ListComprehensionEvaluator) || (eval instanceof SetComprehensionEvaluator))
+				&& (vertex.getFirstIsIdOfStoreClauseIncidence(EdgeDirection.IN) == null)) {
+			EvaluatorUtilities.checkImports(vertex, evaluator.getSchema());
+			initializeBoundVariables(evaluator);
+			return ((ComprehensionEvaluator<?>) eval).iterator(evaluator);
+		}
+
+		Object result = getResult(evaluator);
+		if (result instanceof Collection) {
+			return ((Collection<?>) result).iterator();
+		} else if (result instanceof Map) {
+			return ((Map<?, ?>) result).entrySet().iterator();
+		}
+		return Collections.singleton(result).iterator();
+	}
+
 	@Override
 	public VertexCosts calculateSubtreeEvaluationCosts() {
 		GreqlExpression greqlExp = getVertex();
@@ -37,6 +37,8 @@
  */
 package de.uni_koblenz.jgralab.greql.evaluator.vertexeval;
 
+import java.util.List;
+
 import org.pcollections.PCollection;
 import org.pcollections.PMap;
 
@@ -44,6 +46,7 @@ import de.uni_koblenz.jgralab.EdgeDirection;
 import de.uni_koblenz.jgralab.JGraLab;
 import de.uni_koblenz.jgralab.greql.evaluator.GreqlQueryImpl;
 import de.uni_koblenz.jgralab.greql.evaluator.InternalGreqlEvaluator;
+import de.uni_koblenz.jgralab.greql.evaluator.ParallelDeclarationIteration;
 import de.uni_koblenz.jgralab.greql.evaluator.VariableDeclarationLayer;
 import de.uni_koblenz.jgralab.greql.evaluator.VertexCosts;
 import de.uni_koblenz.jgralab.greql.schema.Declaration;
@@ -95,7 +98,33 @@ public class MapComprehensionEvaluator extends
 	public Object evaluate(InternalGreqlEvaluator evaluator) {
 		evaluator.progress(getOwnEvaluationCosts());
 		initializeMaxCount(evaluator);
+
+		// with a maximal count, the entries which are overwritten depend on the
+		// order of the iteration, so such maps are always computed sequentially
+		if (maxCount == Long.MAX_VALUE) {
+			List<PMap<Object, Object>> partialResults = new ParallelDeclarationIteration<PMap<Object, Object>>() {
+				@Override
+				protected PMap<Object, Object> iterate(
+						InternalGreqlEvaluator worker,
+						VariableDeclarationLayer layer) {
+					return collectEntries(worker, layer);
+				}
+			}.evaluate(evaluator, getDeclarationEvaluator());
+			if (partialResults != null) {
+				PMap<Object, Object> resultMap = partialResults.get(0);
+				for (int i = 1; i < partialResults.size(); i++) {
+					resultMap = resultMap.plusAll(partialResults.get(i));
+				}
+				return resultMap;
+			}
+		}
 		VariableDeclarationLayer declLayer = getVariableDeclationLayer(evaluator);
+		declLayer.reset();
+		return collectEntries(evaluator, declLayer);
+	}
+
+	private PMap<Object, Object> collectEntries(
+			InternalGreqlEvaluator evaluator, VariableDeclarationLayer declLayer) {
 		PMap<Object, Object> resultMap = JGraLab.map();
 
 		Expression key = vertex
@@ -108,7 +137,6 @@ public class MapComprehensionEvaluator extends
 				.getAlpha();
 		VertexEvaluator<? extends Expression> valEval = query
 				.getVertexEvaluator(val);
-		declLayer.reset();
 		while (declLayer.iterate(evaluator) && (resultMap.size() < maxCount)) {
 			Object jkey = keyEval.getResult(evaluator);
 			Object jval = valEval.getResult(evaluator);
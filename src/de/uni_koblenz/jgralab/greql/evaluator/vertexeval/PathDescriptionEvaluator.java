@@ -35,12 +35,21 @@
 
 package de.uni_koblenz.jgralab.greql.evaluator.vertexeval;
 
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+
+import de.uni_koblenz.jgralab.Edge;
 import de.uni_koblenz.jgralab.EdgeDirection;
+import de.uni_koblenz.jgralab.Vertex;
 import de.uni_koblenz.jgralab.greql.evaluator.GreqlQueryImpl;
 import de.uni_koblenz.jgralab.greql.evaluator.InternalGreqlEvaluator;
 import de.uni_koblenz.jgralab.greql.evaluator.fa.NFA;
 import de.uni_koblenz.jgralab.greql.exception.UnknownTypeException;
+import de.uni_koblenz.jgralab.greql.schema.ExponentiatedPathDescription;
 import de.uni_koblenz.jgralab.greql.schema.Expression;
+import de.uni_koblenz.jgralab.greql.schema.IntLiteral;
 import de.uni_koblenz.jgralab.greql.schema.IsGoalRestrOf;
 import de.uni_koblenz.jgralab.greql.schema.IsStartRestrOf;
 import de.uni_koblenz.jgralab.greql.schema.PathDescription;
@@ -60,10 +69,47 @@ import de.uni_koblenz.jgralab.greql.types.TypeCollection;
 public abstract class PathDescriptionEvaluator<V extends PathDescription>
 		extends VertexEvaluator<V> {
 
+	private Boolean evaluationIndependent;
+
 	public PathDescriptionEvaluator(V vertex, GreqlQueryImpl query) {
 		super(vertex, query);
 	}
 
+	/**
+	 * Checks if the automaton of this path description is the same for all
+	 * evaluations on graphs of one schema. Restrictions and edge expressions
+	 * are evaluated by the transitions during the path search, so only
+	 * exponents which are not integer literals make the automaton depend on
+	 * the evaluation.
+	 * 
+	 * @return true iff the automaton can be shared by all evaluations
+	 */
+	public boolean isEvaluationIndependent() {
+		if (evaluationIndependent == null) {
+			boolean independent = true;
+			Set<Vertex> visited = new HashSet<>();
+			Queue<Vertex> queue = new ArrayDeque<>();
+			queue.add(vertex);
+			visited.add(vertex);
+			while (independent && !queue.isEmpty()) {
+				Vertex v = queue.poll();
+				if (v instanceof ExponentiatedPathDescription
+						&& !(((ExponentiatedPathDescription) v)
+								.getFirstIsExponentOfIncidence(EdgeDirection.IN)
+								.getAlpha() instanceof IntLiteral)) {
+					independent = false;
+				}
+				for (Edge e : v.incidences(EdgeDirection.IN)) {
+					if (visited.add(e.getAlpha())) {
+						queue.add(e.getAlpha());
+					}
+				}
+			}
+			evaluationIndependent = independent;
+		}
+		return evaluationIndependent;
+	}
+
 	/**
 	 * returns the nfa
 	 */
@@ -42,7 +42,6 @@ import de.uni_koblenz.jgralab.greql.evaluator.InternalGreqlEvaluator;
 import de.uni_koblenz.jgralab.greql.evaluator.VertexCosts;
 import de.uni_koblenz.jgralab.greql.evaluator.fa.DFA;
 import de.uni_koblenz.jgralab.greql.funlib.FunLib;
-import de.uni_koblenz.jgralab.greql.funlib.FunLib.FunctionInfo;
 import de.uni_koblenz.jgralab.greql.schema.Expression;
 import de.uni_koblenz.jgralab.greql.schema.PathDescription;
 import de.uni_koblenz.jgralab.greql.schema.PathExistence;
@@ -56,7 +55,7 @@ import de.uni_koblenz.jgralab.greql.schema.PathExistence;
  */
 public class PathExistenceEvaluator extends PathSearchEvaluator<PathExistence> {
 
-	private FunctionInfo fi;
+	private FunLib.CallSite isReachable;
 
 	public PathExistenceEvaluator(PathExistence vertex, GreqlQueryImpl query) {
 		super(vertex, query);
@@ -94,21 +93,16 @@ public class PathExistenceEvaluator extends PathSearchEvaluator<PathExistence> {
 		}
 		targetVertex = (Vertex) res;
 
-		DFA searchAutomaton = (DFA) evaluator.getLocalAutomaton(vertex);
-		if (searchAutomaton == null) {
-			searchAutomaton = pathDescEval.getNFA(evaluator).getDFA();
-			// searchAutomaton.printAscii();
-			evaluator.setLocalAutomaton(vertex, searchAutomaton);
-		}
+		DFA searchAutomaton = getSearchAutomaton(evaluator, pathDescEval, false);
 		Object[] arguments = new Object[4];
 		arguments[0] = evaluator;
 		arguments[1] = startVertex;
 		arguments[2] = targetVertex;
 		arguments[3] = searchAutomaton;
-		if (fi == null) {
-			fi = FunLib.getFunctionInfo("isReachable");
+		if (isReachable == null) {
+			isReachable = FunLib.bind(FunLib.getFunctionInfo("isReachable"));
 		}
-		return FunLib.apply(fi, arguments);
+		return isReachable.apply(arguments);
 	}
 
 	@Override
@@ -35,9 +35,28 @@
 
 package de.uni_koblenz.jgralab.greql.evaluator.vertexeval;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import de.uni_koblenz.jgralab.EdgeDirection;
+import de.uni_koblenz.jgralab.greql.OptimizerInfo;
 import de.uni_koblenz.jgralab.greql.evaluator.GreqlQueryImpl;
+import de.uni_koblenz.jgralab.greql.evaluator.InternalGreqlEvaluator;
 import de.uni_koblenz.jgralab.greql.evaluator.fa.DFA;
+import de.uni_koblenz.jgralab.greql.evaluator.fa.NFA;
+import de.uni_koblenz.jgralab.greql.schema.Direction;
+import de.uni_koblenz.jgralab.greql.schema.EdgeRestriction;
+import de.uni_koblenz.jgralab.greql.schema.GReQLDirection;
+import de.uni_koblenz.jgralab.greql.schema.IsDirectionOf;
+import de.uni_koblenz.jgralab.greql.schema.IsEdgeRestrOf;
+import de.uni_koblenz.jgralab.greql.schema.IsTypeIdOf;
+import de.uni_koblenz.jgralab.greql.schema.PathDescription;
 import de.uni_koblenz.jgralab.greql.schema.PathExpression;
+import de.uni_koblenz.jgralab.greql.schema.SimplePathDescription;
+import de.uni_koblenz.jgralab.greql.schema.TypeId;
+import de.uni_koblenz.jgralab.schema.AttributedElementClass;
+import de.uni_koblenz.jgralab.schema.EdgeClass;
+import de.uni_koblenz.jgralab.schema.Schema;
 
 /**
  * Abstract baseclass for all regular pathsearches, that are PathExistence,
@@ -68,4 +87,106 @@ public abstract class PathSearchEvaluator<V extends PathExpression> extends
 		super(vertex, query);
 		searchAutomaton = null;
 	}
+
+	/**
+	 * Returns the DFA which accepts the paths described by
+	 * <code>pathDescEval</code>, or their reversals if <code>reversed</code>
+	 * is true. If the path description doesn't depend on the evaluation, the
+	 * DFA is built once and shared by all evaluations of the query on graphs
+	 * of the same schema. Otherwise, it is stored as local automaton of
+	 * <code>evaluator</code>.
+	 */
+	protected DFA getSearchAutomaton(InternalGreqlEvaluator evaluator,
+			PathDescriptionEvaluator<?> pathDescEval, boolean reversed) {
+		DFA dfa = (DFA) evaluator.getLocalAutomaton(vertex);
+		if (dfa != null) {
+			return dfa;
+		}
+		boolean shared = pathDescEval.isEvaluationIndependent();
+		Schema schema = evaluator.getSchema();
+		if (shared) {
+			dfa = query.getSharedAutomaton(vertex, schema);
+		}
+		if (dfa == null) {
+			NFA nfa = pathDescEval.getNFA(evaluator);
+			dfa = reversed ? new DFA(NFA.revertNFA(nfa)) : nfa.getDFA();
+			if (shared) {
+				query.setSharedAutomaton(vertex, schema, dfa);
+			}
+		}
+		evaluator.setLocalAutomaton(vertex, dfa);
+		return dfa;
+	}
+
+	/**
+	 * Estimates the number of vertices adjacent to the start vertex of a
+	 * search along <code>p</code> by the average degree of the vertices. If
+	 * <code>p</code> is a simple path description restricted to edge classes
+	 * of the schema, only edges of these classes in the described direction
+	 * (reversed for backward searches) are considered.
+	 */
+	protected long estimateAdjacentVertexCount(PathDescription p,
+			boolean reversed) {
+		OptimizerInfo info = query.getOptimizer().getOptimizerInfo();
+		EdgeDirection dir = EdgeDirection.INOUT;
+		List<EdgeClass> edgeClasses = null;
+		if (p instanceof SimplePathDescription) {
+			SimplePathDescription spd = (SimplePathDescription) p;
+			IsDirectionOf dirInc = spd
+					.getFirstIsDirectionOfIncidence(EdgeDirection.IN);
+			if (dirInc != null) {
+				GReQLDirection d = ((Direction) dirInc.getAlpha())
+						.get_dirValue();
+				if (d != GReQLDirection.INOUT) {
+					dir = (d == GReQLDirection.OUT) != reversed ? EdgeDirection.OUT
+							: EdgeDirection.IN;
+				}
+			}
+			edgeClasses = getRestrictingEdgeClasses(spd, info.getSchema());
+		}
+		double degree = 0.0;
+		if (edgeClasses == null) {
+			degree = info.getAverageDegree(null, dir);
+		} else {
+			for (EdgeClass ec : edgeClasses) {
+				degree += info.getAverageDegree(ec, dir);
+			}
+		}
+		return Math.max(1, Math.round(degree));
+	}
+
+	/**
+	 * @return the edge classes the edges of <code>spd</code> are restricted
+	 *         to, or <code>null</code> if <code>spd</code> has no such
+	 *         restriction or it cannot be expressed by edge classes of
+	 *         <code>schema</code>
+	 */
+	private static List<EdgeClass> getRestrictingEdgeClasses(
+			SimplePathDescription spd, Schema schema) {
+		if (schema == null) {
+			return null;
+		}
+		List<EdgeClass> edgeClasses = new ArrayList<>();
+		for (IsEdgeRestrOf inc : spd
+				.getIsEdgeRestrOfIncidences(EdgeDirection.IN)) {
+			EdgeRestriction er = inc.getAlpha();
+			if (er.getFirstIsRoleIdOfIncidence() != null) {
+				return null;
+			}
+			for (IsTypeIdOf typeInc : er
+					.getIsTypeIdOfIncidences(EdgeDirection.IN)) {
+				TypeId typeId = typeInc.getAlpha();
+				if (typeId.is_excluded()) {
+					return null;
+				}
+				AttributedElementClass<?, ?> aec = schema
+						.getAttributedElementClass(typeId.get_name());
+				if (!(aec instanceof EdgeClass)) {
+					return null;
+				}
+				edgeClasses.add((EdgeClass) aec);
+			}
+		}
+		return edgeClasses.isEmpty() ? null : edgeClasses;
+	}
 }
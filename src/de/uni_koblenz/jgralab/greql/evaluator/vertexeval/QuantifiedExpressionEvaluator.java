@@ -35,9 +35,13 @@
 
 package de.uni_koblenz.jgralab.greql.evaluator.vertexeval;
 
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import de.uni_koblenz.jgralab.EdgeDirection;
 import de.uni_koblenz.jgralab.greql.evaluator.GreqlQueryImpl;
 import de.uni_koblenz.jgralab.greql.evaluator.InternalGreqlEvaluator;
+import de.uni_koblenz.jgralab.greql.evaluator.ParallelDeclarationIteration;
 import de.uni_koblenz.jgralab.greql.evaluator.VariableDeclarationLayer;
 import de.uni_koblenz.jgralab.greql.evaluator.VertexCosts;
 import de.uni_koblenz.jgralab.greql.schema.Declaration;
@@ -87,68 +91,80 @@ public class QuantifiedExpressionEvaluator extends
 		}
 		evaluator.progress(getOwnEvaluationCosts());
 
-		boolean foundTrue = false;
 		Declaration d = vertex.getFirstIsQuantifiedDeclOfIncidence(
 				EdgeDirection.IN).getAlpha();
 		DeclarationEvaluator declEval = (DeclarationEvaluator) query
 				.getVertexEvaluator(d);
-		VariableDeclarationLayer declarationLayer = (VariableDeclarationLayer) declEval
-				.getResult(evaluator);
-		declarationLayer.reset();
-		switch (quantificationType) {
-		case EXISTS:
-			while (declarationLayer.iterate(evaluator)) {
-				Object tempResult = predicateEvaluator.getResult(evaluator);
-				if (tempResult instanceof Boolean) {
-					if ((Boolean) tempResult) {
-						return Boolean.TRUE;
-					}
-				} else {
-					// every result which is not a Boolean evaluates to true
-					return Boolean.TRUE;
-				}
-			}
-			return Boolean.FALSE;
-		case EXISTSONE:
-			while (declarationLayer.iterate(evaluator)) {
-				Object tempResult = predicateEvaluator.getResult(evaluator);
-				if (tempResult instanceof Boolean) {
-					if ((Boolean) tempResult) {
-						if (foundTrue == true) {
-							return Boolean.FALSE;
-						} else {
-							foundTrue = true;
+
+		// the number of hits after which the result is known
+		final int hitLimit = quantificationType == QuantificationType.EXISTSONE ? 2
+				: 1;
+		final AtomicInteger totalHits = new AtomicInteger();
+		List<Integer> partialHits = new ParallelDeclarationIteration<Integer>() {
+			@Override
+			protected Integer iterate(InternalGreqlEvaluator worker,
+					VariableDeclarationLayer layer) {
+				int hits = 0;
+				while (!isCancelled() && layer.iterate(worker)) {
+					if (isHit(predicateEvaluator.getResult(worker))) {
+						hits++;
+						if (totalHits.incrementAndGet() >= hitLimit) {
+							cancel();
 						}
 					}
-				} else {
-					// every result which is not a Boolean evaluates to true
-					if (foundTrue == true) {
-						return Boolean.FALSE;
-					} else {
-						foundTrue = true;
-					}
 				}
+				return hits;
 			}
-			if (foundTrue) {
-				return Boolean.TRUE;
-			}
-			return Boolean.FALSE;
-		case FORALL:
-			while (declarationLayer.iterate(evaluator)) {
-				Object tempResult = predicateEvaluator.getResult(evaluator);
-				if (tempResult instanceof Boolean) {
-					if (!(Boolean) tempResult) {
-						return Boolean.FALSE;
-					}
+		}.evaluate(evaluator, declEval);
+
+		int hits;
+		if (partialHits != null) {
+			hits = totalHits.get();
+		} else {
+			VariableDeclarationLayer declarationLayer = (VariableDeclarationLayer) declEval
+					.getResult(evaluator);
+			declarationLayer.reset();
+			hits = 0;
+			while ((hits < hitLimit) && declarationLayer.iterate(evaluator)) {
+				if (isHit(predicateEvaluator.getResult(evaluator))) {
+					hits++;
 				}
 			}
-			return Boolean.TRUE;
+		}
+
+		switch (quantificationType) {
+		case EXISTS:
+			return hits > 0;
+		case EXISTSONE:
+			return hits == 1;
+		case FORALL:
+			return hits == 0;
 		default:
 			throw new RuntimeException("FIXME: Unhandled quantification type "
 					+ quantificationType);
 		}
 	}
 
+	/**
+	 * Checks if the result of the predicate for one variable combination
+	 * decides the quantified expression. For <code>exists</code> and
+	 * <code>exists!</code>, this is a predicate which evaluates to true, for
+	 * <code>forall</code>, it is a predicate which evaluates to false.
+	 * 
+	 * @param predicateResult
+	 *            the result of the predicate
+	 * @return true, if <code>predicateResult</code> is a hit
+	 */
+	private boolean isHit(Object predicateResult) {
+		if (quantificationType == QuantificationType.FORALL) {
+			return (predicateResult instanceof Boolean)
+					&& !(Boolean) predicateResult;
+		}
+		// every result which is not a Boolean evaluates to true
+		return !(predicateResult instanceof Boolean)
+				|| (Boolean) predicateResult;
+	}
+
 	@Override
 	public VertexCosts calculateSubtreeEvaluationCosts() {
 		QuantifiedExpression quantifiedExpr = getVertex();
@@ -65,6 +65,11 @@ public class SetComprehensionEvaluator extends
 		return JGraLab.set();
 	}
 
+	@Override
+	protected boolean isDuplicateFree() {
+		return true;
+	}
+
 	@Override
 	public VertexCosts calculateSubtreeEvaluationCosts() {
 		SetComprehension setComp = getVertex();
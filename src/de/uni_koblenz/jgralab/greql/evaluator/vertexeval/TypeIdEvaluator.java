@@ -50,7 +50,7 @@ import de.uni_koblenz.jgralab.greql.types.TypeCollection;
  * 
  */
 public class TypeIdEvaluator extends VertexEvaluator<TypeId> {
-	private TypeCollection tc;
+	private volatile TypeCollection tc;
 
 	public TypeIdEvaluator(TypeId vertex, GreqlQueryImpl query) {
 		super(vertex, query);
@@ -58,18 +58,20 @@ public class TypeIdEvaluator extends VertexEvaluator<TypeId> {
 
 	@Override
 	public TypeCollection evaluate(InternalGreqlEvaluator evaluator) {
-		if (tc == null) {
-			tc = TypeCollection.empty().with(vertex.get_name(),
+		TypeCollection t = tc;
+		if (t == null) {
+			t = TypeCollection.empty().with(vertex.get_name(),
 					vertex.is_type(), vertex.is_excluded());
 		}
 		try {
-			tc = tc.bindToSchema(evaluator);
+			t = t.bindToSchema(evaluator);
 		} catch (UnknownTypeException e) {
 			throw new UnknownTypeException(e.getTypeName(),
 					createPossibleSourcePositions());
 		}
+		tc = t;
 		evaluator.progress(getOwnEvaluationCosts());
-		return tc;
+		return t;
 	}
 
 	@Override
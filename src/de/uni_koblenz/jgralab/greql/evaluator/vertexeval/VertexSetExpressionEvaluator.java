@@ -35,8 +35,11 @@
 
 package de.uni_koblenz.jgralab.greql.evaluator.vertexeval;
 
+import java.util.BitSet;
+
 import org.pcollections.PSet;
 
+import de.uni_koblenz.jgralab.Graph;
 import de.uni_koblenz.jgralab.JGraLab;
 import de.uni_koblenz.jgralab.Vertex;
 import de.uni_koblenz.jgralab.greql.evaluator.GreqlQueryImpl;
@@ -45,6 +48,8 @@ import de.uni_koblenz.jgralab.greql.evaluator.VertexCosts;
 import de.uni_koblenz.jgralab.greql.schema.IsTypeRestrOfExpression;
 import de.uni_koblenz.jgralab.greql.schema.VertexSetExpression;
 import de.uni_koblenz.jgralab.greql.types.TypeCollection;
+import de.uni_koblenz.jgralab.impl.InternalGraph;
+import de.uni_koblenz.jgralab.impl.InternalVertex;
 
 /**
  * construct a subset of the datagraph vertices. For instance, the expression
@@ -66,10 +71,20 @@ public class VertexSetExpressionEvaluator extends
 	@Override
 	public Object evaluate(InternalGreqlEvaluator evaluator) {
 		TypeCollection tc = getTypeCollection(evaluator);
-		PSet<Vertex> resultSet = null;
-		if (resultSet == null) {
-			resultSet = JGraLab.set();
-			Vertex currentVertex = evaluator.getGraph().getFirstVertex();
+		PSet<Vertex> resultSet = JGraLab.set();
+		Graph graph = evaluator.getGraph();
+		if (!tc.isEmpty() && (graph instanceof InternalGraph)) {
+			// only visit the vertices of the accepted classes
+			BitSet vertexClassIds = tc.getTypeIdSet();
+			Vertex currentVertex = ((InternalGraph) graph)
+					.getFirstVertex(vertexClassIds);
+			while (currentVertex != null) {
+				resultSet = resultSet.plus(currentVertex);
+				currentVertex = ((InternalVertex) currentVertex)
+						.getNextVertex(vertexClassIds);
+			}
+		} else {
+			Vertex currentVertex = graph.getFirstVertex();
 			while (currentVertex != null) {
 				if (tc.acceptsType(currentVertex.getAttributedElementClass())) {
 					resultSet = resultSet.plus(currentVertex);
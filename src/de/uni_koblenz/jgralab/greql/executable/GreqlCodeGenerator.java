@@ -10,7 +10,6 @@ import java.util.Set;
 
 import javax.tools.JavaCompiler;
 import javax.tools.StandardJavaFileManager;
-import javax.tools.ToolProvider;
 
 import de.uni_koblenz.jgralab.AttributedElement;
 import de.uni_koblenz.jgralab.EdgeDirection;
@@ -114,6 +113,7 @@ import de.uni_koblenz.jgralab.schema.codegenerator.CodeSnippet;
 import de.uni_koblenz.jgralab.schema.exception.SchemaException;
 import de.uni_koblenz.jgralab.schema.impl.compilation.ClassFileManager;
 import de.uni_koblenz.jgralab.schema.impl.compilation.InMemoryJavaSourceFile;
+import de.uni_koblenz.jgralab.schema.impl.compilation.JavaCompilerLocator;
 import de.uni_koblenz.jgralab.schema.impl.compilation.ManagableArtifact;
 import de.uni_koblenz.jgralab.schema.impl.compilation.SchemaClassManager;
 
@@ -2262,7 +2262,7 @@ public class GreqlCodeGenerator extends CodeGenerator implements
 
 	@SuppressWarnings("unchecked")
 	public Class<ExecutableQuery> compile() {
-		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		JavaCompiler compiler = JavaCompilerLocator.getJavaCompiler();
 		if (compiler == null) {
 			throw new SchemaException("Cannot compile greql query. "
 					+ "Most probably, you use a JRE instead of a JDK. "
@@ -2272,11 +2272,13 @@ public class GreqlCodeGenerator extends CodeGenerator implements
 		javaSources.add(createInMemoryJavaSource());
 		StandardJavaFileManager jfm = compiler.getStandardFileManager(null,
 				null, null);
+		// the SchemaClassManager is only weakly referenced, so keep a hard
+		// reference until the compiled class is loaded
+		SchemaClassManager schemaClassManager = SchemaClassManager
+				.instance(codeGeneratorFileManagerName);
 		ClassFileManager manager = new ClassFileManager(this, jfm);
 		compiler.getTask(null, manager, null, null, null, javaSources).call();
 		try {
-			SchemaClassManager schemaClassManager = SchemaClassManager
-					.instance(codeGeneratorFileManagerName);
 			return (Class<ExecutableQuery>) Class.forName(packageName + "."
 					+ this.classname, true, schemaClassManager);
 		} catch (ClassNotFoundException e) {
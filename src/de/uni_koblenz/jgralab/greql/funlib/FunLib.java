@@ -38,6 +38,9 @@ import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -283,8 +286,26 @@ public class FunLib {
 	}
 
 	private static class Signature {
-		Class<?>[] parameterTypes;
-		Method evaluateMethod;
+		private static final MethodType INVOKER_TYPE = MethodType.methodType(
+				Object.class, Object[].class);
+
+		final Class<?>[] parameterTypes;
+		final Method evaluateMethod;
+
+		/**
+		 * Direct invoker for {@link #evaluateMethod} bound to the function
+		 * instance, created on first use. <code>null</code> as long as it has
+		 * not been created or if the method is not accessible via method
+		 * handles, in which case {@link #invokerUnavailable} is set and calls
+		 * go through reflection.
+		 */
+		private MethodHandle invoker;
+		private boolean invokerUnavailable;
+
+		Signature(Method evaluateMethod) {
+			this.evaluateMethod = evaluateMethod;
+			parameterTypes = evaluateMethod.getParameterTypes();
+		}
 
 		final boolean matches(Object[] params) {
 			if (params.length != parameterTypes.length) {
@@ -298,6 +319,54 @@ public class FunLib {
 			return true;
 		}
 
+		final Object invoke(FunctionInfo fi, Object[] args) {
+			MethodHandle mh = invoker;
+			if ((mh == null) && !invokerUnavailable) {
+				mh = createInvoker(fi.function);
+			}
+			if (mh == null) {
+				return invokeReflectively(fi, args);
+			}
+			try {
+				return mh.invokeExact(args);
+			} catch (GreqlException e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new GreqlException("When applying function " + fi.name
+						+ ": " + e.getMessage(), e);
+			}
+		}
+
+		private final MethodHandle createInvoker(Function function) {
+			try {
+				MethodHandle mh = MethodHandles.lookup()
+						.unreflect(evaluateMethod).bindTo(function)
+						.asSpreader(Object[].class, parameterTypes.length)
+						.asType(INVOKER_TYPE);
+				invoker = mh;
+				return mh;
+			} catch (IllegalAccessException e) {
+				logger.fine("No direct invoker for " + this + ", using "
+						+ "reflection: " + e.getMessage());
+				invokerUnavailable = true;
+				return null;
+			}
+		}
+
+		private final Object invokeReflectively(FunctionInfo fi, Object[] args) {
+			try {
+				return evaluateMethod.invoke(fi.function, args);
+			} catch (IllegalArgumentException | IllegalAccessException
+					| InvocationTargetException e) {
+				if (e.getCause() instanceof GreqlException) {
+					throw (GreqlException) e.getCause();
+				} else {
+					throw new GreqlException("When applying function "
+							+ fi.name + ": " + e.getMessage(), e.getCause());
+				}
+			}
+		}
+
 		@Override
 		public String toString() {
 			StringBuilder sb = new StringBuilder();
@@ -378,10 +447,7 @@ public class FunLib {
 						&& !Modifier.isAbstract(m.getModifiers())
 						&& m.getName().equals("evaluate")) {
 					logger.finest("\t" + m);
-					Signature sig = new Signature();
-					sig.evaluateMethod = m;
-					sig.parameterTypes = m.getParameterTypes();
-					signatures.add(sig);
+					signatures.add(new Signature(m));
 				}
 			}
 		}
@@ -525,42 +591,26 @@ public class FunLib {
 
 	public static final Object apply(FunctionInfo fi, Object... args) {
 		assert fi != null;
-		if (!fi.acceptsUndefinedValues) {
-			for (Object arg : args) {
-				if ((arg == null) || (arg == Undefined.UNDEFINED)) {
-					return Undefined.UNDEFINED;
-				}
+		if (!fi.acceptsUndefinedValues && containsUndefined(args)) {
+			return Undefined.UNDEFINED;
+		}
+		return invoke(fi, findSignature(fi, args), args);
+	}
+
+	private static final boolean containsUndefined(Object[] args) {
+		for (Object arg : args) {
+			if ((arg == null) || (arg == Undefined.UNDEFINED)) {
+				return true;
 			}
 		}
+		return false;
+	}
+
+	private static final Signature findSignature(FunctionInfo fi,
+			Object[] args) {
 		for (Signature sig : fi.signatures) {
 			if (sig.matches(args)) {
-				try {
-					Object result = sig.evaluateMethod
-							.invoke(fi.function, args);
-					assert Types.isValidGreqlValue(result);
-					return result == null ? Undefined.UNDEFINED : result;
-				} catch (IllegalArgumentException e) {
-					if (e.getCause() instanceof GreqlException) {
-						throw (GreqlException) e.getCause();
-					} else {
-						throw new GreqlException("When applying function "
-								+ fi.name + ": " + e.getMessage(), e.getCause());
-					}
-				} catch (IllegalAccessException e) {
-					if (e.getCause() instanceof GreqlException) {
-						throw (GreqlException) e.getCause();
-					} else {
-						throw new GreqlException("When applying function "
-								+ fi.name + ": " + e.getMessage(), e.getCause());
-					}
-				} catch (InvocationTargetException e) {
-					if (e.getCause() instanceof GreqlException) {
-						throw (GreqlException) e.getCause();
-					} else {
-						throw new GreqlException("When applying function "
-								+ fi.name + ": " + e.getMessage(), e.getCause());
-					}
-				}
+				return sig;
 			}
 		}
 		StringBuilder sb = new StringBuilder();
@@ -575,6 +625,85 @@ public class FunLib {
 		throw new GreqlException(sb.toString());
 	}
 
+	private static final Object invoke(FunctionInfo fi, Signature sig,
+			Object[] args) {
+		Object result = sig.invoke(fi, args);
+		assert Types.isValidGreqlValue(result);
+		return result == null ? Undefined.UNDEFINED : result;
+	}
+
+	/**
+	 * Binds a single function application (e.g. a FunctionApplication vertex
+	 * of a GReQL syntax graph) to a {@link FunctionInfo}. A call site
+	 * remembers the signature selected for the classes of the last arguments,
+	 * so that repeated applications with arguments of exactly the same
+	 * classes skip the signature lookup and invoke the evaluate method
+	 * directly.
+	 */
+	public static final class CallSite {
+		private final FunctionInfo fi;
+		private volatile CachedSignature cachedSignature;
+
+		private static final class CachedSignature {
+			final Class<?>[] argumentClasses;
+			final Signature signature;
+
+			CachedSignature(Class<?>[] argumentClasses, Signature signature) {
+				this.argumentClasses = argumentClasses;
+				this.signature = signature;
+			}
+
+			boolean matches(Object[] args) {
+				if (args.length != argumentClasses.length) {
+					return false;
+				}
+				for (int i = 0; i < args.length; i++) {
+					if (getArgumentClass(args[i]) != argumentClasses[i]) {
+						return false;
+					}
+				}
+				return true;
+			}
+		}
+
+		private CallSite(FunctionInfo fi) {
+			assert fi != null;
+			this.fi = fi;
+		}
+
+		public final FunctionInfo getFunctionInfo() {
+			return fi;
+		}
+
+		public final Object apply(Object... args) {
+			if (!fi.acceptsUndefinedValues && containsUndefined(args)) {
+				return Undefined.UNDEFINED;
+			}
+			CachedSignature cached = cachedSignature;
+			if ((cached == null) || !cached.matches(args)) {
+				// the first matching signature depends on the exact classes
+				// of the arguments, so a signature that merely accepts them
+				// is not necessarily the right one
+				Class<?>[] argumentClasses = new Class<?>[args.length];
+				for (int i = 0; i < args.length; i++) {
+					argumentClasses[i] = getArgumentClass(args[i]);
+				}
+				cached = new CachedSignature(argumentClasses, findSignature(
+						fi, args));
+				cachedSignature = cached;
+			}
+			return invoke(fi, cached.signature, args);
+		}
+
+		private static final Class<?> getArgumentClass(Object arg) {
+			return arg == null ? null : arg.getClass();
+		}
+	}
+
+	public static final CallSite bind(FunctionInfo fi) {
+		return new CallSite(fi);
+	}
+
 	public static final Object apply(String name, Object... args) {
 		assert (name != null) && (name.length() >= 1);
 		assert args != null;
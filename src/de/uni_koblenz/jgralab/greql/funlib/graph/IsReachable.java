@@ -84,7 +84,7 @@ public class IsReachable extends Function {
 			if ((currentEntry.vertex == v) && currentEntry.state.isFinal) {
 				return true;
 			}
-			for (Edge inc : currentEntry.vertex.incidences()) {
+			for (Edge inc : currentEntry.state.incidences(currentEntry.vertex)) {
 				for (Transition currentTransition : currentEntry.state.outTransitions) {
 					Vertex nextVertex = currentTransition.getNextVertex(
 							currentEntry.vertex, inc);
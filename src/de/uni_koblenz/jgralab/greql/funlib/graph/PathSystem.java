@@ -143,7 +143,7 @@ public class PathSystem extends Function {
 			currentEntry = queue.poll();
 			Vertex currentVertex = currentEntry.vertex;
 
-			for (Edge inc : currentVertex.incidences()) {
+			for (Edge inc : currentEntry.state.incidences(currentVertex)) {
 				for (Transition currentTransition : currentEntry.state.outTransitions) {
 					Vertex nextVertex = currentTransition.getNextVertex(
 							currentVertex, inc);
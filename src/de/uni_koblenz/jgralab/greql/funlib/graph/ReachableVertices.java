@@ -35,11 +35,13 @@
 
 package de.uni_koblenz.jgralab.greql.funlib.graph;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.BitSet;
 
 import org.pcollections.PSet;
 
 import de.uni_koblenz.jgralab.Edge;
+import de.uni_koblenz.jgralab.Graph;
 import de.uni_koblenz.jgralab.JGraLab;
 import de.uni_koblenz.jgralab.Vertex;
 import de.uni_koblenz.jgralab.greql.evaluator.InternalGreqlEvaluator;
@@ -49,7 +51,9 @@ import de.uni_koblenz.jgralab.greql.evaluator.fa.Transition;
 import de.uni_koblenz.jgralab.greql.funlib.Description;
 import de.uni_koblenz.jgralab.greql.funlib.Function;
 import de.uni_koblenz.jgralab.greql.funlib.NeedsEvaluatorArgument;
-import de.uni_koblenz.jgralab.greql.types.pathsearch.VertexStateQueue;
+import de.uni_koblenz.jgralab.greql.types.pathsearch.VertexStateBitSet;
+import de.uni_koblenz.jgralab.greql.types.pathsearch.VertexStateIdQueue;
+import de.uni_koblenz.jgralab.impl.InternalGraph;
 
 @NeedsEvaluatorArgument
 public class ReachableVertices extends Function {
@@ -67,42 +71,40 @@ public class ReachableVertices extends Function {
 
 	public static PSet<Vertex> search(InternalGreqlEvaluator evaluator,
 			Vertex v, DFA dfa) {
-		PSet<Vertex> resultSet = JGraLab.set();
-
-		@SuppressWarnings("unchecked")
-		HashSet<Vertex>[] markedElements = new HashSet[dfa.stateList.size()];
-		// BitSet[] markedElements = new BitSet[dfa.stateList.size()];
-		for (State s : dfa.stateList) {
-			// markedElements[s.number] = new BitSet();
-			markedElements[s.number] = new HashSet<>(100);
-		}
-		VertexStateQueue queue = new VertexStateQueue();
-		markedElements[dfa.initialState.number].add(v);
-		queue.put(v, dfa.initialState);
+		Graph graph = v.getGraph();
+		int stateCount = dfa.stateList.size();
+		State[] states = dfa.stateList.toArray(new State[stateCount]);
+		VertexStateBitSet markedElements = new VertexStateBitSet(
+				((InternalGraph) graph).getMaxVCount(), stateCount);
+		BitSet resultIds = new BitSet();
+		ArrayList<Vertex> result = new ArrayList<>();
+		VertexStateIdQueue queue = new VertexStateIdQueue();
+		markedElements.mark(v.getId(), dfa.initialState.number);
+		queue.put(v.getId(), dfa.initialState.number);
 		while (queue.hasNext()) {
-			Vertex vertex = queue.currentVertex;
-			State state = queue.currentState;
-			if (state.isFinal) {
-				resultSet = resultSet.plus(vertex);
+			Vertex vertex = graph.getVertex(queue.currentVertexId);
+			State state = states[queue.currentState];
+			if (state.isFinal && !resultIds.get(queue.currentVertexId)) {
+				resultIds.set(queue.currentVertexId);
+				result.add(vertex);
 			}
-			for (Edge inc = vertex.getFirstIncidence(); inc != null; inc = inc
-					.getNextIncidence()) {
-				int size = state.outTransitions.size();
+			int size = state.outTransitions.size();
+			for (Edge inc : state.incidences(vertex)) {
 				for (int i = 0; i < size; i++) {
 					Transition currentTransition = state.outTransitions.get(i);
 					Vertex nextVertex = currentTransition.getNextVertex(vertex,
 							inc);
-					if (!markedElements[currentTransition.endState.number]
-							.contains(nextVertex)) {
-						if (currentTransition.accepts(vertex, inc, evaluator)) {
-							markedElements[currentTransition.endState.number]
-									.add(nextVertex);
-							queue.put(nextVertex, currentTransition.endState);
-						}
+					int endState = currentTransition.endState.number;
+					if (!markedElements.isMarked(nextVertex.getId(), endState)
+							&& currentTransition.accepts(vertex, inc,
+									evaluator)) {
+						markedElements.mark(nextVertex.getId(), endState);
+						queue.put(nextVertex.getId(), endState);
 					}
 				}
 			}
 		}
-		return resultSet;
+		PSet<Vertex> resultSet = JGraLab.set();
+		return resultSet.plusAll(result);
 	}
 }
@@ -209,7 +209,7 @@ public class Slice extends Function {
 			if (currentEntry.state.isFinal) {
 				finalVertices.add(currentEntry.vertex);
 			}
-			for (Edge inc : currentEntry.vertex.incidences()) {
+			for (Edge inc : currentEntry.state.incidences(currentEntry.vertex)) {
 				for (Transition currentTransition : currentEntry.state.outTransitions) {
 					Vertex nextVertex = currentTransition.getNextVertex(
 							currentEntry.vertex, inc);
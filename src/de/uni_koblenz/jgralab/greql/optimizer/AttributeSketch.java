@@ -0,0 +1,274 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab.greql.optimizer;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Summarizes the values of one attribute of the elements of one
+ * {@link de.uni_koblenz.jgralab.schema.AttributedElementClass}. A sketch
+ * counts the <code>null</code> values, estimates the number of distinct values
+ * with a HyperLogLog counter and keeps a bounded random sample of all numeric
+ * values from which an equi-depth histogram is built.
+ * 
+ * A sketch is filled once by {@link #add(Object)} and then closed by
+ * {@link #finish()}. Its memory footprint does not depend on the number of
+ * added values.
+ * 
+ * @author ist@uni-koblenz.de
+ */
+public class AttributeSketch {
+	/**
+	 * number of index bits of the HyperLogLog counter
+	 */
+	private static final int REGISTER_BITS = 10;
+	private static final int REGISTER_COUNT = 1 << REGISTER_BITS;
+
+	private static final int SAMPLE_SIZE = 1024;
+	private static final int HISTOGRAM_BUCKETS = 32;
+
+	private final byte[] registers = new byte[REGISTER_COUNT];
+	private final double[] sample = new double[SAMPLE_SIZE];
+	private final Random random = new Random(SAMPLE_SIZE);
+
+	private long valueCount;
+	private long nullCount;
+	private long numericCount;
+	private double[] bounds;
+
+	/**
+	 * Adds one attribute value to this sketch.
+	 * 
+	 * @param value
+	 *            an attribute value, may be <code>null</code>
+	 */
+	public void add(Object value) {
+		if (bounds != null) {
+			throw new IllegalStateException("AttributeSketch is finished");
+		}
+		++valueCount;
+		if (value == null) {
+			++nullCount;
+			return;
+		}
+		long hash = mix(value.hashCode());
+		int index = (int) (hash >>> (64 - REGISTER_BITS));
+		byte rank = (byte) (Long.numberOfLeadingZeros(hash << REGISTER_BITS) + 1);
+		if (rank > 64 - REGISTER_BITS + 1) {
+			rank = 64 - REGISTER_BITS + 1;
+		}
+		if (rank > registers[index]) {
+			registers[index] = rank;
+		}
+		if (value instanceof Number) {
+			double d = ((Number) value).doubleValue();
+			// reservoir sampling keeps a uniform sample of all numbers
+			if (numericCount < SAMPLE_SIZE) {
+				sample[(int) numericCount] = d;
+			} else {
+				long r = (long) (random.nextDouble() * (numericCount + 1));
+				if (r < SAMPLE_SIZE) {
+					sample[(int) r] = d;
+				}
+			}
+			++numericCount;
+		}
+	}
+
+	/**
+	 * Builds the equi-depth histogram. Afterwards, no more values can be
+	 * added.
+	 */
+	public void finish() {
+		if (bounds != null) {
+			return;
+		}
+		int n = (int) Math.min(numericCount, SAMPLE_SIZE);
+		if (n == 0) {
+			bounds = new double[0];
+			return;
+		}
+		double[] sorted = Arrays.copyOf(sample, n);
+		Arrays.sort(sorted);
+		int buckets = Math.min(HISTOGRAM_BUCKETS, n);
+		bounds = new double[buckets + 1];
+		for (int i = 0; i < buckets; ++i) {
+			bounds[i] = sorted[(int) ((long) i * n / buckets)];
+		}
+		bounds[buckets] = sorted[n - 1];
+	}
+
+	/**
+	 * @return the number of values (including <code>null</code>) added to
+	 *         this sketch
+	 */
+	public long getValueCount() {
+		return valueCount;
+	}
+
+	/**
+	 * @return the number of <code>null</code> values added to this sketch
+	 */
+	public long getNullCount() {
+		return nullCount;
+	}
+
+	/**
+	 * @return <code>true</code> iff all non-<code>null</code> values added to
+	 *         this sketch were numbers
+	 */
+	public boolean isNumeric() {
+		return numericCount > 0 && numericCount == valueCount - nullCount;
+	}
+
+	/**
+	 * @return the estimated number of distinct non-<code>null</code> values
+	 */
+	public long getDistinctCount() {
+		long nonNull = valueCount - nullCount;
+		if (nonNull == 0) {
+			return 0;
+		}
+		double sum = 0.0;
+		int zeros = 0;
+		for (byte r : registers) {
+			sum += 1.0 / (1L << r);
+			if (r == 0) {
+				++zeros;
+			}
+		}
+		double m = REGISTER_COUNT;
+		double estimate = 0.7213 / (1.0 + 1.079 / m) * m * m / sum;
+		if (estimate <= 2.5 * m && zeros > 0) {
+			// linear counting is more accurate for small cardinalities
+			estimate = m * Math.log(m / zeros);
+		}
+		return Math.max(1, Math.min(nonNull, Math.round(estimate)));
+	}
+
+	/**
+	 * Returns the estimated fraction of values which are equal to a fixed
+	 * non-<code>null</code> value, assuming that all distinct values occur
+	 * equally often.
+	 * 
+	 * @return the estimated selectivity of an equality comparison
+	 */
+	public double getEqualitySelectivity() {
+		long distinct = getDistinctCount();
+		if (distinct == 0) {
+			return 0.0;
+		}
+		return (double) (valueCount - nullCount) / valueCount / distinct;
+	}
+
+	/**
+	 * Returns the estimated fraction of values which lie in the closed
+	 * interval [<code>low</code>, <code>high</code>]. Values within one
+	 * histogram bucket are assumed to be distributed uniformly.
+	 * 
+	 * @param low
+	 *            the lower bound of the range
+	 * @param high
+	 *            the upper bound of the range
+	 * @return the estimated selectivity of a range comparison, or
+	 *         <code>NaN</code> if no numeric values were added
+	 */
+	public double getRangeSelectivity(double low, double high) {
+		finish();
+		if (bounds.length == 0) {
+			return Double.NaN;
+		}
+		if (low > high) {
+			return 0.0;
+		}
+		int buckets = bounds.length - 1;
+		double covered = 0.0;
+		for (int i = 0; i < buckets; ++i) {
+			double lo = bounds[i];
+			double hi = bounds[i + 1];
+			if (high < lo || low > hi) {
+				continue;
+			}
+			if (lo == hi || (low <= lo && high >= hi)) {
+				covered += 1.0;
+			} else {
+				covered += (Math.min(hi, high) - Math.max(lo, low)) / (hi - lo);
+			}
+		}
+		double numericFraction = (double) numericCount / valueCount;
+		return Math.min(1.0, numericFraction * covered / buckets);
+	}
+
+	/**
+	 * Merges the HyperLogLog registers of this sketch into
+	 * <code>target</code>, so that the distinct values of several sketches
+	 * can be estimated together.
+	 */
+	void mergeRegistersInto(byte[] target) {
+		for (int i = 0; i < REGISTER_COUNT; ++i) {
+			if (registers[i] > target[i]) {
+				target[i] = registers[i];
+			}
+		}
+	}
+
+	/**
+	 * Estimates the number of distinct values counted by the HyperLogLog
+	 * registers <code>regs</code>.
+	 */
+	static long estimateDistinctCount(byte[] regs, long nonNull) {
+		AttributeSketch s = new AttributeSketch();
+		System.arraycopy(regs, 0, s.registers, 0, REGISTER_COUNT);
+		s.valueCount = nonNull;
+		return s.getDistinctCount();
+	}
+
+	static byte[] createRegisters() {
+		return new byte[REGISTER_COUNT];
+	}
+
+	/**
+	 * Spreads the bits of a hash code over 64 bits (finalizer of MurmurHash3).
+	 */
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb53fa5e3b89cL;
+		h ^= h >>> 33;
+		return h;
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab.greql.optimizer;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of vertex degrees with respect to one
+ * {@link de.uni_koblenz.jgralab.schema.EdgeClass} and direction. Bucket 0
+ * counts the vertices without such edges, bucket <code>k &gt; 0</code> counts
+ * the vertices with a degree in [2<sup>k-1</sup>, 2<sup>k</sup>-1].
+ * 
+ * @author ist@uni-koblenz.de
+ */
+public class DegreeHistogram {
+	private long[] buckets = new long[1];
+	private long vertexCount;
+	private long degreeSum;
+	private int maxDegree;
+
+	/**
+	 * Records one vertex with degree <code>degree</code>.
+	 */
+	void add(int degree) {
+		addVertices(degree, 1);
+	}
+
+	/**
+	 * Records <code>n</code> vertices with degree <code>degree</code>.
+	 */
+	void addVertices(int degree, long n) {
+		int bucket = getBucket(degree);
+		if (bucket >= buckets.length) {
+			buckets = Arrays.copyOf(buckets, bucket + 1);
+		}
+		buckets[bucket] += n;
+		vertexCount += n;
+		degreeSum += degree * n;
+		if (n > 0 && degree > maxDegree) {
+			maxDegree = degree;
+		}
+	}
+
+	private static int getBucket(int degree) {
+		return 32 - Integer.numberOfLeadingZeros(degree);
+	}
+
+	/**
+	 * @return the number of buckets
+	 */
+	public int getBucketCount() {
+		return buckets.length;
+	}
+
+	/**
+	 * @return the number of vertices in bucket <code>bucket</code>
+	 */
+	public long getVertexCount(int bucket) {
+		return bucket < buckets.length ? buckets[bucket] : 0;
+	}
+
+	/**
+	 * @return the smallest degree counted in bucket <code>bucket</code>
+	 */
+	public static int getLowerBound(int bucket) {
+		return bucket == 0 ? 0 : 1 << (bucket - 1);
+	}
+
+	/**
+	 * @return the number of vertices counted in this histogram
+	 */
+	public long getVertexCount() {
+		return vertexCount;
+	}
+
+	/**
+	 * @return the average degree of all vertices
+	 */
+	public double getAverageDegree() {
+		return vertexCount == 0 ? 0.0 : (double) degreeSum / vertexCount;
+	}
+
+	/**
+	 * @return the average degree of the vertices which have at least one such
+	 *         edge
+	 */
+	public double getAverageNonZeroDegree() {
+		long n = vertexCount - buckets[0];
+		return n == 0 ? 0.0 : (double) degreeSum / n;
+	}
+
+	/**
+	 * @return the maximum degree of all vertices
+	 */
+	public int getMaxDegree() {
+		return maxDegree;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("DegreeHistogram[avg=").append(getAverageDegree())
+				.append(", max=").append(maxDegree);
+		for (int i = 0; i < buckets.length; ++i) {
+			sb.append(", ").append(getLowerBound(i)).append("+:")
+					.append(buckets[i]);
+		}
+		return sb.append(']').toString();
+	}
+}
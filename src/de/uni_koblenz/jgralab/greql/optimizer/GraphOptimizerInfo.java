@@ -0,0 +1,168 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab.greql.optimizer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.uni_koblenz.jgralab.EdgeDirection;
+import de.uni_koblenz.jgralab.Graph;
+import de.uni_koblenz.jgralab.schema.AttributedElementClass;
+import de.uni_koblenz.jgralab.schema.EdgeClass;
+import de.uni_koblenz.jgralab.schema.GraphElementClass;
+import de.uni_koblenz.jgralab.schema.VertexClass;
+
+/**
+ * An OptimizerInfo whose estimates are computed from the
+ * {@link GraphStatistics} of one specific {@link Graph} instead of schema
+ * level averages. Wherever the statistics have no data (e.g. an attribute
+ * whose values are not numeric), the estimates of {@link DefaultOptimizerInfo}
+ * are used.
+ * 
+ * @author ist@uni-koblenz.de
+ */
+public class GraphOptimizerInfo extends DefaultOptimizerInfo {
+	private GraphStatistics statistics;
+
+	/**
+	 * Creates an OptimizerInfo with new {@link GraphStatistics} for
+	 * <code>graph</code>.
+	 * 
+	 * @param graph
+	 *            a {@link Graph}
+	 */
+	public GraphOptimizerInfo(Graph graph) {
+		this(new GraphStatistics(graph));
+	}
+
+	/**
+	 * Creates an OptimizerInfo using the given <code>statistics</code>.
+	 * 
+	 * @param statistics
+	 *            {@link GraphStatistics} of some {@link Graph}
+	 */
+	public GraphOptimizerInfo(GraphStatistics statistics) {
+		super(statistics.getGraph().getSchema());
+		this.statistics = statistics;
+	}
+
+	/**
+	 * @return the statistics used by this OptimizerInfo
+	 */
+	public GraphStatistics getStatistics() {
+		return statistics;
+	}
+
+	@Override
+	public long getAverageVertexCount() {
+		return Math.max(1, statistics.getVertexCount());
+	}
+
+	@Override
+	public long getAverageEdgeCount() {
+		return Math.max(1, statistics.getEdgeCount());
+	}
+
+	@Override
+	public double getFrequencyOfGraphElementClass(GraphElementClass<?, ?> gec) {
+		return getFrequency(gec, true);
+	}
+
+	@Override
+	public double getFrequencyOfGraphElementClassWithoutSubclasses(
+			GraphElementClass<?, ?> gec) {
+		return getFrequency(gec, false);
+	}
+
+	private double getFrequency(GraphElementClass<?, ?> gec,
+			boolean withSubclasses) {
+		long total = gec instanceof VertexClass ? statistics.getVertexCount()
+				: statistics.getEdgeCount();
+		if (total == 0) {
+			return 0.0;
+		}
+		return (double) statistics.getCount(gec, withSubclasses) / total;
+	}
+
+	/**
+	 * The degree is computed from the {@link DegreeHistogram}s of
+	 * <code>ec</code> and its subclasses. Vertices with incidences of several
+	 * of these classes or directions are assumed to be rare, so the number of
+	 * vertices having such incidences is estimated by the sum over all
+	 * histograms (but at most the number of vertices).
+	 */
+	@Override
+	public double getAverageDegree(EdgeClass ec, EdgeDirection dir) {
+		List<EdgeClass> classes;
+		if (ec == null) {
+			classes = getSchema().getGraphClass().getEdgeClasses();
+		} else {
+			classes = new ArrayList<>();
+			classes.add(ec);
+			classes.addAll(ec.getAllSubClasses());
+		}
+		EdgeDirection[] dirs = dir == EdgeDirection.INOUT ? new EdgeDirection[] {
+				EdgeDirection.OUT, EdgeDirection.IN }
+				: new EdgeDirection[] { dir };
+		double degreeSum = 0.0;
+		long vertices = 0;
+		for (EdgeClass c : classes) {
+			for (EdgeDirection d : dirs) {
+				DegreeHistogram h = statistics.getDegreeHistogram(c, d);
+				degreeSum += h.getAverageDegree() * h.getVertexCount();
+				vertices += h.getVertexCount() - h.getVertexCount(0);
+			}
+		}
+		return vertices == 0 ? 0.0 : degreeSum
+				/ Math.min(vertices, getAverageVertexCount());
+	}
+
+	@Override
+	public double getEqualitySelectivity(AttributedElementClass<?, ?> aec,
+			String attributeName) {
+		double sel = statistics.getEqualitySelectivity(aec, attributeName);
+		return Double.isNaN(sel) ? super.getEqualitySelectivity(aec,
+				attributeName) : sel;
+	}
+
+	@Override
+	public double getRangeSelectivity(AttributedElementClass<?, ?> aec,
+			String attributeName, double low, double high) {
+		double sel = statistics.getRangeSelectivity(aec, attributeName, low,
+				high);
+		return Double.isNaN(sel) ? super.getRangeSelectivity(aec,
+				attributeName, low, high) : sel;
+	}
+}
@@ -0,0 +1,518 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab.greql.optimizer;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import de.uni_koblenz.jgralab.AttributedElement;
+import de.uni_koblenz.jgralab.Edge;
+import de.uni_koblenz.jgralab.EdgeDirection;
+import de.uni_koblenz.jgralab.Graph;
+import de.uni_koblenz.jgralab.GraphChangeListener;
+import de.uni_koblenz.jgralab.GraphElement;
+import de.uni_koblenz.jgralab.IncrementalGraphChangeAdapter;
+import de.uni_koblenz.jgralab.Vertex;
+import de.uni_koblenz.jgralab.schema.Attribute;
+import de.uni_koblenz.jgralab.schema.AttributedElementClass;
+import de.uni_koblenz.jgralab.schema.EdgeClass;
+import de.uni_koblenz.jgralab.schema.GraphElementClass;
+import de.uni_koblenz.jgralab.schema.Schema;
+
+/**
+ * Statistics about one {@link Graph} which support optimizer decisions, see
+ * {@link GraphOptimizerInfo}.
+ * 
+ * The number of vertices and edges of each {@link GraphElementClass} is exact.
+ * It is initialized by a scan of the graph and maintained incrementally by a
+ * {@link GraphChangeListener}. Changes that are not reported to
+ * {@link GraphChangeListener}s, e.g. while the graph is loading, trigger a new
+ * scan.
+ * 
+ * The {@link DegreeHistogram}s of the edge classes and the
+ * {@link AttributeSketch}es of the attributes are computed by
+ * {@link #analyze()}. This happens lazily on first access and again as soon as
+ * the number of changes since the last analysis exceeds a fraction (the
+ * staleness threshold) of the graph size.
+ * 
+ * @author ist@uni-koblenz.de
+ */
+public class GraphStatistics {
+	/**
+	 * the default fraction of the graph size which may be modified before
+	 * histograms and sketches are recomputed
+	 */
+	public static final double DEFAULT_STALENESS_THRESHOLD = 0.1;
+
+	/**
+	 * histograms and sketches of small graphs are not recomputed before this
+	 * number of modifications
+	 */
+	private static final int MIN_MODIFICATIONS = 100;
+
+	private Graph graph;
+	private Schema schema;
+
+	/**
+	 * exact number of elements of each class (without subclasses), indexed by
+	 * {@link GraphElementClass#getGraphElementClassIdInSchema()}
+	 */
+	private long[] counts;
+
+	/**
+	 * the version of the graph the counts are valid for
+	 */
+	private long graphVersion;
+
+	private long modifications;
+	private boolean analyzed;
+	private double stalenessThreshold = DEFAULT_STALENESS_THRESHOLD;
+
+	private DegreeHistogram[] outDegrees;
+	private DegreeHistogram[] inDegrees;
+	private Map<AttributedElementClass<?, ?>, Map<String, AttributeSketch>> sketches;
+
+	private IncrementalGraphChangeAdapter maintainer;
+
+	/**
+	 * Creates statistics for <code>graph</code> and registers them as
+	 * {@link GraphChangeListener} of <code>graph</code>.
+	 * 
+	 * @param graph
+	 *            a {@link Graph}
+	 */
+	public GraphStatistics(Graph graph) {
+		this.graph = graph;
+		schema = graph.getSchema();
+		count();
+		maintainer = new StatisticsMaintainer(graph);
+		graph.addGraphChangeListener(maintainer);
+	}
+
+	/**
+	 * Unregisters these statistics from their graph. Afterwards, the
+	 * statistics can no longer be used.
+	 */
+	public void dispose() {
+		if (maintainer != null) {
+			graph.removeGraphChangeListener(maintainer);
+			maintainer = null;
+			outDegrees = null;
+			inDegrees = null;
+			sketches = null;
+		}
+	}
+
+	/**
+	 * @return the graph these statistics belong to
+	 */
+	public Graph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * @return the fraction of the graph size which may be modified before
+	 *         histograms and sketches are recomputed
+	 */
+	public double getStalenessThreshold() {
+		return stalenessThreshold;
+	}
+
+	/**
+	 * Sets the fraction of the graph size which may be modified before
+	 * histograms and sketches are recomputed.
+	 * 
+	 * @param stalenessThreshold
+	 *            a value &gt;= 0, 0 recomputes after every change
+	 */
+	public void setStalenessThreshold(double stalenessThreshold) {
+		if (stalenessThreshold < 0) {
+			throw new IllegalArgumentException(
+					"stalenessThreshold must be >= 0");
+		}
+		this.stalenessThreshold = stalenessThreshold;
+	}
+
+	/**
+	 * @return the number of changes of the graph since histograms and sketches
+	 *         were computed
+	 */
+	public long getModificationsSinceAnalysis() {
+		return modifications;
+	}
+
+	public long getVertexCount() {
+		return graph.getVCount();
+	}
+
+	public long getEdgeCount() {
+		return graph.getECount();
+	}
+
+	/**
+	 * Returns the exact number of elements of <code>gec</code> in the graph.
+	 * 
+	 * @param gec
+	 *            a {@link GraphElementClass} of the schema of the graph
+	 * @param withSubclasses
+	 *            if <code>true</code>, elements of subclasses are counted,
+	 *            too
+	 * @return the number of elements of <code>gec</code>
+	 */
+	public long getCount(GraphElementClass<?, ?> gec, boolean withSubclasses) {
+		checkCounts();
+		long n = counts[gec.getGraphElementClassIdInSchema()];
+		if (withSubclasses) {
+			for (GraphElementClass<?, ?> sub : gec.getAllSubClasses()) {
+				n += counts[sub.getGraphElementClassIdInSchema()];
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Returns the degree histogram of the vertices with respect to edges of
+	 * exactly the class <code>ec</code> (without subclasses) in direction
+	 * <code>dir</code>.
+	 * 
+	 * @param ec
+	 *            an {@link EdgeClass} of the schema of the graph
+	 * @param dir
+	 *            {@link EdgeDirection#OUT} or {@link EdgeDirection#IN}
+	 * @return the degree histogram of <code>ec</code>
+	 */
+	public DegreeHistogram getDegreeHistogram(EdgeClass ec, EdgeDirection dir) {
+		if (dir == EdgeDirection.INOUT) {
+			throw new IllegalArgumentException(
+					"Degree histograms exist only for OUT and IN");
+		}
+		checkAnalysis();
+		int id = ec.getGraphElementClassIdInSchema();
+		DegreeHistogram[] degrees = dir == EdgeDirection.OUT ? outDegrees
+				: inDegrees;
+		if (degrees[id] == null) {
+			degrees[id] = new DegreeHistogram();
+			degrees[id].addVertices(0, graph.getVCount());
+		}
+		return degrees[id];
+	}
+
+	/**
+	 * Returns the sketch of attribute <code>attributeName</code> of the
+	 * elements of exactly the class <code>aec</code> (without subclasses).
+	 * 
+	 * @return the {@link AttributeSketch}, or <code>null</code> if
+	 *         <code>aec</code> has no elements or no such attribute
+	 */
+	public AttributeSketch getAttributeSketch(
+			AttributedElementClass<?, ?> aec, String attributeName) {
+		checkAnalysis();
+		Map<String, AttributeSketch> m = sketches.get(aec);
+		return m == null ? null : m.get(attributeName);
+	}
+
+	/**
+	 * Returns the estimated number of distinct values of attribute
+	 * <code>attributeName</code> of the elements of <code>aec</code> and its
+	 * subclasses.
+	 */
+	public long getDistinctCount(AttributedElementClass<?, ?> aec,
+			String attributeName) {
+		byte[] registers = AttributeSketch.createRegisters();
+		long nonNull = 0;
+		for (AttributeSketch s : getAttributeSketches(aec, attributeName)
+				.values()) {
+			s.mergeRegistersInto(registers);
+			nonNull += s.getValueCount() - s.getNullCount();
+		}
+		return AttributeSketch.estimateDistinctCount(registers, nonNull);
+	}
+
+	/**
+	 * Returns the estimated fraction of elements of <code>aec</code> and its
+	 * subclasses whose attribute <code>attributeName</code> is equal to a
+	 * fixed value.
+	 * 
+	 * @return the estimated selectivity, or <code>NaN</code> if there are no
+	 *         such elements
+	 */
+	public double getEqualitySelectivity(AttributedElementClass<?, ?> aec,
+			String attributeName) {
+		long values = 0;
+		long nonNull = 0;
+		for (AttributeSketch s : getAttributeSketches(aec, attributeName)
+				.values()) {
+			values += s.getValueCount();
+			nonNull += s.getValueCount() - s.getNullCount();
+		}
+		if (values == 0) {
+			return Double.NaN;
+		}
+		long distinct = getDistinctCount(aec, attributeName);
+		return distinct == 0 ? 0.0 : (double) nonNull / values / distinct;
+	}
+
+	/**
+	 * Returns the estimated fraction of elements of <code>aec</code> and its
+	 * subclasses whose numeric attribute <code>attributeName</code> lies in
+	 * [<code>low</code>, <code>high</code>].
+	 * 
+	 * @return the estimated selectivity, or <code>NaN</code> if there are no
+	 *         such elements with numeric values
+	 */
+	public double getRangeSelectivity(AttributedElementClass<?, ?> aec,
+			String attributeName, double low, double high) {
+		long values = 0;
+		double matching = 0.0;
+		boolean numeric = false;
+		for (AttributeSketch s : getAttributeSketches(aec, attributeName)
+				.values()) {
+			values += s.getValueCount();
+			double sel = s.getRangeSelectivity(low, high);
+			if (!Double.isNaN(sel)) {
+				numeric = true;
+				matching += sel * s.getValueCount();
+			}
+		}
+		return numeric ? matching / values : Double.NaN;
+	}
+
+	/**
+	 * Returns the sketches of <code>aec</code> and all its subclasses.
+	 */
+	private Map<AttributedElementClass<?, ?>, AttributeSketch> getAttributeSketches(
+			AttributedElementClass<?, ?> aec, String attributeName) {
+		checkAnalysis();
+		Map<AttributedElementClass<?, ?>, AttributeSketch> result = new HashMap<>();
+		addAttributeSketch(result, aec, attributeName);
+		if (aec instanceof GraphElementClass) {
+			for (GraphElementClass<?, ?> sub : ((GraphElementClass<?, ?>) aec)
+					.getAllSubClasses()) {
+				addAttributeSketch(result, sub, attributeName);
+			}
+		}
+		return result;
+	}
+
+	private void addAttributeSketch(
+			Map<AttributedElementClass<?, ?>, AttributeSketch> result,
+			AttributedElementClass<?, ?> aec, String attributeName) {
+		Map<String, AttributeSketch> m = sketches.get(aec);
+		if (m != null && m.containsKey(attributeName)) {
+			result.put(aec, m.get(attributeName));
+		}
+	}
+
+	/**
+	 * Recomputes the degree histograms and the attribute sketches by a scan
+	 * of the graph.
+	 */
+	public void analyze() {
+		checkCounts();
+		int n = schema.getGraphElementClassCount();
+		outDegrees = new DegreeHistogram[n];
+		inDegrees = new DegreeHistogram[n];
+		sketches = new HashMap<>();
+		int[] out = new int[n];
+		int[] in = new int[n];
+		int[] touched = new int[n];
+		for (Vertex v : graph.vertices()) {
+			addToSketches(v);
+			int t = 0;
+			for (Edge e : v.incidences()) {
+				int id = e.getAttributedElementClass()
+						.getGraphElementClassIdInSchema();
+				if (out[id] == 0 && in[id] == 0) {
+					touched[t++] = id;
+				}
+				if (e.isNormal()) {
+					++out[id];
+				} else {
+					++in[id];
+				}
+			}
+			for (int i = 0; i < t; ++i) {
+				int id = touched[i];
+				addDegree(outDegrees, id, out[id]);
+				addDegree(inDegrees, id, in[id]);
+				out[id] = 0;
+				in[id] = 0;
+			}
+		}
+		for (Edge e : graph.edges()) {
+			addToSketches(e);
+		}
+		// all vertices without an incidence of some class have degree 0
+		long vCount = graph.getVCount();
+		for (DegreeHistogram[] degrees : new DegreeHistogram[][] { outDegrees,
+				inDegrees }) {
+			for (DegreeHistogram h : degrees) {
+				if (h != null) {
+					h.addVertices(0, vCount - h.getVertexCount());
+				}
+			}
+		}
+		for (Map<String, AttributeSketch> m : sketches.values()) {
+			for (AttributeSketch s : m.values()) {
+				s.finish();
+			}
+		}
+		modifications = 0;
+		analyzed = true;
+	}
+
+	private void addDegree(DegreeHistogram[] degrees, int id, int degree) {
+		if (degree > 0) {
+			if (degrees[id] == null) {
+				degrees[id] = new DegreeHistogram();
+			}
+			degrees[id].add(degree);
+		}
+	}
+
+	private void addToSketches(AttributedElement<?, ?> el) {
+		AttributedElementClass<?, ?> aec = el.getAttributedElementClass();
+		Map<String, AttributeSketch> m = sketches.get(aec);
+		if (m == null) {
+			m = new LinkedHashMap<>();
+			for (Attribute attr : aec.getAttributeList()) {
+				m.put(attr.getName(), new AttributeSketch());
+			}
+			sketches.put(aec, m);
+		}
+		for (Entry<String, AttributeSketch> entry : m.entrySet()) {
+			entry.getValue().add(el.getAttribute(entry.getKey()));
+		}
+	}
+
+	/**
+	 * Counts the elements of all classes by a scan of the graph.
+	 */
+	private void count() {
+		counts = new long[schema.getGraphElementClassCount()];
+		for (Vertex v : graph.vertices()) {
+			++counts[v.getAttributedElementClass()
+					.getGraphElementClassIdInSchema()];
+		}
+		for (Edge e : graph.edges()) {
+			++counts[e.getAttributedElementClass()
+					.getGraphElementClassIdInSchema()];
+		}
+		graphVersion = graph.getGraphVersion();
+		analyzed = false;
+	}
+
+	private void checkCounts() {
+		if (maintainer == null) {
+			throw new IllegalStateException("GraphStatistics are disposed");
+		}
+		if (graph.isGraphModified(graphVersion)) {
+			count();
+		}
+	}
+
+	private void checkAnalysis() {
+		checkCounts();
+		if (!analyzed
+				|| modifications > Math.max(MIN_MODIFICATIONS,
+						stalenessThreshold
+								* (graph.getVCount() + graph.getECount()))) {
+			analyze();
+		}
+	}
+
+	/**
+	 * Updates the counts on every reported change. The graph version is only
+	 * accepted if the counts have been valid before the change.
+	 */
+	private class StatisticsMaintainer extends IncrementalGraphChangeAdapter {
+
+		StatisticsMaintainer(Graph graph) {
+			super(graph);
+		}
+
+		@Override
+		protected void changeFinished(long versionBeforeChange) {
+			if (versionBeforeChange == graphVersion) {
+				graphVersion = graph.getGraphVersion();
+			}
+		}
+
+		private void count(GraphElement<?, ?> el, int delta) {
+			counts[el.getAttributedElementClass()
+					.getGraphElementClassIdInSchema()] += delta;
+			++modifications;
+		}
+
+		@Override
+		protected void vertexCreated(Vertex v) {
+			count(v, 1);
+		}
+
+		@Override
+		protected void vertexDeleted(Vertex v) {
+			count(v, -1);
+		}
+
+		@Override
+		protected void edgeCreated(Edge e) {
+			count(e, 1);
+		}
+
+		@Override
+		protected void edgeDeleted(Edge e) {
+			count(e, -1);
+		}
+
+		@Override
+		protected void edgeReconnected(Edge e, Vertex oldVertex,
+				Vertex newVertex) {
+			++modifications;
+		}
+
+		@Override
+		protected void incidenceMoved(Edge inc) {
+			++modifications;
+		}
+
+		@Override
+		protected void attributeChanged(AttributedElement<?, ?> element,
+				String attributeName) {
+			++modifications;
+		}
+	}
+}
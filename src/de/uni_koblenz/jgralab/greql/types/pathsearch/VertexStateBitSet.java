@@ -0,0 +1,95 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab.greql.types.pathsearch;
+
+import java.util.Arrays;
+
+/**
+ * A set of (vertex id, state number) pairs used to mark visited vertices in
+ * automaton driven path searches. For each state there is one stripe of bits
+ * indexed by vertex id, which is allocated when the first vertex is marked in
+ * that state.
+ * 
+ * @author ist@uni-koblenz.de
+ */
+public class VertexStateBitSet {
+
+	private final long[][] stripes;
+
+	private final int stripeLength;
+
+	/**
+	 * @param maxVertexId
+	 *            the largest vertex id to be expected (vertex ids above are
+	 *            supported, but cause the stripes to grow)
+	 * @param stateCount
+	 *            the number of states of the automaton
+	 */
+	public VertexStateBitSet(int maxVertexId, int stateCount) {
+		stripes = new long[stateCount][];
+		stripeLength = (maxVertexId >> 6) + 1;
+	}
+
+	public final boolean isMarked(int vertexId, int state) {
+		long[] stripe = stripes[state];
+		int word = vertexId >> 6;
+		return (stripe != null) && (word < stripe.length)
+				&& ((stripe[word] & (1L << vertexId)) != 0);
+	}
+
+	/**
+	 * Marks the given vertex id in the given state.
+	 * 
+	 * @return true if the pair has not been marked before
+	 */
+	public final boolean mark(int vertexId, int state) {
+		long[] stripe = stripes[state];
+		int word = vertexId >> 6;
+		if (stripe == null) {
+			stripe = new long[Math.max(stripeLength, word + 1)];
+			stripes[state] = stripe;
+		} else if (word >= stripe.length) {
+			stripe = Arrays.copyOf(stripe, Math.max(stripe.length * 2,
+					word + 1));
+			stripes[state] = stripe;
+		}
+		long bit = 1L << vertexId;
+		if ((stripe[word] & bit) != 0) {
+			return false;
+		}
+		stripe[word] |= bit;
+		return true;
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab.greql.types.pathsearch;
+
+/**
+ * A FIFO queue of (vertex id, state number) pairs backed by primitive arrays,
+ * used by automaton driven path searches that do not need to remember the
+ * path itself.
+ * 
+ * @author ist@uni-koblenz.de
+ */
+public class VertexStateIdQueue {
+
+	private static final int INITIAL_SIZE = 128;
+
+	public int currentVertexId = 0;
+
+	public int currentState = -1;
+
+	private int[] vertexIds = new int[INITIAL_SIZE];
+
+	private int[] states = new int[INITIAL_SIZE];
+
+	// size of the arrays is always a power of 2
+	private int mask = INITIAL_SIZE - 1;
+
+	private int first = 0;
+
+	private int last = 0;
+
+	public final void put(int vertexId, int state) {
+		if (last - first == vertexIds.length) {
+			resize();
+		}
+		vertexIds[last & mask] = vertexId;
+		states[last & mask] = state;
+		last++;
+	}
+
+	public final boolean hasNext() {
+		if (first == last) {
+			return false;
+		}
+		currentVertexId = vertexIds[first & mask];
+		currentState = states[first & mask];
+		first++;
+		return true;
+	}
+
+	private final void resize() {
+		int size = vertexIds.length;
+		int[] newVertexIds = new int[size * 2];
+		int[] newStates = new int[size * 2];
+		for (int i = 0; i < size; i++) {
+			newVertexIds[i] = vertexIds[(first + i) & mask];
+			newStates[i] = states[(first + i) & mask];
+		}
+		vertexIds = newVertexIds;
+		states = newStates;
+		first = 0;
+		last = size;
+		mask = (size * 2) - 1;
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab.gretl;
+
+/**
+ * A {@link Transformation} that evaluates a single GReQL semantic expression
+ * computing its archetypes and then only modifies the target graph and the
+ * img/arch mappings according to that result. A {@link ParallelSequence} may
+ * evaluate the archetype queries of such transformations ahead of time and
+ * concurrently.
+ */
+interface ArchetypeQueryTransformation {
+
+	/**
+	 * @return the semantic expression which still has to be evaluated to get
+	 *         the archetypes, or null if the archetypes are already known
+	 */
+	String getArchetypeQuery();
+
+	/**
+	 * Sets the result of the archetype query, so that it isn't evaluated
+	 * again when executing this transformation.
+	 * 
+	 * @param result
+	 *            the result of evaluating {@link #getArchetypeQuery()}
+	 */
+	void setArchetypeQueryResult(Object result);
+}
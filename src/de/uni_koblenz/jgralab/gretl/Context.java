@@ -35,13 +35,16 @@
 package de.uni_koblenz.jgralab.gretl;
 
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -81,7 +84,31 @@ public class Context {
 			"\\p{Space}*(#(\\p{Alnum}+)#\\p{Space}*).*", Pattern.DOTALL);
 
 	private final Map<String, Graph> sourceGraphs = new HashMap<>(1);
-	private GreqlQuery query = null;
+
+	/**
+	 * The maximal number of compiled queries kept by a Context.
+	 */
+	public static int QUERY_CACHE_SIZE = 1024;
+
+	/**
+	 * Compiled GReQL queries by their query text. The text consists of the
+	 * imports, the using clause declaring the bound variables and the semantic
+	 * expression, so a query is reused whenever the same expression is
+	 * evaluated with the same set of bound variables. The values of the bound
+	 * variables are passed in the environment of each evaluation. The least
+	 * recently used queries are dropped.
+	 */
+	private final Map<String, GreqlQuery> queryCache = Collections
+			.synchronizedMap(new LinkedHashMap<String, GreqlQuery>(16, 0.75f,
+					true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(
+						Map.Entry<String, GreqlQuery> eldest) {
+					return size() > QUERY_CACHE_SIZE;
+				}
+			});
 
 	Schema targetSchema = null;
 
@@ -117,15 +144,17 @@ public class Context {
 
 	/**
 	 * Maps from {@link AttributedElementClass} to a map, mapping old elements
-	 * to their images. (zeta-reverse)
+	 * to their images. (zeta-reverse) The traces are mutable while the
+	 * transformation runs and get frozen into {@link PMap}s only when they are
+	 * exposed to GReQL or user code.
 	 */
-	private final Map<AttributedElementClass<?, ?>, PMap<Object, AttributedElement<?, ?>>> imgMap = new HashMap<>();
+	private final Map<AttributedElementClass<?, ?>, TraceMap<Object, AttributedElement<?, ?>>> imgMap = new HashMap<>();
 
 	/**
 	 * Maps from {@link AttributedElementClass} to a map, mapping new elements
 	 * to the elements they were created for (their archetypes). (zeta)
 	 */
-	private final Map<AttributedElementClass<?, ?>, PMap<AttributedElement<?, ?>, Object>> archMap = new HashMap<>();
+	private final Map<AttributedElementClass<?, ?>, TraceMap<AttributedElement<?, ?>, Object>> archMap = new HashMap<>();
 
 	private final Map<String, Object> greqlExtraVars = new HashMap<>();
 	private final Set<String> greqlImports = new HashSet<>();
@@ -145,6 +174,8 @@ public class Context {
 		GreqlQuery query = GreqlQuery.createQuery(greqlExpression);
 		query.setName(name);
 		FunLib.registerGreqlQueryFunction(query, true, 1, 1, 1.0);
+		// cached queries may refer to the previous helper
+		queryCache.clear();
 	}
 
 	final void addGReQLImport(String qualifiedName) {
@@ -224,12 +255,7 @@ public class Context {
 	 */
 	public final PMap<AttributedElement<?, ?>, Object> getArch(
 			AttributedElementClass<?, ?> aec) {
-		PMap<AttributedElement<?, ?>, Object> result = archMap.get(aec);
-		if (result == null) {
-			result = Empty.orderedMap();
-			archMap.put(aec, result);
-		}
-		return result;
+		return getArchTrace(aec).freeze();
 	}
 
 	/**
@@ -241,9 +267,41 @@ public class Context {
 	 */
 	public final PMap<Object, AttributedElement<?, ?>> getImg(
 			AttributedElementClass<?, ?> aec) {
-		PMap<Object, AttributedElement<?, ?>> result = imgMap.get(aec);
+		return getImgTrace(aec).freeze();
+	}
+
+	/**
+	 * Looks up the image of <code>archetype</code> without freezing the
+	 * imgMap mappings of <code>aec</code>.
+	 * 
+	 * @param aec
+	 *            the AttributedElementClass whose imgMap mappings to use
+	 * @param archetype
+	 *            an archetype
+	 * @return the image of <code>archetype</code> in the imgMap mappings of
+	 *         <code>aec</code>, or null if there's none
+	 */
+	final AttributedElement<?, ?> getImage(AttributedElementClass<?, ?> aec,
+			Object archetype) {
+		TraceMap<Object, AttributedElement<?, ?>> img = imgMap.get(aec);
+		return img == null ? null : img.get(archetype);
+	}
+
+	private final TraceMap<AttributedElement<?, ?>, Object> getArchTrace(
+			AttributedElementClass<?, ?> aec) {
+		TraceMap<AttributedElement<?, ?>, Object> result = archMap.get(aec);
+		if (result == null) {
+			result = new TraceMap<>();
+			archMap.put(aec, result);
+		}
+		return result;
+	}
+
+	private final TraceMap<Object, AttributedElement<?, ?>> getImgTrace(
+			AttributedElementClass<?, ?> aec) {
+		TraceMap<Object, AttributedElement<?, ?>> result = imgMap.get(aec);
 		if (result == null) {
-			result = Empty.orderedMap();
+			result = new TraceMap<>();
 			imgMap.put(aec, result);
 		}
 		return result;
@@ -258,8 +316,8 @@ public class Context {
 	 *            archMap/imgMap mappings
 	 */
 	final void ensureMappings(AttributedElementClass<?, ?> aec) {
-		getImg(aec);
-		getArch(aec);
+		getImgTrace(aec);
+		getArchTrace(aec);
 		// validateMappings();
 	}
 
@@ -277,14 +335,14 @@ public class Context {
 
 	public final void printImgMappings() {
 		System.out.println("Image Mappings:");
-		for (Entry<AttributedElementClass<?, ?>, PMap<Object, AttributedElement<?, ?>>> e : imgMap
+		for (Entry<AttributedElementClass<?, ?>, TraceMap<Object, AttributedElement<?, ?>>> e : imgMap
 				.entrySet()) {
 			AttributedElementClass<?, ?> aec = e.getKey();
-			PMap<Object, AttributedElement<?, ?>> img = e.getValue();
+			TraceMap<Object, AttributedElement<?, ?>> img = e.getValue();
 			System.out.println("Mappings for: " + aec.getQualifiedName());
-			for (Entry<Object, AttributedElement<?, ?>> entry : img.entrySet()) {
-				System.out.println("    " + entry.getKey() + " ==> "
-						+ entry.getValue());
+			for (int i = 0; i < img.size(); i++) {
+				System.out.println("    " + img.keyAt(i) + " ==> "
+						+ img.valueAt(i));
 			}
 		}
 	}
@@ -316,7 +374,7 @@ public class Context {
 
 	private void addArchMapping(AttributedElementClass<?, ?> attrElemClass,
 			AttributedElement<?, ?> image, Object archetype) {
-		PMap<AttributedElement<?, ?>, Object> map = archMap.get(attrElemClass);
+		TraceMap<AttributedElement<?, ?>, Object> map = getArchTrace(attrElemClass);
 		if (map.containsKey(image)) {
 			throw new GReTLBijectionViolationException(this, "'"
 					+ image
@@ -330,13 +388,12 @@ public class Context {
 		}
 
 		// everything is fine
-		map = map.plus(image, archetype);
-		archMap.put(attrElemClass, map);
+		map.add(image, archetype);
 	}
 
 	private void addImgMapping(AttributedElementClass<?, ?> attrElemClass,
 			Object archetype, AttributedElement<?, ?> image) {
-		PMap<Object, AttributedElement<?, ?>> map = imgMap.get(attrElemClass);
+		TraceMap<Object, AttributedElement<?, ?>> map = getImgTrace(attrElemClass);
 		if (map.containsKey(archetype)) {
 			throw new GReTLBijectionViolationException(this, "'"
 					+ archetype
@@ -350,8 +407,7 @@ public class Context {
 		}
 
 		// everything is fine
-		map = map.plus(archetype, image);
-		imgMap.put(attrElemClass, map);
+		map.add(archetype, image);
 	}
 
 	private final Random uniqueSeed = new Random();
@@ -404,10 +460,8 @@ public class Context {
 								+ "imgMap contains no mappings for '"
 								+ aec.getQualifiedName() + "'!");
 			}
-			@SuppressWarnings("rawtypes")
-			Map arch = archMap.get(aec);
-			@SuppressWarnings("rawtypes")
-			Map img = imgMap.get(aec);
+			TraceMap<AttributedElement<?, ?>, Object> arch = archMap.get(aec);
+			TraceMap<Object, AttributedElement<?, ?>> img = imgMap.get(aec);
 
 			if (arch.size() != img.size()) {
 				throw new GReTLBijectionViolationException(this,
@@ -421,27 +475,26 @@ public class Context {
 								+ "' don't match!");
 			}
 
-			@SuppressWarnings({ "unchecked", "rawtypes" })
-			Set<Map.Entry> entries = arch.entrySet();
-			for (@SuppressWarnings("rawtypes")
-			Entry entry : entries) {
-				if (!img.containsKey(entry.getValue())) {
+			for (int i = 0; i < arch.size(); i++) {
+				AttributedElement<?, ?> image = arch.keyAt(i);
+				Object archetype = arch.valueAt(i);
+				if (!img.containsKey(archetype)) {
 					throw new GReTLBijectionViolationException(this,
 							"The imgMap and archMap mappings aren't valid! "
 									+ "imgMap contains no mapping for '"
-									+ entry.getValue() + "'!");
+									+ archetype + "'!");
 				}
-				if (!img.get(entry.getValue()).equals(entry.getKey())) {
+				if (!img.get(archetype).equals(image)) {
 					throw new GReTLBijectionViolationException(this,
 							"The imgMap and archMap mappings aren't valid! "
 									+ "imgMap is not inverse to archMap for '"
 									+ toGReTLVarNotation(
 											aec.getQualifiedName(),
 											GReTLVariableType.ARCH) + "'! "
-									+ "archMap: " + entry.getKey() + " --> "
-									+ entry.getValue() + ", but imgMap: "
-									+ entry.getValue() + " --> "
-									+ img.get(entry.getValue()));
+									+ "archMap: " + image + " --> "
+									+ archetype + ", but imgMap: "
+									+ archetype + " --> "
+									+ img.get(archetype));
 				}
 			}
 		}
@@ -695,18 +748,70 @@ public class Context {
 
 		sb.append(getGreqlUsingString(greqlMapping));
 		sb.append(semanticExpression);
-		String query = sb.toString();
+		String queryText = sb.toString();
 		logger.finest("GReQL: " + semanticExpression);
 
-		this.query = GreqlQuery.createQuery(query);
-		// this.query = new QueryImpl(query, false);
 		GreqlEnvironment environment = new GreqlEnvironmentAdapter(greqlMapping);
-		T result = (T) this.query.evaluate(graph, environment);
+		T result = (T) getCachedQuery(queryText).evaluate(graph, environment);
 
 		// log.fine("GReQL result: " + result);
 		return result;
 	}
 
+	private final GreqlQuery getCachedQuery(String queryText) {
+		GreqlQuery query = queryCache.get(queryText);
+		if (query == null) {
+			query = GreqlQuery.createQuery(queryText);
+			queryCache.put(queryText, query);
+		}
+		return query;
+	}
+
+	/**
+	 * Prepares the evaluation of the given GReQL expression on another thread,
+	 * while this context goes on modifying the target graph. That's only
+	 * possible for queries on a source graph which isn't the target graph and
+	 * which refer to no GReTL variables. img_/arch_ mappings and variables set
+	 * with {@link #setGReQLVariable(String, Object)} may contain target graph
+	 * elements, so queries using them have to be evaluated in order.
+	 * 
+	 * The query text is built when calling this method, so changes of the
+	 * GReQL imports afterwards don't affect the returned callable.
+	 * 
+	 * @param greqlExpression
+	 *            the GReQL expression with optional graph alias
+	 * @return a callable evaluating the query, or null if the query depends
+	 *         on the target graph or the transformation state
+	 */
+	final <T> Callable<T> prepareIndependentGReQLQuery(String greqlExpression) {
+		if (phase != TransformationPhase.GRAPH || greqlExpression.isEmpty()) {
+			return null;
+		}
+
+		String name = DEFAULT_SOURCE_GRAPH_ALIAS;
+		Matcher m = QUERY_GRAPH_ALIAS_PATTERN.matcher(greqlExpression);
+		if (m.matches()) {
+			greqlExpression = greqlExpression.replace(m.group(1), "");
+			name = m.group(2);
+		}
+		final Graph graph = sourceGraphs.get(name);
+		if (graph == null || graph == targetGraph || greqlExpression.isEmpty()
+				|| !getGreqlVariablesNeededByQuery(greqlExpression).isEmpty()) {
+			return null;
+		}
+
+		final String queryText = getGreqlImportString(graph) + greqlExpression;
+		return new Callable<T>() {
+			@SuppressWarnings("unchecked")
+			@Override
+			public T call() {
+				logger.finest("GReQL (ahead of time): " + queryText);
+				return (T) getCachedQuery(queryText).evaluate(graph,
+						new GreqlEnvironmentAdapter());
+			}
+		};
+	}
+
 	private final PMap<String, Object> getGreqlVariablesNeededByQuery(
 			String query) {
 		PMap<String, Object> result = Empty.orderedMap();
@@ -717,21 +822,21 @@ public class Context {
 			}
 		}
 
-		for (Entry<AttributedElementClass<?, ?>, PMap<AttributedElement<?, ?>, Object>> e : archMap
+		for (Entry<AttributedElementClass<?, ?>, TraceMap<AttributedElement<?, ?>, Object>> e : archMap
 				.entrySet()) {
 			String varName = toGReTLVarNotation(e.getKey().getQualifiedName(),
 					GReTLVariableType.ARCH);
 			if (query.contains(varName)) {
-				result = result.plus(varName, e.getValue());
+				result = result.plus(varName, e.getValue().freeze());
 			}
 		}
 
-		for (Entry<AttributedElementClass<?, ?>, PMap<Object, AttributedElement<?, ?>>> e : imgMap
+		for (Entry<AttributedElementClass<?, ?>, TraceMap<Object, AttributedElement<?, ?>>> e : imgMap
 				.entrySet()) {
 			String varName = toGReTLVarNotation(e.getKey().getQualifiedName(),
 					GReTLVariableType.IMG);
 			if (query.contains(varName)) {
-				result = result.plus(varName, e.getValue());
+				result = result.plus(varName, e.getValue().freeze());
 			}
 		}
 
@@ -40,11 +40,13 @@ import de.uni_koblenz.jgralab.schema.Attribute;
 import de.uni_koblenz.jgralab.schema.AttributedElementClass;
 import de.uni_koblenz.jgralab.schema.Domain;
 
-public class CreateAttribute extends Transformation<Attribute> {
+public class CreateAttribute extends Transformation<Attribute> implements
+		ArchetypeQueryTransformation {
 
 	private AttributeSpec attrSpec;
 	private String semanticExpression;
 	private PMap<? extends Object, ? extends Object> archetypes2values;
+	private PMap<?, ?> archetypeQueryResult;
 
 	protected CreateAttribute(final Context c, final AttributeSpec attrSpec) {
 		super(c);
@@ -70,6 +72,16 @@ public class CreateAttribute extends Transformation<Attribute> {
 		return new CreateAttribute(et.context, attrSpec, semanticExpression);
 	}
 
+	@Override
+	public String getArchetypeQuery() {
+		return archetypes2values == null ? semanticExpression : null;
+	}
+
+	@Override
+	public void setArchetypeQueryResult(Object result) {
+		archetypeQueryResult = (PMap<?, ?>) result;
+	}
+
 	@Override
 	protected Attribute transform() {
 		switch (context.phase) {
@@ -84,6 +96,11 @@ public class CreateAttribute extends Transformation<Attribute> {
 			if (archetypes2values != null) {
 				new SetAttributes(context, attribute, archetypes2values)
 						.execute();
+			} else if (archetypeQueryResult != null) {
+				// evaluated ahead of time by a ParallelSequence
+				new SetAttributes(context, attribute, archetypeQueryResult)
+						.execute();
+				archetypeQueryResult = null;
 			} else {
 				new SetAttributes(context, attribute, semanticExpression)
 						.execute();
@@ -42,13 +42,15 @@ import de.uni_koblenz.jgralab.schema.EdgeClass;
 import de.uni_koblenz.jgralab.schema.IncidenceClass;
 import de.uni_koblenz.jgralab.schema.VertexClass;
 
-public class CreateEdgeClass extends Transformation<EdgeClass> {
+public class CreateEdgeClass extends Transformation<EdgeClass> implements
+		ArchetypeQueryTransformation {
 
 	protected String qualifiedName;
 	private IncidenceClassSpec from;
 	private IncidenceClassSpec to;
 	private PSet<Tuple> archetypes;
 	private String semanticExpression;
+	private PSet<Tuple> archetypeQueryResult;
 
 	protected CreateEdgeClass(final Context c, final String qualifiedName,
 			final IncidenceClassSpec from, final IncidenceClassSpec to) {
@@ -82,6 +84,17 @@ public class CreateEdgeClass extends Transformation<EdgeClass> {
 				semanticExpression);
 	}
 
+	@Override
+	public String getArchetypeQuery() {
+		return archetypes == null ? semanticExpression : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void setArchetypeQueryResult(Object result) {
+		archetypeQueryResult = (PSet<Tuple>) result;
+	}
+
 	@Override
 	protected EdgeClass transform() {
 		switch (context.phase) {
@@ -110,6 +123,11 @@ public class CreateEdgeClass extends Transformation<EdgeClass> {
 
 			if (archetypes != null) {
 				new CreateEdges(context, edgeClass, archetypes).execute();
+			} else if (archetypeQueryResult != null) {
+				// evaluated ahead of time by a ParallelSequence
+				new CreateEdges(context, edgeClass, archetypeQueryResult)
+						.execute();
+				archetypeQueryResult = null;
 			} else {
 				new CreateEdges(context, edgeClass, semanticExpression)
 						.execute();
@@ -44,7 +44,8 @@ import de.uni_koblenz.jgralab.gretl.Context.TransformationPhase;
 import de.uni_koblenz.jgralab.schema.EdgeClass;
 import de.uni_koblenz.jgralab.schema.VertexClass;
 
-public class CreateEdges extends Transformation<PSet<? extends Edge>> {
+public class CreateEdges extends Transformation<PSet<? extends Edge>>
+		implements ArchetypeQueryTransformation {
 
 	private PSet<Tuple> archetypes = null;
 	private String semanticExpression = null;
@@ -71,6 +72,17 @@ public class CreateEdges extends Transformation<PSet<? extends Edge>> {
 		return new CreateEdges(et.context, ec, semanticExpression);
 	}
 
+	@Override
+	public String getArchetypeQuery() {
+		return archetypes == null ? semanticExpression : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void setArchetypeQueryResult(Object result) {
+		archetypes = (PSet<Tuple>) result;
+	}
+
 	@Override
 	protected PSet<? extends Edge> transform() {
 		if (context.phase != TransformationPhase.GRAPH) {
@@ -87,7 +99,7 @@ public class CreateEdges extends Transformation<PSet<? extends Edge>> {
 
 			Object startVertexArch = trip.get(1);
 			VertexClass fromVC = edgeClass.getFrom().getVertexClass();
-			Vertex startVertex = (Vertex) context.getImg(fromVC).get(
+			Vertex startVertex = (Vertex) context.getImage(fromVC,
 					startVertexArch);
 			if (startVertex == null) {
 				context.printImgMappings();
@@ -102,7 +114,7 @@ public class CreateEdges extends Transformation<PSet<? extends Edge>> {
 
 			Object endVertexArch = trip.get(2);
 			VertexClass toVC = edgeClass.getTo().getVertexClass();
-			Vertex endVertex = (Vertex) context.getImg(toVC).get(endVertexArch);
+			Vertex endVertex = (Vertex) context.getImage(toVC, endVertexArch);
 			if (endVertex == null) {
 				context.printImgMappings();
 				throw new GReTLException(context, "No endVertex for a new '"
@@ -165,7 +165,7 @@ public class CreateSubgraph extends Transformation<Void> {
 			for (Object jv : matchCollection) {
 				context.setGReQLVariable("$", jv);
 				Object arch = context.evaluateGReQLQuery(v.get_archetype());
-				if (context.getImg(vc).containsKey(arch)) {
+				if (context.getImage(vc, arch) != null) {
 					logger.finer("There's already an image for '"
 							+ arch
 							+ "' in "
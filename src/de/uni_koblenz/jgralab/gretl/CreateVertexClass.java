@@ -38,11 +38,13 @@ import org.pcollections.PSet;
 
 import de.uni_koblenz.jgralab.schema.VertexClass;
 
-public class CreateVertexClass extends Transformation<VertexClass> {
+public class CreateVertexClass extends Transformation<VertexClass> implements
+		ArchetypeQueryTransformation {
 
 	protected String qualifiedName = null;
 	private PSet<? extends Object> archetypes = null;
 	private String semanticExpression = null;
+	private PSet<? extends Object> archetypeQueryResult = null;
 
 	protected CreateVertexClass(final Context c, final String qualifiedName) {
 		super(c);
@@ -68,6 +70,17 @@ public class CreateVertexClass extends Transformation<VertexClass> {
 		return new CreateVertexClass(et.context, qname, semExp);
 	}
 
+	@Override
+	public String getArchetypeQuery() {
+		return archetypes == null ? semanticExpression : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void setArchetypeQueryResult(Object result) {
+		archetypeQueryResult = (PSet<? extends Object>) result;
+	}
+
 	@Override
 	protected VertexClass transform() {
 		switch (context.phase) {
@@ -83,6 +96,11 @@ public class CreateVertexClass extends Transformation<VertexClass> {
 					+ qualifiedName + "'.";
 			if (archetypes != null) {
 				new CreateVertices(context, vertexClass, archetypes).execute();
+			} else if (archetypeQueryResult != null) {
+				// evaluated ahead of time by a ParallelSequence
+				new CreateVertices(context, vertexClass, archetypeQueryResult)
+						.execute();
+				archetypeQueryResult = null;
 			} else {
 				new CreateVertices(context, vertexClass, semanticExpression)
 						.execute();
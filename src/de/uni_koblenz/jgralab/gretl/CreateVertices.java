@@ -41,7 +41,8 @@ import de.uni_koblenz.jgralab.Vertex;
 import de.uni_koblenz.jgralab.gretl.Context.TransformationPhase;
 import de.uni_koblenz.jgralab.schema.VertexClass;
 
-public class CreateVertices extends Transformation<PSet<? extends Vertex>> {
+public class CreateVertices extends Transformation<PSet<? extends Vertex>>
+		implements ArchetypeQueryTransformation {
 
 	private PSet<? extends Object> archetypes = null;
 	private String semanticExpression = null;
@@ -68,6 +69,17 @@ public class CreateVertices extends Transformation<PSet<? extends Vertex>> {
 		return new CreateVertices(et.context, vc, semExp);
 	}
 
+	@Override
+	public String getArchetypeQuery() {
+		return archetypes == null ? semanticExpression : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void setArchetypeQueryResult(Object result) {
+		archetypes = (PSet<? extends Object>) result;
+	}
+
 	@Override
 	protected PSet<? extends Vertex> transform() {
 		if (context.phase != TransformationPhase.GRAPH) {
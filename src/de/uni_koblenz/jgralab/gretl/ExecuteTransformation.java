@@ -40,6 +40,7 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -48,6 +49,7 @@ import java.util.logging.Logger;
 import de.uni_koblenz.jgralab.Graph;
 import de.uni_koblenz.jgralab.JGraLab;
 import de.uni_koblenz.jgralab.gretl.CreateAttribute.AttributeSpec;
+import de.uni_koblenz.jgralab.gretl.Context.TransformationPhase;
 import de.uni_koblenz.jgralab.gretl.CreateEdgeClass.IncidenceClassSpec;
 import de.uni_koblenz.jgralab.gretl.parser.GReTLLexer;
 import de.uni_koblenz.jgralab.gretl.parser.GReTLParsingException;
@@ -218,40 +220,62 @@ public class ExecuteTransformation extends Transformation<Graph> {
 
 	private void interpretFile() {
 		current = 3;
+		// In the GRAPH phase, the target schema is complete, so all statements
+		// can be parsed in advance and run as a ParallelSequence.
+		List<Transformation<?>> steps = null;
+		if (context.getPhase() == TransformationPhase.GRAPH) {
+			steps = new ArrayList<>();
+		}
 		while (!tryMatch(TokenTypes.EOF)) {
+			Transformation<?> t = null;
 			if (tryMatch(TokenTypes.GREQL_IMPORT)) {
-				match(TokenTypes.GREQL_IMPORT);
-				addGReQLImport(match(TokenTypes.IDENT).value);
-				match(TokenTypes.SEMICOLON);
+				t = matchGReQLImport();
+			} else {
+				t = matchStatement();
+			}
+			if (t == null) {
 				continue;
+			} else if (steps == null) {
+				t.execute();
+			} else {
+				steps.add(t);
 			}
-			matchAndExecute();
 		}
 		match(TokenTypes.EOF);
+		if (steps != null) {
+			new ParallelSequence(context, steps).execute();
+		}
 	}
 
-	private void matchAndExecute() {
+	private Transformation<?> matchStatement() {
 		if (tryMatchTransformationDefinition()) {
 			matchTransformationDefinition();
-			return;
+			return null;
 		} else if (tryMatchTransformationCall()) {
 			// This is a transformation op.
-			Transformation<?> t = matchTransformationCall();
-			t.execute();
-			return;
+			return matchTransformationCall();
 		} else if (tryMatchHelperDefinition()) {
-			Transformation<?> t = matchHelperDefinition();
-			t.execute();
-			return;
+			return matchHelperDefinition();
 		} else if (tryMatchVariableAssignment()) {
-			Transformation<?> t = matchVariableAssignment();
-			t.execute();
-			return;
+			return matchVariableAssignment();
 		}
 		throw new GReTLParsingException(context, "Don't know how to parse "
 				+ tokens.get(current));
 	}
 
+	private Transformation<?> matchGReQLImport() {
+		match(TokenTypes.GREQL_IMPORT);
+		final String qualifiedName = match(TokenTypes.IDENT).value;
+		match(TokenTypes.SEMICOLON);
+		return new Transformation<Void>(context) {
+			@Override
+			protected Void transform() {
+				addGReQLImport(qualifiedName);
+				return null;
+			}
+		};
+	}
+
 	private Transformation<?> matchHelperDefinition() {
 		final String helperName = match(TokenTypes.IDENT).value;
 		match(TokenTypes.PAREN_OPEN);
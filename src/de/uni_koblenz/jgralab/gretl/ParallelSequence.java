@@ -0,0 +1,156 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab.gretl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.uni_koblenz.jgralab.gretl.Context.TransformationPhase;
+
+/**
+ * Executes a sequence of transformations in the given order, but evaluates the
+ * archetype queries of independent steps concurrently.
+ * 
+ * A step's archetype query is independent, if it reads only a source graph
+ * which is not the target graph and uses no GReTL variables (see
+ * {@link Context#prepareIndependentGReQLQuery(String)}). Such a query can't
+ * observe the target graph modifications and img/arch mappings written by
+ * the preceding steps. So the queries of all independent
+ * {@link ArchetypeQueryTransformation}s (e.g., {@link CreateVertices},
+ * {@link CreateEdges}, {@link SetAttributes}) between two other steps are
+ * submitted to a thread pool at once. The graph modifications are still
+ * applied one after the other on the calling thread in sequence order, and
+ * dependent queries are evaluated in turn as usual.
+ * 
+ * All other steps (helper and variable definitions, nested transformations,
+ * ...) act as barriers: queries of steps after them are evaluated only after
+ * they have been executed.
+ */
+public class ParallelSequence extends Transformation<Void> {
+
+	private final List<Transformation<?>> steps;
+
+	public ParallelSequence(Context c, Transformation<?>... steps) {
+		this(c, Arrays.asList(steps));
+	}
+
+	public ParallelSequence(Context c, List<Transformation<?>> steps) {
+		super(c);
+		this.steps = new ArrayList<>(steps);
+	}
+
+	@Override
+	protected Void transform() {
+		if (context.getPhase() != TransformationPhase.GRAPH) {
+			for (Transformation<?> step : steps) {
+				step.execute();
+			}
+			return null;
+		}
+
+		ExecutorService executor = null;
+		try {
+			int i = 0;
+			while (i < steps.size()) {
+				// the independent steps up to the next barrier
+				int end = i;
+				while ((end < steps.size())
+						&& (steps.get(end) instanceof ArchetypeQueryTransformation)) {
+					end++;
+				}
+
+				List<Future<Object>> results = new ArrayList<>(end - i);
+				for (int j = i; j < end; j++) {
+					Callable<Object> query = null;
+					String semExp = ((ArchetypeQueryTransformation) steps
+							.get(j)).getArchetypeQuery();
+					if (semExp != null && end - i > 1) {
+						query = context.prepareIndependentGReQLQuery(semExp);
+					}
+					if (query == null) {
+						results.add(null);
+						continue;
+					}
+					if (executor == null) {
+						executor = Executors.newFixedThreadPool(Runtime
+								.getRuntime().availableProcessors());
+					}
+					results.add(executor.submit(query));
+				}
+
+				for (int j = i; j < end; j++) {
+					Future<Object> result = results.get(j - i);
+					if (result != null) {
+						((ArchetypeQueryTransformation) steps.get(j))
+								.setArchetypeQueryResult(get(result));
+					}
+					steps.get(j).execute();
+				}
+
+				if (end < steps.size()) {
+					steps.get(end).execute();
+				}
+				i = end + 1;
+			}
+		} finally {
+			if (executor != null) {
+				executor.shutdownNow();
+			}
+		}
+		return null;
+	}
+
+	private Object get(Future<Object> result) {
+		try {
+			return result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new GReTLException(context,
+					"Interrupted while waiting for an archetype query.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new GReTLException(context,
+					"Evaluation of an archetype query failed.", e);
+		}
+	}
+}
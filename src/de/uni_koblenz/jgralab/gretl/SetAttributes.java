@@ -34,7 +34,6 @@
  */
 package de.uni_koblenz.jgralab.gretl;
 
-import org.pcollections.Empty;
 import org.pcollections.PMap;
 
 import de.uni_koblenz.jgralab.AttributedElement;
@@ -47,7 +46,8 @@ import de.uni_koblenz.jgralab.schema.Domain;
 import de.uni_koblenz.jgralab.schema.RecordDomain;
 
 public class SetAttributes extends
-		Transformation<PMap<AttributedElement<?, ?>, Object>> {
+		Transformation<PMap<AttributedElement<?, ?>, Object>> implements
+		ArchetypeQueryTransformation {
 
 	private Attribute attribute = null;
 	private PMap<? extends Object, ? extends Object> archetype2valueMap = null;
@@ -74,6 +74,16 @@ public class SetAttributes extends
 		return new SetAttributes(et.context, attr, semExp);
 	}
 
+	@Override
+	public String getArchetypeQuery() {
+		return archetype2valueMap == null ? semanticExpression : null;
+	}
+
+	@Override
+	public void setArchetypeQueryResult(Object result) {
+		archetype2valueMap = (PMap<?, ?>) result;
+	}
+
 	@Override
 	protected PMap<AttributedElement<?, ?>, Object> transform() {
 		if (context.phase != TransformationPhase.GRAPH) {
@@ -84,12 +94,12 @@ public class SetAttributes extends
 			archetype2valueMap = context.evaluateGReQLQuery(semanticExpression);
 		}
 
-		PMap<AttributedElement<?, ?>, Object> resultMap = Empty.orderedMap();
+		TraceMap<AttributedElement<?, ?>, Object> resultMap = new TraceMap<>();
 		for (Object archetype : archetype2valueMap.keySet()) {
 			// System.out.println("sourceElement = " + sourceElement);
 			// context.printMappings();
-			AttributedElement<?, ?> image = context.getImg(
-					attribute.getAttributedElementClass()).get(archetype);
+			AttributedElement<?, ?> image = context.getImage(
+					attribute.getAttributedElementClass(), archetype);
 			if (image == null) {
 				String qname = attribute.getAttributedElementClass()
 						.getQualifiedName();
@@ -102,14 +112,14 @@ public class SetAttributes extends
 						+ "' can be created!");
 			}
 			Object val = archetype2valueMap.get(archetype);
-			resultMap = resultMap.plus(image, val);
+			resultMap.add(image, val);
 			if (val != Undefined.UNDEFINED) {
 				Object o = convertToAttributeValue(val);
 				image.setAttribute(attribute.getName(), o);
 			}
 		}
 
-		return resultMap;
+		return resultMap.freeze();
 	}
 
 	private Object convertToAttributeValue(Object val) {
@@ -0,0 +1,212 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab.gretl;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.pcollections.ArrayPMap;
+import org.pcollections.POrderedMap;
+
+/**
+ * A mutable, insertion ordered map used by the {@link Context} to record the
+ * archMap/imgMap traces of one attributed element class while a
+ * transformation is running.
+ * 
+ * Entries are kept in insertion order in plain arrays, and lookups go through
+ * an open addressing hash table storing entry indices and the cached hash
+ * codes of the keys as primitive ints. So adding a mapping is O(1) amortized
+ * and allocates no entry objects. Mappings are never removed.
+ * 
+ * Whenever the trace is handed out to GReQL or user code, it is frozen into
+ * an immutable {@link POrderedMap} with the same iteration order. The frozen
+ * map is cached until the next mapping is added.
+ * 
+ * This implementation is not thread safe.
+ * 
+ * @param <K>
+ *            the key type
+ * @param <V>
+ *            the value type
+ */
+final class TraceMap<K, V> {
+	private static final int INITIAL_CAPACITY = 8;
+
+	private Object[] keys = new Object[INITIAL_CAPACITY];
+	private Object[] values = new Object[INITIAL_CAPACITY];
+	private int[] hashes = new int[INITIAL_CAPACITY];
+	private int size;
+
+	/**
+	 * Open addressing table (linear probing) holding entry index + 1, 0 marks
+	 * a free slot. Its length is a power of two and at least twice the
+	 * capacity of the entry arrays.
+	 */
+	private int[] table = new int[2 * INITIAL_CAPACITY];
+
+	private POrderedMap<K, V> frozen = ArrayPMap.empty();
+
+	/**
+	 * @return the number of mappings
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param key
+	 *            a key
+	 * @return the value <code>key</code> maps to, or null if there's no such
+	 *         mapping
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		int i = indexOf(key);
+		return i < 0 ? null : (V) values[i];
+	}
+
+	/**
+	 * @param key
+	 *            a key
+	 * @return true, iff there's a mapping for <code>key</code>
+	 */
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	/**
+	 * Adds the mapping <code>key --> value</code>. The caller has to make sure
+	 * that there's no mapping for <code>key</code> yet.
+	 * 
+	 * @param key
+	 *            the key, not null
+	 * @param value
+	 *            the value, not null
+	 */
+	public void add(K key, V value) {
+		if (key == null || value == null) {
+			throw new IllegalArgumentException(
+					"A trace can't contain null keys or values");
+		}
+		if (size == keys.length) {
+			grow();
+		}
+		int h = spread(key.hashCode());
+		keys[size] = key;
+		values[size] = value;
+		hashes[size] = h;
+		++size;
+		insert(h, size);
+		frozen = null;
+	}
+
+	/**
+	 * @param index
+	 *            an index between 0 and {@link #size()} - 1
+	 * @return the key of the <code>index</code>-th mapping in insertion order
+	 */
+	@SuppressWarnings("unchecked")
+	public K keyAt(int index) {
+		return (K) keys[index];
+	}
+
+	/**
+	 * @param index
+	 *            an index between 0 and {@link #size()} - 1
+	 * @return the value of the <code>index</code>-th mapping in insertion
+	 *         order
+	 */
+	@SuppressWarnings("unchecked")
+	public V valueAt(int index) {
+		return (V) values[index];
+	}
+
+	/**
+	 * @return an immutable snapshot of this trace in insertion order
+	 */
+	@SuppressWarnings("unchecked")
+	public POrderedMap<K, V> freeze() {
+		if (frozen == null) {
+			frozen = ArrayPMap.fromDistinctKeys(
+					(List<K>) Arrays.asList(keys).subList(0, size),
+					(List<V>) Arrays.asList(values).subList(0, size));
+		}
+		return frozen;
+	}
+
+	private int indexOf(Object key) {
+		if (key == null || size == 0) {
+			return -1;
+		}
+		int h = spread(key.hashCode());
+		int mask = table.length - 1;
+		for (int slot = h & mask;; slot = (slot + 1) & mask) {
+			int i = table[slot] - 1;
+			if (i < 0) {
+				return -1;
+			}
+			if (hashes[i] == h && key.equals(keys[i])) {
+				return i;
+			}
+		}
+	}
+
+	private void insert(int h, int entry) {
+		int mask = table.length - 1;
+		int slot = h & mask;
+		while (table[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = entry;
+	}
+
+	private void grow() {
+		int capacity = keys.length * 2;
+		keys = Arrays.copyOf(keys, capacity);
+		values = Arrays.copyOf(values, capacity);
+		hashes = Arrays.copyOf(hashes, capacity);
+		table = new int[2 * capacity];
+		for (int i = 0; i < size; ++i) {
+			insert(hashes[i], i + 1);
+		}
+	}
+
+	private static int spread(int h) {
+		// identity hash codes of graph elements are well distributed, but
+		// user defined archetypes (e.g., tuples) may not be
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -164,15 +164,14 @@ public abstract class EdgeBaseImpl extends IncidenceImpl implements
 	public final Edge getNextEdge(EdgeClass anEdgeClass) {
 		assert anEdgeClass != null;
 		assert isValid();
-		Edge currentEdge = getNextEdge();
-		while (currentEdge != null) {
-			if (currentEdge.isInstanceOf(anEdgeClass)) {
-				return currentEdge;
-			}
-			currentEdge = currentEdge.getNextEdge();
-		}
-		return null;
+		return graph.getNextEdge(this, anEdgeClass);
+	}
 
+	@Override
+	public final Edge getNextEdge(BitSet edgeClassIds) {
+		assert edgeClassIds != null;
+		assert isValid();
+		return graph.getNextEdge(this, edgeClassIds);
 	}
 
 	/*
@@ -140,6 +140,22 @@ public abstract class GraphBaseImpl implements Graph, InternalGraph {
 	// ------------- TRAVERSAL CONTEXT -------------
 	private final ThreadLocal<TraversalContext> tc = new ThreadLocal<>();
 
+	// ------------- INCIDENCE INDEX -------------
+	private TypedIncidenceIndex incidenceIndex;
+
+	// ------------- TYPED SEQUENCE INDEXES -------------
+	/**
+	 * true iff typed lookups use the typed sequence indexes
+	 */
+	private boolean typedSequenceIndexEnabled;
+
+	/**
+	 * vSeq and eSeq partitioned by vertex and edge class, built on the first
+	 * typed lookup if enabled and dropped whenever the sequence is rearranged
+	 */
+	private volatile TypedSequenceIndex<Vertex> vertexIndex;
+	private volatile TypedSequenceIndex<Edge> edgeIndex;
+
 	// ------------- UNSET ATTRIBUTES --------------
 	protected BitSet setAttributes;
 
@@ -372,6 +388,10 @@ public abstract class GraphBaseImpl implements Graph, InternalGraph {
 
 		}
 		setLastEdgeInGraph(e);
+		TypedSequenceIndex<Edge> index = edgeIndex;
+		if ((index != null) && !index.append(e)) {
+			edgeIndex = null;
+		}
 	}
 
 	@Override
@@ -386,6 +406,19 @@ public abstract class GraphBaseImpl implements Graph, InternalGraph {
 			v.setPrevVertex(getLastVertexInVSeq());
 		}
 		setLastVertex(v);
+		TypedSequenceIndex<Vertex> index = vertexIndex;
+		if ((index != null) && (v.getAttributedElementClass() != null)
+				&& !index.append(v)) {
+			vertexIndex = null;
+		}
+	}
+
+	@Override
+	public final void vertexClassAssigned(InternalVertex v) {
+		TypedSequenceIndex<Vertex> index = vertexIndex;
+		if ((index != null) && !index.append(v)) {
+			vertexIndex = null;
+		}
 	}
 
 	/*
@@ -747,15 +780,75 @@ public abstract class GraphBaseImpl implements Graph, InternalGraph {
 	@Override
 	public final Edge getFirstEdge(EdgeClass edgeClass) {
 		assert edgeClass != null;
-		Edge currentEdge = getFirstEdge();
-		if (currentEdge == null) {
-			return null;
+		return getNextEdge(null, edgeClass);
+	}
+
+	@Override
+	public final Edge getFirstEdge(BitSet edgeClassIds) {
+		assert edgeClassIds != null;
+		return getNextEdge(getEdgeIndex(), null, edgeClassIds);
+	}
+
+	/**
+	 * @return the edge following <code>e</code> in eSeq which is an instance
+	 *         of <code>edgeClass</code> and accepted by the traversal context
+	 */
+	final Edge getNextEdge(Edge e, EdgeClass edgeClass) {
+		TypedSequenceIndex<Edge> index = getEdgeIndex();
+		if (index == null) {
+			Edge next = e == null ? getFirstEdge() : e.getNextEdge();
+			while ((next != null) && !next.isInstanceOf(edgeClass)) {
+				next = next.getNextEdge();
+			}
+			return next;
+		}
+		return getNextEdge(index, e, index.getSelection(edgeClass));
+	}
+
+	/**
+	 * @return the edge following <code>e</code> in eSeq whose class id is
+	 *         contained in <code>edgeClassIds</code> and which is accepted by
+	 *         the traversal context
+	 */
+	final Edge getNextEdge(Edge e, BitSet edgeClassIds) {
+		return getNextEdge(getEdgeIndex(), e, edgeClassIds);
+	}
+
+	private final Edge getNextEdge(TypedSequenceIndex<Edge> index, Edge e,
+			BitSet edgeClassIds) {
+		if (index == null) {
+			Edge next = e == null ? getFirstEdge() : e.getNextEdge();
+			while ((next != null)
+					&& !edgeClassIds.get(next.getAttributedElementClass()
+							.getGraphElementClassIdInSchema())) {
+				next = next.getNextEdge();
+			}
+			return next;
 		}
-		if (currentEdge.isInstanceOf(edgeClass)) {
-			return currentEdge;
+		TraversalContext tc = getTraversalContext();
+		Edge next = index.getNext(e, edgeClassIds);
+		while ((tc != null) && (next != null) && !tc.containsEdge(next)) {
+			next = index.getNext(next, edgeClassIds);
 		}
-		return currentEdge.getNextEdge(edgeClass);
+		return next;
+	}
 
+	/**
+	 * @return the index of eSeq by edge class, which is built if necessary,
+	 *         or null if the typed sequence indexes are disabled
+	 */
+	private final TypedSequenceIndex<Edge> getEdgeIndex() {
+		TypedSequenceIndex<Edge> index = edgeIndex;
+		if ((index == null) && typedSequenceIndexEnabled) {
+			index = new TypedSequenceIndex<>(
+					schema.getGraphElementClassCount(), eMax);
+			for (InternalEdge e = getFirstEdgeInESeq(); e != null; e = e
+					.getNextEdgeInESeq()) {
+				index.append(e);
+			}
+			edgeIndex = index;
+		}
+		return index;
 	}
 
 	/*
@@ -800,14 +893,86 @@ public abstract class GraphBaseImpl implements Graph, InternalGraph {
 	@Override
 	public final Vertex getFirstVertex(VertexClass vertexClass) {
 		assert vertexClass != null;
-		Vertex firstVertex = getFirstVertex();
-		if (firstVertex == null) {
-			return null;
+		return getNextVertex(null, vertexClass);
+	}
+
+	@Override
+	public final Vertex getFirstVertex(BitSet vertexClassIds) {
+		assert vertexClassIds != null;
+		return getNextVertex(getVertexIndex(), null, vertexClassIds);
+	}
+
+	/**
+	 * @return the vertex following <code>v</code> in vSeq which is an
+	 *         instance of <code>vertexClass</code> and accepted by the
+	 *         traversal context
+	 */
+	final Vertex getNextVertex(Vertex v, VertexClass vertexClass) {
+		TypedSequenceIndex<Vertex> index = getVertexIndex();
+		if (index == null) {
+			Vertex next = v == null ? getFirstVertex() : v.getNextVertex();
+			while ((next != null) && !next.isInstanceOf(vertexClass)) {
+				next = next.getNextVertex();
+			}
+			return next;
+		}
+		return getNextVertex(index, v, index.getSelection(vertexClass));
+	}
+
+	/**
+	 * @return the vertex following <code>v</code> in vSeq whose class id is
+	 *         contained in <code>vertexClassIds</code> and which is accepted
+	 *         by the traversal context
+	 */
+	final Vertex getNextVertex(Vertex v, BitSet vertexClassIds) {
+		return getNextVertex(getVertexIndex(), v, vertexClassIds);
+	}
+
+	private final Vertex getNextVertex(TypedSequenceIndex<Vertex> index,
+			Vertex v, BitSet vertexClassIds) {
+		if (index == null) {
+			Vertex next = v == null ? getFirstVertex() : v.getNextVertex();
+			while ((next != null)
+					&& !vertexClassIds.get(next.getAttributedElementClass()
+							.getGraphElementClassIdInSchema())) {
+				next = next.getNextVertex();
+			}
+			return next;
+		}
+		TraversalContext tc = getTraversalContext();
+		Vertex next = index.getNext(v, vertexClassIds);
+		while ((tc != null) && (next != null) && !tc.containsVertex(next)) {
+			next = index.getNext(next, vertexClassIds);
 		}
-		if (firstVertex.isInstanceOf(vertexClass)) {
-			return firstVertex;
+		return next;
+	}
+
+	/**
+	 * @return the index of vSeq by vertex class, which is built if necessary,
+	 *         or null if the typed sequence indexes are disabled
+	 */
+	private final TypedSequenceIndex<Vertex> getVertexIndex() {
+		TypedSequenceIndex<Vertex> index = vertexIndex;
+		if ((index == null) && typedSequenceIndexEnabled) {
+			index = new TypedSequenceIndex<>(
+					schema.getGraphElementClassCount(), vMax);
+			for (InternalVertex v = getFirstVertexInVSeq(); v != null; v = v
+					.getNextVertexInVSeq()) {
+				index.append(v);
+			}
+			vertexIndex = index;
 		}
-		return firstVertex.getNextVertex(vertexClass);
+		return index;
+	}
+
+	@Override
+	public final void vertexIdsChanged() {
+		vertexIndex = null;
+	}
+
+	@Override
+	public final void edgeIdsChanged() {
+		edgeIndex = null;
 	}
 
 	/*
@@ -1022,6 +1187,10 @@ public abstract class GraphBaseImpl implements Graph, InternalGraph {
 			(v.getPrevVertexInVSeq()).setNextVertex(v.getNextVertexInVSeq());
 			(v.getNextVertexInVSeq()).setPrevVertex(v.getPrevVertexInVSeq());
 		}
+		TypedSequenceIndex<Vertex> index = vertexIndex;
+		if ((index != null) && !index.remove(v)) {
+			vertexIndex = null;
+		}
 		// freeIndex(getFreeVertexList(), v.getId());
 		freeVertexIndex(v.getId());
 		getVertex()[v.getId()] = null;
@@ -1035,6 +1204,10 @@ public abstract class GraphBaseImpl implements Graph, InternalGraph {
 	public final void removeEdgeFromESeq(InternalEdge e) {
 		assert e != null;
 		removeEdgeFromESeqWithoutDeletingIt(e);
+		TypedSequenceIndex<Edge> index = edgeIndex;
+		if ((index != null) && !index.remove(e)) {
+			edgeIndex = null;
+		}
 
 		// freeIndex(getFreeEdgeList(), e.getId());
 		freeEdgeIndex(e.getId());
@@ -1178,6 +1351,7 @@ public abstract class GraphBaseImpl implements Graph, InternalGraph {
 		movedEdge.setPrevEdgeInGraph(targetEdge);
 
 		targetEdge.setNextEdgeInGraph(movedEdge);
+		edgeIndex = null;
 		edgeListModified();
 	}
 
@@ -1228,6 +1402,7 @@ public abstract class GraphBaseImpl implements Graph, InternalGraph {
 		movedVertex.setPrevVertex(targetVertex);
 
 		targetVertex.setNextVertex(movedVertex);
+		vertexIndex = null;
 		vertexListModified();
 	}
 
@@ -1272,6 +1447,7 @@ public abstract class GraphBaseImpl implements Graph, InternalGraph {
 		movedEdge.setNextEdgeInGraph(targetEdge);
 		targetEdge.setPrevEdgeInGraph(movedEdge);
 
+		edgeIndex = null;
 		edgeListModified();
 	}
 
@@ -1319,6 +1495,7 @@ public abstract class GraphBaseImpl implements Graph, InternalGraph {
 		movedVertex.setNextVertex(targetVertex);
 		targetVertex.setPrevVertex(movedVertex);
 
+		vertexIndex = null;
 		vertexListModified();
 	}
 
@@ -1413,6 +1590,8 @@ public abstract class GraphBaseImpl implements Graph, InternalGraph {
 	@Override
 	public final void defragment() {
 		// TODO is tc really required to be removed for defragmentation?
+		vertexIndex = null;
+		edgeIndex = null;
 		TraversalContext tc = setTraversalContext(null);
 		try {
 			// defragment vertex array
@@ -1483,6 +1662,7 @@ public abstract class GraphBaseImpl implements Graph, InternalGraph {
 	// sort vertices
 	@Override
 	public final void sortVertices(Comparator<Vertex> comp) {
+		vertexIndex = null;
 
 		if (getFirstVertexInVSeq() == null) {
 			// no sorting required for empty vertex lists
@@ -1648,6 +1828,7 @@ public abstract class GraphBaseImpl implements Graph, InternalGraph {
 
 	@Override
 	public final void sortEdges(Comparator<Edge> comp) {
+		edgeIndex = null;
 
 		if (getFirstEdgeInESeq() == null) {
 			// no sorting required for empty edge lists
@@ -1832,8 +2013,10 @@ public abstract class GraphBaseImpl implements Graph, InternalGraph {
 		}
 	}
 
+	// Graph markers register themselves on creation, and several threads may
+	// create markers while they evaluate GReQL queries on the same graph.
 	@Override
-	public void addGraphStructureChangedListener(
+	public synchronized void addGraphStructureChangedListener(
 			GraphStructureChangedListener newListener) {
 		assert newListener != null;
 		if (newListener instanceof GraphStructureChangedListenerWithAutoRemove) {
@@ -1846,7 +2029,7 @@ public abstract class GraphBaseImpl implements Graph, InternalGraph {
 	}
 
 	@Override
-	public final void removeGraphStructureChangedListener(
+	public final synchronized void removeGraphStructureChangedListener(
 			GraphStructureChangedListener listener) {
 		assert listener != null;
 		if (listener instanceof GraphStructureChangedListenerWithAutoRemove) {
@@ -2083,6 +2266,43 @@ public abstract class GraphBaseImpl implements Graph, InternalGraph {
 		return oldTc;
 	}
 
+	@Override
+	public final void setIncidenceIndexThreshold(int minDegree) {
+		incidenceIndex = minDegree > 0 ? new TypedIncidenceIndex(minDegree)
+				: null;
+	}
+
+	@Override
+	public final void setTypedSequenceIndexEnabled(boolean enabled) {
+		typedSequenceIndexEnabled = enabled;
+		if (!enabled) {
+			vertexIndex = null;
+			edgeIndex = null;
+		}
+	}
+
+	@Override
+	public final boolean isTypedSequenceIndexEnabled() {
+		return typedSequenceIndexEnabled;
+	}
+
+	@Override
+	public final int getIncidenceIndexThreshold() {
+		return incidenceIndex == null ? 0 : incidenceIndex.getThreshold();
+	}
+
+	/**
+	 * @param v
+	 *            a vertex of this graph
+	 * @return the indexed incidences of <code>v</code>, or null if the
+	 *         incidence index is disabled or <code>v</code> is not indexed
+	 */
+	final TypedIncidenceIndex.VertexIncidences getIndexedIncidences(
+			InternalVertex v) {
+		TypedIncidenceIndex index = incidenceIndex;
+		return index == null ? null : index.getIncidences(v);
+	}
+
 	@Override
 	public void loadingCompleted() {
 	}
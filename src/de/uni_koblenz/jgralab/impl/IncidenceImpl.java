@@ -35,6 +35,8 @@
 
 package de.uni_koblenz.jgralab.impl;
 
+import java.util.BitSet;
+
 import de.uni_koblenz.jgralab.Edge;
 import de.uni_koblenz.jgralab.EdgeDirection;
 import de.uni_koblenz.jgralab.Graph;
@@ -90,6 +92,13 @@ public abstract class IncidenceImpl extends GraphElementImpl<EdgeClass, Edge>
 	@Override
 	public Edge getNextIncidence(EdgeDirection orientation) {
 		assert isValid();
+		if (orientation != EdgeDirection.INOUT) {
+			TypedIncidenceIndex.VertexIncidences incidences = getIndexedIncidences();
+			if (incidences != null) {
+				return incidences.getNextIncidence(this, orientation, null,
+						false, null, graph.getTraversalContext());
+			}
+		}
 		Edge i = getNextIncidence();
 		switch (orientation) {
 		case IN:
@@ -190,6 +199,11 @@ public abstract class IncidenceImpl extends GraphElementImpl<EdgeClass, Edge>
 			EdgeDirection orientation, boolean noSubclasses) {
 		assert anEdgeClass != null;
 		assert isValid();
+		TypedIncidenceIndex.VertexIncidences incidences = getIndexedIncidences();
+		if (incidences != null) {
+			return incidences.getNextIncidence(this, orientation, anEdgeClass,
+					noSubclasses, null, graph.getTraversalContext());
+		}
 		Edge currentEdge = getNextIncidence(orientation);
 		while (currentEdge != null) {
 			if (noSubclasses) {
@@ -206,6 +220,35 @@ public abstract class IncidenceImpl extends GraphElementImpl<EdgeClass, Edge>
 		return null;
 	}
 
+	@Override
+	public Edge getNextIncidence(BitSet edgeClassIds, EdgeDirection orientation) {
+		assert edgeClassIds != null;
+		assert isValid();
+		TypedIncidenceIndex.VertexIncidences incidences = getIndexedIncidences();
+		if (incidences != null) {
+			return incidences.getNextIncidence(this, orientation, null, false,
+					edgeClassIds, graph.getTraversalContext());
+		}
+		Edge currentEdge = getNextIncidence(orientation);
+		while (currentEdge != null) {
+			if (edgeClassIds.get(currentEdge.getAttributedElementClass()
+					.getGraphElementClassIdInSchema())) {
+				return currentEdge;
+			}
+			currentEdge = currentEdge.getNextIncidence(orientation);
+		}
+		return null;
+	}
+
+	/**
+	 * @return the incidences of the vertex of this incidence grouped by
+	 *         direction and edge class, or null if the vertex is not indexed
+	 */
+	private TypedIncidenceIndex.VertexIncidences getIndexedIncidences() {
+		InternalVertex v = getIncidentVertex();
+		return v == null ? null : graph.getIndexedIncidences(v);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 *
@@ -35,6 +35,7 @@
 
 package de.uni_koblenz.jgralab.impl;
 
+import java.util.BitSet;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
@@ -104,8 +105,28 @@ public class IncidenceIterable<E extends Edge> implements Iterable<E> {
 		this.orientation = orientation;
 	}
 
+	/**
+	 * Creates an Iterable for all incident edges of Vertex <code>v</code>
+	 * whose edge class is contained in <code>edgeClassIds</code> with the
+	 * specified <code>orientation</code>.
+	 * 
+	 * @param v
+	 *            a Vertex
+	 * @param edgeClassIds
+	 *            the accepted edge classes, given by their schema ids (see
+	 *            {@link EdgeClass#getGraphElementClassIdInSchema()})
+	 * @param orientation
+	 *            desired orientation
+	 */
+	public IncidenceIterable(Vertex v, BitSet edgeClassIds,
+			EdgeDirection orientation) {
+		this(v, (EdgeClass) null, orientation);
+		this.edgeClassIds = edgeClassIds;
+	}
+
 	Vertex v;
 	EdgeClass ec;
+	BitSet edgeClassIds;
 	EdgeDirection orientation;
 
 	class IncidenceIterator implements Iterator<E> {
@@ -115,6 +136,8 @@ public class IncidenceIterable<E extends Edge> implements Iterable<E> {
 
 		protected EdgeClass schemaEc;
 
+		protected BitSet edgeClassIds;
+
 		protected EdgeDirection dir;
 
 		/**
@@ -125,15 +148,25 @@ public class IncidenceIterable<E extends Edge> implements Iterable<E> {
 		 */
 		protected long incidenceListVersion;
 
-		@SuppressWarnings("unchecked")
 		public IncidenceIterator(InternalVertex vertex, EdgeClass ec,
 				EdgeDirection dir) {
+			this(vertex, ec, null, dir);
+		}
+
+		@SuppressWarnings("unchecked")
+		public IncidenceIterator(InternalVertex vertex, EdgeClass ec,
+				BitSet edgeClassIds, EdgeDirection dir) {
 			this.vertex = vertex;
 			this.schemaEc = ec;
+			this.edgeClassIds = edgeClassIds;
 			this.dir = dir;
 			incidenceListVersion = vertex.getIncidenceListVersion();
-			current = (E) ((ec == null) ? vertex.getFirstIncidence(dir)
-					: vertex.getFirstIncidence(ec, dir));
+			if (edgeClassIds != null) {
+				current = (E) vertex.getFirstIncidence(edgeClassIds, dir);
+			} else {
+				current = (E) ((ec == null) ? vertex.getFirstIncidence(dir)
+						: vertex.getFirstIncidence(ec, dir));
+			}
 		}
 
 		@Override
@@ -147,8 +180,13 @@ public class IncidenceIterable<E extends Edge> implements Iterable<E> {
 				throw new NoSuchElementException();
 			}
 			E result = current;
-			current = (E) (schemaEc == null ? current.getNextIncidence(dir)
-					: current.getNextIncidence(schemaEc, dir));
+			if (edgeClassIds != null) {
+				current = (E) ((InternalEdge) current).getNextIncidence(
+						edgeClassIds, dir);
+			} else {
+				current = (E) (schemaEc == null ? current.getNextIncidence(dir)
+						: current.getNextIncidence(schemaEc, dir));
+			}
 			return result;
 		}
 
@@ -171,6 +209,7 @@ public class IncidenceIterable<E extends Edge> implements Iterable<E> {
 
 	@Override
 	public Iterator<E> iterator() {
-		return new IncidenceIterator((InternalVertex) v, ec, orientation);
+		return new IncidenceIterator((InternalVertex) v, ec, edgeClassIds,
+				orientation);
 	}
 }
@@ -34,7 +34,10 @@
  */
 package de.uni_koblenz.jgralab.impl;
 
+import java.util.BitSet;
+
 import de.uni_koblenz.jgralab.Edge;
+import de.uni_koblenz.jgralab.EdgeDirection;
 import de.uni_koblenz.jgralab.Vertex;
 import de.uni_koblenz.jgralab.schema.EdgeClass;
 
@@ -79,4 +82,28 @@ public interface InternalEdge extends Edge,
 
 	public void setPrevIncidenceInternal(InternalEdge prevIncidence);
 
+	/**
+	 * Returns the next incidence with the given orientation whose edge class
+	 * is contained in <code>edgeClassIds</code>.
+	 * 
+	 * @param edgeClassIds
+	 *            the accepted edge classes, given by their schema ids
+	 * @param orientation
+	 *            the orientation of the incidence
+	 * @return the next matching incidence, or null if there is none
+	 * @see InternalVertex#getFirstIncidence(BitSet, EdgeDirection)
+	 */
+	public Edge getNextIncidence(BitSet edgeClassIds, EdgeDirection orientation);
+
+	/**
+	 * Returns the next edge in the edge sequence of the graph whose edge class
+	 * is contained in <code>edgeClassIds</code>.
+	 * 
+	 * @param edgeClassIds
+	 *            the accepted edge classes, given by their schema ids
+	 * @return the next matching edge, or null if there is none
+	 * @see InternalGraph#getFirstEdge(BitSet)
+	 */
+	public Edge getNextEdge(BitSet edgeClassIds);
+
 }
@@ -34,6 +34,7 @@
  */
 package de.uni_koblenz.jgralab.impl;
 
+import java.util.BitSet;
 import java.util.List;
 
 import de.uni_koblenz.jgralab.AttributedElement;
@@ -311,6 +312,46 @@ public interface InternalGraph extends Graph, InternalAttributedElement {
 	 */
 	public void vertexListModified();
 
+	/**
+	 * Must be called whenever the ids of vertices have been changed other
+	 * than by creating and deleting vertices.
+	 */
+	public void vertexIdsChanged();
+
+	/**
+	 * Must be called whenever the ids of edges have been changed other than
+	 * by creating and deleting edges.
+	 */
+	public void edgeIdsChanged();
+
+	/**
+	 * Must be called by vertices which get their class only after they have
+	 * been appended to vSeq (generic vertices), as soon as the class is set.
+	 */
+	public void vertexClassAssigned(InternalVertex v);
+
+	/**
+	 * Returns the first vertex in vSeq whose vertex class has one of the given
+	 * ids.
+	 * 
+	 * @param vertexClassIds
+	 *            the accepted vertex classes, given by their schema ids (see
+	 *            {@link de.uni_koblenz.jgralab.schema.GraphElementClass#getGraphElementClassIdInSchema()})
+	 * @return the first vertex of an accepted class, or null
+	 */
+	public Vertex getFirstVertex(BitSet vertexClassIds);
+
+	/**
+	 * Returns the first edge in eSeq whose edge class has one of the given
+	 * ids.
+	 * 
+	 * @param edgeClassIds
+	 *            the accepted edge classes, given by their schema ids (see
+	 *            {@link de.uni_koblenz.jgralab.schema.GraphElementClass#getGraphElementClassIdInSchema()})
+	 * @return the first edge of an accepted class, or null
+	 */
+	public Edge getFirstEdge(BitSet edgeClassIds);
+
 	/**
 	 * Changes the size of the edge array of this graph to newSize.
 	 * 
@@ -34,6 +34,10 @@
  */
 package de.uni_koblenz.jgralab.impl;
 
+import java.util.BitSet;
+
+import de.uni_koblenz.jgralab.Edge;
+import de.uni_koblenz.jgralab.EdgeDirection;
 import de.uni_koblenz.jgralab.Vertex;
 import de.uni_koblenz.jgralab.schema.VertexClass;
 import de.uni_koblenz.jgralab.schema.impl.DirectedSchemaEdgeClass;
@@ -101,4 +105,29 @@ public interface InternalVertex extends Vertex,
 
 	public void setIncidenceListVersion(long incidenceListVersion);
 
+	/**
+	 * Returns the first incidence of this vertex with the given orientation
+	 * whose edge class is contained in <code>edgeClassIds</code>.
+	 * 
+	 * @param edgeClassIds
+	 *            the accepted edge classes, given by their schema ids (see
+	 *            {@link de.uni_koblenz.jgralab.schema.GraphElementClass#getGraphElementClassIdInSchema()})
+	 * @param orientation
+	 *            the orientation of the incidence
+	 * @return the first matching incidence, or null if there is none
+	 */
+	public Edge getFirstIncidence(BitSet edgeClassIds,
+			EdgeDirection orientation);
+
+	/**
+	 * Returns the next vertex in the vertex sequence of the graph whose vertex
+	 * class is contained in <code>vertexClassIds</code>.
+	 * 
+	 * @param vertexClassIds
+	 *            the accepted vertex classes, given by their schema ids
+	 * @return the next matching vertex, or null if there is none
+	 * @see InternalGraph#getFirstVertex(BitSet)
+	 */
+	public Vertex getNextVertex(BitSet vertexClassIds);
+
 }
@@ -143,6 +143,11 @@ public abstract class ReversedEdgeBaseImpl extends IncidenceImpl implements
 		return normalEdge.getNextEdge(anEdgeClass);
 	}
 
+	@Override
+	public Edge getNextEdge(BitSet edgeClassIds) {
+		return normalEdge.getNextEdge(edgeClassIds);
+	}
+
 	@Override
 	public Edge getNormalEdge() {
 		return normalEdge;
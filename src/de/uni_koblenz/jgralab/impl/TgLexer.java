@@ -73,7 +73,8 @@ public class TgLexer {
 	private int la; // look-ahead character
 	private int putBackChar;
 
-	private static TgTokenRecognizer rec = new TgTokenRecognizer();
+	private static final TgTokenRecognizer RECOGNIZER = new TgTokenRecognizer();
+	private final TgTokenRecognizer rec = new TgTokenRecognizer(RECOGNIZER);
 
 	private static final int TEXT_SIZE = 1024;
 	private char[] text; // buffer for short tokens (length <= TEXT_SIZE)
@@ -124,6 +125,26 @@ public class TgLexer {
 		la = read();
 	}
 
+	/**
+	 * Creates a TgLexer for the first <code>length</code> bytes of the
+	 * ASCII encoded input <code>b</code>.
+	 * 
+	 * @param b
+	 *            input bytes, must not be null
+	 * @param length
+	 *            number of bytes to process
+	 * @throws GraphIOException
+	 *             (actually, this constructor won't throw a GraphIOException)
+	 */
+	public TgLexer(byte[] b, int length) throws GraphIOException {
+		buffer = b;
+		bufferSize = length;
+		text = new char[TEXT_SIZE];
+		putBackChar = -1;
+		line = 1;
+		la = read();
+	}
+
 	/**
 	 * @return a human readable input position
 	 */
@@ -186,6 +207,23 @@ public class TgLexer {
 		return ch;
 	}
 
+	/**
+	 * Returns the look-ahead character and advances the input by one
+	 * character without building a token. This allows callers to process raw
+	 * input after the last token returned by {@link #nextToken()}.
+	 * 
+	 * @return the next character as <code>int</code> value, or -1 on EOF
+	 * @throws GraphIOException
+	 *             when input can't be read
+	 */
+	public final int nextChar() throws GraphIOException {
+		int c = la;
+		if (c >= 0) {
+			la = read();
+		}
+		return c;
+	}
+
 	/**
 	 * @param c
 	 *            character code
@@ -55,10 +55,11 @@ import de.uni_koblenz.jgralab.impl.TgLexer.Token;
  */
 final class TgTokenRecognizer {
 
-	private State[] states; // the DFA states
-	private int minChar; // min character code of all tokens
-	private int maxChar; // max character code of all tokens
-	private int maxLen; // length of longest lexeme
+	// the DFA tables are immutable after construction and may be shared
+	private final State[] states; // the DFA states
+	private final int minChar; // min character code of all tokens
+	private final int maxChar; // max character code of all tokens
+	private final int maxLen; // length of longest lexeme
 	private int pos; // number of characters in current token
 	private State currentState;
 
@@ -86,9 +87,9 @@ final class TgTokenRecognizer {
 	 * To process integer and long values, characters +, -, and 0..9 are added.
 	 */
 	TgTokenRecognizer() {
-		minChar = Math.min('-', Math.min('+', '0'));
-		maxChar = Math.max('-', Math.max('+', '9'));
-		maxLen = Integer.MIN_VALUE;
+		int minChar = Math.min('-', Math.min('+', '0'));
+		int maxChar = Math.max('-', Math.max('+', '9'));
+		int maxLen = Integer.MIN_VALUE;
 		for (Token t : Token.values()) {
 			String s = t.lexeme;
 			if (s == null) {
@@ -106,6 +107,9 @@ final class TgTokenRecognizer {
 				}
 			}
 		}
+		this.minChar = minChar;
+		this.maxChar = maxChar;
+		this.maxLen = maxLen;
 
 		// number of entries in State's next arrays
 		int stateLen = maxChar - minChar + 1;
@@ -225,6 +229,21 @@ final class TgTokenRecognizer {
 		dfaStates = null;
 	}
 
+	/**
+	 * Creates a TgTokenRecognizer which shares the DFA states of
+	 * <code>prototype</code>, but has its own matching state. This allows
+	 * several {@link TgLexer}s to run concurrently.
+	 * 
+	 * @param prototype
+	 *            a TgTokenRecognizer
+	 */
+	TgTokenRecognizer(TgTokenRecognizer prototype) {
+		states = prototype.states;
+		minChar = prototype.minChar;
+		maxChar = prototype.maxChar;
+		maxLen = prototype.maxLen;
+	}
+
 	/**
 	 * reset recognizer to match a new token
 	 */
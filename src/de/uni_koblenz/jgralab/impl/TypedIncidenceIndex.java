@@ -0,0 +1,341 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab.impl;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import de.uni_koblenz.jgralab.Edge;
+import de.uni_koblenz.jgralab.EdgeDirection;
+import de.uni_koblenz.jgralab.TraversalContext;
+import de.uni_koblenz.jgralab.schema.EdgeClass;
+
+/**
+ * A secondary index of the incidences of high-degree vertices. For every
+ * vertex with at least {@link #getThreshold()} incidences, the incidences are
+ * grouped by direction and by edge class. Each group keeps the order of the
+ * incidence list (lambda sequence) of the vertex, so the first or next
+ * incidence of a given direction or edge class is found without skipping the
+ * non-matching incidences, and all lookups yield the same edges in the same
+ * order as a scan of the incidence list.
+ * 
+ * The incidences of a vertex are indexed lazily on the first lookup, and the
+ * index of a vertex is rebuilt when its incidence list version has changed.
+ * Once built, the index of a vertex is never modified, so graphs which are
+ * only read may be traversed by several threads concurrently.
+ * 
+ * @author ist@uni-koblenz.de
+ */
+final class TypedIncidenceIndex {
+
+	/**
+	 * The minimal degree of indexed vertices
+	 */
+	private final int threshold;
+
+	/**
+	 * The incidences of vertex <code>v</code> at position
+	 * <code>v.getId()</code>
+	 */
+	private VertexIncidences[] incidences = new VertexIncidences[0];
+
+	TypedIncidenceIndex(int threshold) {
+		assert threshold > 0;
+		this.threshold = threshold;
+	}
+
+	/**
+	 * @return the minimal degree of indexed vertices
+	 */
+	int getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * Returns the indexed incidences of <code>v</code>.
+	 * 
+	 * @param v
+	 *            a vertex
+	 * @return the incidences of <code>v</code> grouped by direction and edge
+	 *         class, or null if <code>v</code> has less than
+	 *         {@link #getThreshold()} incidences
+	 */
+	VertexIncidences getIncidences(InternalVertex v) {
+		int id = v.getId();
+		long version = v.getIncidenceListVersion();
+		VertexIncidences[] vi = incidences;
+		if (id < vi.length) {
+			VertexIncidences i = vi[id];
+			if ((i != null) && (i.vertex == v) && (i.version == version)) {
+				return i.isIndexed() ? i : null;
+			}
+		} else {
+			vi = new VertexIncidences[Math.max(id, ((InternalGraph) v
+					.getGraph()).getMaxVCount()) + 1];
+			System.arraycopy(incidences, 0, vi, 0, incidences.length);
+			incidences = vi;
+		}
+		int degree = 0;
+		for (InternalEdge e = v.getFirstIncidenceInISeq(); (e != null)
+				&& (degree < threshold); e = e.getNextIncidenceInISeq()) {
+			++degree;
+		}
+		VertexIncidences i = new VertexIncidences(v, version,
+				degree >= threshold);
+		vi[id] = i;
+		return i.isIndexed() ? i : null;
+	}
+
+	/**
+	 * The incidences of one vertex grouped by direction and edge class.
+	 */
+	static final class VertexIncidences {
+		/**
+		 * The vertex this index belongs to
+		 */
+		private final InternalVertex vertex;
+
+		/**
+		 * The incidence list version of the vertex this index belongs to
+		 */
+		private final long version;
+
+		/**
+		 * The edge classes of the incidences, null if the vertex is not
+		 * indexed
+		 */
+		private final EdgeClass[] classes;
+
+		/**
+		 * The groups of incidences. At index <code>2 * i</code> are the
+		 * outgoing incidences of <code>classes[i]</code>, at index
+		 * <code>2 * i + 1</code> the incoming ones. The last two groups contain
+		 * all outgoing and all incoming incidences.
+		 */
+		private final InternalEdge[][] groups;
+
+		/**
+		 * The positions of the incidences of each group in the incidence list
+		 */
+		private final int[][] positions;
+
+		/**
+		 * Maps all incidences to their position in the incidence list
+		 */
+		private final IdentityHashMap<Edge, Integer> positionOf;
+
+		private VertexIncidences(InternalVertex v, long version, boolean indexed) {
+			vertex = v;
+			this.version = version;
+			if (!indexed) {
+				classes = null;
+				groups = null;
+				positions = null;
+				positionOf = null;
+				return;
+			}
+
+			List<EdgeClass> classList = new ArrayList<>();
+			List<InternalEdge> incidenceList = new ArrayList<>();
+			List<Integer> groupList = new ArrayList<>();
+			IdentityHashMap<EdgeClass, Integer> classIndex = new IdentityHashMap<>();
+			for (InternalEdge e = v.getFirstIncidenceInISeq(); e != null; e = e
+					.getNextIncidenceInISeq()) {
+				EdgeClass ec = e.getAttributedElementClass();
+				Integer index = classIndex.get(ec);
+				if (index == null) {
+					index = classList.size();
+					classIndex.put(ec, index);
+					classList.add(ec);
+				}
+				incidenceList.add(e);
+				groupList.add((2 * index) + (e.isNormal() ? 0 : 1));
+			}
+			classes = classList.toArray(new EdgeClass[classList.size()]);
+
+			int groupCount = (2 * classes.length) + 2;
+			int[] sizes = new int[groupCount];
+			for (int g : groupList) {
+				++sizes[g];
+				++sizes[(groupCount - 2) + (g % 2)];
+			}
+			groups = new InternalEdge[groupCount][];
+			positions = new int[groupCount][];
+			for (int g = 0; g < groupCount; g++) {
+				groups[g] = new InternalEdge[sizes[g]];
+				positions[g] = new int[sizes[g]];
+				sizes[g] = 0;
+			}
+			positionOf = new IdentityHashMap<>(incidenceList.size());
+			for (int p = 0; p < incidenceList.size(); p++) {
+				InternalEdge e = incidenceList.get(p);
+				int g = groupList.get(p);
+				add(g, e, p, sizes);
+				add((groupCount - 2) + (g % 2), e, p, sizes);
+				positionOf.put(e, p);
+			}
+		}
+
+		private void add(int group, InternalEdge e, int position, int[] sizes) {
+			groups[group][sizes[group]] = e;
+			positions[group][sizes[group]] = position;
+			++sizes[group];
+		}
+
+		private boolean isIndexed() {
+			return groups != null;
+		}
+
+		/**
+		 * Returns the first incidence after <code>previous</code> in the
+		 * incidence list which matches the given restrictions.
+		 * 
+		 * @param previous
+		 *            an incidence of the vertex, or null to get the first
+		 *            matching incidence
+		 * @param orientation
+		 *            the direction of the incidence
+		 * @param ec
+		 *            the class of the incidence, or null
+		 * @param noSubclasses
+		 *            if true, subclasses of <code>ec</code> are not accepted
+		 * @param edgeClassIds
+		 *            the accepted schema ids of edge classes (see
+		 *            {@link EdgeClass#getGraphElementClassIdInSchema()}), or
+		 *            null
+		 * @param tc
+		 *            the current traversal context, or null
+		 * @return the next matching incidence, or null if there is none
+		 */
+		InternalEdge getNextIncidence(Edge previous,
+				EdgeDirection orientation, EdgeClass ec, boolean noSubclasses,
+				BitSet edgeClassIds, TraversalContext tc) {
+			InternalEdge next = getNextIncidence(previous, orientation, ec,
+					noSubclasses, edgeClassIds);
+			while ((tc != null) && (next != null) && !tc.containsEdge(next)) {
+				next = getNextIncidence(next, orientation, ec, noSubclasses,
+						edgeClassIds);
+			}
+			return next;
+		}
+
+		private InternalEdge getNextIncidence(Edge previous,
+				EdgeDirection orientation, EdgeClass ec, boolean noSubclasses,
+				BitSet edgeClassIds) {
+			int position = previous == null ? -1 : positionOf.get(previous);
+			InternalEdge next = null;
+			int nextPosition = Integer.MAX_VALUE;
+			int groupCount = groups.length;
+			for (int g = 0; g < groupCount; g++) {
+				if (!isSelected(g, orientation, ec, noSubclasses, edgeClassIds)) {
+					continue;
+				}
+				int[] p = positions[g];
+				int i = successor(p, position);
+				if ((i < p.length) && (p[i] < nextPosition)) {
+					next = groups[g][i];
+					nextPosition = p[i];
+				}
+			}
+			return next;
+		}
+
+		/**
+		 * Returns the number of incidences which match the given restrictions.
+		 * 
+		 * @see #getNextIncidence(Edge, EdgeDirection, EdgeClass, boolean,
+		 *      BitSet, TraversalContext)
+		 */
+		int getDegree(EdgeDirection orientation, EdgeClass ec,
+				boolean noSubclasses, BitSet edgeClassIds) {
+			int degree = 0;
+			int groupCount = groups.length;
+			for (int g = 0; g < groupCount; g++) {
+				if (isSelected(g, orientation, ec, noSubclasses, edgeClassIds)) {
+					degree += groups[g].length;
+				}
+			}
+			return degree;
+		}
+
+		/**
+		 * Checks if the incidences of group <code>g</code> match the given
+		 * restrictions. Only groups of a single edge class are selected if
+		 * there is an edge class restriction, else only the groups of all
+		 * outgoing or all incoming incidences.
+		 */
+		private boolean isSelected(int g, EdgeDirection orientation,
+				EdgeClass ec, boolean noSubclasses, BitSet edgeClassIds) {
+			boolean in = (g % 2) == 1;
+			if ((in && (orientation == EdgeDirection.OUT))
+					|| (!in && (orientation == EdgeDirection.IN))) {
+				return false;
+			}
+			int c = g / 2;
+			if (c == classes.length) {
+				return (ec == null) && (edgeClassIds == null);
+			}
+			if (edgeClassIds != null) {
+				return edgeClassIds.get(classes[c]
+						.getGraphElementClassIdInSchema());
+			}
+			if (ec != null) {
+				return (classes[c] == ec)
+						|| (!noSubclasses && classes[c].isSubClassOf(ec));
+			}
+			return false;
+		}
+
+		/**
+		 * @return the index of the first element of the sorted array
+		 *         <code>p</code> which is greater than <code>position</code>
+		 */
+		private static int successor(int[] p, int position) {
+			int low = 0;
+			int high = p.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (p[mid] <= position) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+	}
+}
@@ -0,0 +1,262 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab.impl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import de.uni_koblenz.jgralab.GraphElement;
+import de.uni_koblenz.jgralab.schema.GraphElementClass;
+
+/**
+ * A secondary index of the vertex sequence (vSeq) or edge sequence (eSeq) of a
+ * graph, which partitions the elements by their
+ * {@link GraphElementClass#getGraphElementClassIdInSchema() class id}. Each
+ * partition keeps the order of the sequence, so the first or next element of a
+ * set of classes is found without visiting the elements of other classes, and
+ * all lookups yield the same elements in the same order as a scan of the
+ * sequence.
+ * 
+ * The order is represented by ranks which increase along the sequence.
+ * Appending an element assigns the next rank, deleting an element only
+ * invalidates its rank. Deleted elements are skipped and dropped when the
+ * index is rebuilt. Rearranging the sequence or changing element ids requires
+ * a rebuild, which is signalled by the <code>false</code> results of
+ * {@link #append(GraphElement)} and {@link #remove(GraphElement)} and handled
+ * by {@link GraphBaseImpl}.
+ * 
+ * @author ist@uni-koblenz.de
+ * 
+ * @param <E>
+ *            Vertex or Edge
+ */
+final class TypedSequenceIndex<E extends GraphElement<?, ?>> {
+
+	/**
+	 * The rank of the element with id <code>i</code> at position
+	 * <code>i</code>, 0 if there is no such element
+	 */
+	private int[] rankOf;
+
+	/**
+	 * The rank of the last appended element
+	 */
+	private int lastRank;
+
+	/**
+	 * The elements of the class with id <code>c</code> in sequence order at
+	 * position <code>c</code>, including deleted ones
+	 */
+	private GraphElement<?, ?>[][] members;
+
+	/**
+	 * The ranks of the elements in <code>members</code>
+	 */
+	private int[][] ranks;
+
+	/**
+	 * The number of used entries in <code>members</code> and
+	 * <code>ranks</code>
+	 */
+	private int[] sizes;
+
+	/**
+	 * The number of deleted elements which are still contained in
+	 * <code>members</code>
+	 */
+	private int removed;
+
+	/**
+	 * The number of elements in the sequence
+	 */
+	private int count;
+
+	/**
+	 * The ids of a class and all its subclasses for each class id, computed
+	 * on demand
+	 */
+	private BitSet[] selections;
+
+	TypedSequenceIndex(int classCount, int maxId) {
+		rankOf = new int[maxId + 1];
+		members = new GraphElement<?, ?>[classCount][];
+		ranks = new int[classCount][];
+		sizes = new int[classCount];
+		selections = new BitSet[classCount];
+	}
+
+	/**
+	 * Appends <code>e</code> at the end of the indexed sequence.
+	 * 
+	 * @param e
+	 *            a new element of the sequence
+	 * @return false if the index is exhausted or the class of <code>e</code>
+	 *         is not known yet, so the index has to be rebuilt
+	 */
+	boolean append(E e) {
+		GraphElementClass<?, ?> gec = e.getAttributedElementClass();
+		if ((lastRank == Integer.MAX_VALUE) || (gec == null)) {
+			// generic vertices are appended before their class is set and
+			// indexed by GraphBaseImpl.vertexClassAssigned()
+			return false;
+		}
+		int id = e.getId();
+		int c = gec.getGraphElementClassIdInSchema();
+		if (id >= rankOf.length) {
+			rankOf = Arrays.copyOf(rankOf,
+					Math.max(id + 1, rankOf.length * 2));
+		}
+		if (c >= members.length) {
+			int n = c + 1;
+			members = Arrays.copyOf(members, n);
+			ranks = Arrays.copyOf(ranks, n);
+			sizes = Arrays.copyOf(sizes, n);
+			selections = Arrays.copyOf(selections, n);
+		}
+		int size = sizes[c];
+		if (members[c] == null) {
+			members[c] = new GraphElement<?, ?>[8];
+			ranks[c] = new int[8];
+		} else if (size == members[c].length) {
+			members[c] = Arrays.copyOf(members[c], size * 2);
+			ranks[c] = Arrays.copyOf(ranks[c], size * 2);
+		}
+		int rank = ++lastRank;
+		members[c][size] = e;
+		ranks[c][size] = rank;
+		sizes[c] = size + 1;
+		rankOf[id] = rank;
+		++count;
+		return true;
+	}
+
+	/**
+	 * Removes <code>e</code> from the indexed sequence. Must be called while
+	 * <code>e</code> still has its id.
+	 * 
+	 * @param e
+	 *            an element of the sequence which is deleted
+	 * @return false if the index contains too many deleted elements and
+	 *         should be rebuilt
+	 */
+	boolean remove(E e) {
+		rankOf[e.getId()] = 0;
+		--count;
+		++removed;
+		return removed <= count + 64;
+	}
+
+	/**
+	 * @return true iff the element at position <code>i</code> of the members
+	 *         of class <code>c</code> is still contained in the sequence
+	 */
+	private boolean isAlive(int c, int i) {
+		int id = members[c][i].getId();
+		return (id > 0) && (id < rankOf.length)
+				&& (rankOf[id] == ranks[c][i]);
+	}
+
+	/**
+	 * Returns the element following <code>current</code> in the sequence
+	 * whose class id is contained in <code>classIds</code>.
+	 * 
+	 * @param current
+	 *            an element of the sequence, or null to get the first element
+	 * @param classIds
+	 *            the accepted class ids
+	 * @return the next element in the sequence with an accepted class, or
+	 *         null if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	E getNext(E current, BitSet classIds) {
+		int r = current == null ? 0 : rankOf[current.getId()];
+		assert (current == null) || (r > 0);
+		GraphElement<?, ?> result = null;
+		int resultRank = Integer.MAX_VALUE;
+		for (int c = classIds.nextSetBit(0); (c >= 0) && (c < sizes.length); c = classIds
+				.nextSetBit(c + 1)) {
+			int size = sizes[c];
+			if (size == 0) {
+				continue;
+			}
+			int[] rs = ranks[c];
+			// binary search for the first member with a rank > r
+			int lo = 0;
+			int hi = size;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (rs[mid] <= r) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+			while ((lo < size) && (rs[lo] < resultRank) && !isAlive(c, lo)) {
+				++lo;
+			}
+			if ((lo < size) && (rs[lo] < resultRank)) {
+				result = members[c][lo];
+				resultRank = rs[lo];
+			}
+		}
+		return (E) result;
+	}
+
+	/**
+	 * Returns the class ids selected by <code>gec</code>, i.e., the id of
+	 * <code>gec</code> and the ids of all its subclasses.
+	 * 
+	 * @param gec
+	 *            a vertex or edge class
+	 * @return a BitSet containing the ids of <code>gec</code> and all of its
+	 *         subclasses, which must not be modified
+	 */
+	BitSet getSelection(GraphElementClass<?, ?> gec) {
+		int c = gec.getGraphElementClassIdInSchema();
+		BitSet[] s = selections;
+		BitSet result = c < s.length ? s[c] : null;
+		if (result == null) {
+			result = new BitSet();
+			result.set(c);
+			for (GraphElementClass<?, ?> sub : gec.getAllSubClasses()) {
+				result.set(sub.getGraphElementClassIdInSchema());
+			}
+			if (c < s.length) {
+				s[c] = result;
+			}
+		}
+		return result;
+	}
+}
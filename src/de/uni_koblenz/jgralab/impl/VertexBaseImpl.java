@@ -110,6 +110,10 @@ public abstract class VertexBaseImpl extends
 	 */
 	@Override
 	public final int getDegree(EdgeDirection orientation) {
+		TypedIncidenceIndex.VertexIncidences incidences = getIndexedIncidences();
+		if ((incidences != null) && (graph.getTraversalContext() == null)) {
+			return incidences.getDegree(orientation, null, false, null);
+		}
 		int d = 0;
 		Edge i = getFirstIncidence();
 		switch (orientation) {
@@ -169,14 +173,14 @@ public abstract class VertexBaseImpl extends
 	public final Vertex getNextVertex(VertexClass vertexClass) {
 		assert vertexClass != null;
 		assert isValid();
-		Vertex v = getNextVertex();
-		while (v != null) {
-			if (v.isInstanceOf(vertexClass)) {
-				return v;
-			}
-			v = v.getNextVertex();
-		}
-		return null;
+		return graph.getNextVertex(this, vertexClass);
+	}
+
+	@Override
+	public final Vertex getNextVertex(BitSet vertexClassIds) {
+		assert vertexClassIds != null;
+		assert isValid();
+		return graph.getNextVertex(this, vertexClassIds);
 	}
 
 	/*
@@ -286,6 +290,13 @@ public abstract class VertexBaseImpl extends
 	@Override
 	public final Edge getFirstIncidence(EdgeDirection orientation) {
 		assert isValid();
+		if (orientation != EdgeDirection.INOUT) {
+			TypedIncidenceIndex.VertexIncidences incidences = getIndexedIncidences();
+			if (incidences != null) {
+				return incidences.getNextIncidence(null, orientation, null,
+						false, null, graph.getTraversalContext());
+			}
+		}
 		Edge i = getFirstIncidence();
 		switch (orientation) {
 		case IN:
@@ -351,6 +362,11 @@ public abstract class VertexBaseImpl extends
 			EdgeDirection orientation) {
 		assert anEdgeClass != null;
 		assert isValid();
+		TypedIncidenceIndex.VertexIncidences incidences = getIndexedIncidences();
+		if (incidences != null) {
+			return incidences.getNextIncidence(null, orientation, anEdgeClass,
+					false, null, graph.getTraversalContext());
+		}
 		Edge currentEdge = getFirstIncidence(orientation);
 		while (currentEdge != null) {
 			if (currentEdge.isInstanceOf(anEdgeClass)) {
@@ -361,6 +377,36 @@ public abstract class VertexBaseImpl extends
 		return null;
 	}
 
+	@Override
+	public final Edge getFirstIncidence(BitSet edgeClassIds,
+			EdgeDirection orientation) {
+		assert edgeClassIds != null;
+		assert isValid();
+		TypedIncidenceIndex.VertexIncidences incidences = getIndexedIncidences();
+		if (incidences != null) {
+			return incidences.getNextIncidence(null, orientation, null, false,
+					edgeClassIds, graph.getTraversalContext());
+		}
+		Edge currentEdge = getFirstIncidence(orientation);
+		while (currentEdge != null) {
+			if (edgeClassIds.get(currentEdge.getAttributedElementClass()
+					.getGraphElementClassIdInSchema())) {
+				return currentEdge;
+			}
+			currentEdge = currentEdge.getNextIncidence(orientation);
+		}
+		return null;
+	}
+
+	/**
+	 * @return the incidences of this vertex grouped by direction and edge
+	 *         class, or null if this vertex is not indexed
+	 * @see Graph#setIncidenceIndexThreshold(int)
+	 */
+	final TypedIncidenceIndex.VertexIncidences getIndexedIncidences() {
+		return graph.getIndexedIncidences(this);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -522,6 +568,10 @@ public abstract class VertexBaseImpl extends
 	public final int getDegree(EdgeClass ec, EdgeDirection orientation) {
 		assert ec != null;
 		assert isValid();
+		TypedIncidenceIndex.VertexIncidences incidences = getIndexedIncidences();
+		if ((incidences != null) && (graph.getTraversalContext() == null)) {
+			return incidences.getDegree(orientation, ec, false, null);
+		}
 		int degree = 0;
 		for (Edge e = getFirstIncidence(ec, orientation); e != null; e = e
 				.getNextIncidence(ec, orientation)) {
@@ -0,0 +1,341 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab.impl.compact;
+
+import java.util.Arrays;
+
+import de.uni_koblenz.jgralab.Edge;
+import de.uni_koblenz.jgralab.Vertex;
+import de.uni_koblenz.jgralab.impl.InternalEdge;
+import de.uni_koblenz.jgralab.impl.InternalVertex;
+import de.uni_koblenz.jgralab.schema.GraphClass;
+
+/**
+ * The implementation of a <code>Graph</code> which keeps the vertex sequence,
+ * the edge sequence and the incidence lists of all its elements in primitive
+ * arrays indexed by element id. Vertices and edges only hold their id and
+ * their attributes, so that large graphs need considerably less memory and
+ * traversals touch densely packed arrays instead of scattered objects.
+ * 
+ * Incidences are identified by signed edge ids (positive for the normal edge,
+ * negative for its reversed edge), <code>0</code> denotes <code>null</code>.
+ * The incidence arrays are indexed by the slot of an incidence, i.e.
+ * <code>2 * |id|</code> for normal edges and <code>2 * |id| + 1</code> for
+ * reversed edges.
+ * 
+ * Temporary elements are inherited from the standard implementation and keep
+ * their links in fields. As all references are resolved by id, they can be
+ * mixed freely with compact elements.
+ * 
+ * @author ist@uni-koblenz.de
+ */
+public abstract class GraphImpl extends
+		de.uni_koblenz.jgralab.impl.std.GraphImpl {
+	// vertex sequence and incidence list heads, indexed by vertex id (note:
+	// the arrays are allocated while the super constructor runs, so they must
+	// not have initializers)
+	private int[] nextVertexId;
+	private int[] prevVertexId;
+	private int[] firstIncidenceId;
+	private int[] lastIncidenceId;
+	private long[] incidenceListVersion;
+
+	// edge sequence, indexed by edge id
+	private int[] nextEdgeId;
+	private int[] prevEdgeId;
+
+	// incidence lists, indexed by incidence slot
+	private int[] incidentVertexId;
+	private int[] nextIncidenceId;
+	private int[] prevIncidenceId;
+
+	protected GraphImpl(String id, GraphClass cls, int max, int max2) {
+		super(id, cls, max, max2);
+	}
+
+	protected GraphImpl(String id, GraphClass cls) {
+		super(id, cls);
+	}
+
+	private static int[] resize(int[] a, int size) {
+		return a == null ? new int[size] : Arrays.copyOf(a, size);
+	}
+
+	@Override
+	public void setVertex(InternalVertex[] vertex) {
+		super.setVertex(vertex);
+		int size = vertex.length;
+		nextVertexId = resize(nextVertexId, size);
+		prevVertexId = resize(prevVertexId, size);
+		firstIncidenceId = resize(firstIncidenceId, size);
+		lastIncidenceId = resize(lastIncidenceId, size);
+		incidenceListVersion = incidenceListVersion == null ? new long[size]
+				: Arrays.copyOf(incidenceListVersion, size);
+	}
+
+	@Override
+	public void setEdge(InternalEdge[] edge) {
+		super.setEdge(edge);
+		int size = edge.length;
+		nextEdgeId = resize(nextEdgeId, size);
+		prevEdgeId = resize(prevEdgeId, size);
+		incidentVertexId = resize(incidentVertexId, 2 * size);
+		nextIncidenceId = resize(nextIncidenceId, 2 * size);
+		prevIncidenceId = resize(prevIncidenceId, 2 * size);
+	}
+
+	@Override
+	public void freeVertexIndex(int index) {
+		super.freeVertexIndex(index);
+		nextVertexId[index] = 0;
+		prevVertexId[index] = 0;
+		firstIncidenceId[index] = 0;
+		lastIncidenceId[index] = 0;
+		incidenceListVersion[index] = 0;
+	}
+
+	@Override
+	public void freeEdgeIndex(int index) {
+		super.freeEdgeIndex(index);
+		nextEdgeId[index] = 0;
+		prevEdgeId[index] = 0;
+		for (int s = index << 1; s <= ((index << 1) | 1); ++s) {
+			incidentVertexId[s] = 0;
+			nextIncidenceId[s] = 0;
+			prevIncidenceId[s] = 0;
+		}
+	}
+
+	/**
+	 * @return the index of the incidence with the given signed id in the
+	 *         incidence arrays
+	 */
+	private static int slot(int incidenceId) {
+		return incidenceId > 0 ? incidenceId << 1 : ((-incidenceId) << 1) | 1;
+	}
+
+	private static int idOf(Vertex v) {
+		return v == null ? 0 : v.getId();
+	}
+
+	private static int idOf(Edge e) {
+		return e == null ? 0 : e.getId();
+	}
+
+	private InternalVertex vertexById(int vId) {
+		return vId == 0 ? null : getVertex()[vId];
+	}
+
+	private InternalEdge edgeById(int eId) {
+		return eId == 0 ? null : getEdge()[eId];
+	}
+
+	private InternalEdge incidenceById(int incidenceId) {
+		if (incidenceId > 0) {
+			return getEdge()[incidenceId];
+		}
+		return incidenceId < 0 ? getRevEdge()[-incidenceId] : null;
+	}
+
+	// ---- vertex structure ----
+
+	final InternalVertex getNextVertex(int vId) {
+		return vertexById(nextVertexId[vId]);
+	}
+
+	final InternalVertex getPrevVertex(int vId) {
+		return vertexById(prevVertexId[vId]);
+	}
+
+	final void setNextVertex(int vId, Vertex nextVertex) {
+		nextVertexId[vId] = idOf(nextVertex);
+	}
+
+	final void setPrevVertex(int vId, Vertex prevVertex) {
+		prevVertexId[vId] = idOf(prevVertex);
+	}
+
+	final InternalEdge getFirstIncidence(int vId) {
+		return incidenceById(firstIncidenceId[vId]);
+	}
+
+	final InternalEdge getLastIncidence(int vId) {
+		return incidenceById(lastIncidenceId[vId]);
+	}
+
+	final void setFirstIncidence(int vId, Edge firstIncidence) {
+		firstIncidenceId[vId] = idOf(firstIncidence);
+	}
+
+	final void setLastIncidence(int vId, Edge lastIncidence) {
+		lastIncidenceId[vId] = idOf(lastIncidence);
+	}
+
+	final long getIncidenceListVersion(int vId) {
+		return incidenceListVersion[vId];
+	}
+
+	final void setIncidenceListVersion(int vId, long version) {
+		incidenceListVersion[vId] = version;
+	}
+
+	// ---- edge structure ----
+
+	final InternalEdge getNextEdge(int eId) {
+		return edgeById(nextEdgeId[eId]);
+	}
+
+	final InternalEdge getPrevEdge(int eId) {
+		return edgeById(prevEdgeId[eId]);
+	}
+
+	final void setNextEdge(int eId, Edge nextEdge) {
+		nextEdgeId[eId] = idOf(nextEdge);
+	}
+
+	final void setPrevEdge(int eId, Edge prevEdge) {
+		prevEdgeId[eId] = idOf(prevEdge);
+	}
+
+	final InternalVertex getIncidentVertex(int incidenceId) {
+		return vertexById(incidentVertexId[slot(incidenceId)]);
+	}
+
+	final InternalEdge getNextIncidence(int incidenceId) {
+		return incidenceById(nextIncidenceId[slot(incidenceId)]);
+	}
+
+	final InternalEdge getPrevIncidence(int incidenceId) {
+		return incidenceById(prevIncidenceId[slot(incidenceId)]);
+	}
+
+	final void setIncidentVertex(int incidenceId, Vertex v) {
+		incidentVertexId[slot(incidenceId)] = idOf(v);
+	}
+
+	final void setNextIncidence(int incidenceId, Edge nextIncidence) {
+		nextIncidenceId[slot(incidenceId)] = idOf(nextIncidence);
+	}
+
+	final void setPrevIncidence(int incidenceId, Edge prevIncidence) {
+		prevIncidenceId[slot(incidenceId)] = idOf(prevIncidence);
+	}
+
+	// ---- id changes (defragmentation, blessing of temporary elements) ----
+
+	/**
+	 * Moves the structure of the vertex <code>from</code> to the id
+	 * <code>to</code> and lets all neighbours refer to the new id.
+	 */
+	final void moveVertex(int from, int to) {
+		nextVertexId[to] = nextVertexId[from];
+		prevVertexId[to] = prevVertexId[from];
+		firstIncidenceId[to] = firstIncidenceId[from];
+		lastIncidenceId[to] = lastIncidenceId[from];
+		incidenceListVersion[to] = incidenceListVersion[from];
+		nextVertexId[from] = 0;
+		prevVertexId[from] = 0;
+		firstIncidenceId[from] = 0;
+		lastIncidenceId[from] = 0;
+		incidenceListVersion[from] = 0;
+
+		if (prevVertexId[to] != 0) {
+			nextVertexId[prevVertexId[to]] = to;
+		}
+		if (nextVertexId[to] != 0) {
+			prevVertexId[nextVertexId[to]] = to;
+		}
+		// incidences may be temporary edges, so follow the objects
+		for (InternalEdge e = incidenceById(firstIncidenceId[to]); e != null; e = e
+				.getNextIncidenceInISeq()) {
+			incidentVertexId[slot(e.getId())] = to;
+		}
+	}
+
+	/**
+	 * Moves the structure of the edge <code>from</code> (and its reversed
+	 * edge) to the id <code>to</code> and lets all neighbours refer to the new
+	 * id.
+	 */
+	final void moveEdge(int from, int to) {
+		nextEdgeId[to] = nextEdgeId[from];
+		prevEdgeId[to] = prevEdgeId[from];
+		nextEdgeId[from] = 0;
+		prevEdgeId[from] = 0;
+		for (int d = 0; d <= 1; ++d) {
+			int f = (from << 1) | d;
+			int t = (to << 1) | d;
+			incidentVertexId[t] = incidentVertexId[f];
+			nextIncidenceId[t] = renamed(nextIncidenceId[f], from, to);
+			prevIncidenceId[t] = renamed(prevIncidenceId[f], from, to);
+			incidentVertexId[f] = 0;
+			nextIncidenceId[f] = 0;
+			prevIncidenceId[f] = 0;
+		}
+
+		if (prevEdgeId[to] != 0) {
+			nextEdgeId[prevEdgeId[to]] = to;
+		}
+		if (nextEdgeId[to] != 0) {
+			prevEdgeId[nextEdgeId[to]] = to;
+		}
+		for (int incidenceId : new int[] { to, -to }) {
+			int s = slot(incidenceId);
+			int vId = incidentVertexId[s];
+			if (prevIncidenceId[s] != 0) {
+				nextIncidenceId[slot(prevIncidenceId[s])] = incidenceId;
+			} else if (vId != 0) {
+				firstIncidenceId[vId] = incidenceId;
+			}
+			if (nextIncidenceId[s] != 0) {
+				prevIncidenceId[slot(nextIncidenceId[s])] = incidenceId;
+			} else if (vId != 0) {
+				lastIncidenceId[vId] = incidenceId;
+			}
+		}
+	}
+
+	/**
+	 * @return <code>incidenceId</code> with the edge id <code>from</code>
+	 *         replaced by <code>to</code> (needed for loops whose incidences
+	 *         are neighbours of each other)
+	 */
+	private static int renamed(int incidenceId, int from, int to) {
+		if (incidenceId == from) {
+			return to;
+		}
+		return incidenceId == -from ? -to : incidenceId;
+	}
+}
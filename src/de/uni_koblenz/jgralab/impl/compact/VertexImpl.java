@@ -0,0 +1,126 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab.impl.compact;
+
+import de.uni_koblenz.jgralab.Graph;
+import de.uni_koblenz.jgralab.Vertex;
+import de.uni_koblenz.jgralab.impl.InternalEdge;
+import de.uni_koblenz.jgralab.impl.InternalVertex;
+
+/**
+ * The implementation of a <code>Vertex</code> whose vertex sequence and
+ * incidence list links are stored in the arrays of its {@link GraphImpl}.
+ * 
+ * @author ist@uni-koblenz.de
+ */
+public abstract class VertexImpl extends
+		de.uni_koblenz.jgralab.impl.VertexBaseImpl {
+
+	private GraphImpl g() {
+		return (GraphImpl) graph;
+	}
+
+	@Override
+	public InternalVertex getNextVertexInVSeq() {
+		assert isValid() : this + " is not valid.";
+		return g().getNextVertex(id);
+	}
+
+	@Override
+	public InternalVertex getPrevVertexInVSeq() {
+		assert isValid();
+		return g().getPrevVertex(id);
+	}
+
+	@Override
+	public InternalEdge getFirstIncidenceInISeq() {
+		return g().getFirstIncidence(id);
+	}
+
+	@Override
+	public InternalEdge getLastIncidenceInISeq() {
+		return g().getLastIncidence(id);
+	}
+
+	@Override
+	public void setNextVertex(Vertex nextVertex) {
+		g().setNextVertex(id, nextVertex);
+	}
+
+	@Override
+	public void setPrevVertex(Vertex prevVertex) {
+		g().setPrevVertex(id, prevVertex);
+	}
+
+	@Override
+	public void setFirstIncidence(InternalEdge firstIncidence) {
+		g().setFirstIncidence(id, firstIncidence);
+	}
+
+	@Override
+	public void setLastIncidence(InternalEdge lastIncidence) {
+		g().setLastIncidence(id, lastIncidence);
+	}
+
+	@Override
+	public void setIncidenceListVersion(long incidenceListVersion) {
+		g().setIncidenceListVersion(id, incidenceListVersion);
+	}
+
+	@Override
+	public long getIncidenceListVersion() {
+		assert isValid();
+		return g().getIncidenceListVersion(id);
+	}
+
+	/**
+	 * 
+	 * @param id
+	 * @param graph
+	 */
+	protected VertexImpl(int id, Graph graph) {
+		super(id, graph);
+		((GraphImpl) graph).addVertex(this);
+	}
+
+	@Override
+	public void setId(int id) {
+		assert id >= 0;
+		if ((this.id != 0) && (id != 0) && (this.id != id)) {
+			g().moveVertex(this.id, id);
+		}
+		this.id = id;
+	}
+}
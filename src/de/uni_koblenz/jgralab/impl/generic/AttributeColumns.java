@@ -0,0 +1,238 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab.impl.generic;
+
+import java.util.Arrays;
+import java.util.List;
+
+import de.uni_koblenz.jgralab.schema.Attribute;
+import de.uni_koblenz.jgralab.schema.BooleanDomain;
+import de.uni_koblenz.jgralab.schema.Domain;
+import de.uni_koblenz.jgralab.schema.DoubleDomain;
+import de.uni_koblenz.jgralab.schema.GraphElementClass;
+import de.uni_koblenz.jgralab.schema.IntegerDomain;
+import de.uni_koblenz.jgralab.schema.LongDomain;
+
+/**
+ * Column-wise storage of the attribute values of all elements of one
+ * {@link GraphElementClass} in a generic graph. Attributes of the primitive
+ * domains Boolean, Integer, Long and Double are stored in primitive arrays,
+ * all other attributes in <code>Object</code> arrays. Each element owns a
+ * <em>slot</em>, i.e. an index into all columns. Values are only boxed when
+ * they are passed through {@link #get(int, int)} and {@link #set(int, int,
+ * Object)}.
+ * 
+ * The columns are split into chunks of {@link #CHUNK_SIZE} slots which are
+ * never reallocated, growing only adds new chunks. Therefore, values of
+ * allocated slots may be set by other threads while this thread allocates
+ * new slots, e.g. when attribute values are parsed in parallel during
+ * loading (see {@link de.uni_koblenz.jgralab.GraphIO#setLoadingThreads(int)}).
+ * Allocating and freeing slots must not happen concurrently.
+ */
+final class AttributeColumns {
+	private static final byte BOOLEAN = 0;
+	private static final byte INTEGER = 1;
+	private static final byte LONG = 2;
+	private static final byte DOUBLE = 3;
+	private static final byte OBJECT = 4;
+
+	private static final int CHUNK_BITS = 10;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	/**
+	 * kind of the column of each attribute, indexed by attribute index
+	 */
+	private final byte[] kind;
+
+	/**
+	 * index of the column of each attribute among the columns of its kind,
+	 * indexed by attribute index
+	 */
+	private final int[] column;
+
+	/**
+	 * number of columns of each kind
+	 */
+	private final int[] columnCount;
+
+	/**
+	 * the values of {@link #CHUNK_SIZE} consecutive slots
+	 */
+	private static final class Chunk {
+		final boolean[][] booleans;
+		final int[][] ints;
+		final long[][] longs;
+		final double[][] doubles;
+		final Object[][] objects;
+
+		Chunk(int[] columnCount) {
+			booleans = new boolean[columnCount[BOOLEAN]][CHUNK_SIZE];
+			ints = new int[columnCount[INTEGER]][CHUNK_SIZE];
+			longs = new long[columnCount[LONG]][CHUNK_SIZE];
+			doubles = new double[columnCount[DOUBLE]][CHUNK_SIZE];
+			objects = new Object[columnCount[OBJECT]][CHUNK_SIZE];
+		}
+	}
+
+	/**
+	 * the chunks, replaced by a longer copy when a chunk is added
+	 */
+	private volatile Chunk[] chunks = new Chunk[0];
+
+	private int nextSlot;
+	private int[] freeSlots;
+	private int freeSlotCount;
+
+	AttributeColumns(GraphElementClass<?, ?> gec) {
+		List<Attribute> attributes = gec.getAttributeList();
+		int n = attributes.size();
+		kind = new byte[n];
+		column = new int[n];
+		columnCount = new int[OBJECT + 1];
+		for (Attribute a : attributes) {
+			int i = gec.getAttributeIndex(a.getName());
+			kind[i] = kindOf(a.getDomain());
+			column[i] = columnCount[kind[i]]++;
+		}
+		freeSlots = new int[16];
+	}
+
+	private static byte kindOf(Domain d) {
+		if (d instanceof BooleanDomain) {
+			return BOOLEAN;
+		} else if (d instanceof IntegerDomain) {
+			return INTEGER;
+		} else if (d instanceof LongDomain) {
+			return LONG;
+		} else if (d instanceof DoubleDomain) {
+			return DOUBLE;
+		}
+		return OBJECT;
+	}
+
+	/**
+	 * @return a free slot for a new element
+	 */
+	int allocate() {
+		if (freeSlotCount > 0) {
+			return freeSlots[--freeSlotCount];
+		}
+		Chunk[] c = chunks;
+		if (nextSlot == c.length * CHUNK_SIZE) {
+			c = Arrays.copyOf(c, c.length + 1);
+			c[c.length - 1] = new Chunk(columnCount);
+			chunks = c;
+		}
+		return nextSlot++;
+	}
+
+	/**
+	 * Releases <code>slot</code> so that it can be reused by another element.
+	 * Object values are cleared so that they can be garbage collected.
+	 */
+	void free(int slot) {
+		Chunk chunk = chunks[slot >>> CHUNK_BITS];
+		for (Object[] c : chunk.objects) {
+			c[slot & CHUNK_MASK] = null;
+		}
+		if (freeSlotCount == freeSlots.length) {
+			freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+		}
+		freeSlots[freeSlotCount++] = slot;
+	}
+
+	/**
+	 * @return the (boxed) value of attribute <code>attributeIndex</code> of
+	 *         the element in <code>slot</code>
+	 */
+	Object get(int slot, int attributeIndex) {
+		Chunk chunk = chunks[slot >>> CHUNK_BITS];
+		int i = slot & CHUNK_MASK;
+		int c = column[attributeIndex];
+		switch (kind[attributeIndex]) {
+		case BOOLEAN:
+			return Boolean.valueOf(chunk.booleans[c][i]);
+		case INTEGER:
+			return Integer.valueOf(chunk.ints[c][i]);
+		case LONG:
+			return Long.valueOf(chunk.longs[c][i]);
+		case DOUBLE:
+			return Double.valueOf(chunk.doubles[c][i]);
+		default:
+			return chunk.objects[c][i];
+		}
+	}
+
+	/**
+	 * Sets the value of attribute <code>attributeIndex</code> of the element
+	 * in <code>slot</code>. The caller has to ensure that <code>value</code>
+	 * conforms to the attribute's domain, in particular that it is not
+	 * <code>null</code> for primitive domains.
+	 */
+	void set(int slot, int attributeIndex, Object value) {
+		Chunk chunk = chunks[slot >>> CHUNK_BITS];
+		int i = slot & CHUNK_MASK;
+		int c = column[attributeIndex];
+		switch (kind[attributeIndex]) {
+		case BOOLEAN:
+			chunk.booleans[c][i] = (Boolean) value;
+			break;
+		case INTEGER:
+			chunk.ints[c][i] = (Integer) value;
+			break;
+		case LONG:
+			chunk.longs[c][i] = (Long) value;
+			break;
+		case DOUBLE:
+			chunk.doubles[c][i] = (Double) value;
+			break;
+		default:
+			chunk.objects[c][i] = value;
+		}
+	}
+
+	/**
+	 * @return the values of all attributes of the element in
+	 *         <code>slot</code>, indexed by attribute index
+	 */
+	Object[] toArray(int slot) {
+		Object[] values = new Object[kind.length];
+		for (int i = 0; i < values.length; ++i) {
+			values[i] = get(slot, i);
+		}
+		return values;
+	}
+}
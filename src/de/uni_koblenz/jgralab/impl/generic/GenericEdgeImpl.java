@@ -65,6 +65,14 @@ public class GenericEdgeImpl extends EdgeImpl implements
 	private EdgeClass type;
 	private Object[] attributes;
 
+	/**
+	 * The column storage holding the attribute values of this edge if its
+	 * graph uses primitive attribute storage, and the index of this edge in
+	 * it. Otherwise, the values are stored in <code>attributes</code>.
+	 */
+	private AttributeColumns columns;
+	private int slot;
+
 	public GenericEdgeImpl(EdgeClass type, int anId, Graph graph, Vertex alpha,
 			Vertex omega) {
 		super(anId, graph, alpha, omega);
@@ -74,10 +82,23 @@ public class GenericEdgeImpl extends EdgeImpl implements
 		}
 		this.type = type;
 		if (type.hasAttributes()) {
-			attributes = new Object[type.getAttributeCount()];
+			columns = ((GenericGraphImpl) graph).getAttributeColumns(type);
+			if (columns != null) {
+				slot = columns.allocate();
+			} else {
+				attributes = new Object[type.getAttributeCount()];
+			}
 			GenericGraphImpl.initializeGenericAttributeValues(this);
 		}
-		((GenericGraphImpl) graph).addEdge(this, alpha, omega);
+		try {
+			((GenericGraphImpl) graph).addEdge(this, alpha, omega);
+		} catch (RuntimeException e) {
+			if (columns != null) {
+				columns.free(slot);
+				columns = null;
+			}
+			throw e;
+		}
 	}
 
 	@Override
@@ -95,8 +116,8 @@ public class GenericEdgeImpl extends EdgeImpl implements
 			throws GraphIOException, NoSuchAttributeException {
 		int i = type.getAttributeIndex(attributeName);
 		Domain dom = type.getAttribute(attributeName).getDomain();
-		if (GenericGraphImpl.setAttributeValueHandlingUnset(attributes, i, dom,
-				dom.parseGenericAttribute(GraphIO.createStringReader(value,
+		if (setAttributeValueHandlingUnset(i, dom, dom
+				.parseGenericAttribute(GraphIO.createStringReader(value,
 						getSchema())))) {
 			internalMarkAttributeAsSet(i, true);
 		}
@@ -107,8 +128,8 @@ public class GenericEdgeImpl extends EdgeImpl implements
 		for (Attribute a : type.getAttributeList()) {
 			Domain dom = a.getDomain();
 			int i = type.getAttributeIndex(a.getName());
-			if (GenericGraphImpl.setAttributeValueHandlingUnset(attributes, i,
-					dom, dom.parseGenericAttribute(io))) {
+			if (setAttributeValueHandlingUnset(i, dom,
+					dom.parseGenericAttribute(io))) {
 				internalMarkAttributeAsSet(i, true);
 			}
 		}
@@ -164,7 +185,7 @@ public class GenericEdgeImpl extends EdgeImpl implements
 	@Override
 	public <T> T getAttribute(String name) {
 		int i = type.getAttributeIndex(name);
-		return (T) attributes[i];
+		return (T) (columns == null ? attributes[i] : columns.get(slot, i));
 	}
 
 	@Override
@@ -174,7 +195,11 @@ public class GenericEdgeImpl extends EdgeImpl implements
 				.isConformValue(data)) {
 			T oldValue = this.<T> getAttribute(name);
 			graph.fireBeforeChangeAttribute(this, name, oldValue, data);
-			attributes[i] = data;
+			if (columns == null) {
+				attributes[i] = data;
+			} else {
+				columns.set(slot, i, data);
+			}
 			graph.fireAfterChangeAttribute(this, name, oldValue, data);
 		} else {
 			Domain d = type.getAttribute(name).getDomain();
@@ -257,7 +282,45 @@ public class GenericEdgeImpl extends EdgeImpl implements
 
 	@Override
 	public void invokeOnAttributesArray(OnAttributesFunction fn) {
+		// the function may change the attribute layout, so the values have to
+		// be kept in an own array from now on
+		detachFromColumns();
 		attributes = fn.invoke(this, attributes);
 	}
 
+	private boolean setAttributeValueHandlingUnset(int i, Domain dom,
+			Object value) {
+		if (columns == null) {
+			return GenericGraphImpl.setAttributeValueHandlingUnset(attributes,
+					i, dom, value);
+		}
+		if (value == GraphIO.Unset.UNSET) {
+			return false;
+		}
+		columns.set(slot, i, value);
+		return true;
+	}
+
+	/**
+	 * Moves the attribute values of this edge from the column storage into
+	 * an own array and releases its slot.
+	 */
+	private void detachFromColumns() {
+		if (columns != null) {
+			attributes = columns.toArray(slot);
+			columns.free(slot);
+			columns = null;
+		}
+	}
+
+	@Override
+	public void setId(int id) {
+		if (id == 0) {
+			// this edge is deleted, so its slot may be reused, but its
+			// attribute values remain accessible
+			detachFromColumns();
+		}
+		super.setId(id);
+	}
+
 }
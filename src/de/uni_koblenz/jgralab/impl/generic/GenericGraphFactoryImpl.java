@@ -48,8 +48,26 @@ import de.uni_koblenz.jgralab.schema.Schema;
 import de.uni_koblenz.jgralab.schema.VertexClass;
 
 public class GenericGraphFactoryImpl extends GraphFactoryImpl {
+	private final boolean primitiveAttributeStorage;
+
 	public GenericGraphFactoryImpl(Schema s) {
+		this(s, false);
+	}
+
+	/**
+	 * Creates a factory for generic graphs of the schema <code>s</code>.
+	 * 
+	 * @param primitiveAttributeStorage
+	 *            if <code>true</code>, the created graphs store the attribute
+	 *            values of their vertices and edges column-wise per class,
+	 *            keeping Boolean, Integer, Long and Double values unboxed. This
+	 *            saves a lot of memory for graphs with many numeric
+	 *            attributes. Values are only boxed when accessed via
+	 *            {@link de.uni_koblenz.jgralab.AttributedElement#getAttribute(String)}.
+	 */
+	public GenericGraphFactoryImpl(Schema s, boolean primitiveAttributeStorage) {
 		super(s, ImplementationType.GENERIC);
+		this.primitiveAttributeStorage = primitiveAttributeStorage;
 	}
 
 	@Override
@@ -77,7 +95,8 @@ public class GenericGraphFactoryImpl extends GraphFactoryImpl {
 			throw new GraphException(gc + " is not in schema " + schema);
 		}
 		@SuppressWarnings("unchecked")
-		G graph = (G) new GenericGraphImpl(gc, id, vMax, eMax);
+		G graph = (G) new GenericGraphImpl(gc, id, vMax, eMax,
+				primitiveAttributeStorage);
 		graph.setGraphFactory(this);
 		((InternalAttributedElement) graph)
 				.internalInitializeSetAttributesBitSet();
@@ -35,6 +35,7 @@
 package de.uni_koblenz.jgralab.impl.generic;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
 
 import de.uni_koblenz.jgralab.AttributedElement;
@@ -57,6 +58,7 @@ import de.uni_koblenz.jgralab.schema.DoubleDomain;
 import de.uni_koblenz.jgralab.schema.EdgeClass;
 import de.uni_koblenz.jgralab.schema.EnumDomain;
 import de.uni_koblenz.jgralab.schema.GraphClass;
+import de.uni_koblenz.jgralab.schema.GraphElementClass;
 import de.uni_koblenz.jgralab.schema.IntegerDomain;
 import de.uni_koblenz.jgralab.schema.LongDomain;
 import de.uni_koblenz.jgralab.schema.RecordDomain;
@@ -74,15 +76,62 @@ public class GenericGraphImpl extends GraphImpl implements
 	private GraphClass type;
 	private Object[] attributes;
 
+	/**
+	 * The column storage of the attribute values of vertices and edges per
+	 * {@link GraphElementClass}, or <code>null</code> if each element stores
+	 * its attribute values in its own array.
+	 */
+	private Map<GraphElementClass<?, ?>, AttributeColumns> attributeColumns;
+
 	protected GenericGraphImpl(GraphClass type, String id, int vmax, int emax) {
+		this(type, id, vmax, emax, false);
+	}
+
+	/**
+	 * @param primitiveAttributeStorage
+	 *            if <code>true</code>, the attribute values of vertices and
+	 *            edges are stored column-wise per {@link GraphElementClass},
+	 *            and values of the domains Boolean, Integer, Long and Double
+	 *            are kept unboxed
+	 */
+	protected GenericGraphImpl(GraphClass type, String id, int vmax, int emax,
+			boolean primitiveAttributeStorage) {
 		super(id, type, vmax, emax);
 		this.type = type;
+		if (primitiveAttributeStorage) {
+			attributeColumns = new HashMap<>();
+		}
 		if (type.hasAttributes()) {
 			attributes = new Object[type.getAttributeCount()];
 			GenericGraphImpl.initializeGenericAttributeValues(this);
 		}
 	}
 
+	/**
+	 * @return whether the attribute values of vertices and edges are stored
+	 *         column-wise with unboxed primitive values
+	 */
+	public boolean hasPrimitiveAttributeStorage() {
+		return attributeColumns != null;
+	}
+
+	/**
+	 * @return the column storage for the attribute values of elements of
+	 *         <code>gec</code>, or <code>null</code> if this graph doesn't
+	 *         use column storage
+	 */
+	AttributeColumns getAttributeColumns(GraphElementClass<?, ?> gec) {
+		if (attributeColumns == null) {
+			return null;
+		}
+		AttributeColumns columns = attributeColumns.get(gec);
+		if (columns == null) {
+			columns = new AttributeColumns(gec);
+			attributeColumns.put(gec, columns);
+		}
+		return columns;
+	}
+
 	/**
 	 * Creates a new {@link GenericVertexImpl} in the graph that conforms to a
 	 * given {@link VertexClass} from the Schema.
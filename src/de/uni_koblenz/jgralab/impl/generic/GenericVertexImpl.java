@@ -42,6 +42,7 @@ import de.uni_koblenz.jgralab.Vertex;
 import de.uni_koblenz.jgralab.exception.GraphException;
 import de.uni_koblenz.jgralab.exception.GraphIOException;
 import de.uni_koblenz.jgralab.exception.NoSuchAttributeException;
+import de.uni_koblenz.jgralab.impl.InternalGraph;
 import de.uni_koblenz.jgralab.impl.RecordImpl;
 import de.uni_koblenz.jgralab.impl.TgLexer.Token;
 import de.uni_koblenz.jgralab.impl.std.VertexImpl;
@@ -61,6 +62,14 @@ public class GenericVertexImpl extends VertexImpl implements
 	private final VertexClass type;
 	private Object[] attributes;
 
+	/**
+	 * The column storage holding the attribute values of this vertex if its
+	 * graph uses primitive attribute storage, and the index of this vertex in
+	 * it. Otherwise, the values are stored in <code>attributes</code>.
+	 */
+	private AttributeColumns columns;
+	private int slot;
+
 	protected GenericVertexImpl(VertexClass type, int id, Graph graph) {
 		super(id, graph);
 		if (type.isAbstract()) {
@@ -69,8 +78,14 @@ public class GenericVertexImpl extends VertexImpl implements
 					"Cannot create instances of abstract type " + type);
 		}
 		this.type = type;
+		((InternalGraph) graph).vertexClassAssigned(this);
 		if (type.hasAttributes()) {
-			attributes = new Object[type.getAttributeCount()];
+			columns = ((GenericGraphImpl) graph).getAttributeColumns(type);
+			if (columns != null) {
+				slot = columns.allocate();
+			} else {
+				attributes = new Object[type.getAttributeCount()];
+			}
 			GenericGraphImpl.initializeGenericAttributeValues(this);
 		}
 	}
@@ -85,8 +100,8 @@ public class GenericVertexImpl extends VertexImpl implements
 			throws GraphIOException, NoSuchAttributeException {
 		int i = type.getAttributeIndex(attributeName);
 		Domain dom = type.getAttribute(attributeName).getDomain();
-		if (GenericGraphImpl.setAttributeValueHandlingUnset(attributes, i, dom,
-				dom.parseGenericAttribute(GraphIO.createStringReader(value,
+		if (setAttributeValueHandlingUnset(i, dom, dom
+				.parseGenericAttribute(GraphIO.createStringReader(value,
 						getSchema())))) {
 			internalMarkAttributeAsSet(i, true);
 		}
@@ -97,8 +112,8 @@ public class GenericVertexImpl extends VertexImpl implements
 		for (Attribute a : type.getAttributeList()) {
 			Domain dom = a.getDomain();
 			int i = type.getAttributeIndex(a.getName());
-			if (GenericGraphImpl.setAttributeValueHandlingUnset(attributes, i,
-					dom, dom.parseGenericAttribute(io))) {
+			if (setAttributeValueHandlingUnset(i, dom,
+					dom.parseGenericAttribute(io))) {
 				internalMarkAttributeAsSet(i, true);
 			}
 		}
@@ -134,7 +149,7 @@ public class GenericVertexImpl extends VertexImpl implements
 	@Override
 	public <T> T getAttribute(String name) {
 		int i = type.getAttributeIndex(name);
-		return (T) attributes[i];
+		return (T) (columns == null ? attributes[i] : columns.get(slot, i));
 	}
 
 	@Override
@@ -144,7 +159,11 @@ public class GenericVertexImpl extends VertexImpl implements
 				.isConformValue(data)) {
 			T oldValue = this.<T> getAttribute(name);
 			graph.fireBeforeChangeAttribute(this, name, oldValue, data);
-			attributes[i] = data;
+			if (columns == null) {
+				attributes[i] = data;
+			} else {
+				columns.set(slot, i, data);
+			}
 			graph.fireAfterChangeAttribute(this, name, oldValue, data);
 		} else {
 			Domain d = type.getAttribute(name).getDomain();
@@ -174,9 +193,47 @@ public class GenericVertexImpl extends VertexImpl implements
 
 	@Override
 	public void invokeOnAttributesArray(OnAttributesFunction fn) {
+		// the function may change the attribute layout, so the values have to
+		// be kept in an own array from now on
+		detachFromColumns();
 		attributes = fn.invoke(this, attributes);
 	}
 
+	private boolean setAttributeValueHandlingUnset(int i, Domain dom,
+			Object value) {
+		if (columns == null) {
+			return GenericGraphImpl.setAttributeValueHandlingUnset(attributes,
+					i, dom, value);
+		}
+		if (value == GraphIO.Unset.UNSET) {
+			return false;
+		}
+		columns.set(slot, i, value);
+		return true;
+	}
+
+	/**
+	 * Moves the attribute values of this vertex from the column storage into
+	 * an own array and releases its slot.
+	 */
+	private void detachFromColumns() {
+		if (columns != null) {
+			attributes = columns.toArray(slot);
+			columns.free(slot);
+			columns = null;
+		}
+	}
+
+	@Override
+	public void setId(int id) {
+		if (id == 0) {
+			// this vertex is deleted, so its slot may be reused, but its
+			// attribute values remain accessible
+			detachFromColumns();
+		}
+		super.setId(id);
+	}
+
 	// ************** unsupported methods ***************/
 
 	/**
@@ -168,6 +168,7 @@ public class TemporaryEdgeImpl extends EdgeImpl implements TemporaryEdge {
 			InternalEdge[] revEdge = g.getRevEdge();
 			revEdge[tempID] = (InternalEdge) newEdge.getReversedEdge();
 			revEdge[idToFree] = null;
+			g.edgeIdsChanged();
 		}
 
 		return newEdge;
@@ -226,6 +227,7 @@ public class TemporaryEdgeImpl extends EdgeImpl implements TemporaryEdge {
 		}
 
 		((InternalVertex) newEdge.getThis()).setLastIncidence(newLastIncidence);
+		((InternalVertex) newEdge.getThis()).incidenceListModified();
 
 	}
 
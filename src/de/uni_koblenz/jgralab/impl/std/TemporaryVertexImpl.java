@@ -165,6 +165,7 @@ public class TemporaryVertexImpl extends VertexImpl implements TemporaryVertex {
 			InternalVertex[] vertex = g.getVertex();
 			vertex[id] = newVertex;
 			vertex[idToFree] = null;
+			g.vertexIdsChanged();
 		}
 
 		// Transform TemporaryEdges with type
@@ -84,12 +84,12 @@ public abstract class VertexImpl extends
 
 	@Override
 	public void setNextVertex(Vertex nextVertex) {
-		this.nextVertex = (VertexImpl) nextVertex;
+		this.nextVertex = (InternalVertex) nextVertex;
 	}
 
 	@Override
 	public void setPrevVertex(Vertex prevVertex) {
-		this.prevVertex = (VertexImpl) prevVertex;
+		this.prevVertex = (InternalVertex) prevVertex;
 	}
 
 	@Override
@@ -146,8 +146,15 @@ public abstract class CodeGenerator {
 		rootBlock.setVariable("jgPackage", "de.uni_koblenz.jgralab");
 		rootBlock.setVariable("jgTransPackage", "de.uni_koblenz.jgralab.trans");
 		rootBlock.setVariable("jgImplPackage", "de.uni_koblenz.jgralab.impl");
-		rootBlock.setVariable("jgImplStdPackage",
-				"de.uni_koblenz.jgralab.impl.std");
+		if (config.hasCompactImplementation()) {
+			rootBlock.setVariable("jgImplStdPackage",
+					"de.uni_koblenz.jgralab.impl.compact");
+			rootBlock.setVariable("implType", "COMPACT");
+		} else {
+			rootBlock.setVariable("jgImplStdPackage",
+					"de.uni_koblenz.jgralab.impl.std");
+			rootBlock.setVariable("implType", "STANDARD");
+		}
 		rootBlock.setVariable("jgImplTransPackage",
 				"de.uni_koblenz.jgralab.impl.trans");
 		rootBlock.setVariable("jgImplDbPackage",
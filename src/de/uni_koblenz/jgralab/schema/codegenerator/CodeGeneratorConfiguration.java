@@ -47,6 +47,11 @@ package de.uni_koblenz.jgralab.schema.codegenerator;
  * that is marked to be with type specific method support (default).<br>
  * <br>
  * 
+ * Independently of the above, the generated implementation classes can be
+ * based on the compact implementation (see
+ * {@link #withCompactImplementation()}) instead of the standard one.<br>
+ * <br>
+ * 
  * A <em>type-specific method</em> is a method such as "getNextXYVertex".
  */
 public class CodeGeneratorConfiguration {
@@ -62,6 +67,14 @@ public class CodeGeneratorConfiguration {
 	 */
 	private boolean typespecificMethodSupport = true;
 
+	/**
+	 * toggles, if the generated implementation classes extend the compact
+	 * implementation (package <code>de.uni_koblenz.jgralab.impl.compact</code>)
+	 * which keeps the vertex, edge and incidence sequences in primitive
+	 * arrays, instead of the standard implementation.
+	 */
+	private boolean compactImplementation = false;
+
 	/**
 	 * This constructor creates a default configuration:<br>
 	 * <br>
@@ -84,6 +97,16 @@ public class CodeGeneratorConfiguration {
 		return this;
 	}
 
+	public CodeGeneratorConfiguration withCompactImplementation() {
+		compactImplementation = true;
+		return this;
+	}
+
+	public CodeGeneratorConfiguration withoutCompactImplementation() {
+		compactImplementation = false;
+		return this;
+	}
+
 	/**
 	 * This is a copy constructor.
 	 * 
@@ -93,6 +116,7 @@ public class CodeGeneratorConfiguration {
 	 */
 	public CodeGeneratorConfiguration(CodeGeneratorConfiguration other) {
 		this.typespecificMethodSupport = other.typespecificMethodSupport;
+		this.compactImplementation = other.compactImplementation;
 	}
 
 	public void setTypeSpecificMethodsSupport(boolean typespecificMethodSupport) {
@@ -103,4 +127,12 @@ public class CodeGeneratorConfiguration {
 		return typespecificMethodSupport;
 	}
 
+	public void setCompactImplementation(boolean compactImplementation) {
+		this.compactImplementation = compactImplementation;
+	}
+
+	public boolean hasCompactImplementation() {
+		return compactImplementation;
+	}
+
 }
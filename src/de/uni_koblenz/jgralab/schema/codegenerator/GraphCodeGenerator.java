@@ -91,7 +91,7 @@ public class GraphCodeGenerator extends
 	protected CodeBlock createConstructor() {
 		CodeSnippet code = new CodeSnippet(true);
 		if (currentCycle.isStdImpl()) {
-			code.setVariable("createSuffix", "STANDARD");
+			code.setVariable("createSuffix", "#implType#");
 		}
 		code.add(
 				"/**",
@@ -89,7 +89,7 @@ public class GraphFactoryGenerator extends CodeGenerator {
 	protected CodeBlock createConstructor() {
 		CodeList code = new CodeList();
 		if (currentCycle.isStdImpl()) {
-			code.setVariable("implTypeInfix", "STANDARD");
+			code.setVariable("implTypeInfix", "#implType#");
 		}
 		CodeSnippet s = new CodeSnippet(true);
 		s.add("public #simpleImplClassName#() {",
@@ -131,7 +131,7 @@ public class SchemaCodeGenerator extends CodeGenerator {
 		code.add(new CodeSnippet("switch(implementationType) {"));
 		code.add(new CodeSnippet("\tcase GENERIC:",
 				"\t\treturn new #jgImplPackage#.generic.GenericGraphFactoryImpl(this);"));
-		code.add(new CodeSnippet("\tcase STANDARD:",
+		code.add(new CodeSnippet("\tcase #implType#:",
 				"\t\treturn new #schemaImplStdPackage#.#gcCamelName#FactoryImpl();"));
 		code.add(new CodeSnippet(
 				"}",
@@ -187,13 +187,13 @@ public class SchemaCodeGenerator extends CodeGenerator {
 		code.addNoIndent(new CodeSnippet(
 				true,
 				"public #gcName# load#gcCamelName#(String filename) throws GraphIOException {",
-				"\t#jgPackage#.GraphFactory factory = createDefaultGraphFactory(#jgPackage#.ImplementationType.STANDARD);",
+				"\t#jgPackage#.GraphFactory factory = createDefaultGraphFactory(#jgPackage#.ImplementationType.#implType#);",
 				"\treturn load#gcCamelName#(filename, factory, null);", "}"));
 
 		code.addNoIndent(new CodeSnippet(
 				true,
 				"public #gcName# load#gcCamelName#(String filename, #jgPackage#.ProgressFunction pf) throws GraphIOException {",
-				"\t#jgPackage#.GraphFactory factory = createDefaultGraphFactory(#jgPackage#.ImplementationType.STANDARD);",
+				"\t#jgPackage#.GraphFactory factory = createDefaultGraphFactory(#jgPackage#.ImplementationType.#implType#);",
 				"\treturn load#gcCamelName#(filename, factory, pf);", "}"));
 
 		code.addNoIndent(new CodeSnippet(
@@ -54,7 +54,6 @@ import java.util.regex.Pattern;
 import javax.tools.JavaCompiler;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
-import javax.tools.ToolProvider;
 
 import org.pcollections.ArrayPSet;
 import org.pcollections.PSet;
@@ -104,7 +103,9 @@ import de.uni_koblenz.jgralab.schema.exception.SchemaClassAccessException;
 import de.uni_koblenz.jgralab.schema.exception.SchemaException;
 import de.uni_koblenz.jgralab.schema.impl.compilation.ClassFileManager;
 import de.uni_koblenz.jgralab.schema.impl.compilation.InMemoryJavaSourceFile;
+import de.uni_koblenz.jgralab.schema.impl.compilation.JavaCompilerLocator;
 import de.uni_koblenz.jgralab.schema.impl.compilation.ManagableArtifact;
+import de.uni_koblenz.jgralab.schema.impl.compilation.SchemaClassCache;
 import de.uni_koblenz.jgralab.schema.impl.compilation.SchemaClassManager;
 
 /**
@@ -368,7 +369,11 @@ public class SchemaImpl implements Schema, ManagableArtifact {
     }
 
     private void compileClasses(File schemaDir) throws IOException {
-        JavaCompiler c = ToolProvider.getSystemJavaCompiler();
+        JavaCompiler c = JavaCompilerLocator.getJavaCompiler();
+        if (c == null) {
+            throw new SchemaException("Cannot compile schema " + qualifiedName
+                    + ". No Java compiler is available.");
+        }
         StandardJavaFileManager fileManager = c.getStandardFileManager(null, null, null);
         Iterable<? extends JavaFileObject> compilationUnits = fileManager
                 .getJavaFileObjectsFromFiles(getJavaFiles(schemaDir));
@@ -531,17 +536,37 @@ public class SchemaImpl implements Schema, ManagableArtifact {
     @Override
     public void compile(CodeGeneratorConfiguration config) {
         assertFinished();
-        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        ArrayList<InMemoryJavaSourceFile> javaSources = commit(config);
+
+        // look for classes compiled by an earlier run before invoking javac
+        SchemaClassCache cache = SchemaClassCache.getDefault();
+        String cacheKey = null;
+        if (cache != null) {
+            cacheKey = cache.computeKey(qualifiedName, config, javaSources);
+            Map<String, byte[]> cachedClasses = cache.load(cacheKey);
+            if (cachedClasses != null) {
+                for (Map.Entry<String, byte[]> e : cachedClasses.entrySet()) {
+                    schemaClassManager.putSchemaClass(e.getKey(), e.getValue());
+                }
+                return;
+            }
+        }
+
+        JavaCompiler compiler = JavaCompilerLocator.getJavaCompiler();
         if (compiler == null) {
             throw new SchemaException("Cannot compile schema " + qualifiedName
-                    + ". Most probably you use a JRE instead of a JDK. " + "The JRE does not provide a compiler.");
+                    + ". Most probably you use a JRE instead of a JDK. " + "The JRE does not provide a compiler. "
+                    + "Put a compiler such as ecj on the class path or precompile the schema classes "
+                    + "into a SchemaClassCache.");
 
         }
         StandardJavaFileManager jfm = compiler.getStandardFileManager(null, null, null);
         ClassFileManager manager = new ClassFileManager(this, jfm);
-        ArrayList<InMemoryJavaSourceFile> javaSources = commit(config);
-        compiler.getTask(null, manager, null, null, null, javaSources)
+        Boolean success = compiler.getTask(null, manager, null, null, null, javaSources)
                 .call();
+        if (cache != null && Boolean.TRUE.equals(success)) {
+            cache.store(cacheKey, schemaClassManager.getSchemaClassBytecode());
+        }
     }
 
     @Override
@@ -941,6 +966,7 @@ public class SchemaImpl implements Schema, ManagableArtifact {
         // determine package
         switch (implementationType) {
         case STANDARD:
+        case COMPACT:
             implClassName += IMPLSTDPACKAGENAME;
             break;
         case GENERIC:
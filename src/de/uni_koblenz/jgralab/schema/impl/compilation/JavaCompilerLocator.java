@@ -0,0 +1,93 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab.schema.impl.compilation;
+
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+/**
+ * Locates the {@link JavaCompiler} used to compile generated schema classes
+ * and GReQL queries.
+ * 
+ * A JDK provides its system compiler. On a plain JRE, there is none, but any
+ * compiler registered as a {@link JavaCompiler} service can be used instead,
+ * e.g. the Eclipse compiler (ecj) when its jar is on the class path. In
+ * deployments which shall not compile at all, the schema classes can be
+ * precompiled into a {@link SchemaClassCache}.
+ * 
+ * @author ist@uni-koblenz.de
+ */
+public class JavaCompilerLocator {
+	private static JavaCompiler compiler;
+	private static boolean located;
+
+	private JavaCompilerLocator() {
+	}
+
+	/**
+	 * @return the system Java compiler if there is one, else the first
+	 *         {@link JavaCompiler} service found, or null if no compiler is
+	 *         available
+	 */
+	public static synchronized JavaCompiler getJavaCompiler() {
+		if (!located) {
+			compiler = ToolProvider.getSystemJavaCompiler();
+			if (compiler == null) {
+				compiler = loadCompilerService();
+			}
+			located = true;
+		}
+		return compiler;
+	}
+
+	private static JavaCompiler loadCompilerService() {
+		Iterator<JavaCompiler> it = ServiceLoader.load(JavaCompiler.class,
+				JavaCompilerLocator.class.getClassLoader()).iterator();
+		while (true) {
+			try {
+				if (!it.hasNext()) {
+					return null;
+				}
+				return it.next();
+			} catch (ServiceConfigurationError e) {
+				// broken provider, try the next one
+			}
+		}
+	}
+}
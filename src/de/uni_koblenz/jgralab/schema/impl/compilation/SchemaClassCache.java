@@ -0,0 +1,297 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralab.schema.impl.compilation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import de.uni_koblenz.jgralab.JGraLab;
+import de.uni_koblenz.jgralab.schema.codegenerator.CodeGeneratorConfiguration;
+
+/**
+ * A {@code SchemaClassCache} stores the bytecode of compiled schema classes in
+ * a directory, so that later JVMs can load them instead of running the Java
+ * compiler again.
+ * 
+ * Entries are content-addressed: the key of an entry is a SHA-256 hash over
+ * the JGraLab version, the Java specification version, the
+ * {@link CodeGeneratorConfiguration} and the generated Java sources (which
+ * are determined by the schema). Each entry is a single zip file which is
+ * written to a temporary file first and then atomically moved to its final
+ * name, so several processes may populate the same cache directory
+ * concurrently, and readers never see partially written entries.
+ * 
+ * The default cache is configured by the system property
+ * {@value #CACHE_DIR_PROPERTY} or by {@link #setDefaultDirectory(File)}. If
+ * no directory is configured, there is no default cache.
+ * 
+ * @author ist@uni-koblenz.de
+ */
+public class SchemaClassCache {
+	public static final String CACHE_DIR_PROPERTY = "jgralabSchemaCacheDir";
+
+	private static final String ENTRY_SUFFIX = ".jar";
+
+	private static Logger logger = JGraLab.getLogger(SchemaClassCache.class);
+
+	private static SchemaClassCache defaultCache;
+	private static boolean defaultCacheInitialized;
+
+	private final File directory;
+
+	/**
+	 * Creates a cache using the given directory, which is created on demand.
+	 * 
+	 * @param directory
+	 *            the cache directory
+	 */
+	public SchemaClassCache(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * @return the default cache, or null if no cache directory has been
+	 *         configured
+	 */
+	public static synchronized SchemaClassCache getDefault() {
+		if (!defaultCacheInitialized) {
+			String dir = System.getProperty(CACHE_DIR_PROPERTY);
+			if (dir != null && !dir.isEmpty()) {
+				defaultCache = new SchemaClassCache(new File(dir));
+			}
+			defaultCacheInitialized = true;
+		}
+		return defaultCache;
+	}
+
+	/**
+	 * Sets the directory of the default cache, overriding the system property
+	 * {@value #CACHE_DIR_PROPERTY}.
+	 * 
+	 * @param directory
+	 *            the cache directory, or null to disable the default cache
+	 */
+	public static synchronized void setDefaultDirectory(File directory) {
+		defaultCache = directory == null ? null : new SchemaClassCache(
+				directory);
+		defaultCacheInitialized = true;
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Computes the cache key of the classes compiled from
+	 * <code>javaSources</code>.
+	 * 
+	 * @param qualifiedSchemaName
+	 *            the qualified name of the schema
+	 * @param config
+	 *            the configuration the sources have been generated with
+	 * @param javaSources
+	 *            the generated sources
+	 * @return the key, consisting of the qualified schema name and a
+	 *         hexadecimal hash
+	 */
+	public String computeKey(String qualifiedSchemaName,
+			CodeGeneratorConfiguration config,
+			List<InMemoryJavaSourceFile> javaSources) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException("SHA-256 is not supported", e);
+		}
+		update(digest, JGraLab.getVersionInfo(false));
+		update(digest, System.getProperty("java.specification.version"));
+		update(digest, qualifiedSchemaName);
+		update(digest, "typeSpecificMethods="
+				+ config.hasTypeSpecificMethodsSupport());
+		update(digest, "compact=" + config.hasCompactImplementation());
+		List<InMemoryJavaSourceFile> sorted = new ArrayList<>(javaSources);
+		Collections.sort(sorted, new Comparator<InMemoryJavaSourceFile>() {
+			@Override
+			public int compare(InMemoryJavaSourceFile o1,
+					InMemoryJavaSourceFile o2) {
+				return o1.getName().compareTo(o2.getName());
+			}
+		});
+		for (InMemoryJavaSourceFile src : sorted) {
+			update(digest, src.getName());
+			update(digest, src.getCharContent(true).toString());
+		}
+		StringBuilder sb = new StringBuilder(qualifiedSchemaName).append('-');
+		for (byte b : digest.digest()) {
+			sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+			sb.append(Character.forDigit(b & 0xf, 16));
+		}
+		return sb.toString();
+	}
+
+	private static void update(MessageDigest digest, String s) {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		digest.update((byte) (bytes.length >>> 24));
+		digest.update((byte) (bytes.length >>> 16));
+		digest.update((byte) (bytes.length >>> 8));
+		digest.update((byte) bytes.length);
+		digest.update(bytes);
+	}
+
+	/**
+	 * @return whether an entry for <code>key</code> exists
+	 */
+	public boolean contains(String key) {
+		return getEntryFile(key).isFile();
+	}
+
+	/**
+	 * Loads the classes stored for <code>key</code>.
+	 * 
+	 * @param key
+	 *            the cache key
+	 * @return a map from binary class names to bytecode, or null if there is
+	 *         no (readable) entry for <code>key</code>
+	 */
+	public Map<String, byte[]> load(String key) {
+		File f = getEntryFile(key);
+		if (!f.isFile()) {
+			return null;
+		}
+		Map<String, byte[]> classes = new HashMap<>();
+		try (ZipInputStream in = new ZipInputStream(new BufferedInputStream(
+				new FileInputStream(f)))) {
+			for (ZipEntry e = in.getNextEntry(); e != null; e = in
+					.getNextEntry()) {
+				String name = e.getName();
+				if (!name.endsWith(".class")) {
+					continue;
+				}
+				classes.put(
+						name.substring(0, name.length() - ".class".length())
+								.replace('/', '.'), readFully(in));
+			}
+		} catch (IOException e) {
+			logger.log(Level.WARNING, "Cannot read schema class cache entry "
+					+ f, e);
+			return null;
+		}
+		return classes.isEmpty() ? null : classes;
+	}
+
+	/**
+	 * Stores the given classes for <code>key</code>. If another process
+	 * stores the same entry concurrently, one of both entries survives.
+	 * Failures are logged but not thrown, since the cache is only an
+	 * optimization.
+	 * 
+	 * @param key
+	 *            the cache key
+	 * @param classes
+	 *            a map from binary class names to bytecode
+	 */
+	public void store(String key, Map<String, byte[]> classes) {
+		File f = getEntryFile(key);
+		File tmp = null;
+		try {
+			Files.createDirectories(directory.toPath());
+			tmp = File.createTempFile(key, ".tmp", directory);
+			try (ZipOutputStream out = new ZipOutputStream(
+					new BufferedOutputStream(new FileOutputStream(tmp)))) {
+				for (Map.Entry<String, byte[]> e : classes.entrySet()) {
+					out.putNextEntry(new ZipEntry(e.getKey().replace('.', '/')
+							+ ".class"));
+					out.write(e.getValue());
+					out.closeEntry();
+				}
+			}
+			try {
+				Files.move(tmp.toPath(), f.toPath(),
+						StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp.toPath(), f.toPath(),
+						StandardCopyOption.REPLACE_EXISTING);
+			}
+			tmp = null;
+		} catch (IOException e) {
+			logger.log(Level.WARNING, "Cannot write schema class cache entry "
+					+ f, e);
+		} finally {
+			if (tmp != null) {
+				tmp.delete();
+			}
+		}
+	}
+
+	private File getEntryFile(String key) {
+		return new File(directory, key + ENTRY_SUFFIX);
+	}
+
+	/**
+	 * Reads all bytes of <code>in</code>.
+	 */
+	private static byte[] readFully(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int n;
+		while ((n = in.read(buffer)) > 0) {
+			out.write(buffer, 0, n);
+		}
+		return out.toByteArray();
+	}
+}
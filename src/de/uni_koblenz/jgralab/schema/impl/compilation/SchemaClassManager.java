@@ -99,6 +99,36 @@ public class SchemaClassManager extends ClassLoader {
 		schemaClassFiles.put(className, cfa);
 	}
 
+	/**
+	 * Registers the bytecode of a schema class, e.g. loaded from a
+	 * {@link SchemaClassCache}.
+	 * 
+	 * @param className
+	 *            the binary name of the class
+	 * @param bytecode
+	 *            the bytecode of the class
+	 */
+	public void putSchemaClass(String className, byte[] bytecode) {
+		schemaClassFiles.put(className, new InMemoryClassFile(className,
+				bytecode));
+	}
+
+	/**
+	 * @return a map from binary class names to the bytecode of all registered
+	 *         schema classes which have not been loaded yet
+	 */
+	public Map<String, byte[]> getSchemaClassBytecode() {
+		Map<String, byte[]> result = new HashMap<>();
+		for (Map.Entry<String, InMemoryClassFile> e : schemaClassFiles
+				.entrySet()) {
+			byte[] bytecode = e.getValue().getBytecode();
+			if (bytecode != null) {
+				result.put(e.getKey(), bytecode);
+			}
+		}
+		return result;
+	}
+
 	@Override
 	public Class<?> findClass(String name) throws ClassNotFoundException {
 		// first, look if the class byte code is in the internal map
@@ -69,6 +69,8 @@ import de.uni_koblenz.jgralab.utilities.tgschema2java.TgSchema2Java;
  * separate methods with subtype flag will be created.</li>
  * <li><code>withoutTypes</code> corresponds to the cli option -w . If set, no
  * type specific methods are created in the classes.</li>
+ * <li><code>compact</code> corresponds to the cli option -k . If set, the
+ * generated classes are based on the compact implementation.</li>
  * </ul>
  * 
  * @author ist@uni-koblenz.de
@@ -104,6 +106,16 @@ public class TgSchema2JavaTask extends Task {
 		}
 	}
 
+	public void setCompact(String value) {
+		String v = value.toLowerCase();
+		if (v.equals("true") || v.equals("yes")) {
+			executeObject.setCompactImplementation(true);
+		} else if (!(v.equals("false") || v.equals("no"))) {
+			throw new BuildException("Invalid value for boolean field: "
+					+ value);
+		}
+	}
+
 	public void addConfiguredFileset(FileSet files) {
 		Iterator<?> fileIterator = files.iterator();
 		while (fileIterator.hasNext()) {
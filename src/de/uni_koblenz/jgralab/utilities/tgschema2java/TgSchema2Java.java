@@ -45,7 +45,6 @@ import java.util.Set;
 import javax.tools.JavaCompiler;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
-import javax.tools.ToolProvider;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.Option;
@@ -60,6 +59,8 @@ import de.uni_koblenz.jgralab.schema.GraphClass;
 import de.uni_koblenz.jgralab.schema.Schema;
 import de.uni_koblenz.jgralab.schema.VertexClass;
 import de.uni_koblenz.jgralab.schema.codegenerator.CodeGeneratorConfiguration;
+import de.uni_koblenz.jgralab.schema.impl.compilation.JavaCompilerLocator;
+import de.uni_koblenz.jgralab.schema.impl.compilation.SchemaClassCache;
 
 public class TgSchema2Java {
 
@@ -100,6 +101,11 @@ public class TgSchema2Java {
      */
     private String jarFileName = null;
 
+    /**
+     * The schema class cache directory the classes should be precompiled into
+     */
+    private String cacheDirectory = null;
+
     /**
      * Holds the schema object after the .tg-file has been read.
      */
@@ -134,6 +140,10 @@ public class TgSchema2Java {
             } else {
                 t.setTypeSpecificMethodSupport(true);
             }
+            t.setCompactImplementation(comLine.hasOption('k'));
+            if (comLine.hasOption("C")) {
+                t.setCacheDirectory(comLine.getOptionValue("C"));
+            }
 
             // loading .tg-file and creating schema-object
             tgFilename = comLine.getOptionValue("s");
@@ -157,6 +167,10 @@ public class TgSchema2Java {
         config.setTypeSpecificMethodsSupport(enabled);
     }
 
+    public void setCompactImplementation(boolean enabled) {
+        config.setCompactImplementation(enabled);
+    }
+
     /**
      * Constructs an instance of TgSchema2Java with the given command line arguments
      * and creates the schema-object after reading the .tg-file
@@ -302,7 +316,7 @@ public class TgSchema2Java {
         File folder = new File(commitPath + File.separator + packageFolder);
         List<File> files1 = findFilesInDirectory(folder);
 
-        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        JavaCompiler compiler = JavaCompilerLocator.getJavaCompiler();
         StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
 
         Iterable<? extends JavaFileObject> compilationUnits1 = fileManager.getJavaFileObjectsFromFiles(files1);
@@ -362,6 +376,11 @@ public class TgSchema2Java {
                 compile();
                 System.out.println("Compiling successful");
             }
+            if (cacheDirectory != null) {
+                System.out.println("Precompiling into schema class cache " + cacheDirectory);
+                precompileIntoCache();
+                System.out.println("Precompiling successful");
+            }
             if (createJar) {
                 System.out.println("Creating .jar-file");
                 generateJarFile();
@@ -372,6 +391,19 @@ public class TgSchema2Java {
         }
     }
 
+    /**
+     * Compiles the schema classes in memory and stores them in the
+     * {@link SchemaClassCache} at {@link #cacheDirectory}. A JVM using this
+     * cache directory and the same code generator configuration loads the
+     * classes from there and doesn't need a Java compiler. Note that
+     * {@link GraphIO} compiles with {@link CodeGeneratorConfiguration#MINIMAL},
+     * so use <code>--without-types</code> to precompile for it.
+     */
+    public void precompileIntoCache() {
+        SchemaClassCache.setDefaultDirectory(new File(cacheDirectory));
+        schema.compile(config);
+    }
+
     /**
      * generates the .jar-file
      */
@@ -410,6 +442,17 @@ public class TgSchema2Java {
         without_types.setRequired(false);
         oh.addOption(without_types);
 
+        Option compact = new Option("k", "compact", false,
+                "(optional): Base the created classes on the compact implementation which keeps the graph structure in arrays");
+        compact.setRequired(false);
+        oh.addOption(compact);
+
+        Option cache = new Option("C", "cache", true,
+                "(optional): precompiles the classes into the given schema class cache directory");
+        cache.setRequired(false);
+        cache.setArgName("dir");
+        oh.addOption(cache);
+
         Option path = new Option("p", "path", true,
                 "specifies the path to where the created files are stored; default is current folder (\".\")");
         path.setRequired(true);
@@ -477,6 +520,14 @@ public class TgSchema2Java {
         this.jarFileName = jarFileName;
     }
 
+    public String getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    public void setCacheDirectory(String cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
     public Schema getSchema() {
         return schema;
     }
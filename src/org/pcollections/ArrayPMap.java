@@ -38,6 +38,7 @@ import java.io.Serializable;
 import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -109,6 +110,33 @@ public final class ArrayPMap<K, V> implements POrderedMap<K, V>, Iterable<Simple
 		return (ArrayPMap<T, U>) empty;
 	}
 
+	/**
+	 * Creates an ArrayPMap mapping <code>keys.get(i)</code> to
+	 * <code>values.get(i)</code> in time linear to the number of entries. In
+	 * contrast to repeated {@link #plus(Object, Object)} calls, the keys are
+	 * not checked for duplicates, so the caller must guarantee that
+	 * <code>keys</code> contains every key only once.
+	 * 
+	 * @param keys
+	 *            the distinct keys in iteration order
+	 * @param values
+	 *            the corresponding values
+	 * @return a new ArrayPMap holding the given entries
+	 */
+	public static <K, V> ArrayPMap<K, V> fromDistinctKeys(List<K> keys,
+			List<V> values) {
+		if (keys.size() != values.size()) {
+			throw new IllegalArgumentException("Got " + keys.size()
+					+ " keys but " + values.size() + " values");
+		}
+		if (keys.isEmpty()) {
+			return empty();
+		}
+		PVector<K> k = ArrayPVector.<K> empty().plusAll(keys);
+		PVector<V> v = ArrayPVector.<V> empty().plusAll(values);
+		return new ArrayPMap<>(ArrayPSet.fromDistinct(k), v);
+	}
+
 	@Override
 	public int size() {
 		return keys.size();
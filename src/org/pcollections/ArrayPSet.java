@@ -120,6 +120,18 @@ public final class ArrayPSet<E> implements POrderedSet<E>, Serializable {
 		return new ArrayPSet<>(entries.plus(e));
 	}
 
+	/**
+	 * Creates an ArrayPSet backed by the given vector without checking for
+	 * duplicates and without promoting to an OrderedPSet.
+	 * 
+	 * @param entries
+	 *            a vector that doesn't contain duplicates
+	 * @return an ArrayPSet containing <code>entries</code> in their order
+	 */
+	static <T> ArrayPSet<T> fromDistinct(PVector<T> entries) {
+		return new ArrayPSet<>(entries);
+	}
+
 	@Override
 	public POrderedSet<E> plusAll(Collection<? extends E> list) {
 		if (list.isEmpty()) {
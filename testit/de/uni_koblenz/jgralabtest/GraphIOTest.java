@@ -39,14 +39,35 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Iterator;
 
 import org.junit.Test;
 
+import de.uni_koblenz.jgralab.AttributedElement;
+import de.uni_koblenz.jgralab.Edge;
+import de.uni_koblenz.jgralab.Graph;
 import de.uni_koblenz.jgralab.GraphIO;
+import de.uni_koblenz.jgralab.ImplementationType;
+import de.uni_koblenz.jgralab.Vertex;
 import de.uni_koblenz.jgralab.exception.GraphIOException;
 import de.uni_koblenz.jgralab.grumlschema.GrumlSchema;
+import de.uni_koblenz.jgralab.impl.InternalAttributedElement;
+import de.uni_koblenz.jgralab.impl.InternalGraph;
+import de.uni_koblenz.jgralab.impl.generic.GenericGraphFactoryImpl;
+import de.uni_koblenz.jgralab.impl.generic.GenericGraphImpl;
+import de.uni_koblenz.jgralab.schema.AggregationKind;
+import de.uni_koblenz.jgralab.schema.Attribute;
+import de.uni_koblenz.jgralab.schema.EdgeClass;
+import de.uni_koblenz.jgralab.schema.GraphClass;
+import de.uni_koblenz.jgralab.schema.Schema;
+import de.uni_koblenz.jgralab.schema.VertexClass;
+import de.uni_koblenz.jgralab.schema.impl.SchemaImpl;
 import de.uni_koblenz.jgralab.impl.TgLexer.Token;
 
 public class GraphIOTest {
@@ -116,4 +137,227 @@ public class GraphIOTest {
 		}
 	}
 
+	@Test
+	public void testBinaryRoundTrip() throws Exception {
+		File file = File.createTempFile("greqltestgraph",
+				GraphIO.TGRAPH_BINARY_FILE_EXTENSION);
+		try {
+			for (ImplementationType implType : new ImplementationType[] {
+					ImplementationType.GENERIC, ImplementationType.STANDARD }) {
+				Graph g = GraphIO.loadGraphFromFile(
+						"testit/testgraphs/greqltestgraph.tg", implType, null);
+				GraphIO.saveGraphToFile(g, file.getPath(), null);
+				Graph h = GraphIO.loadGraphFromFile(file.getPath(), implType,
+						null);
+				assertGraphsEqual(g, h);
+
+				h = GraphIO.loadGraphFromFile(file.getPath(),
+						g.getSchema(), implType, null);
+				assertGraphsEqual(g, h);
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testBinaryLoadWithWrongSchema() throws Exception {
+		File file = File.createTempFile("greqltestgraph",
+				GraphIO.TGRAPH_BINARY_FILE_EXTENSION);
+		try {
+			Graph g = GraphIO.loadGraphFromFile(
+					"testit/testgraphs/greqltestgraph.tg",
+					ImplementationType.GENERIC, null);
+			GraphIO.saveGraphToFile(g, file.getPath(), null);
+			try {
+				GraphIO.loadGraphFromFile(file.getPath(),
+						GrumlSchema.instance(), ImplementationType.STANDARD,
+						null);
+				fail("Loading a binary graph with another schema must fail");
+			} catch (GraphIOException e) {
+				// expected
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testBinaryLoadWithMissingIncidence() throws Exception {
+		Schema schema = new SchemaImpl("BinaryGraphIOTestSchema",
+				"de.uni_koblenz.jgralabtest.binarygraphio");
+		GraphClass gc = schema.createGraphClass("TestGraph");
+		VertexClass vc = gc.createVertexClass("V");
+		EdgeClass ec = gc.createEdgeClass("E", vc, 0, Integer.MAX_VALUE, "",
+				AggregationKind.NONE, vc, 0, Integer.MAX_VALUE, "",
+				AggregationKind.NONE);
+		schema.finish();
+		Graph g = schema.createGraph(ImplementationType.GENERIC);
+		Vertex v1 = g.createVertex(vc);
+		Vertex v2 = g.createVertex(vc);
+		g.createEdge(ec, v1, v2);
+		g.createEdge(ec, v1, v2);
+
+		File file = File.createTempFile("corruptgraph",
+				GraphIO.TGRAPH_BINARY_FILE_EXTENSION);
+		try {
+			GraphIO.saveGraphToFile(g, file.getPath(), null);
+			// the incidences of v2 are -1, -2; replace -2 by -1, so that edge
+			// 2 has no omega
+			byte[] content = Files.readAllBytes(file.toPath());
+			byte[] incidences = ByteBuffer.allocate(8).putInt(-1).putInt(-2)
+					.array();
+			int pos = indexOf(content, incidences);
+			assertTrue(pos >= 0);
+			content[pos + 7] = (byte) 0xff;
+			Files.write(file.toPath(), content);
+			try {
+				GraphIO.loadGraphFromFile(file.getPath(),
+						ImplementationType.GENERIC, null);
+				fail("Loading a binary graph with a missing incidence must fail");
+			} catch (GraphIOException e) {
+				assertEquals("Edge 2 has no omega vertex.", e.getMessage());
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	private static int indexOf(byte[] a, byte[] b) {
+		for (int i = 0; i + b.length <= a.length; ++i) {
+			if (Arrays.equals(Arrays.copyOfRange(a, i, i + b.length), b)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Test
+	public void testParallelLoading() throws Exception {
+		Graph g = createLargeGraph(10000);
+		File file = File.createTempFile("greqltestgraph",
+				GraphIO.TGRAPH_FILE_EXTENSION);
+		int threads = GraphIO.getLoadingThreads();
+		try {
+			GraphIO.saveGraphToFile(g, file.getPath(), null);
+			for (ImplementationType implType : new ImplementationType[] {
+					ImplementationType.GENERIC, ImplementationType.STANDARD }) {
+				GraphIO.setLoadingThreads(1);
+				Graph sequential = GraphIO.loadGraphFromFile(file.getPath(),
+						implType, null);
+				assertGraphsEqual(g, sequential);
+				GraphIO.setLoadingThreads(4);
+				Graph parallel = GraphIO.loadGraphFromFile(file.getPath(),
+						implType, null);
+				assertGraphsEqual(sequential, parallel);
+			}
+		} finally {
+			GraphIO.setLoadingThreads(threads);
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testParallelLoadingWithAttributeColumns() throws Exception {
+		Graph g = createLargeGraph(50000);
+		File file = File.createTempFile("greqltestgraph",
+				GraphIO.TGRAPH_FILE_EXTENSION);
+		int threads = GraphIO.getLoadingThreads();
+		try {
+			GraphIO.saveGraphToFile(g, file.getPath(), null);
+			GraphIO.setLoadingThreads(1);
+			Graph sequential = GraphIO.loadGraphFromFile(file.getPath(),
+					new GenericGraphFactoryImpl(g.getSchema(), true), null);
+			assertGraphsEqual(g, sequential);
+			// the attribute columns grow while the values of earlier elements
+			// are set by the worker threads
+			GraphIO.setLoadingThreads(4);
+			for (int i = 0; i < 3; ++i) {
+				Graph parallel = GraphIO.loadGraphFromFile(file.getPath(),
+						new GenericGraphFactoryImpl(g.getSchema(), true), null);
+				assertTrue(((GenericGraphImpl) parallel)
+						.hasPrimitiveAttributeStorage());
+				assertGraphsEqual(sequential, parallel);
+			}
+		} finally {
+			GraphIO.setLoadingThreads(threads);
+			file.delete();
+		}
+	}
+
+	/**
+	 * @return the greqltestgraph with <code>n</code> additional towns and
+	 *         crossroads, enough elements to fill several loading chunks, with
+	 *         semicolons and quotes in string attributes
+	 */
+	private static Graph createLargeGraph(int n) throws GraphIOException {
+		Graph g = GraphIO.loadGraphFromFile(
+				"testit/testgraphs/greqltestgraph.tg",
+				ImplementationType.GENERIC, null);
+		VertexClass town = g.getGraphClass().getVertexClass("localities.Town");
+		VertexClass crossroad = g.getGraphClass().getVertexClass(
+				"junctions.Crossroad");
+		EdgeClass street = g.getGraphClass().getEdgeClass("connections.Street");
+		Vertex prev = null;
+		for (int i = 0; i < n; ++i) {
+			Vertex t = g.createVertex(town);
+			t.setAttribute("name", "Town \"" + i + "\"; // no comment");
+			t.setAttribute("inhabitants", i);
+			Vertex c = g.createVertex(crossroad);
+			if (prev != null) {
+				Edge e = g.createEdge(street, prev, c);
+				e.setAttribute("name", "Street;" + i);
+				e.setAttribute("oneway", i % 2 == 0);
+				e.setAttribute("length", i / 3.0);
+			}
+			prev = c;
+		}
+		return g;
+	}
+
+	private static void assertGraphsEqual(Graph expected, Graph actual)
+			throws Exception {
+		assertEquals(expected.getId(), actual.getId());
+		assertEquals(expected.getGraphVersion(), actual.getGraphVersion());
+		assertEquals(((InternalGraph) expected).getMaxVCount(),
+				((InternalGraph) actual).getMaxVCount());
+		assertEquals(((InternalGraph) expected).getMaxECount(),
+				((InternalGraph) actual).getMaxECount());
+		assertEquals(expected.getVCount(), actual.getVCount());
+		assertEquals(expected.getECount(), actual.getECount());
+		assertAttributesEqual(expected, actual);
+		Iterator<Vertex> vit = actual.vertices().iterator();
+		for (Vertex v : expected.vertices()) {
+			Vertex w = vit.next();
+			assertEquals(v.getId(), w.getId());
+			assertAttributesEqual(v, w);
+			Iterator<Edge> iit = w.incidences().iterator();
+			for (Edge e : v.incidences()) {
+				assertEquals(e.getId(), iit.next().getId());
+			}
+			assertFalse(iit.hasNext());
+		}
+		Iterator<Edge> eit = actual.edges().iterator();
+		for (Edge e : expected.edges()) {
+			Edge f = eit.next();
+			assertEquals(e.getId(), f.getId());
+			assertEquals(e.getAlpha().getId(), f.getAlpha().getId());
+			assertEquals(e.getOmega().getId(), f.getOmega().getId());
+			assertAttributesEqual(e, f);
+		}
+	}
+
+	private static void assertAttributesEqual(AttributedElement<?, ?> expected,
+			AttributedElement<?, ?> actual) throws Exception {
+		assertEquals(expected.getAttributedElementClass().getQualifiedName(),
+				actual.getAttributedElementClass().getQualifiedName());
+		for (Attribute a : expected.getAttributedElementClass()
+				.getAttributeList()) {
+			assertEquals(
+					((InternalAttributedElement) expected)
+							.writeAttributeValueToString(a.getName()),
+					((InternalAttributedElement) actual)
+							.writeAttributeValueToString(a.getName()));
+		}
+	}
 }
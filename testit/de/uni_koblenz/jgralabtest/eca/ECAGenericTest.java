@@ -35,9 +35,17 @@
 package de.uni_koblenz.jgralabtest.eca;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 import org.junit.After;
@@ -58,6 +66,7 @@ import de.uni_koblenz.jgralab.eca.ECARule;
 import de.uni_koblenz.jgralab.eca.ECARuleManager;
 import de.uni_koblenz.jgralab.eca.GreqlCondition;
 import de.uni_koblenz.jgralab.eca.PrintAction;
+import de.uni_koblenz.jgralab.eca.events.ChangeAttributeEvent;
 import de.uni_koblenz.jgralab.eca.events.ChangeAttributeEventDescription;
 import de.uni_koblenz.jgralab.eca.events.ChangeEdgeEventDescription;
 import de.uni_koblenz.jgralab.eca.events.ChangeEdgeEventDescription.EdgeEnd;
@@ -65,8 +74,10 @@ import de.uni_koblenz.jgralab.eca.events.CreateEdgeEventDescription;
 import de.uni_koblenz.jgralab.eca.events.CreateVertexEventDescription;
 import de.uni_koblenz.jgralab.eca.events.DeleteEdgeEventDescription;
 import de.uni_koblenz.jgralab.eca.events.DeleteVertexEventDescription;
+import de.uni_koblenz.jgralab.eca.events.Event;
 import de.uni_koblenz.jgralab.eca.events.EventDescription;
 import de.uni_koblenz.jgralab.exception.GraphIOException;
+import de.uni_koblenz.jgralab.schema.AttributedElementClass;
 import de.uni_koblenz.jgralab.schema.EdgeClass;
 import de.uni_koblenz.jgralab.schema.EnumDomain;
 import de.uni_koblenz.jgralab.schema.RecordDomain;
@@ -460,6 +471,266 @@ public class ECAGenericTest {
 		System.out.println();
 	}
 
+	private void checkReusedGreqlCondition(boolean generateCode) {
+		EventDescription<VertexClass> aft_ev = new ChangeAttributeEventDescription<>(EventDescription.EventTime.AFTER,
+				vcUser, "name");
+		Condition<VertexClass> cond = new GreqlCondition<>("context.name = 'Alice'", generateCode);
+		final int[] count = new int[1];
+		Action<VertexClass> act = new Action<VertexClass>() {
+			@Override
+			public void doAction(Event<VertexClass> event) {
+				++count[0];
+			}
+		};
+		ECARule<VertexClass> aft_rule = new ECARule<>(aft_ev, cond, act);
+		ecaRuleManager.addECARule(aft_rule);
+
+		String[] names = { "Alice", "Bob", "Alice", "Carl", "Alice" };
+		for (String name : names) {
+			user1.setAttribute("name", name);
+		}
+		user2.setAttribute("name", "Alice");
+
+		assertEquals(4, count[0]);
+		assertEquals(6, aft_rule.getConditionEvaluationCount());
+		assertTrue(ecaRuleManager.getConditionEvaluationTimes().get(aft_rule) > 0);
+		ecaRuleManager.resetConditionStatistics();
+		assertEquals(0, aft_rule.getConditionEvaluationCount());
+		assertEquals(0, aft_rule.getConditionEvaluationTime());
+
+		ecaRuleManager.deleteECARule(aft_rule);
+	}
+
+	@Test
+	public void testReusedGreqlCondition() {
+		checkReusedGreqlCondition(false);
+	}
+
+	@Test
+	public void testGeneratedGreqlCondition() {
+		checkReusedGreqlCondition(true);
+	}
+
+	private static <AEC extends AttributedElementClass<AEC, ?>> Action<AEC> countingAction(
+			final int[] counts, final int index) {
+		return new Action<AEC>() {
+			@Override
+			public void doAction(Event<AEC> event) {
+				++counts[index];
+			}
+		};
+	}
+
+	@Test
+	public void testTypeIndexedDispatch() {
+		final int[] counts = new int[6];
+		ECARule<VertexClass> bookRule = new ECARule<>(new CreateVertexEventDescription(
+				EventDescription.EventTime.AFTER, vcBook), ECAGenericTest.<VertexClass> countingAction(counts, 0));
+		ECARule<VertexClass> userRule = new ECARule<>(new CreateVertexEventDescription(
+				EventDescription.EventTime.AFTER, vcUser), ECAGenericTest.<VertexClass> countingAction(counts, 1));
+		ECARule<VertexClass> mediumRule = new ECARule<>(new CreateVertexEventDescription(
+				EventDescription.EventTime.AFTER, "V{Medium}"), ECAGenericTest.<VertexClass> countingAction(counts, 2));
+		ECARule<VertexClass> titleRule = new ECARule<>(new ChangeAttributeEventDescription<>(
+				EventDescription.EventTime.AFTER, vcBook, "title"), ECAGenericTest.<VertexClass> countingAction(counts,
+				3));
+		ECARule<VertexClass> nameRule = new ECARule<>(new ChangeAttributeEventDescription<>(
+				EventDescription.EventTime.AFTER, vcUser, "name"), ECAGenericTest.<VertexClass> countingAction(counts,
+				4));
+		ECARule<VertexClass> magazinTitleRule = new ECARule<>(new ChangeAttributeEventDescription<>(
+				EventDescription.EventTime.AFTER, vcMagazin, "title"), ECAGenericTest.<VertexClass> countingAction(
+				counts, 5));
+		ecaRuleManager.addECARule(bookRule);
+		ecaRuleManager.addECARule(userRule);
+		ecaRuleManager.addECARule(mediumRule);
+		ecaRuleManager.addECARule(titleRule);
+		ecaRuleManager.addECARule(nameRule);
+		ecaRuleManager.addECARule(magazinTitleRule);
+
+		book1.setAttribute("title", "The Two Towers");
+		user1.setAttribute("name", "Dora");
+		user1.setAttribute("name", "Eve");
+
+		assertEquals(1, counts[3]);
+		assertEquals(2, counts[4]);
+		assertEquals(0, counts[5]);
+
+		// removed rules must not be dispatched anymore
+		ecaRuleManager.deleteECARule(titleRule);
+		ecaRuleManager.deleteECARule(nameRule);
+		ecaRuleManager.deleteECARule(magazinTitleRule);
+		book1.setAttribute("title", "The Return of the King");
+		assertEquals(1, counts[3]);
+
+		simlibgraph.createVertex(vcBook);
+		simlibgraph.createVertex(vcBook);
+		simlibgraph.createVertex(vcUser);
+
+		assertEquals(2, counts[0]);
+		assertEquals(1, counts[1]);
+		assertEquals(2, counts[2]);
+
+		ecaRuleManager.deleteECARule(bookRule);
+		simlibgraph.createVertex(vcBook);
+
+		assertEquals(2, counts[0]);
+		assertEquals(3, counts[2]);
+
+		ecaRuleManager.deleteECARule(userRule);
+		ecaRuleManager.deleteECARule(mediumRule);
+	}
+
+	@Test
+	public void testBatchedExecution() {
+		final int[] counts = new int[4];
+		final List<Object> newTitles = new ArrayList<>();
+		ECARule<VertexClass> titleRule = new ECARule<>(new ChangeAttributeEventDescription<>(
+				EventDescription.EventTime.AFTER, vcBook, "title"), new Action<VertexClass>() {
+			@Override
+			public void doAction(Event<VertexClass> event) {
+				++counts[0];
+				newTitles.add(((ChangeAttributeEvent<VertexClass>) event).getNewValue());
+			}
+		});
+		ECARule<VertexClass> createRule = new ECARule<>(new CreateVertexEventDescription(
+				EventDescription.EventTime.AFTER, vcBook), ECAGenericTest.<VertexClass> countingAction(counts, 1));
+		ECARule<VertexClass> deleteRule = new ECARule<>(new DeleteVertexEventDescription(
+				EventDescription.EventTime.AFTER, vcBook), ECAGenericTest.<VertexClass> countingAction(counts, 2));
+		ECARule<VertexClass> beforeRule = new ECARule<>(new ChangeAttributeEventDescription<>(
+				EventDescription.EventTime.BEFORE, vcBook, "title"), ECAGenericTest.<VertexClass> countingAction(
+				counts, 3));
+		ecaRuleManager.addECARule(titleRule);
+		ecaRuleManager.addECARule(createRule);
+		ecaRuleManager.addECARule(deleteRule);
+		ecaRuleManager.addECARule(beforeRule);
+
+		ecaRuleManager.beginBatch();
+		book1.setAttribute("title", "The Fellowship of the Ring");
+		book1.setAttribute("title", "The Two Towers");
+		ecaRuleManager.beginBatch();
+		book1.setAttribute("title", "The Return of the King");
+		Vertex tmp = simlibgraph.createVertex(vcBook);
+		tmp.setAttribute("title", "Temporary");
+		simlibgraph.createVertex(vcBook);
+		simlibgraph.deleteVertex(tmp);
+		ecaRuleManager.commitBatch();
+
+		// BEFORE rules fire immediately, AFTER rules are deferred
+		assertTrue(ecaRuleManager.isInBatch());
+		assertTrue(counts[3] > 0);
+		assertEquals(0, counts[0] + counts[1] + counts[2]);
+		// one coalesced title change of book1, the creation of the remaining
+		// vertex and the initialization of its title, one deletion
+		assertEquals(4, ecaRuleManager.getPendingEventCount());
+
+		ecaRuleManager.commitBatch();
+		assertFalse(ecaRuleManager.isInBatch());
+		assertEquals(0, ecaRuleManager.getPendingEventCount());
+		// the events of the deleted vertex have been discarded
+		assertEquals(2, counts[0]);
+		assertEquals(1, counts[1]);
+		assertEquals(1, counts[2]);
+		assertEquals("The Return of the King", newTitles.get(0));
+
+		ecaRuleManager.beginBatch();
+		book1.setAttribute("title", "The Hobbit");
+		ecaRuleManager.discardBatch();
+		assertEquals(2, counts[0]);
+
+		ecaRuleManager.deleteECARule(titleRule);
+		ecaRuleManager.deleteECARule(createRule);
+		ecaRuleManager.deleteECARule(deleteRule);
+		ecaRuleManager.deleteECARule(beforeRule);
+	}
+
+	@Test
+	public void testBatchedSideEffectFreeRules() {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			ecaRuleManager.setExecutor(executor);
+			final Map<Vertex, Thread> threads = new ConcurrentHashMap<>();
+			ECARule<VertexClass> sideEffectFreeRule = new ECARule<>(new ChangeAttributeEventDescription<>(
+					EventDescription.EventTime.AFTER, vcUser, "name"), new Action<VertexClass>() {
+				@Override
+				public void doAction(Event<VertexClass> event) {
+					threads.put((Vertex) event.getElement(), Thread.currentThread());
+				}
+			});
+			sideEffectFreeRule.setSideEffectFree(true);
+			final int[] counts = new int[1];
+			ECARule<VertexClass> rule = new ECARule<>(new ChangeAttributeEventDescription<>(
+					EventDescription.EventTime.AFTER, vcUser, "name"), ECAGenericTest.<VertexClass> countingAction(
+					counts, 0));
+			ecaRuleManager.addECARule(sideEffectFreeRule);
+			ecaRuleManager.addECARule(rule);
+
+			ecaRuleManager.beginBatch();
+			user1.setAttribute("name", "Frodo");
+			user2.setAttribute("name", "Sam");
+			ecaRuleManager.commitBatch();
+
+			assertEquals(2, counts[0]);
+			assertEquals(2, threads.size());
+			assertFalse(threads.containsValue(Thread.currentThread()));
+
+			// outside of batches, all rules are triggered immediately
+			threads.clear();
+			user1.setAttribute("name", "Bilbo");
+			assertEquals(Thread.currentThread(), threads.get(user1));
+
+			ecaRuleManager.deleteECARule(sideEffectFreeRule);
+			ecaRuleManager.deleteECARule(rule);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testSharedGreqlConditionInParallelRules() {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Vertex> users = new ArrayList<>();
+		List<ECARule<VertexClass>> rules = new ArrayList<>();
+		try {
+			ecaRuleManager.setExecutor(executor);
+			for (int i = 0; i < 200; i++) {
+				users.add(simlibgraph.createVertex(vcUser));
+			}
+			Condition<VertexClass> cond = new GreqlCondition<>("context.name = 'Alice'");
+			final AtomicInteger[] counts = new AtomicInteger[4];
+			for (int i = 0; i < counts.length; i++) {
+				final AtomicInteger count = counts[i] = new AtomicInteger();
+				ECARule<VertexClass> rule = new ECARule<>(new ChangeAttributeEventDescription<>(
+						EventDescription.EventTime.AFTER, vcUser, "name"), cond, new Action<VertexClass>() {
+					@Override
+					public void doAction(Event<VertexClass> event) {
+						count.incrementAndGet();
+					}
+				});
+				rule.setSideEffectFree(true);
+				ecaRuleManager.addECARule(rule);
+				rules.add(rule);
+			}
+
+			ecaRuleManager.beginBatch();
+			for (int i = 0; i < users.size(); i++) {
+				users.get(i).setAttribute("name", i % 2 == 0 ? "Alice" : "Bob");
+			}
+			ecaRuleManager.commitBatch();
+
+			for (AtomicInteger count : counts) {
+				assertEquals(100, count.get());
+			}
+		} finally {
+			for (ECARule<VertexClass> rule : rules) {
+				ecaRuleManager.deleteECARule(rule);
+			}
+			for (Vertex u : users) {
+				u.delete();
+			}
+			ecaRuleManager.setExecutor(null);
+			executor.shutdown();
+		}
+	}
+
 	@Test
 	public void testUserCondition1() {
 		System.out.println("Test Condition if the new set year of Magazin is greater than 2012.");
@@ -0,0 +1,178 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralabtest.genericimpltest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.uni_koblenz.jgralab.Edge;
+import de.uni_koblenz.jgralab.Graph;
+import de.uni_koblenz.jgralab.GraphIO;
+import de.uni_koblenz.jgralab.ImplementationType;
+import de.uni_koblenz.jgralab.Vertex;
+import de.uni_koblenz.jgralab.exception.GraphIOException;
+import de.uni_koblenz.jgralab.impl.generic.GenericGraphFactoryImpl;
+import de.uni_koblenz.jgralab.impl.generic.GenericGraphImpl;
+import de.uni_koblenz.jgralab.schema.Attribute;
+import de.uni_koblenz.jgralab.schema.EdgeClass;
+import de.uni_koblenz.jgralab.schema.Schema;
+import de.uni_koblenz.jgralab.schema.VertexClass;
+
+public class PrimitiveAttributeStorageTest {
+	private Schema schema;
+	private VertexClass testVertex;
+	private EdgeClass testEdge;
+	private Graph g;
+
+	@Before
+	public void setUp() throws GraphIOException {
+		schema = GraphIO.loadSchemaFromFile(GenericGraphImplTest.SCHEMAFOLDER
+				+ "DefaultValueTestSchema.tg");
+		testVertex = schema.getGraphClass().getVertexClass("TestVertex");
+		testEdge = schema.getGraphClass().getEdgeClass("TestEdge");
+		g = new GenericGraphFactoryImpl(schema, true).createGraph(
+				schema.getGraphClass(), null, 10, 10);
+	}
+
+	@Test
+	public void testDefaultValuesAndChanges() {
+		assertTrue(((GenericGraphImpl) g).hasPrimitiveAttributeStorage());
+		Graph reference = schema.createGraph(ImplementationType.GENERIC);
+		assertFalse(((GenericGraphImpl) reference)
+				.hasPrimitiveAttributeStorage());
+
+		Vertex v = g.createVertex(testVertex);
+		Vertex w = reference.createVertex(testVertex);
+		Edge e = g.createEdge(testEdge, v, v);
+		Edge f = reference.createEdge(testEdge, w, w);
+		for (Attribute a : testVertex.getAttributeList()) {
+			assertEquals(w.<Object> getAttribute(a.getName()),
+					v.<Object> getAttribute(a.getName()));
+		}
+		for (Attribute a : testEdge.getAttributeList()) {
+			assertEquals(f.<Object> getAttribute(a.getName()),
+					e.<Object> getAttribute(a.getName()));
+			assertEquals(f.<Object> getAttribute(a.getName()), e
+					.getReversedEdge().<Object> getAttribute(a.getName()));
+		}
+
+		v.setAttribute("boolVertex", false);
+		v.setAttribute("intVertex", 42);
+		v.setAttribute("longVertex", Long.MAX_VALUE);
+		v.setAttribute("doubleVertex", -0.5);
+		v.setAttribute("enumVertex", "THIRD");
+		e.setAttribute("intEdge", -7);
+		assertEquals(false, v.getAttribute("boolVertex"));
+		assertEquals(42, (int) v.getAttribute("intVertex"));
+		assertEquals(Long.MAX_VALUE, (long) v.getAttribute("longVertex"));
+		assertEquals(-0.5, (Double) v.getAttribute("doubleVertex"), 0.0);
+		assertEquals("THIRD", v.getAttribute("enumVertex"));
+		assertEquals(-7, (int) e.getAttribute("intEdge"));
+		assertEquals(1, (int) g.createEdge(testEdge, v, v).getAttribute(
+				"intEdge"));
+	}
+
+	@Test(expected = ClassCastException.class)
+	public void testNullForPrimitiveDomain() {
+		g.createVertex(testVertex).setAttribute("intVertex", null);
+	}
+
+	@Test
+	public void testSlotsAreReused() {
+		List<Vertex> vertices = new ArrayList<>();
+		for (int i = 0; i < 100; ++i) {
+			Vertex v = g.createVertex(testVertex);
+			v.setAttribute("intVertex", i);
+			v.setAttribute("stringVertex", "v" + i);
+			vertices.add(v);
+		}
+		for (int i = 0; i < 100; i += 2) {
+			vertices.get(i).delete();
+		}
+		for (int i = 0; i < 50; ++i) {
+			Vertex v = g.createVertex(testVertex);
+			assertEquals(1, (int) v.getAttribute("intVertex"));
+			assertEquals("test", v.getAttribute("stringVertex"));
+			v.setAttribute("intVertex", -i);
+		}
+		for (int i = 0; i < 100; ++i) {
+			// deleted vertices keep their values
+			assertEquals(i, (int) vertices.get(i).getAttribute("intVertex"));
+			assertEquals("v" + i, vertices.get(i).getAttribute("stringVertex"));
+		}
+	}
+
+	@Test
+	public void testSaveAndLoad() throws GraphIOException {
+		for (int i = 0; i < 20; ++i) {
+			Vertex v = g.createVertex(testVertex);
+			v.setAttribute("intVertex", i * 3);
+			v.setAttribute("doubleVertex", i / 4.0);
+			g.createEdge(testEdge, v, g.getFirstVertex()).setAttribute(
+					"longEdge", (long) i << 40);
+		}
+		String filename = "testit/testdata/primitiveAttributeStorage.tg";
+		try {
+			GraphIO.saveGraphToFile(g, filename, null);
+			Graph h = GraphIO.loadGraphFromFile(filename,
+					new GenericGraphFactoryImpl(schema, true), null);
+			assertTrue(((GenericGraphImpl) h).hasPrimitiveAttributeStorage());
+			for (Vertex v : g.vertices()) {
+				Vertex w = h.getVertex(v.getId());
+				for (Attribute a : testVertex.getAttributeList()) {
+					assertEquals(v.<Object> getAttribute(a.getName()),
+							w.<Object> getAttribute(a.getName()));
+				}
+			}
+			for (Edge e : g.edges()) {
+				Edge f = h.getEdge(e.getId());
+				for (Attribute a : testEdge.getAttributeList()) {
+					assertEquals(e.<Object> getAttribute(a.getName()),
+							f.<Object> getAttribute(a.getName()));
+				}
+			}
+		} finally {
+			new File(filename).delete();
+		}
+	}
+}
@@ -42,7 +42,7 @@ import org.junit.runners.Suite;
  */
 @RunWith(Suite.class)
 @Suite.SuiteClasses({ DomainTest.class, GenericGraphImplTest.class, GenericVertexImplTest.class,
-		GenericEdgeImplTest.class })
+		GenericEdgeImplTest.class, PrimitiveAttributeStorageTest.class })
 public class RunGenericTests {
 
 }
@@ -0,0 +1,255 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralabtest.graphmarker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.uni_koblenz.jgralab.Edge;
+import de.uni_koblenz.jgralab.ImplementationType;
+import de.uni_koblenz.jgralab.Vertex;
+import de.uni_koblenz.jgralab.graphmarker.ConcurrentBitSetEdgeMarker;
+import de.uni_koblenz.jgralab.graphmarker.ConcurrentBitSetVertexMarker;
+import de.uni_koblenz.jgralab.graphmarker.ConcurrentIntegerVertexMarker;
+import de.uni_koblenz.jgralab.graphmarker.ConcurrentLongEdgeMarker;
+import de.uni_koblenz.jgralabtest.schemas.minimal.Link;
+import de.uni_koblenz.jgralabtest.schemas.minimal.MinimalGraph;
+import de.uni_koblenz.jgralabtest.schemas.minimal.MinimalSchema;
+import de.uni_koblenz.jgralabtest.schemas.minimal.Node;
+
+public class ConcurrentGraphMarkerTest {
+	private static final int THREADS = 4;
+	private static final int NODES = 20000;
+
+	private MinimalGraph g;
+	private Node[] nodes;
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		g = MinimalSchema.instance().createMinimalGraph(
+				ImplementationType.STANDARD, null, 4, 4);
+		nodes = new Node[NODES];
+		for (int i = 0; i < NODES; ++i) {
+			nodes[i] = g.createNode();
+			if (i > 0) {
+				g.createLink(nodes[i - 1], nodes[i]);
+			}
+		}
+		executor = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	private <T> List<T> runInParallel(Callable<T> task) throws Exception {
+		List<Future<T>> futures = new ArrayList<>();
+		for (int t = 0; t < THREADS; ++t) {
+			futures.add(executor.submit(task));
+		}
+		List<T> results = new ArrayList<>();
+		for (Future<T> f : futures) {
+			results.add(f.get());
+		}
+		return results;
+	}
+
+	@Test
+	public void testMarkIfUnmarkedSucceedsOnce() throws Exception {
+		final ConcurrentBitSetVertexMarker marker = new ConcurrentBitSetVertexMarker(
+				g);
+		List<Integer> counts = runInParallel(new Callable<Integer>() {
+			@Override
+			public Integer call() {
+				int count = 0;
+				for (Node n : nodes) {
+					if (marker.markIfUnmarked(n)) {
+						++count;
+					}
+				}
+				return count;
+			}
+		});
+		int sum = 0;
+		for (int c : counts) {
+			sum += c;
+		}
+		assertEquals(NODES, sum);
+		assertEquals(NODES, marker.size());
+		int iterated = 0;
+		for (Vertex v : marker.getMarkedElements()) {
+			assertTrue(marker.isMarked(v));
+			++iterated;
+		}
+		assertEquals(NODES, iterated);
+	}
+
+	@Test
+	public void testNoMarksLostWhileGrowing() throws Exception {
+		final ConcurrentBitSetVertexMarker marker = new ConcurrentBitSetVertexMarker(
+				g);
+		final AtomicBoolean done = new AtomicBoolean();
+		Future<?> grower = executor.submit(new Runnable() {
+			@Override
+			public void run() {
+				int max = NODES;
+				while (!done.get() && max < 10000000) {
+					max += 50000;
+					marker.maxVertexCountIncreased(max);
+				}
+			}
+		});
+		final int stripes = THREADS - 1;
+		List<Future<?>> markers = new ArrayList<>();
+		for (int t = 0; t < stripes; ++t) {
+			final int offset = t;
+			markers.add(executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = offset; i < NODES; i += stripes) {
+						marker.mark(nodes[i]);
+					}
+				}
+			}));
+		}
+		for (Future<?> f : markers) {
+			f.get();
+		}
+		done.set(true);
+		grower.get();
+		for (Node n : nodes) {
+			assertTrue(marker.isMarked(n));
+		}
+		assertEquals(NODES, marker.size());
+	}
+
+	@Test
+	public void testGrowingGraph() {
+		ConcurrentBitSetVertexMarker marker = new ConcurrentBitSetVertexMarker(
+				g);
+		marker.mark(nodes[0]);
+		List<Node> added = new ArrayList<>();
+		for (int i = 0; i < 100000; ++i) {
+			added.add(g.createNode());
+		}
+		Node last = added.get(added.size() - 1);
+		assertFalse(marker.isMarked(last));
+		assertTrue(marker.mark(last));
+		assertTrue(marker.isMarked(last));
+		assertTrue(marker.isMarked(nodes[0]));
+		last.delete();
+		assertEquals(1, marker.size());
+	}
+
+	@Test
+	public void testIntegerMarkerAddToMark() throws Exception {
+		final ConcurrentIntegerVertexMarker marker = new ConcurrentIntegerVertexMarker(
+				g);
+		final int rounds = 10;
+		runInParallel(new Callable<Void>() {
+			@Override
+			public Void call() {
+				for (int r = 0; r < rounds; ++r) {
+					for (Node n : nodes) {
+						marker.addToMark(n, 1);
+					}
+				}
+				return null;
+			}
+		});
+		assertEquals(NODES, marker.size());
+		for (Node n : nodes) {
+			assertEquals(THREADS * rounds, marker.getMark(n));
+		}
+	}
+
+	@Test
+	public void testIntegerMarker() {
+		ConcurrentIntegerVertexMarker marker = new ConcurrentIntegerVertexMarker(
+				g, -1);
+		assertEquals(-1, marker.getUnmarkedValue());
+		assertFalse(marker.isMarked(nodes[1]));
+		assertTrue(marker.markIfUnmarked(nodes[1], 5));
+		assertFalse(marker.markIfUnmarked(nodes[1], 6));
+		assertEquals(5, marker.getMark(nodes[1]));
+		assertFalse(marker.compareAndMark(nodes[1], 4, 7));
+		assertTrue(marker.compareAndMark(nodes[1], 5, 7));
+		assertEquals(7, marker.mark(nodes[1], 8));
+		assertEquals(-1, marker.mark(nodes[2], 0));
+		assertEquals(2, marker.size());
+		assertTrue(marker.removeMark(nodes[2]));
+		assertFalse(marker.removeMark(nodes[2]));
+		assertEquals(1, marker.size());
+		nodes[1].delete();
+		assertTrue(marker.isEmpty());
+	}
+
+	@Test
+	public void testEdgeMarkers() {
+		ConcurrentBitSetEdgeMarker bits = new ConcurrentBitSetEdgeMarker(g);
+		ConcurrentLongEdgeMarker longs = new ConcurrentLongEdgeMarker(g);
+		Link e = (Link) nodes[1].getFirstLinkIncidence().getNormalEdge();
+		Edge reversed = e.getReversedEdge();
+		assertTrue(bits.mark(reversed));
+		assertTrue(bits.isMarked(e));
+		assertFalse(bits.markIfUnmarked(e));
+		longs.mark(e, Long.MAX_VALUE);
+		assertEquals(Long.MAX_VALUE, longs.getMark(reversed));
+		int count = 0;
+		for (Edge m : longs.getMarkedElements()) {
+			assertEquals(e, m);
+			++count;
+		}
+		assertEquals(1, count);
+		e.delete();
+		assertTrue(bits.isEmpty());
+		assertTrue(longs.isEmpty());
+	}
+}
@@ -38,7 +38,8 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
 @RunWith(Suite.class)
-@Suite.SuiteClasses( { ArrayGraphmarkerTest.class, SubGraphMarkerTest.class })
+@Suite.SuiteClasses( { ArrayGraphmarkerTest.class, SubGraphMarkerTest.class,
+		ConcurrentGraphMarkerTest.class })
 public class RunGraphMarkerTests {
 
 }
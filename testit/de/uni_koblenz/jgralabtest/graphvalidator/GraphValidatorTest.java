@@ -35,9 +35,12 @@
 package de.uni_koblenz.jgralabtest.graphvalidator;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.Set;
+import java.util.SortedSet;
 import java.util.logging.Level;
 
 import org.junit.Before;
@@ -50,6 +53,7 @@ import de.uni_koblenz.jgralab.graphvalidator.ConstraintViolation;
 import de.uni_koblenz.jgralab.graphvalidator.GReQLConstraintViolation;
 import de.uni_koblenz.jgralab.graphvalidator.GraphValidator;
 import de.uni_koblenz.jgralab.graphvalidator.MultiplicityConstraintViolation;
+import de.uni_koblenz.jgralab.schema.Constraint;
 import de.uni_koblenz.jgralabtest.schemas.constrained.ConstrainedGraph;
 import de.uni_koblenz.jgralabtest.schemas.constrained.ConstrainedLink;
 import de.uni_koblenz.jgralabtest.schemas.constrained.ConstrainedNode;
@@ -139,6 +143,100 @@ public class GraphValidatorTest {
 						brokenConstraints));
 	}
 
+	@Test
+	public void parallelValidation() {
+		for (int i = 0; i < 20; i++) {
+			ConstrainedNode n = g.createConstrainedNode();
+			n.set_uid(i % 3 == 0 ? -i : i + 1);
+			if (i % 4 != 0) {
+				n.set_name("n" + i);
+			}
+			if (i > 1) {
+				g.createConstrainedLink(n, g.getFirstConstrainedNode()).set_uid(
+						i % 5);
+			}
+		}
+		validator.setThreadCount(1);
+		SortedSet<ConstraintViolation> sequential = validator.validate();
+		validator.setThreadCount(4);
+		assertEquals(sequential, validator.validate());
+		assertEquals(7, sequential.size());
+	}
+
+	@Test
+	public void incrementalValidation() {
+		GraphValidator incremental = new GraphValidator(g, true);
+		assertTrue(incremental.isIncremental());
+		assertEquals(validator.validate(), incremental.validate());
+
+		ConstrainedNode n1 = g.createConstrainedNode();
+		n1.set_name("n1");
+		n1.set_uid(1);
+		ConstrainedNode n2 = g.createConstrainedNode();
+		assertEquals(validator.validate(), incremental.validate());
+
+		n2.set_name("n2");
+		n2.set_uid(2);
+		ConstrainedLink l1 = g.createConstrainedLink(n1, n2);
+		l1.set_uid(-1);
+		SortedSet<ConstraintViolation> brokenConstraints = incremental
+				.validate();
+		assertEquals(validator.validate(), brokenConstraints);
+		assertEquals(
+				1,
+				getNumberOfBrokenConstraints(GReQLConstraintViolation.class,
+						brokenConstraints));
+
+		OtherConstrainedNode n3 = g.createOtherConstrainedNode();
+		n3.set_name("n3");
+		n3.set_uid(3);
+		n3.set_niceness(-17);
+		g.createConstrainedLink(n3, n1).set_uid(3);
+		assertEquals(validator.validate(), incremental.validate());
+
+		l1.set_uid(1);
+		l1.setOmega(n3);
+		assertEquals(validator.validate(), incremental.validate());
+
+		n3.set_niceness(17);
+		n2.delete();
+		brokenConstraints = incremental.validate();
+		assertEquals(validator.validate(), brokenConstraints);
+		assertEquals(
+				0,
+				getNumberOfBrokenConstraints(GReQLConstraintViolation.class,
+						brokenConstraints));
+
+		// no changes since the last validation
+		assertEquals(brokenConstraints, incremental.validate());
+		assertTrue(incremental.getCheckedEdgeClasses().isEmpty());
+		assertTrue(incremental.getCheckedConstraints().isEmpty());
+
+		// only the constraints reading ConstrainedLinks are evaluated again
+		l1.set_uid(-1);
+		brokenConstraints = incremental.validate();
+		assertEquals(validator.validate(), brokenConstraints);
+		assertEquals(
+				1,
+				getNumberOfBrokenConstraints(GReQLConstraintViolation.class,
+						brokenConstraints));
+		assertTrue(incremental.getCheckedEdgeClasses().isEmpty());
+		Set<Constraint> checked = incremental.getCheckedConstraints();
+		assertTrue(checked.containsAll(ConstrainedLink.EC.getConstraints()));
+		for (Constraint c : ConstrainedNode.VC.getConstraints()) {
+			assertFalse(checked.contains(c));
+		}
+		for (Constraint c : OtherConstrainedNode.VC.getConstraints()) {
+			assertFalse(checked.contains(c));
+		}
+		l1.set_uid(1);
+
+		incremental.dispose();
+		assertFalse(incremental.isIncremental());
+		n1.set_uid(-1);
+		assertEquals(validator.validate(), incremental.validate());
+	}
+
 	private static int getNumberOfBrokenConstraints(
 			Class<? extends ConstraintViolation> type,
 			Set<ConstraintViolation> set) {
@@ -0,0 +1,121 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+
+package de.uni_koblenz.jgralabtest.greql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import de.uni_koblenz.jgralab.greql.GreqlQuery;
+import de.uni_koblenz.jgralab.greql.GreqlQueryCache;
+import de.uni_koblenz.jgralab.greql.optimizer.DefaultOptimizer;
+import de.uni_koblenz.jgralab.greql.optimizer.DefaultOptimizerInfo;
+import de.uni_koblenz.jgralab.greql.optimizer.Optimizer;
+
+public class GreqlQueryCacheTest {
+
+	@Test
+	public void testHitsAndMisses() {
+		GreqlQueryCache cache = new GreqlQueryCache();
+		GreqlQuery q1 = cache.getQuery("1 + 2");
+		GreqlQuery q2 = cache.getQuery("1 + 2");
+		assertSame(q1, q2);
+		assertEquals(3, q1.evaluate());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.size());
+		assertTrue(cache.getWeight() > 0);
+	}
+
+	@Test
+	public void testNormalizedQueryText() {
+		GreqlQueryCache cache = new GreqlQueryCache();
+		GreqlQuery q1 = cache.getQuery("  \"a  b\" ++\n\t\"c\" ");
+		assertSame(q1, cache.getQuery("\"a  b\" ++ \"c\""));
+		assertNotSame(q1, cache.getQuery("\"a b\" ++ \"c\""));
+		assertEquals("a  bc", q1.evaluate());
+	}
+
+	@Test
+	public void testCommentsInQueryText() {
+		GreqlQueryCache cache = new GreqlQueryCache();
+		GreqlQuery q1 = cache.getQuery("1 // c\n + 2");
+		GreqlQuery q2 = cache.getQuery("1 // c + 2");
+		assertNotSame(q1, q2);
+		assertEquals(3, q1.evaluate());
+		assertEquals(1, q2.evaluate());
+		assertSame(q1, cache.getQuery("1 /* c */ + /* it's */ 2"));
+		assertSame(q2, cache.getQuery("1 // it's"));
+		GreqlQuery q3 = cache.getQuery("\"a\" // it's\n ++ \"b\"");
+		assertNotSame(q3, cache.getQuery("\"a\" // it's ++ \"b\""));
+		assertEquals("ab", q3.evaluate());
+	}
+
+	@Test
+	public void testOptimizerIsPartOfKey() {
+		Optimizer optimizer = new DefaultOptimizer(new DefaultOptimizerInfo());
+		GreqlQueryCache cache = new GreqlQueryCache(optimizer);
+		GreqlQuery q1 = cache.getQuery("1 + 2");
+		assertSame(q1, cache.getQuery("1 + 2", optimizer));
+		assertNotSame(q1, cache.getQuery("1 + 2", null));
+		assertNotSame(q1, cache.getQuery("1 + 2", new DefaultOptimizer(
+				new DefaultOptimizerInfo())));
+	}
+
+	@Test
+	public void testEvictionBySize() {
+		GreqlQueryCache cache = new GreqlQueryCache(null, 4, Long.MAX_VALUE);
+		for (int i = 0; i < 100; i++) {
+			cache.getQuery(i + " + 1");
+		}
+		assertTrue(cache.size() <= 4);
+		assertEquals(100 - cache.size(), cache.getEvictionCount());
+	}
+
+	@Test
+	public void testEvictionByWeight() {
+		GreqlQueryCache cache = new GreqlQueryCache(null, 100, 50);
+		for (int i = 0; i < 100; i++) {
+			cache.getQuery(i + " + 1");
+		}
+		assertTrue(cache.size() > 0);
+		assertTrue(cache.getWeight() <= 50);
+		assertTrue(cache.getEvictionCount() > 0);
+	}
+}
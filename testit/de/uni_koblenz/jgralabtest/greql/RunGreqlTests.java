@@ -6,15 +6,18 @@ import org.junit.runners.Suite;
 import de.uni_koblenz.jgralabtest.greql.evaluator.RunVertexEvaluatorTests;
 import de.uni_koblenz.jgralabtest.greql.exception.ExceptionTest;
 import de.uni_koblenz.jgralabtest.greql.funlib.RunFunlibTests;
+import de.uni_koblenz.jgralabtest.greql.optimizer.GraphStatisticsTest;
 import de.uni_koblenz.jgralabtest.greql.optimizer.OptimizerTest;
 import de.uni_koblenz.jgralabtest.greql.parallel.ParallelTest;
 import de.uni_koblenz.jgralabtest.greql.types.TypeCollectionTest;
+import de.uni_koblenz.jgralabtest.greql.types.VertexStateIdQueueTest;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({ TypeCollectionTest.class, ExceptionTest.class,
 		RunFunlibTests.class, RunVertexEvaluatorTests.class,
-		OptimizerTest.class, ThisLiteralTest.class,
-		GreqlQueryFunctionTest.class, ParallelTest.class })
+		OptimizerTest.class, GraphStatisticsTest.class, ThisLiteralTest.class,
+		GreqlQueryFunctionTest.class, ParallelTest.class,
+		GreqlQueryCacheTest.class, VertexStateIdQueueTest.class })
 public class RunGreqlTests {
 
 }
@@ -0,0 +1,222 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+
+package de.uni_koblenz.jgralabtest.greql.evaluator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.WeakReference;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.pcollections.PSet;
+
+import de.uni_koblenz.jgralab.Graph;
+import de.uni_koblenz.jgralab.ImplementationType;
+import de.uni_koblenz.jgralab.JGraLab;
+import de.uni_koblenz.jgralab.Vertex;
+import de.uni_koblenz.jgralab.greql.evaluator.GraphIndex;
+import de.uni_koblenz.jgralab.greql.types.TypeCollection;
+import de.uni_koblenz.jgralab.schema.AggregationKind;
+import de.uni_koblenz.jgralab.schema.EdgeClass;
+import de.uni_koblenz.jgralab.schema.GraphClass;
+import de.uni_koblenz.jgralab.schema.Schema;
+import de.uni_koblenz.jgralab.schema.VertexClass;
+import de.uni_koblenz.jgralab.schema.impl.SchemaImpl;
+
+public class GraphIndexTest {
+	private static Schema schema;
+	private static VertexClass va;
+	private static VertexClass vb;
+	private static EdgeClass ee;
+
+	private Graph graph;
+	private GraphIndex index;
+	private TypeCollection typeA;
+
+	@BeforeClass
+	public static void setUpClass() {
+		schema = new SchemaImpl("GraphIndexTestSchema",
+				"de.uni_koblenz.jgralab.testit.greql");
+		GraphClass gc = schema.createGraphClass("TestGraph");
+		va = gc.createVertexClass("A");
+		vb = gc.createVertexClass("B");
+		va.createAttribute("name", schema.getStringDomain());
+		ee = gc.createEdgeClass("E", va, 0, Integer.MAX_VALUE, "",
+				AggregationKind.NONE, vb, 0, Integer.MAX_VALUE, "",
+				AggregationKind.NONE);
+		schema.finish();
+	}
+
+	@Before
+	public void setUp() {
+		graph = schema.createGraph(ImplementationType.GENERIC);
+		graph.createVertex(va);
+		graph.createVertex(vb);
+		index = new GraphIndex(graph);
+		typeA = TypeCollection.empty().with("A", true, false)
+				.bindToSchema(schema);
+		PSet<Vertex> as = JGraLab.set();
+		for (Vertex v : graph.vertices(va)) {
+			as = as.plus(v);
+		}
+		index.addVertexSet("V{A!}", typeA, as);
+		index.addVertexSet("from v:V with v.name = 'x' report v end",
+				JGraLab.<Vertex> set());
+	}
+
+	@Test
+	public void testTypedSetsArePatched() {
+		Vertex a2 = graph.createVertex(va);
+		graph.createVertex(vb);
+		assertTrue(index.isValid(graph));
+		PSet<Vertex> as = index.getVertexSet("V{A!}");
+		assertEquals(2, as.size());
+		assertTrue(as.contains(a2));
+
+		graph.getFirstVertex(va).delete();
+		assertTrue(index.isValid(graph));
+		as = index.getVertexSet("V{A!}");
+		assertEquals(1, as.size());
+		assertTrue(as.contains(a2));
+	}
+
+	@Test
+	public void testUntypedSetsAreDropped() {
+		graph.createEdge(ee, graph.getFirstVertex(va), graph.getFirstVertex(vb));
+		assertTrue(index.isValid(graph));
+		assertNull(index.getVertexSet("from v:V with v.name = 'x' report v end"));
+		assertEquals(1, index.getVertexSet("V{A!}").size());
+	}
+
+	@Test
+	public void testAttributeChanges() {
+		graph.getFirstVertex(va).setAttribute("name", "x");
+		assertTrue(index.isValid(graph));
+		assertNull(index.getVertexSet("from v:V with v.name = 'x' report v end"));
+		assertEquals(1, index.getVertexSet("V{A!}").size());
+	}
+
+	@Test
+	public void testDispose() {
+		index.dispose();
+		assertFalse(index.isValid(graph));
+		assertNull(index.getVertexSet("V{A!}"));
+	}
+
+	@Test
+	public void testDisposedIndexIsReleased() {
+		WeakReference<GraphIndex> ref = new WeakReference<>(index);
+		index.dispose();
+		index = null;
+		assertReleased(ref);
+	}
+
+	@Test
+	public void testUnusedIndexIsReleased() {
+		// no vertex set is added, so the index doesn't register at the graph
+		WeakReference<GraphIndex> ref = new WeakReference<>(new GraphIndex(
+				graph));
+		assertReleased(ref);
+	}
+
+	@Test
+	public void testConcurrentAccess() throws Exception {
+		final Vertex b = graph.getFirstVertex(vb);
+		final Throwable[] failure = new Throwable[1];
+		Thread[] readers = new Thread[3];
+		for (int t = 0; t < readers.length; t++) {
+			final int n = t;
+			readers[t] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						for (int i = 0; i < 20000; i++) {
+							index.getVertexSet("V{A!}");
+							index.addVertexSet("V{B}" + n + "_" + (i % 50),
+									JGraLab.<Vertex> set().plus(b));
+							if (i % 100 == 0) {
+								index.reduceIndexSize(25);
+							}
+						}
+					} catch (Throwable e) {
+						synchronized (failure) {
+							failure[0] = e;
+						}
+					}
+				}
+			};
+			readers[t].start();
+		}
+		try {
+			for (int i = 0; i < 5000; i++) {
+				Vertex a = graph.createVertex(va);
+				graph.createEdge(ee, a, b);
+				if (i % 2 == 0) {
+					a.delete();
+				}
+			}
+		} finally {
+			for (Thread reader : readers) {
+				reader.join();
+			}
+		}
+		synchronized (failure) {
+			if (failure[0] != null) {
+				throw new AssertionError(failure[0]);
+			}
+		}
+		assertTrue(index.isValid(graph));
+		PSet<Vertex> as = index.getVertexSet("V{A!}");
+		if (as != null) {
+			assertEquals(graph.getVCount() - 1, as.size());
+			for (Vertex v : graph.vertices(va)) {
+				assertTrue(as.contains(v));
+			}
+		}
+	}
+
+	private void assertReleased(WeakReference<GraphIndex> ref) {
+		for (int i = 0; (i < 20) && (ref.get() != null); i++) {
+			System.gc();
+			graph.createVertex(vb);
+		}
+		assertNull(ref.get());
+	}
+}
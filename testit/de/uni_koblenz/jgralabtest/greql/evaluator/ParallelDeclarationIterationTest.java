@@ -0,0 +1,125 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralabtest.greql.evaluator;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.uni_koblenz.jgralab.Graph;
+import de.uni_koblenz.jgralab.greql.GreqlQuery;
+import de.uni_koblenz.jgralab.greql.evaluator.GreqlEvaluatorImpl;
+import de.uni_koblenz.jgralabtest.greql.GenericTest;
+
+/**
+ * Checks that comprehensions and quantified expressions evaluated with a
+ * partitioned outermost declaration yield the same results as a sequential
+ * evaluation.
+ */
+public class ParallelDeclarationIterationTest {
+
+	private Graph graph;
+
+	private int oldThreshold;
+
+	@Before
+	public void setUp() throws Exception {
+		graph = GenericTest.createTestGraph();
+		oldThreshold = GreqlEvaluatorImpl.PARALLEL_DECLARATION_THRESHOLD;
+		// partition every declaration
+		GreqlEvaluatorImpl.PARALLEL_DECLARATION_THRESHOLD = 2;
+	}
+
+	@After
+	public void tearDown() {
+		GreqlEvaluatorImpl.PARALLEL_DECLARATION_EVALUATION = false;
+		GreqlEvaluatorImpl.PARALLEL_DECLARATION_THRESHOLD = oldThreshold;
+	}
+
+	private void assertSameResult(String queryText) {
+		GreqlQuery query = GreqlQuery.createQuery(queryText);
+		GreqlEvaluatorImpl.PARALLEL_DECLARATION_EVALUATION = false;
+		Object expected = query.evaluate(graph);
+		GreqlEvaluatorImpl.PARALLEL_DECLARATION_EVALUATION = true;
+		assertEquals(expected, query.evaluate(graph));
+		assertEquals(expected,
+				GreqlQuery.createQuery(queryText).evaluate(graph));
+	}
+
+	@Test
+	public void testListComprehension() {
+		assertSameResult("from c:V{junctions.Crossroad}, x:list(1..3) "
+				+ "with degree(c) > 1 reportList c, x, c --> end");
+	}
+
+	@Test
+	public void testTable() {
+		assertSameResult("from c:V{junctions.Crossroad} "
+				+ "report c as \"Crossroad\", degree(c) as \"Degree\" end");
+	}
+
+	@Test
+	public void testSetComprehension() {
+		assertSameResult("from v:V reportSet degree(v) end");
+		assertSameResult("from c:V{junctions.Crossroad} reportSet "
+				+ "from e:edgesConnected(c) reportSet id(e) end end");
+	}
+
+	@Test
+	public void testMaxCount() {
+		assertSameResult("from n:list(1..1000) with n % 7 = 0 "
+				+ "reportListN 10: n end");
+		assertSameResult("from n:list(1..1000) reportSetN 10: n % 13 end");
+	}
+
+	@Test
+	public void testMapComprehension() {
+		assertSameResult("from n:list(1..1000) reportMap n % 17 -> n end");
+		assertSameResult("from v:V reportMap v -> v <>-- end");
+	}
+
+	@Test
+	public void testQuantifiedExpressions() {
+		assertSameResult("exists c:V{junctions.Crossroad} @ degree(c) > 2");
+		assertSameResult("exists n:list(1..1000) @ n > 1000");
+		assertSameResult("forall v:V @ degree(v) >= 0");
+		assertSameResult("forall n:list(1..1000) @ n < 1000");
+		assertSameResult("exists! n:list(1..1000) @ n = 500");
+		assertSameResult("exists! n:list(1..1000) @ n > 998");
+		assertSameResult("exists! n:list(1..1000) @ n > 1000");
+	}
+}
@@ -3,9 +3,17 @@ package de.uni_koblenz.jgralabtest.greql.evaluator;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -17,12 +25,17 @@ import de.uni_koblenz.jgralab.GraphIO;
 import de.uni_koblenz.jgralab.ImplementationType;
 import de.uni_koblenz.jgralab.Vertex;
 import de.uni_koblenz.jgralab.exception.GraphIOException;
+import de.uni_koblenz.jgralab.greql.GreqlEnvironment;
 import de.uni_koblenz.jgralab.greql.GreqlQuery;
+import de.uni_koblenz.jgralab.greql.evaluator.GreqlEnvironmentAdapter;
+import de.uni_koblenz.jgralab.greql.evaluator.GreqlQueryImpl;
+import de.uni_koblenz.jgralab.greql.evaluator.fa.DFA;
 import de.uni_koblenz.jgralab.greql.exception.GreqlException;
 import de.uni_koblenz.jgralab.greql.exception.ParsingException;
 import de.uni_koblenz.jgralab.greql.exception.UnknownTypeException;
 import de.uni_koblenz.jgralab.greql.executable.ExecutableQuery;
 import de.uni_koblenz.jgralab.greql.executable.GreqlCodeGenerator;
+import de.uni_koblenz.jgralab.greql.schema.ForwardVertexSet;
 
 public class PathExpressionTest {
 
@@ -1197,4 +1210,55 @@ public class PathExpressionTest {
 		erg = generatedQuery.newInstance().execute(datagraph);
 		checkResultSet(erg, 154, "name", "Frankfurt am Main");
 	}
+
+	@Test
+	public void testSearchAutomatonIsShared() {
+		String queryText = "import localities.*; using v: v --> &{City}";
+		GreqlQueryImpl query = (GreqlQueryImpl) GreqlQuery
+				.createQuery(queryText);
+		ForwardVertexSet fvs = query.getQueryGraph().getFirstForwardVertexSet();
+		assertNull(query.getSharedAutomaton(fvs, datagraph.getSchema()));
+
+		GreqlEnvironment environment = new GreqlEnvironmentAdapter();
+		environment.setVariable("v", datagraph.getVertex(144));
+		Object result = query.evaluate(datagraph, environment);
+		assertEquals(GreqlQuery.createQuery(queryText).evaluate(datagraph,
+				environment), result);
+		DFA dfa = query.getSharedAutomaton(fvs, datagraph.getSchema());
+		assertNotNull(dfa);
+
+		environment.setVariable("v", datagraph.getVertex(19));
+		result = query.evaluate(datagraph, environment);
+		assertEquals(GreqlQuery.createQuery(queryText).evaluate(datagraph,
+				environment), result);
+		assertSame(dfa, query.getSharedAutomaton(fvs, datagraph.getSchema()));
+	}
+
+	@Test
+	public void testSearchAutomatonIsSharedByThreads() throws Exception {
+		final String queryText = "using v: v <--{localities.ContainsLocality}";
+		final GreqlQuery query = GreqlQuery.createQuery(queryText);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Boolean>> futures = new ArrayList<>();
+			for (int i = 0; i < 40; i++) {
+				final Vertex v = datagraph.getVertex(1 + i % 20);
+				futures.add(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() {
+						GreqlEnvironment environment = new GreqlEnvironmentAdapter();
+						environment.setVariable("v", v);
+						return GreqlQuery.createQuery(queryText)
+								.evaluate(datagraph, environment)
+								.equals(query.evaluate(datagraph, environment));
+					}
+				}));
+			}
+			for (Future<Boolean> f : futures) {
+				assertTrue(f.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
 }
@@ -20,7 +20,9 @@ import de.uni_koblenz.jgralab.greql.evaluator.vertexeval.VertexEvaluator;
 @Suite.SuiteClasses({ LiteralEvaluatorTest.class,
 		CollectionEvaluatorTest.class, VariableEvaluatorTest.class,
 		PathExpressionTest.class, PathSystemTest.class,
-		ResidualEvaluatorTest.class, SubgraphEvaluatorTest.class })
+		ResidualEvaluatorTest.class, SubgraphEvaluatorTest.class,
+		GraphIndexTest.class, ParallelDeclarationIterationTest.class,
+		StreamingEvaluationTest.class })
 public class RunVertexEvaluatorTests {
 
 }
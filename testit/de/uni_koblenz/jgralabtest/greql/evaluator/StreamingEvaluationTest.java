@@ -0,0 +1,141 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralabtest.greql.evaluator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.uni_koblenz.jgralab.Graph;
+import de.uni_koblenz.jgralab.greql.GreqlQuery;
+import de.uni_koblenz.jgralab.greql.exception.GreqlException;
+import de.uni_koblenz.jgralabtest.greql.GenericTest;
+
+/**
+ * Checks that streaming the result of a query yields the same elements in the
+ * same order as evaluating it completely, and that comprehensions are
+ * evaluated only as far as the stream is consumed.
+ */
+public class StreamingEvaluationTest {
+
+	private Graph graph;
+
+	@Before
+	public void setUp() throws Exception {
+		graph = GenericTest.createTestGraph();
+	}
+
+	private void assertSameElements(String queryText) {
+		GreqlQuery query = GreqlQuery.createQuery(queryText);
+		Object result = query.evaluate(graph);
+		List<Object> expected = new ArrayList<>();
+		if (result instanceof Collection) {
+			expected.addAll((Collection<?>) result);
+		} else if (result instanceof Map) {
+			expected.addAll(((Map<?, ?>) result).entrySet());
+		} else {
+			expected.add(result);
+		}
+		assertEquals(expected,
+				query.stream(graph).collect(Collectors.toList()));
+	}
+
+	@Test
+	public void testListComprehension() {
+		assertSameElements("from c:V{junctions.Crossroad}, x:list(1..3) "
+				+ "with degree(c) > 1 reportList c, x, c --> end");
+		assertSameElements("from c:V{junctions.Crossroad} "
+				+ "report c as \"Crossroad\", degree(c) as \"Degree\" end");
+	}
+
+	@Test
+	public void testSetComprehension() {
+		assertSameElements("from v:V reportSet degree(v) end");
+		assertSameElements("from c:V{junctions.Crossroad} reportSet "
+				+ "from e:edgesConnected(c) reportSet id(e) end end");
+	}
+
+	@Test
+	public void testMaxCount() {
+		assertSameElements("from n:list(1..1000) with n % 7 = 0 "
+				+ "reportListN 10: n end");
+		assertSameElements("from n:list(1..1000) reportSetN 10: n % 13 end");
+	}
+
+	@Test
+	public void testOtherExpressions() {
+		assertSameElements("from n:list(1..100) reportMap n % 17 -> n end");
+		assertSameElements("count(V)");
+		assertSameElements("V{junctions.Crossroad}");
+	}
+
+	@Test
+	public void testEarlyTermination() {
+		String queryText = "from n:list(0..3) reportList 6 / (2 - n) end";
+		GreqlQuery query = GreqlQuery.createQuery(queryText);
+		try {
+			query.evaluate(graph);
+			fail("Division by zero expected");
+		} catch (GreqlException e) {
+			// expected
+		}
+
+		// the third element, which fails, is never computed
+		List<Object> firstTwo = query.<Object> stream(graph).limit(2)
+				.collect(Collectors.toList());
+		assertEquals(2, firstTwo.size());
+		assertEquals(3.0, ((Number) firstTwo.get(0)).doubleValue(), 0);
+		assertEquals(6.0, ((Number) firstTwo.get(1)).doubleValue(), 0);
+
+		Iterator<Object> it = query.stream(graph).iterator();
+		it.next();
+		it.next();
+		try {
+			it.next();
+			fail("Division by zero expected");
+		} catch (GreqlException e) {
+			// expected
+		}
+	}
+}
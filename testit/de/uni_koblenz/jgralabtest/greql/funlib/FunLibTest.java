@@ -1,11 +1,16 @@
 package de.uni_koblenz.jgralabtest.greql.funlib;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
+import de.uni_koblenz.jgralab.JGraLab;
+import de.uni_koblenz.jgralab.greql.GreqlQuery;
+import de.uni_koblenz.jgralab.greql.exception.GreqlException;
 import de.uni_koblenz.jgralab.greql.funlib.FunLib;
+import de.uni_koblenz.jgralab.greql.types.Undefined;
 
 public class FunLibTest {
 	enum Color {
@@ -26,4 +31,38 @@ public class FunLibTest {
 		assertFalse((Boolean) FunLib.apply("nequals", "RED", Color.RED));
 	}
 
+	@Test
+	public void testCallSite() {
+		FunLib.CallSite add = FunLib.bind(FunLib.getFunctionInfo("add"));
+		assertEquals(3, add.apply(1, 2));
+		assertEquals(3, add.apply(1, 2));
+		assertEquals(3.5, add.apply(1.5, 2));
+		assertEquals(7L, add.apply(3L, 4));
+		assertEquals(Undefined.UNDEFINED, add.apply(1, null));
+	}
+
+	@Test
+	public void testCallSiteReselectsSignatureForOtherArgumentClasses() {
+		FunLib.CallSite equals = FunLib.bind(FunLib.getFunctionInfo("equals"));
+		assertEquals(false, equals.apply("a", 1.0));
+		// the (Object, Object) signature also accepts (Integer, Double), but
+		// the (Number, Number) signature comes first
+		assertEquals(true, equals.apply(1, 1.0));
+		assertEquals(false, equals.apply("a", 1.0));
+	}
+
+	@Test
+	public void testCallSiteInQuery() {
+		assertEquals(JGraLab.vector().plus(false).plus(true), GreqlQuery
+				.createQuery("from x : list(\"a\", 1) report x = 1.0 end")
+				.evaluate());
+	}
+
+	@Test(expected = GreqlException.class)
+	public void testCallSiteWithUnmatchedSignature() {
+		FunLib.CallSite add = FunLib.bind(FunLib.getFunctionInfo("add"));
+		add.apply(1, 2);
+		add.apply(1, true);
+	}
+
 }
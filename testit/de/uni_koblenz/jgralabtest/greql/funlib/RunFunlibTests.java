@@ -13,7 +13,7 @@ import de.uni_koblenz.jgralabtest.greql.funlib.strings.RunStringsTests;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({ RunArithmeticTests.class, RunBitopTests.class,
 		RunLogicsTests.class, RunRelationsTests.class, RunStringsTests.class,
-		RunCollectionsTests.class })
+		RunCollectionsTests.class, FunLibTest.class })
 public class RunFunlibTests {
 
 }
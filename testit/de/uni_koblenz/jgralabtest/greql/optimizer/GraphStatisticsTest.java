@@ -0,0 +1,194 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralabtest.greql.optimizer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.uni_koblenz.jgralab.Edge;
+import de.uni_koblenz.jgralab.EdgeDirection;
+import de.uni_koblenz.jgralab.Graph;
+import de.uni_koblenz.jgralab.GraphIO;
+import de.uni_koblenz.jgralab.ImplementationType;
+import de.uni_koblenz.jgralab.Vertex;
+import de.uni_koblenz.jgralab.exception.GraphIOException;
+import de.uni_koblenz.jgralab.greql.optimizer.DegreeHistogram;
+import de.uni_koblenz.jgralab.greql.optimizer.GraphOptimizerInfo;
+import de.uni_koblenz.jgralab.greql.optimizer.GraphStatistics;
+import de.uni_koblenz.jgralab.schema.EdgeClass;
+import de.uni_koblenz.jgralab.schema.Schema;
+import de.uni_koblenz.jgralab.schema.VertexClass;
+
+public class GraphStatisticsTest {
+	private Graph graph;
+	private VertexClass user;
+	private VertexClass medium;
+	private VertexClass magazin;
+	private EdgeClass loans;
+	private GraphStatistics statistics;
+
+	@Before
+	public void setUp() throws GraphIOException {
+		Schema schema = GraphIO
+				.loadSchemaFromFile("testit/testschemas/eca/SimpleLibrarySchema.tg");
+		schema.finish();
+		graph = schema.createGraph(ImplementationType.GENERIC);
+		user = schema.getGraphClass().getVertexClass("User");
+		medium = schema.getGraphClass().getVertexClass("Medium");
+		magazin = schema.getGraphClass().getVertexClass("Magazin");
+		loans = schema.getGraphClass().getEdgeClass("Loans");
+
+		// 10 users, 1000 magazines with 100 distinct years, user i loans
+		// 10 * i magazines
+		Vertex[] users = new Vertex[10];
+		for (int i = 0; i < users.length; ++i) {
+			users[i] = graph.createVertex(user);
+			users[i].setAttribute("name", "user" + i);
+		}
+		for (int i = 0; i < 1000; ++i) {
+			Vertex m = graph.createVertex(magazin);
+			m.setAttribute("year", 1900 + (i % 100));
+			if (i < 450) {
+				graph.createEdge(loans, users[i / 10 % 10], m);
+			}
+		}
+		statistics = new GraphStatistics(graph);
+	}
+
+	@After
+	public void tearDown() {
+		statistics.dispose();
+	}
+
+	@Test
+	public void testCountsAreMaintained() {
+		assertEquals(10, statistics.getCount(user, false));
+		assertEquals(0, statistics.getCount(medium, false));
+		assertEquals(1000, statistics.getCount(medium, true));
+		assertEquals(450, statistics.getCount(loans, true));
+
+		Vertex u = graph.createVertex(user);
+		Edge e = graph.createEdge(loans, u, graph.getFirstVertex(magazin));
+		assertEquals(11, statistics.getCount(user, false));
+		assertEquals(451, statistics.getCount(loans, false));
+
+		// deleting a vertex deletes its edges
+		u.delete();
+		assertEquals(10, statistics.getCount(user, false));
+		assertEquals(450, statistics.getCount(loans, false));
+		assertTrue(!e.isValid());
+	}
+
+	@Test
+	public void testDegreeHistogram() {
+		DegreeHistogram out = statistics.getDegreeHistogram(loans,
+				EdgeDirection.OUT);
+		assertEquals(1010, out.getVertexCount());
+		assertEquals(450.0 / 1010, out.getAverageDegree(), 1e-9);
+		assertEquals(50, out.getMaxDegree());
+		// users 0 to 4 loan 50 magazines, users 5 to 9 loan 40 magazines
+		assertEquals(1000, out.getVertexCount(0));
+		assertEquals(10, out.getVertexCount(6));
+
+		DegreeHistogram in = statistics.getDegreeHistogram(loans,
+				EdgeDirection.IN);
+		assertEquals(560, in.getVertexCount(0));
+		assertEquals(450, in.getVertexCount(1));
+		assertEquals(1, in.getMaxDegree());
+	}
+
+	@Test
+	public void testAttributeSketches() {
+		long distinct = statistics.getDistinctCount(magazin, "year");
+		assertTrue(distinct >= 95 && distinct <= 105);
+		// no title is set, so no value equals a given title
+		assertEquals(0.0, statistics.getEqualitySelectivity(medium, "title"),
+				0.0);
+		assertEquals(0.01, statistics.getEqualitySelectivity(magazin, "year"),
+				0.002);
+		assertEquals(0.25,
+				statistics.getRangeSelectivity(magazin, "year", 1900, 1924),
+				0.05);
+		assertEquals(0.0,
+				statistics.getRangeSelectivity(magazin, "year", 2000, 2010),
+				0.0);
+		assertTrue(Double.isNaN(statistics.getRangeSelectivity(user, "name",
+				0, 1)));
+	}
+
+	@Test
+	public void testStaleAnalysisIsRecomputed() {
+		statistics.getDegreeHistogram(loans, EdgeDirection.OUT);
+		Vertex u = graph.getFirstVertex(user);
+		for (Vertex m : graph.vertices(magazin)) {
+			graph.createEdge(loans, u, m);
+		}
+		assertTrue(statistics.getModificationsSinceAnalysis() >= 1000);
+		DegreeHistogram out = statistics.getDegreeHistogram(loans,
+				EdgeDirection.OUT);
+		assertEquals(0, statistics.getModificationsSinceAnalysis());
+		assertEquals(1050, out.getMaxDegree());
+	}
+
+	@Test
+	public void testGraphOptimizerInfo() {
+		GraphOptimizerInfo info = new GraphOptimizerInfo(statistics);
+		assertEquals(1010, info.getAverageVertexCount());
+		assertEquals(450, info.getAverageEdgeCount());
+		assertEquals(1000.0 / 1010, info.getFrequencyOfGraphElementClass(medium),
+				1e-9);
+		assertEquals(10.0 / 1010,
+				info.getFrequencyOfGraphElementClassWithoutSubclasses(user),
+				1e-9);
+		// only the 10 users have outgoing loans, the 450 loaned magazines
+		// have one incoming loan each
+		assertEquals(45.0, info.getAverageDegree(loans, EdgeDirection.OUT),
+				1e-9);
+		assertEquals(1.0, info.getAverageDegree(loans, EdgeDirection.IN),
+				1e-9);
+		assertEquals(900.0 / 460,
+				info.getAverageDegree(loans, EdgeDirection.INOUT), 1e-9);
+		assertEquals(900.0 / 460,
+				info.getAverageDegree(null, EdgeDirection.INOUT), 1e-9);
+		assertEquals(0.01, info.getEqualitySelectivity(magazin, "year"),
+				0.002);
+		// no numeric values, falls back to the default estimate
+		assertEquals(0.5, info.getRangeSelectivity(user, "name", 0, 1), 0.0);
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+
+package de.uni_koblenz.jgralabtest.greql.types;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import de.uni_koblenz.jgralab.greql.types.pathsearch.VertexStateBitSet;
+import de.uni_koblenz.jgralab.greql.types.pathsearch.VertexStateIdQueue;
+
+public class VertexStateIdQueueTest {
+
+	@Test
+	public void testQueueOrderAcrossResize() {
+		VertexStateIdQueue queue = new VertexStateIdQueue();
+		int next = 0;
+		for (int i = 0; i < 1000; i++) {
+			queue.put(i, i % 7);
+			if ((i % 3) == 0) {
+				assertTrue(queue.hasNext());
+				assertEquals(next, queue.currentVertexId);
+				assertEquals(next % 7, queue.currentState);
+				next++;
+			}
+		}
+		while (queue.hasNext()) {
+			assertEquals(next, queue.currentVertexId);
+			assertEquals(next % 7, queue.currentState);
+			next++;
+		}
+		assertEquals(1000, next);
+	}
+
+	@Test
+	public void testBitSet() {
+		VertexStateBitSet marks = new VertexStateBitSet(10, 3);
+		assertFalse(marks.isMarked(5, 1));
+		assertTrue(marks.mark(5, 1));
+		assertFalse(marks.mark(5, 1));
+		assertTrue(marks.isMarked(5, 1));
+		assertFalse(marks.isMarked(5, 0));
+		assertFalse(marks.isMarked(5, 2));
+		// ids above the expected maximum let the stripe grow
+		assertFalse(marks.isMarked(1000, 1));
+		assertTrue(marks.mark(1000, 1));
+		assertTrue(marks.isMarked(1000, 1));
+		assertTrue(marks.isMarked(5, 1));
+	}
+}
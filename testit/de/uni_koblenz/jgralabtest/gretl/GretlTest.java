@@ -36,11 +36,15 @@ package de.uni_koblenz.jgralabtest.gretl;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -51,12 +55,14 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.JUnitCore;
+import org.pcollections.PMap;
 
 import de.uni_koblenz.jgralab.AttributedElement;
 import de.uni_koblenz.jgralab.Graph;
 import de.uni_koblenz.jgralab.GraphIO;
 import de.uni_koblenz.jgralab.ImplementationType;
 import de.uni_koblenz.jgralab.JGraLab;
+import de.uni_koblenz.jgralab.Vertex;
 import de.uni_koblenz.jgralab.exception.GraphIOException;
 import de.uni_koblenz.jgralab.gretl.AddSuperClass;
 import de.uni_koblenz.jgralab.gretl.Context;
@@ -1061,6 +1067,119 @@ public class GretlTest {
 		assertEquals(sourceCopyGraph.getVCount(), targetGraph.getVCount());
 	}
 
+	@Test
+	public void parallelSequence() throws IOException {
+		targetFileName = "parallelSequence";
+		File script = new File(tmpDir + "ParallelSequence.gretl");
+		script.deleteOnExit();
+		FileWriter w = new FileWriter(script);
+		w.write("transformation ParallelSequence;\n"
+				+ "CreateVertexClass Whole <== V{Whole};\n"
+				+ "CreateVertexClass Part <== V{Part};\n"
+				+ "CreateAttribute Whole.name : String\n"
+				+ "  <== from w : V{Whole} reportMap w -> w.name end;\n"
+				+ "CreateAttribute Part.name : String\n"
+				+ "  <== from p : V{Part} reportMap p -> p.name end;\n"
+				// depends on the target graph, so it's evaluated in turn
+				+ "CreateAttribute Part.uid : Integer\n"
+				+ "  <== from p : keySet(img_Part) reportMap p -> p.uid end;\n"
+				+ "CreateEdgeClass HasPart from Whole to Part\n"
+				+ "  <== from p : V{Part} reportSet p,\n"
+				+ "        theElement(p -->{IsPartOfWholePart} -->{IsPartOfWhole}),\n"
+				+ "        p end;\n");
+		w.close();
+
+		context = new Context("de.uni_koblenz.parallelsequence.PartSchema",
+				"PartGraph");
+		context.setSourceGraph(sourceCopyGraph);
+		Graph targetGraph = new ExecuteTransformation(context, script)
+				.execute();
+
+		int wholes = 0;
+		for (Vertex v : sourceCopyGraph.vertices()) {
+			if (v instanceof Whole) {
+				wholes++;
+			}
+		}
+		List<Part> sourceParts = new ArrayList<>();
+		for (Vertex v : sourceCopyGraph.vertices()) {
+			if (v instanceof Part) {
+				sourceParts.add((Part) v);
+			}
+		}
+		assertEquals(wholes + sourceParts.size(), targetGraph.getVCount());
+		assertEquals(sourceParts.size(), targetGraph.getECount());
+
+		VertexClass part = targetGraph.getGraphClass().getVertexClass("Part");
+		for (Part p : sourceParts) {
+			AttributedElement<?, ?> img = context.getImg(part).get(p);
+			assertEquals(p.get_name(), img.getAttribute("name"));
+			assertEquals((Object) p.get_uid(), img.getAttribute("uid"));
+			assertEquals(1, ((Vertex) img).getDegree());
+		}
+	}
+
+	@Test
+	public void traceMappings() {
+		targetFileName = "traceMappings";
+		context = new Context("de.uni_koblenz.tracemappings.CopySchema",
+				"CopyGraph");
+		context.setSourceGraph(sourceCopyGraph);
+		new CopyTransformation(context).execute();
+
+		VertexClass whole = context.getTargetSchema().getGraphClass()
+				.getVertexClass("Whole");
+		PMap<Object, AttributedElement<?, ?>> img = context.getImg(whole);
+		PMap<AttributedElement<?, ?>, Object> arch = context.getArch(whole);
+		// unchanged traces are frozen only once
+		assertSame(img, context.getImg(whole));
+		assertSame(arch, context.getArch(whole));
+
+		// the frozen traces keep the creation order and are inverse to each
+		// other
+		List<Object> archetypes = new ArrayList<>();
+		for (Vertex v : sourceCopyGraph.vertices(sourceCopyGraph.getSchema()
+				.getGraphClass().getVertexClass("Whole"))) {
+			archetypes.add(v);
+		}
+		assertEquals(archetypes, new ArrayList<>(img.keySet()));
+		assertEquals(archetypes, new ArrayList<>(arch.values()));
+		for (Object a : archetypes) {
+			assertEquals(a, arch.get(img.get(a)));
+		}
+		context.validateMappings();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void queryCache() throws Exception {
+		targetFileName = "queryCache";
+		context = new Context("de.uni_koblenz.querycache.CopySchema",
+				"CopyGraph");
+		context.setSourceGraph(sourceCopyGraph);
+		new CopyTransformation(context).execute();
+
+		Field queryCache = Context.class.getDeclaredField("queryCache");
+		queryCache.setAccessible(true);
+		Map<String, Object> cache = (Map<String, Object>) queryCache
+				.get(context);
+		int size = cache.size();
+		assertTrue(size > 0);
+
+		String query = "#target# count(V{Whole})";
+		Object count = context.evaluateGReQLQuery(query);
+		assertEquals(size + 1, cache.size());
+		assertEquals(count, context.evaluateGReQLQuery(query));
+		assertEquals(size + 1, cache.size());
+
+		// bound variables are passed to the cached query on each evaluation
+		query = "#target# from w: V{Whole} report img_Whole[w] end";
+		Object images = context.evaluateGReQLQuery(query);
+		assertEquals(size + 2, cache.size());
+		assertEquals(images, context.evaluateGReQLQuery(query));
+		assertEquals(size + 2, cache.size());
+	}
+
 	@Test
 	public void simpleCopyTransformation1() {
 		targetFileName = "simpleCopyTransformation1";
@@ -0,0 +1,307 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralabtest.instancetest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import de.uni_koblenz.jgralab.Edge;
+import de.uni_koblenz.jgralab.Graph;
+import de.uni_koblenz.jgralab.GraphIO;
+import de.uni_koblenz.jgralab.ImplementationType;
+import de.uni_koblenz.jgralab.TemporaryVertex;
+import de.uni_koblenz.jgralab.Vertex;
+import de.uni_koblenz.jgralab.exception.GraphIOException;
+import de.uni_koblenz.jgralab.impl.InternalGraph;
+import de.uni_koblenz.jgralab.impl.compact.GraphImpl;
+import de.uni_koblenz.jgralab.schema.EdgeClass;
+import de.uni_koblenz.jgralab.schema.Schema;
+import de.uni_koblenz.jgralab.schema.VertexClass;
+import de.uni_koblenz.jgralab.schema.codegenerator.CodeGeneratorConfiguration;
+import de.uni_koblenz.jgralab.schema.impl.compilation.SchemaClassManager;
+
+/**
+ * Tests the compact implementation by applying the same random modifications
+ * to a compact and a generic graph and comparing their structure.
+ */
+public class CompactImplementationTest {
+	private static final String SCHEMA = "TGraph 2;\n"
+			+ "Schema de.uni_koblenz.jgralabtest.schemas.compact.CompactTestSchema;\n"
+			+ "GraphClass CompactGraph;\n"
+			+ "VertexClass Node { name: String };\n"
+			+ "EdgeClass Link from Node (0,*) role source to Node (0,*) role target { weight: Integer };\n";
+
+	private static Schema schema;
+	private static VertexClass node;
+	private static EdgeClass link;
+
+	@BeforeClass
+	public static void setUpClass() throws Exception {
+		Schema s = GraphIO.loadSchemaFromStream(new ByteArrayInputStream(SCHEMA
+				.getBytes()));
+		s.compile(new CodeGeneratorConfiguration(
+				CodeGeneratorConfiguration.MINIMAL).withCompactImplementation());
+		Class<?> schemaClass = Class.forName(s.getQualifiedName(), true,
+				SchemaClassManager.instance(s.getQualifiedName()));
+		schema = (Schema) schemaClass.getMethod("instance").invoke(null);
+		node = schema.getGraphClass().getVertexClass("Node");
+		link = schema.getGraphClass().getEdgeClass("Link");
+	}
+
+	private static String structure(Graph g) {
+		StringBuilder sb = new StringBuilder();
+		for (Vertex v : g.vertices()) {
+			sb.append('v').append(v.getId()).append('[');
+			for (Edge e : v.incidences()) {
+				sb.append(e.getId()).append(' ');
+			}
+			sb.append("] ");
+		}
+		sb.append('\n');
+		for (Edge e : g.edges()) {
+			sb.append('e').append(e.getId()).append('(')
+					.append(e.getAlpha().getId()).append("->")
+					.append(e.getOmega().getId()).append(") ");
+		}
+		return sb.toString();
+	}
+
+	private static void checkConsistency(Graph g) {
+		int count = 0;
+		Vertex prev = null;
+		for (Vertex v = g.getFirstVertex(); v != null; v = v.getNextVertex()) {
+			assertSame(prev, v.getPrevVertex());
+			assertSame(v, g.getVertex(v.getId()));
+			Edge prevIncidence = null;
+			for (Edge e = v.getFirstIncidence(); e != null; e = e
+					.getNextIncidence()) {
+				assertSame(v, e.getThis());
+				assertSame(prevIncidence, e.getPrevIncidence());
+				prevIncidence = e;
+			}
+			assertSame(prevIncidence, v.getLastIncidence());
+			prev = v;
+			++count;
+		}
+		assertSame(prev, g.getLastVertex());
+		assertEquals(g.getVCount(), count);
+		count = 0;
+		Edge prevEdge = null;
+		for (Edge e = g.getFirstEdge(); e != null; e = e.getNextEdge()) {
+			assertSame(prevEdge, e.getPrevEdge());
+			assertSame(e, g.getEdge(e.getId()));
+			assertSame(e.getReversedEdge(), g.getEdge(-e.getId()));
+			prevEdge = e;
+			++count;
+		}
+		assertSame(prevEdge, g.getLastEdge());
+		assertEquals(g.getECount(), count);
+	}
+
+	private static List<Integer> ids(Iterable<? extends Object> elements) {
+		List<Integer> result = new ArrayList<>();
+		for (Object o : elements) {
+			result.add(o instanceof Vertex ? ((Vertex) o).getId() : ((Edge) o)
+					.getId());
+		}
+		return result;
+	}
+
+	@Test
+	public void testCompactGraphIsCreated() {
+		Graph g = schema.createGraph(ImplementationType.COMPACT);
+		assertTrue(g instanceof GraphImpl);
+		Vertex v = g.createVertex(node);
+		Vertex w = g.createVertex(node);
+		Edge e = g.createEdge(link, v, w);
+		assertSame(v, e.getAlpha());
+		assertSame(w, e.getOmega());
+		assertSame(e, v.getFirstIncidence());
+		assertSame(e.getReversedEdge(), w.getFirstIncidence());
+		checkConsistency(g);
+	}
+
+	@Test
+	public void testSameStructureAsGenericImplementation() throws Exception {
+		Graph c = schema.createGraph(ImplementationType.COMPACT, null, 4, 4);
+		Graph r = schema.createGraph(ImplementationType.GENERIC, null, 4, 4);
+		Random rnd = new Random(42);
+		for (Graph g : new Graph[] { c, r }) {
+			for (int i = 0; i < 60; ++i) {
+				g.createVertex(node).setAttribute("name", "v" + i);
+			}
+		}
+		for (int i = 0; i < 300; ++i) {
+			int a = rnd.nextInt(60) + 1;
+			int o = rnd.nextInt(60) + 1;
+			for (Graph g : new Graph[] { c, r }) {
+				g.createEdge(link, g.getVertex(a), g.getVertex(o))
+						.setAttribute("weight", i);
+			}
+		}
+		assertEquals(structure(r), structure(c));
+
+		for (int i = 0; i < 400; ++i) {
+			List<Integer> vIds = ids(r.vertices());
+			List<Integer> eIds = ids(r.edges());
+			int op = rnd.nextInt(8);
+			int v1 = vIds.get(rnd.nextInt(vIds.size()));
+			int v2 = vIds.get(rnd.nextInt(vIds.size()));
+			int e1 = eIds.isEmpty() ? 0 : eIds.get(rnd.nextInt(eIds.size()));
+			int e2 = eIds.isEmpty() ? 0 : eIds.get(rnd.nextInt(eIds.size()));
+			for (Graph g : new Graph[] { c, r }) {
+				switch (op) {
+				case 0:
+					if (vIds.size() > 10) {
+						g.getVertex(v1).delete();
+					}
+					break;
+				case 1:
+					if (e1 != 0) {
+						g.getEdge(e1).delete();
+					}
+					break;
+				case 2:
+					g.createEdge(link, g.getVertex(v1), g.getVertex(v2));
+					break;
+				case 3:
+					if (v1 != v2) {
+						g.getVertex(v1).putBefore(g.getVertex(v2));
+					}
+					break;
+				case 4:
+					if ((e1 != 0) && (e1 != e2)) {
+						g.getEdge(e1).putAfterEdge(g.getEdge(e2));
+					}
+					break;
+				case 5:
+					if (e1 != 0) {
+						Edge e = g.getEdge(e1);
+						Edge f = e.getThis().getLastIncidence();
+						if (e != f) {
+							e.putIncidenceAfter(f);
+						}
+					}
+					break;
+				case 6:
+					if (e1 != 0) {
+						g.getEdge(e1).setOmega(g.getVertex(v2));
+					}
+					break;
+				default:
+					g.createVertex(node);
+				}
+			}
+		}
+		checkConsistency(c);
+		assertEquals(structure(r), structure(c));
+
+		((InternalGraph) c).defragment();
+		((InternalGraph) r).defragment();
+		checkConsistency(c);
+		assertEquals(structure(r), structure(c));
+		assertNull(c.getVertex(c.getVCount() + 1));
+	}
+
+	@Test
+	public void testLoopsSurviveDefragmentation() {
+		Graph g = schema.createGraph(ImplementationType.COMPACT, null, 4, 4);
+		Vertex v = g.createVertex(node);
+		Vertex w = g.createVertex(node);
+		Edge e1 = g.createEdge(link, v, w);
+		Edge loop1 = g.createEdge(link, w, w);
+		Edge e2 = g.createEdge(link, w, v);
+		Edge loop2 = g.createEdge(link, w, w);
+		e1.delete();
+		e2.delete();
+		v.delete();
+		((InternalGraph) g).defragment();
+		checkConsistency(g);
+		assertEquals(1, w.getId());
+		assertEquals(2, g.getECount());
+		assertEquals(Arrays.asList(loop1.getId(), -loop1.getId(),
+				loop2.getId(), -loop2.getId()), ids(w.incidences()));
+	}
+
+	@Test
+	public void testBlessTemporaryVertex() {
+		Graph g = schema.createGraph(ImplementationType.COMPACT);
+		Vertex v = g.createVertex(node);
+		TemporaryVertex t = g.createTemporaryVertex();
+		Vertex w = g.createVertex(node);
+		Edge e = g.createEdge(link, v, w);
+		g.createTemporaryEdge(v, t);
+		Vertex b = t.bless(node);
+		assertFalse(b instanceof TemporaryVertex);
+		assertEquals(2, b.getId());
+		assertSame(b, w.getPrevVertex());
+		assertSame(e, v.getFirstIncidence());
+		assertEquals(1, b.getDegree());
+	}
+
+	@Test
+	public void testSaveAndLoad() throws GraphIOException {
+		Graph g = schema.createGraph(ImplementationType.COMPACT);
+		Vertex v = g.createVertex(node);
+		Vertex w = g.createVertex(node);
+		g.createEdge(link, v, w);
+		g.createEdge(link, w, w);
+		g.createEdge(link, v, w).putIncidenceBefore(v.getFirstIncidence());
+		String filename = "testit/testdata/compactTest.tg";
+		g.save(filename);
+		try {
+			Graph h = GraphIO.loadGraphFromFile(filename,
+					ImplementationType.COMPACT, null);
+			assertTrue(h instanceof GraphImpl);
+			checkConsistency(h);
+			assertEquals(structure(g), structure(h));
+		} finally {
+			new File(filename).delete();
+		}
+	}
+}
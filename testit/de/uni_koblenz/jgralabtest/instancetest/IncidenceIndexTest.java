@@ -0,0 +1,304 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralabtest.instancetest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.uni_koblenz.jgralab.Edge;
+import de.uni_koblenz.jgralab.EdgeDirection;
+import de.uni_koblenz.jgralab.GraphElement;
+import de.uni_koblenz.jgralab.ImplementationType;
+import de.uni_koblenz.jgralab.Vertex;
+import de.uni_koblenz.jgralab.graphmarker.SubGraphMarker;
+import de.uni_koblenz.jgralab.greql.GreqlQuery;
+import de.uni_koblenz.jgralab.impl.IncidenceIterable;
+import de.uni_koblenz.jgralab.schema.EdgeClass;
+import de.uni_koblenz.jgralabtest.schemas.vertextest.C2;
+import de.uni_koblenz.jgralabtest.schemas.vertextest.D2;
+import de.uni_koblenz.jgralabtest.schemas.vertextest.VertexTestGraph;
+import de.uni_koblenz.jgralabtest.schemas.vertextest.VertexTestSchema;
+
+/**
+ * Checks that iterating the incidences of indexed vertices (see
+ * {@link de.uni_koblenz.jgralab.Graph#setIncidenceIndexThreshold(int)})
+ * yields the same edges in the same order as iterating the incidence lists.
+ */
+public class IncidenceIndexTest {
+
+	private static final int HUBS = 3;
+	private static final int NODES = 20;
+	private static final int EDGES = 300;
+
+	private VertexTestGraph g;
+	private List<EdgeClass> edgeClasses;
+	private C2[] hubs;
+	private Random rnd;
+
+	@Before
+	public void setup() {
+		rnd = new Random(4711);
+		g = VertexTestSchema.instance().createVertexTestGraph(
+				ImplementationType.STANDARD);
+		edgeClasses = VertexTestSchema.instance().getGraphClass()
+				.getEdgeClasses();
+		hubs = new C2[HUBS];
+		for (int i = 0; i < HUBS; ++i) {
+			hubs[i] = g.createC2();
+		}
+		D2[] targets = new D2[NODES];
+		C2[] sources = new C2[NODES];
+		for (int i = 0; i < NODES; ++i) {
+			targets[i] = g.createD2();
+			sources[i] = g.createC2();
+		}
+		for (int i = 0; i < EDGES; ++i) {
+			C2 hub = hubs[rnd.nextInt(HUBS)];
+			switch (rnd.nextInt(9)) {
+			case 0:
+				g.createE(hub, targets[rnd.nextInt(NODES)]);
+				break;
+			case 1:
+				g.createF(hub, targets[rnd.nextInt(NODES)]);
+				break;
+			case 2:
+				g.createG(hub, targets[rnd.nextInt(NODES)]);
+				break;
+			case 3:
+				g.createH(hub, targets[rnd.nextInt(NODES)]);
+				break;
+			case 4:
+				g.createJ(hub, targets[rnd.nextInt(NODES)]);
+				break;
+			case 5:
+				g.createK(hub, targets[rnd.nextInt(NODES)]);
+				break;
+			case 6:
+				g.createI(hub, sources[rnd.nextInt(NODES)]);
+				break;
+			case 7:
+				g.createI(sources[rnd.nextInt(NODES)], hub);
+				break;
+			default:
+				g.createI(hub, hubs[rnd.nextInt(HUBS)]);
+			}
+		}
+	}
+
+	/**
+	 * Collects the incidences, degrees and successors of all vertices for all
+	 * directions and edge classes.
+	 */
+	private Map<String, List<Object>> snapshot() {
+		Map<String, List<Object>> result = new LinkedHashMap<>();
+		for (Vertex v : g.vertices()) {
+			for (EdgeDirection dir : EdgeDirection.values()) {
+				List<Object> l = new ArrayList<>();
+				for (Edge e : v.incidences(dir)) {
+					l.add(e);
+				}
+				l.add(v.getDegree(dir));
+				result.put(v + " " + dir, l);
+				for (EdgeClass ec : edgeClasses) {
+					l = new ArrayList<>();
+					for (Edge e : v.incidences(ec, dir)) {
+						l.add(e);
+					}
+					l.add(v.getDegree(ec, dir));
+					for (Edge e = v.getFirstIncidence(ec, dir); e != null; e = e
+							.getNextIncidence(ec, dir, true)) {
+						l.add(e);
+					}
+					result.put(v + " " + ec.getQualifiedName() + " " + dir, l);
+
+					BitSet ids = new BitSet();
+					ids.set(ec.getGraphElementClassIdInSchema());
+					for (EdgeClass sub : ec.getAllSubClasses()) {
+						ids.set(sub.getGraphElementClassIdInSchema());
+					}
+					l = new ArrayList<>();
+					for (Edge e : new IncidenceIterable<>(v, ids, dir)) {
+						l.add(e);
+					}
+					result.put(v + " {" + ec.getQualifiedName() + "} " + dir, l);
+				}
+			}
+			List<Object> l = new ArrayList<>();
+			for (Edge e : v.incidences()) {
+				l.add(e);
+			}
+			result.put(v.toString(), l);
+		}
+		return result;
+	}
+
+	private void assertSameAsUnindexed() {
+		g.setIncidenceIndexThreshold(0);
+		Map<String, List<Object>> expected = snapshot();
+		g.setIncidenceIndexThreshold(8);
+		assertEquals(expected, snapshot());
+	}
+
+	@Test
+	public void testIteration() {
+		assertSameAsUnindexed();
+	}
+
+	@Test
+	public void testThreshold() {
+		assertEquals(0, g.getIncidenceIndexThreshold());
+		g.setIncidenceIndexThreshold(16);
+		assertEquals(16, g.getIncidenceIndexThreshold());
+		g.setIncidenceIndexThreshold(-1);
+		assertEquals(0, g.getIncidenceIndexThreshold());
+	}
+
+	@Test
+	public void testModifications() {
+		g.setIncidenceIndexThreshold(8);
+		snapshot();
+		List<Edge> edges = new ArrayList<>();
+		for (Edge e : g.edges()) {
+			edges.add(e);
+		}
+		for (int i = 0; i < 20; ++i) {
+			Edge e = edges.remove(rnd.nextInt(edges.size()));
+			g.deleteEdge(e);
+		}
+		assertSameAsUnindexed();
+
+		for (int i = 0; i < 20; ++i) {
+			Edge e = hubs[0].getFirstIncidence();
+			Edge other = edges.get(rnd.nextInt(edges.size()));
+			if (other.getAlpha() == hubs[0]) {
+				e.putIncidenceBefore(other);
+			} else if (other.getOmega() == hubs[0]) {
+				e.putIncidenceAfter(other.getReversedEdge());
+			}
+			g.createI(hubs[0], hubs[1]);
+		}
+		assertSameAsUnindexed();
+
+		for (Edge e : edges) {
+			if (e.isValid() && e.getAlpha() == hubs[1] && rnd.nextBoolean()) {
+				e.setAlpha(hubs[2]);
+			}
+		}
+		assertSameAsUnindexed();
+
+		Comparator<Edge> byClass = new Comparator<Edge>() {
+			@Override
+			public int compare(Edge e1, Edge e2) {
+				return e1.getAttributedElementClass().getQualifiedName()
+						.compareTo(
+								e2.getAttributedElementClass()
+										.getQualifiedName());
+			}
+		};
+		for (C2 hub : hubs) {
+			hub.sortIncidences(byClass);
+		}
+		assertSameAsUnindexed();
+	}
+
+	@Test
+	public void testTraversalContext() {
+		SubGraphMarker subgraph = new SubGraphMarker(g);
+		for (Vertex v : g.vertices()) {
+			subgraph.mark(v);
+		}
+		for (Edge e : g.edges()) {
+			if (rnd.nextBoolean()) {
+				subgraph.mark(e);
+			}
+		}
+		g.setTraversalContext(subgraph);
+		try {
+			assertSameAsUnindexed();
+		} finally {
+			g.setTraversalContext(null);
+		}
+	}
+
+	@Test
+	public void testPathSearch() {
+		String[] queries = {
+				"from v: V{C2} reportMap v -> v -->{F, J} end",
+				"from v: V{C2} reportMap v -> v (-->{H} | <--{I})* end",
+				"from v: V{D2} reportMap v -> v <--{H}+ end",
+				"from v: V{C2}, w: V{D2} with v (-->{G} <--{K})* w "
+						+ "report v, w end",
+				"from v: V{C2} reportMap v -> pathSystem(v, -->{H!} <->{I}) end" };
+		for (String query : queries) {
+			g.setIncidenceIndexThreshold(0);
+			Object expected = GreqlQuery.createQuery(query).evaluate(g);
+			g.setIncidenceIndexThreshold(8);
+			Object actual = GreqlQuery.createQuery(query).evaluate(g);
+			assertEquals(query, expected, actual);
+		}
+		assertTrue(hubs[0].getDegree() > 8);
+	}
+
+	@Test
+	public void testSlice() {
+		String query = "slice(V{D2}, <--{F} <--{I})";
+		g.setIncidenceIndexThreshold(0);
+		List<GraphElement<?, ?>> expected = new ArrayList<>();
+		for (GraphElement<?, ?> e : ((SubGraphMarker) GreqlQuery.createQuery(
+				query).evaluate(g)).getMarkedElements()) {
+			expected.add(e);
+		}
+		g.setIncidenceIndexThreshold(8);
+		List<GraphElement<?, ?>> actual = new ArrayList<>();
+		for (GraphElement<?, ?> e : ((SubGraphMarker) GreqlQuery.createQuery(
+				query).evaluate(g)).getMarkedElements()) {
+			actual.add(e);
+		}
+		assertFalse(expected.isEmpty());
+		assertEquals(expected, actual);
+	}
+}
@@ -69,7 +69,8 @@ import de.uni_koblenz.jgralabtest.instancetest.internal.RunInternalTests;
 		GraphStructureChangedListenerTest.class, DefaultValueTest.class,
 		RunGraphMarkerTests.class, TraversalContextTest.class,
 		TraversalContextMultipleThreadsTest.class, RunInternalTests.class,
-		FreeIndexListTest.class })
+		FreeIndexListTest.class, CompactImplementationTest.class,
+		IncidenceIndexTest.class, TypedSequenceTest.class })
 public class RunInstanceTests {
 
 	@BeforeClass
@@ -0,0 +1,372 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralabtest.instancetest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.uni_koblenz.jgralab.Edge;
+import de.uni_koblenz.jgralab.Graph;
+import de.uni_koblenz.jgralab.ImplementationType;
+import de.uni_koblenz.jgralab.TemporaryVertex;
+import de.uni_koblenz.jgralab.Vertex;
+import de.uni_koblenz.jgralab.graphmarker.SubGraphMarker;
+import de.uni_koblenz.jgralab.greql.GreqlQuery;
+import de.uni_koblenz.jgralab.impl.InternalGraph;
+import de.uni_koblenz.jgralab.schema.EdgeClass;
+import de.uni_koblenz.jgralab.schema.VertexClass;
+import de.uni_koblenz.jgralabtest.schemas.vertextest.A;
+import de.uni_koblenz.jgralabtest.schemas.vertextest.B;
+import de.uni_koblenz.jgralabtest.schemas.vertextest.C;
+import de.uni_koblenz.jgralabtest.schemas.vertextest.C2;
+import de.uni_koblenz.jgralabtest.schemas.vertextest.D;
+import de.uni_koblenz.jgralabtest.schemas.vertextest.D2;
+import de.uni_koblenz.jgralabtest.schemas.vertextest.F;
+import de.uni_koblenz.jgralabtest.schemas.vertextest.I;
+import de.uni_koblenz.jgralabtest.schemas.vertextest.VertexTestGraph;
+import de.uni_koblenz.jgralabtest.schemas.vertextest.VertexTestSchema;
+
+/**
+ * Checks that the typed iteration of vertices and edges yields the same
+ * elements in the same order as filtering vSeq and eSeq, while the graph is
+ * modified.
+ */
+public class TypedSequenceTest {
+
+	private static final int VERTICES = 200;
+	private static final int EDGES = 400;
+
+	private VertexTestGraph g;
+	private List<VertexClass> vertexClasses;
+	private List<EdgeClass> edgeClasses;
+	private Random rnd;
+
+	@Before
+	public void setup() {
+		rnd = new Random(42);
+		g = VertexTestSchema.instance().createVertexTestGraph(
+				ImplementationType.STANDARD);
+		g.setTypedSequenceIndexEnabled(true);
+		vertexClasses = VertexTestSchema.instance().getGraphClass()
+				.getVertexClasses();
+		edgeClasses = VertexTestSchema.instance().getGraphClass()
+				.getEdgeClasses();
+		for (int i = 0; i < VERTICES; ++i) {
+			createVertex();
+		}
+		for (int i = 0; i < EDGES; ++i) {
+			createEdge();
+		}
+	}
+
+	private Vertex createVertex() {
+		switch (rnd.nextInt(6)) {
+		case 0:
+			return g.createA();
+		case 1:
+			return g.createB();
+		case 2:
+			return g.createC();
+		case 3:
+			return g.createD();
+		case 4:
+			return g.createC2();
+		default:
+			return g.createD2();
+		}
+	}
+
+	private <T extends Vertex> T randomVertex(Class<T> cls) {
+		List<T> l = new ArrayList<>();
+		for (Vertex v : g.vertices()) {
+			if (cls.isInstance(v)) {
+				l.add(cls.cast(v));
+			}
+		}
+		return l.get(rnd.nextInt(l.size()));
+	}
+
+	private Edge createEdge() {
+		switch (rnd.nextInt(5)) {
+		case 0:
+			return g.createE(randomVertex(A.class), randomVertex(B.class));
+		case 1:
+			return g.createF(randomVertex(C.class), randomVertex(D.class));
+		case 2:
+			return g.createH(randomVertex(A.class), randomVertex(B.class));
+		case 3:
+			return g.createJ(randomVertex(C2.class), randomVertex(D2.class));
+		default:
+			return g.createI(randomVertex(A.class), randomVertex(A.class));
+		}
+	}
+
+	private void assertTypedSequences() {
+		assertTypedSequences(g);
+	}
+
+	private void assertTypedSequences(Graph g) {
+		for (VertexClass vc : vertexClasses) {
+			List<Vertex> expected = new ArrayList<>();
+			for (Vertex v : g.vertices()) {
+				if (v.isInstanceOf(vc)) {
+					expected.add(v);
+				}
+			}
+			List<Vertex> actual = new ArrayList<>();
+			for (Vertex v : g.vertices(vc)) {
+				actual.add(v);
+			}
+			assertEquals(vc.getQualifiedName(), expected, actual);
+			if (expected.isEmpty()) {
+				assertNull(g.getFirstVertex(vc));
+			} else {
+				assertSame(expected.get(0), g.getFirstVertex(vc));
+			}
+		}
+		for (EdgeClass ec : edgeClasses) {
+			List<Edge> expected = new ArrayList<>();
+			for (Edge e : g.edges()) {
+				if (e.isInstanceOf(ec)) {
+					expected.add(e);
+				}
+			}
+			List<Edge> actual = new ArrayList<>();
+			for (Edge e : g.edges(ec)) {
+				actual.add(e);
+			}
+			assertEquals(ec.getQualifiedName(), expected, actual);
+			if (!expected.isEmpty()) {
+				assertSame(expected.size() > 1 ? expected.get(1) : null,
+						expected.get(0).getReversedEdge().getNextEdge(ec));
+			}
+		}
+	}
+
+	@Test
+	public void testTypedIteration() {
+		assertTypedSequences();
+	}
+
+	@Test
+	public void testCreateAndDelete() {
+		assertTypedSequences();
+		for (int round = 0; round < 5; ++round) {
+			for (int i = 0; i < 40; ++i) {
+				g.deleteVertex(randomVertex(Vertex.class));
+			}
+			List<Edge> edges = new ArrayList<>();
+			for (Edge e : g.edges()) {
+				edges.add(e);
+			}
+			for (int i = 0; i < 20 && !edges.isEmpty(); ++i) {
+				g.deleteEdge(edges.remove(rnd.nextInt(edges.size())));
+			}
+			assertTypedSequences();
+			for (int i = 0; i < 40; ++i) {
+				createVertex();
+				createEdge();
+			}
+			assertTypedSequences();
+		}
+	}
+
+	@Test
+	public void testRearrange() {
+		assertTypedSequences();
+		for (int i = 0; i < 20; ++i) {
+			Vertex v = randomVertex(Vertex.class);
+			Vertex w = randomVertex(Vertex.class);
+			if (v != w) {
+				if (rnd.nextBoolean()) {
+					v.putBefore(w);
+				} else {
+					v.putAfter(w);
+				}
+			}
+		}
+		assertTypedSequences();
+
+		Edge e = g.getFirstEdge();
+		e.putAfterEdge(g.getLastEdge());
+		g.getLastEdge().putBeforeEdge(g.getFirstEdge());
+		assertTypedSequences();
+
+		g.sortVertices(new Comparator<Vertex>() {
+			@Override
+			public int compare(Vertex v1, Vertex v2) {
+				return v1.getAttributedElementClass().getQualifiedName()
+						.compareTo(
+								v2.getAttributedElementClass()
+										.getQualifiedName());
+			}
+		});
+		g.sortEdges(new Comparator<Edge>() {
+			@Override
+			public int compare(Edge e1, Edge e2) {
+				return Integer.compare(e2.getId(), e1.getId());
+			}
+		});
+		assertTypedSequences();
+
+		for (int i = 0; i < 50; ++i) {
+			g.deleteVertex(randomVertex(Vertex.class));
+		}
+		((InternalGraph) g).defragment();
+		assertTypedSequences();
+	}
+
+	@Test
+	public void testDisabledIndex() {
+		assertTrue(g.isTypedSequenceIndexEnabled());
+		g.setTypedSequenceIndexEnabled(false);
+		assertFalse(g.isTypedSequenceIndexEnabled());
+		assertTypedSequences();
+		for (int i = 0; i < 40; ++i) {
+			g.deleteVertex(randomVertex(Vertex.class));
+			createVertex();
+			createEdge();
+		}
+		assertTypedSequences();
+		g.setTypedSequenceIndexEnabled(true);
+		assertTypedSequences();
+	}
+
+	@Test
+	public void testGenericCreateInterleavedWithLookups() {
+		Graph generic = VertexTestSchema.instance().createGraph(
+				ImplementationType.GENERIC);
+		generic.setTypedSequenceIndexEnabled(true);
+		List<Vertex> vertices = new ArrayList<>();
+		for (int i = 0; i < VERTICES; ++i) {
+			VertexClass vc = vertexClasses.get(rnd.nextInt(vertexClasses
+					.size()));
+			if (vc.isAbstract() || vc.isDefaultGraphElementClass()) {
+				continue;
+			}
+			Vertex v = generic.createVertex(vc);
+			vertices.add(v);
+			// the index built by the first lookup must be kept up to date
+			Vertex last = null;
+			for (Vertex w : generic.vertices(vc)) {
+				last = w;
+			}
+			assertSame(v, last);
+			if (rnd.nextInt(4) == 0) {
+				Vertex alpha = vertices.get(rnd.nextInt(vertices.size()));
+				if (alpha.isInstanceOf(A.VC)) {
+					generic.createEdge(I.EC, alpha, alpha);
+				}
+			}
+		}
+		assertTypedSequences(generic);
+	}
+
+	@Test
+	public void testBless() {
+		assertTypedSequences();
+		for (int i = 0; i < 10; ++i) {
+			TemporaryVertex t = g.createTemporaryVertex();
+			g.deleteVertex(randomVertex(D2.class));
+			assertTypedSequences();
+			t.bless(D2.VC);
+			assertTypedSequences();
+		}
+	}
+
+	@Test
+	public void testTraversalContext() {
+		SubGraphMarker subgraph = new SubGraphMarker(g);
+		for (Vertex v : g.vertices()) {
+			if (rnd.nextBoolean()) {
+				subgraph.mark(v);
+			}
+		}
+		for (Edge e : g.edges()) {
+			if (subgraph.isMarked(e.getAlpha())
+					&& subgraph.isMarked(e.getOmega()) && rnd.nextBoolean()) {
+				subgraph.mark(e);
+			}
+		}
+		g.setTraversalContext(subgraph);
+		try {
+			assertTypedSequences();
+		} finally {
+			g.setTraversalContext(null);
+		}
+	}
+
+	@Test
+	public void testGreqlElementSets() {
+		List<Vertex> vertices = new ArrayList<>();
+		for (Vertex v : g.vertices()) {
+			if (v.getAttributedElementClass() == C.VC || v.isInstanceOf(D2.VC)) {
+				vertices.add(v);
+			}
+		}
+		assertEquals(vertices, new ArrayList<>((Collection<?>) GreqlQuery
+				.createQuery("V{C!, D2}").evaluate(g)));
+
+		vertices.clear();
+		for (Vertex v : g.vertices()) {
+			if (!v.isInstanceOf(A.VC)) {
+				vertices.add(v);
+			}
+		}
+		assertEquals(vertices, new ArrayList<>((Collection<?>) GreqlQuery
+				.createQuery("V{^A}").evaluate(g)));
+
+		List<Edge> edges = new ArrayList<>();
+		for (Edge e : g.edges()) {
+			if (e.isInstanceOf(F.EC) || e.isInstanceOf(I.EC)) {
+				edges.add(e);
+			}
+		}
+		assertEquals(edges, new ArrayList<>((Collection<?>) GreqlQuery
+				.createQuery("E{F, I}").evaluate(g)));
+	}
+}
@@ -0,0 +1,181 @@
+/*
+ * JGraLab - The Java Graph Laboratory
+ *
+ * Copyright (C) 2006-2014 Institute for Software Technology
+ *                         University of Koblenz-Landau, Germany
+ *                         ist@uni-koblenz.de
+ *
+ * For bug reports, documentation and further information, visit
+ *
+ *                         https://github.com/jgralab/jgralab
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation; either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ * Additional permission under GNU GPL version 3 section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with Eclipse (or a modified version of that program or an Eclipse
+ * plugin), containing parts covered by the terms of the Eclipse Public
+ * License (EPL), the licensors of this Program grant you additional
+ * permission to convey the resulting work.  Corresponding Source for a
+ * non-source form of such a combination shall include the source code for
+ * the parts of JGraLab used as well as that of the covered work.
+ */
+package de.uni_koblenz.jgralabtest.schema;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.uni_koblenz.jgralab.Graph;
+import de.uni_koblenz.jgralab.GraphIO;
+import de.uni_koblenz.jgralab.ImplementationType;
+import de.uni_koblenz.jgralab.exception.GraphIOException;
+import de.uni_koblenz.jgralab.schema.Schema;
+import de.uni_koblenz.jgralab.schema.codegenerator.CodeGeneratorConfiguration;
+import de.uni_koblenz.jgralab.schema.impl.SchemaImpl;
+import de.uni_koblenz.jgralab.schema.impl.compilation.InMemoryJavaSourceFile;
+import de.uni_koblenz.jgralab.schema.impl.compilation.SchemaClassCache;
+import de.uni_koblenz.jgralab.schema.impl.compilation.SchemaClassManager;
+import de.uni_koblenz.jgralab.utilities.tgschema2java.TgSchema2Java;
+
+public class SchemaClassCacheTest {
+	private static final String SCHEMA = "TGraph 2;"
+			+ "Schema de.uni_koblenz.jgralabtest.cachetest.CacheTestSchema;"
+			+ "GraphClass CacheTestGraph;" + "VertexClass Node { name: String };"
+			+ "EdgeClass Link from Node (0,*) to Node (0,*);";
+
+	private File cacheDir;
+
+	@Before
+	public void setUp() throws IOException {
+		cacheDir = Files.createTempDirectory("schemaclasscache").toFile();
+	}
+
+	@After
+	public void tearDown() {
+		SchemaClassCache.setDefaultDirectory(null);
+		File[] files = cacheDir.listFiles();
+		if (files != null) {
+			for (File f : files) {
+				f.delete();
+			}
+		}
+		cacheDir.delete();
+	}
+
+	private static Schema loadSchema() throws GraphIOException {
+		return GraphIO.loadSchemaFromStream(new ByteArrayInputStream(SCHEMA
+				.getBytes()));
+	}
+
+	@Test
+	public void testKeys() throws GraphIOException {
+		SchemaClassCache cache = new SchemaClassCache(cacheDir);
+		Schema s = loadSchema();
+		List<InMemoryJavaSourceFile> normal = ((SchemaImpl) s)
+				.commit(CodeGeneratorConfiguration.NORMAL);
+		List<InMemoryJavaSourceFile> minimal = ((SchemaImpl) s)
+				.commit(CodeGeneratorConfiguration.MINIMAL);
+		String key = cache.computeKey(s.getQualifiedName(),
+				CodeGeneratorConfiguration.NORMAL, normal);
+		assertTrue(key.startsWith(s.getQualifiedName() + "-"));
+		assertEquals(key, cache.computeKey(s.getQualifiedName(),
+				CodeGeneratorConfiguration.NORMAL,
+				((SchemaImpl) loadSchema())
+						.commit(CodeGeneratorConfiguration.NORMAL)));
+		assertFalse(key.equals(cache.computeKey(s.getQualifiedName(),
+				CodeGeneratorConfiguration.MINIMAL, minimal)));
+	}
+
+	@Test
+	public void testStoreAndLoad() {
+		SchemaClassCache cache = new SchemaClassCache(cacheDir);
+		assertNull(cache.load("a-0"));
+		Map<String, byte[]> classes = new HashMap<>();
+		classes.put("a.b.C", new byte[] { 1, 2, 3 });
+		classes.put("a.b.C$D", new byte[] { 4 });
+		cache.store("a-0", classes);
+		assertTrue(cache.contains("a-0"));
+		Map<String, byte[]> loaded = cache.load("a-0");
+		assertEquals(classes.keySet(), loaded.keySet());
+		for (String name : classes.keySet()) {
+			assertArrayEquals(classes.get(name), loaded.get(name));
+		}
+		// no temporary files are left behind
+		assertEquals(1, cacheDir.listFiles().length);
+	}
+
+	@Test
+	public void testPrecompileIntoCache() throws Exception {
+		File tg = File.createTempFile("cachetestschema", ".tg");
+		try {
+			Files.write(tg.toPath(), SCHEMA.getBytes());
+			TgSchema2Java t = new TgSchema2Java();
+			t.loadSchema(tg.getPath());
+			t.setTypeSpecificMethodSupport(false);
+			t.setCacheDirectory(cacheDir.getPath());
+			t.precompileIntoCache();
+		} finally {
+			tg.delete();
+		}
+		SchemaClassCache cache = new SchemaClassCache(cacheDir);
+		Schema s = loadSchema();
+		// GraphIO compiles with the minimal configuration
+		assertTrue(cache.contains(cache.computeKey(s.getQualifiedName(),
+				CodeGeneratorConfiguration.MINIMAL,
+				((SchemaImpl) s).commit(CodeGeneratorConfiguration.MINIMAL))));
+	}
+
+	@Test
+	public void testCompileUsesCache() throws Exception {
+		SchemaClassCache.setDefaultDirectory(cacheDir);
+		Schema s1 = loadSchema();
+		s1.compile(CodeGeneratorConfiguration.MINIMAL);
+		File[] entries = cacheDir.listFiles();
+		assertEquals(1, entries.length);
+		File entry = entries[0];
+		assertTrue(entry.setLastModified(1000000000L));
+
+		// a new instance of the same schema is loaded from the cache
+		Schema s2 = loadSchema();
+		s2.compile(CodeGeneratorConfiguration.MINIMAL);
+		assertEquals(1, cacheDir.listFiles().length);
+		assertEquals(1000000000L, entry.lastModified());
+
+		Schema compiled = (Schema) Class
+				.forName(s2.getQualifiedName(), true,
+						SchemaClassManager.instance(s2.getQualifiedName()))
+				.getMethod("instance").invoke(null);
+		Graph g = compiled.createGraph(ImplementationType.STANDARD);
+		assertNotNull(g.createVertex(compiled.getGraphClass().getVertexClass(
+				"Node")));
+		assertEquals(1, g.getVCount());
+	}
+}